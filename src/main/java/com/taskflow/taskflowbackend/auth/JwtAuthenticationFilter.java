@@ -7,26 +7,40 @@ import jakarta.servlet.http.HttpServletResponse;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.util.AntPathMatcher;
 
+import com.taskflow.taskflowbackend.tracing.Spans;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
 import model.User;
 import repository.UserRepository;
+import util.RequestTimings;
+import util.SingleFlight;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserRepository userRepository;
+    // Optional is immutable and the user is only read, so coalesced callers can share the result
+    private final SingleFlight<String, Optional<User>> userLookups;
+    private final Tracer tracer;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserRepository userRepository) {
+    public JwtAuthenticationFilter(JwtService jwtService, UserRepository userRepository, MeterRegistry meterRegistry,
+                                   Tracer tracer) {
         this.jwtService = jwtService;
         this.userRepository = userRepository;
+        this.tracer = tracer;
+        this.userLookups = new SingleFlight<>("user-by-username", meterRegistry);
     }
 
     @Override
@@ -36,30 +50,44 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
 
         final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
-        final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        jwt = authHeader.substring(7);
-        username = jwtService.extractUsername(jwt);
+        RequestTimings.start(RequestTimings.Phase.JWT);
+        try {
+            Spans.inSpan(tracer, "jwt.authenticate", () -> {
+                authenticate(request, authHeader.substring(7));
+                return null;
+            });
+        } finally {
+            RequestTimings.stop(RequestTimings.Phase.JWT);
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request, String jwt) {
+        final String username = jwtService.extractUsername(jwt);
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            User user = userRepository.findByUsername(username).orElse(null);
+            User user = RequestTimings.time(RequestTimings.Phase.USER_LOOKUP, () -> Spans.inSpan(tracer, "user.lookup",
+                    () -> userLookups.execute(username, () -> userRepository.findByUsername(username)).orElse(null)));
 
             if (user != null && jwtService.isTokenValid(jwt, user.getUsername())) {
+                // The stored role is the only source of authorities; tokens carry just the username
+                List<SimpleGrantedAuthority> authorities = user.getRole() == null
+                        ? List.of()
+                        : List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
                 UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(user.getUsername(), null, null);
+                        new UsernamePasswordAuthenticationToken(user.getUsername(), null, authorities);
 
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         }
-
-        filterChain.doFilter(request, response);
     }
 
     @Override
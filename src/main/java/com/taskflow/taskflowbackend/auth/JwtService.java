@@ -1,5 +1,6 @@
 package com.taskflow.taskflowbackend.auth;
 
+import com.taskflow.taskflowbackend.profiling.JwtVerificationEvent;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
@@ -54,10 +55,18 @@ public class JwtService {
     }
 
     private Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        try {
+            Claims claims = Jwts.parser()
+                    .verifyWith(getSigningKey())
+                    .build()
+                    .parseSignedClaims(token)
+                    .getPayload();
+            event.valid = true;
+            return claims;
+        } finally {
+            event.commit();
+        }
     }
 } 
\ No newline at end of file
@@ -1,31 +1,37 @@
 package com.taskflow.taskflowbackend.config;
 
 import com.taskflow.taskflowbackend.auth.JwtAuthenticationFilter;
+import com.taskflow.taskflowbackend.web.ConcurrencyLimitFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorityAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
-import java.util.Arrays;
-
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthFilter;
     private final CorsConfigurationSource corsConfigurationSource;
+    private final ConcurrencyLimitFilter concurrencyLimitFilter;
 
-    public SecurityConfig(@Lazy JwtAuthenticationFilter jwtAuthFilter, CorsConfigurationSource corsConfigurationSource) {
+    public SecurityConfig(@Lazy JwtAuthenticationFilter jwtAuthFilter, CorsConfigurationSource corsConfigurationSource,
+                          ConcurrencyLimitFilter concurrencyLimitFilter) {
         this.jwtAuthFilter = jwtAuthFilter;
         this.corsConfigurationSource = corsConfigurationSource;
+        this.concurrencyLimitFilter = concurrencyLimitFilter;
     }
 
     @Bean
@@ -34,16 +40,27 @@ public class SecurityConfig {
             .cors(cors -> cors.configurationSource(corsConfigurationSource))
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                // Async dispatches (SSE, streamed bodies) belong to a request that was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/health/**").permitAll()
                 .requestMatchers("/actuator/health/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
+                // Profiling can slow the instance down and the recordings contain heap data
+                .requestMatchers("/actuator/jfr", "/actuator/jfr/**").access(admins())
+                .requestMatchers("/actuator/todoshards/**").access(admins())
+                // Lists other users' names and the jobs deleting their accounts
+                .requestMatchers("/actuator/accountpurges", "/actuator/accountpurges/**").access(admins())
+                // Slow requests name routes and timings of everyone's traffic
+                .requestMatchers("/actuator/slowrequests", "/actuator/slowrequests/**").access(admins())
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
             .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+            // Shed excess load before any token parsing or user lookup happens
+            .addFilterBefore(concurrencyLimitFilter, JwtAuthenticationFilter.class)
             .httpBasic(httpBasic -> httpBasic.disable());
 
         return http.build();
@@ -53,6 +70,14 @@ public class SecurityConfig {
 
 
 
+    /**
+     * Users whose stored role is {@code ADMIN}. Registration always stores {@code USER}, so the
+     * role can only be granted in the users table, never claimed by picking a username.
+     */
+    private AuthorizationManager<RequestAuthorizationContext> admins() {
+        return AuthorityAuthorizationManager.hasRole("ADMIN");
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
         return config.getAuthenticationManager();
@@ -0,0 +1,184 @@
+package com.taskflow.taskflowbackend.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * On-demand Java Flight Recorder recordings, one at a time. A recording uses one of the JDK's
+ * presets ({@code default}: ~1% overhead, {@code profile}: ~2% with allocation and lock
+ * profiling) and stops by itself after {@code jfr.max-duration}. Finished recordings are
+ * written to {@code jfr.directory}, of which the newest {@code jfr.keep-recordings} are kept.
+ */
+@Component
+public class JfrRecorder {
+
+    private static final Logger logger = LogManager.getLogger(JfrRecorder.class);
+
+    private static final Set<String> TEMPLATES = Set.of("default", "profile");
+    private static final Pattern RECORDING_NAME = Pattern.compile("taskflow-\\d+");
+    private static final String EXTENSION = ".jfr";
+
+    private final Path directory;
+    private final Duration maxDuration;
+    private final DataSize maxSize;
+    private final int keepRecordings;
+    private Recording active;
+
+    public JfrRecorder(@Value("${jfr.directory:${java.io.tmpdir}/taskflow-jfr}") String directory,
+                       @Value("${jfr.max-duration:PT10M}") Duration maxDuration,
+                       @Value("${jfr.max-size:250MB}") DataSize maxSize,
+                       @Value("${jfr.keep-recordings:3}") int keepRecordings) {
+        this.directory = Path.of(directory);
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+        this.keepRecordings = keepRecordings;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown template
+     * @throws IllegalStateException    if a recording is already running
+     */
+    public synchronized Map<String, Object> start(String template) {
+        String preset = template == null || template.isBlank() ? "default" : template;
+        if (!TEMPLATES.contains(preset)) {
+            throw new IllegalArgumentException("Unknown template " + preset + ", use one of " + TEMPLATES);
+        }
+        if (isRunning()) {
+            throw new IllegalStateException("Recording " + active.getName() + " is already running");
+        }
+        try {
+            Files.createDirectories(directory);
+            prune();
+            String name = "taskflow-" + System.currentTimeMillis();
+            Recording recording = new Recording(Configuration.getConfiguration(preset));
+            recording.setName(name);
+            recording.setToDisk(true);
+            recording.setDuration(maxDuration);
+            recording.setMaxSize(maxSize.toBytes());
+            // Written here when stopped, including when max-duration ends it
+            recording.setDestination(directory.resolve(name + EXTENSION));
+            recording.start();
+            active = recording;
+            logger.info("Started JFR recording {} with template {} for at most {}", name, preset, maxDuration);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("JFR template " + preset + " is unreadable", e);
+        }
+        return status();
+    }
+
+    /**
+     * @throws IllegalStateException if no recording is running
+     */
+    public synchronized Map<String, Object> stop() {
+        if (!isRunning()) {
+            throw new IllegalStateException("No recording is running");
+        }
+        active.stop();
+        logger.info("Stopped JFR recording {}", active.getName());
+        return status();
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (active != null) {
+            Map<String, Object> current = new LinkedHashMap<>();
+            current.put("name", active.getName());
+            current.put("state", active.getState().toString());
+            current.put("startedAt", active.getStartTime() == null ? null : active.getStartTime().toString());
+            current.put("maxDuration", maxDuration.toString());
+            status.put("recording", current);
+        }
+        status.put("files", files().stream().map(JfrRecorder::describe).collect(Collectors.toList()));
+        return status;
+    }
+
+    /**
+     * A finished recording by name, never a path outside the recordings directory.
+     */
+    public synchronized Optional<Path> file(String name) {
+        if (!RECORDING_NAME.matcher(name).matches() || (isRunning() && name.equals(active.getName()))) {
+            return Optional.empty();
+        }
+        Path file = directory.resolve(name + EXTENSION);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private boolean isRunning() {
+        return active != null && (active.getState() == RecordingState.RUNNING || active.getState() == RecordingState.DELAYED);
+    }
+
+    private List<Path> files() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparing((Path path) -> path.getFileName().toString()).reversed())
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warn("Could not list JFR recordings in {}: {}", directory, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private static Map<String, Object> describe(Path file) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        String fileName = file.getFileName().toString();
+        description.put("name", fileName.substring(0, fileName.length() - EXTENSION.length()));
+        try {
+            description.put("sizeBytes", Files.size(file));
+            description.put("modifiedAt", Instant.ofEpochMilli(Files.getLastModifiedTime(file).toMillis()).toString());
+        } catch (IOException e) {
+            // Deleted while listing
+        }
+        return description;
+    }
+
+    /**
+     * Makes room for the next recording.
+     */
+    private void prune() throws IOException {
+        List<Path> files = new ArrayList<>(files());
+        for (int i = Math.max(0, keepRecordings - 1); i < files.size(); i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        if (isRunning()) {
+            // Keep what was recorded so far
+            active.stop();
+        }
+        if (active != null) {
+            active.close();
+        }
+    }
+}
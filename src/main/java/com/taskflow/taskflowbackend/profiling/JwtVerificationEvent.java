@@ -0,0 +1,22 @@
+package com.taskflow.taskflowbackend.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Parsing a JWT and verifying its signature.
+ */
+@Name("com.taskflow.JwtVerification")
+@Label("JWT Verification")
+@Category({"TaskFlow", "Auth"})
+@Description("Parsing and signature check of a JWT")
+@StackTrace(false)
+public class JwtVerificationEvent extends Event {
+
+    @Label("Valid")
+    public boolean valid;
+}
@@ -0,0 +1,22 @@
+package com.taskflow.taskflowbackend.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Hashing a password with BCrypt, or checking one against its hash.
+ */
+@Name("com.taskflow.PasswordHash")
+@Label("Password Hash")
+@Category({"TaskFlow", "Auth"})
+@Description("BCrypt encode or match of a password")
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+}
@@ -0,0 +1,28 @@
+package com.taskflow.taskflowbackend.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call into {@code TodoRepository} or {@code UserRepository}, DynamoDB round trips included.
+ */
+@Name("com.taskflow.RepositoryCall")
+@Label("Repository Call")
+@Category({"TaskFlow", "Repository"})
+@Description("Call into a todo or user repository")
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+
+    @Label("Repository")
+    String repository;
+
+    @Label("Method")
+    String method;
+
+    @Label("Failed")
+    boolean failed;
+}
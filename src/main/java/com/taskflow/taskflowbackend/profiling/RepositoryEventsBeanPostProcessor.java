@@ -0,0 +1,52 @@
+package com.taskflow.taskflowbackend.profiling;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+import repository.TodoRepository;
+import repository.UserRepository;
+
+/**
+ * Emits a {@link RepositoryCallEvent} for every call into a {@link TodoRepository} or
+ * {@link UserRepository} bean. Outside a recording the cost is one enabled check per call.
+ */
+@Component
+public class RepositoryEventsBeanPostProcessor implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof TodoRepository) && !(bean instanceof UserRepository)) {
+            return bean;
+        }
+        String repository = AopUtils.getTargetClass(bean).getSimpleName();
+        MethodInterceptor advice = invocation -> {
+            RepositoryCallEvent event = new RepositoryCallEvent();
+            if (!event.isEnabled() || invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            event.repository = repository;
+            event.method = invocation.getMethod().getName();
+            event.begin();
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                event.failed = true;
+                throw e;
+            } finally {
+                event.commit();
+            }
+        };
+        // Join an existing proxy (e.g. tracing) rather than proxying a proxy
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            ((Advised) bean).addAdvice(advice);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(advice);
+        return proxyFactory.getProxy(AopUtils.getTargetClass(bean).getClassLoader());
+    }
+}
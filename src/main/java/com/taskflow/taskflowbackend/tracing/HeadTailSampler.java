@@ -0,0 +1,71 @@
+package com.taskflow.taskflowbackend.tracing;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.trace.data.LinkData;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.sdk.trace.samplers.SamplingDecision;
+import io.opentelemetry.sdk.trace.samplers.SamplingResult;
+
+import java.util.List;
+
+/**
+ * Head sampling by trace id ratio. Traces it does not pick are still recorded, but not marked
+ * sampled, when tail sampling is on, so {@link TailSamplingSpanProcessor} can keep them once
+ * they turn out slow or failed. With both off every span is a non-recording no-op.
+ */
+final class HeadTailSampler implements Sampler {
+
+    private final Sampler head;
+    private final boolean tail;
+
+    private HeadTailSampler(double headProbability, boolean tail) {
+        this.head = Sampler.traceIdRatioBased(headProbability);
+        this.tail = tail;
+    }
+
+    /**
+     * Decides for new traces and for requests whose caller did not sample; children follow their parent.
+     */
+    static Sampler create(double headProbability, boolean tail) {
+        Sampler root = new HeadTailSampler(headProbability, tail);
+        return Sampler.parentBasedBuilder(root)
+                .setRemoteParentNotSampled(root)
+                .setLocalParentNotSampled(new FollowRecordingParent())
+                .build();
+    }
+
+    @Override
+    public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                       Attributes attributes, List<LinkData> parentLinks) {
+        SamplingResult result = head.shouldSample(parentContext, traceId, name, spanKind, attributes, parentLinks);
+        if (!tail || result.getDecision() == SamplingDecision.RECORD_AND_SAMPLE) {
+            return result;
+        }
+        return SamplingResult.recordOnly();
+    }
+
+    @Override
+    public String getDescription() {
+        return "HeadTailSampler{head=" + head.getDescription() + ",tail=" + tail + "}";
+    }
+
+    /**
+     * Records a child of an unsampled parent only while the parent is being recorded for tail sampling.
+     */
+    private static final class FollowRecordingParent implements Sampler {
+
+        @Override
+        public SamplingResult shouldSample(Context parentContext, String traceId, String name, SpanKind spanKind,
+                                           Attributes attributes, List<LinkData> parentLinks) {
+            return Span.fromContext(parentContext).isRecording() ? SamplingResult.recordOnly() : SamplingResult.drop();
+        }
+
+        @Override
+        public String getDescription() {
+            return "FollowRecordingParent";
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.taskflow.taskflowbackend.tracing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Tracing glue for the Lambda handler, which lives outside the Spring context: trace ids
+ * taken from the API Gateway request id, and flushing spans before the environment freezes.
+ */
+public final class LambdaTraceContext {
+
+    private static final Pattern UUID_PATTERN =
+            Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private static volatile Runnable flush = () -> { };
+
+    private LambdaTraceContext() {
+    }
+
+    static void onFlush(Runnable action) {
+        flush = action;
+    }
+
+    public static void flush() {
+        flush.run();
+    }
+
+    /**
+     * A W3C {@code traceparent} header whose trace id is the API Gateway request id, so a
+     * trace can be found from the request id in API Gateway logs. REST API request ids are
+     * UUIDs and used as they are; others (HTTP API) are hashed into one. The parent is marked
+     * not sampled, leaving the decision to this service's sampler.
+     */
+    public static String traceparent(String requestId) {
+        String uuid = UUID_PATTERN.matcher(requestId).matches()
+                ? requestId
+                : UUID.nameUUIDFromBytes(requestId.getBytes(StandardCharsets.UTF_8)).toString();
+        String traceId = uuid.replace("-", "").toLowerCase();
+        if (traceId.chars().allMatch(c -> c == '0')) {
+            traceId = UUID.randomUUID().toString().replace("-", "");
+        }
+        long parentId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        return "00-" + traceId + "-" + String.format("%016x", parentId) + "-00";
+    }
+}
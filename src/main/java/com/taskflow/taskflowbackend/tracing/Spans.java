@@ -0,0 +1,37 @@
+package com.taskflow.taskflowbackend.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+import java.util.function.Supplier;
+
+/**
+ * Child spans that cost next to nothing when the current trace is not recorded: no span is
+ * created unless the current span is recording, so unsampled requests and background jobs
+ * only pay a thread-local lookup.
+ */
+public final class Spans {
+
+    private Spans() {
+    }
+
+    public static boolean isRecording(Tracer tracer) {
+        Span current = tracer.currentSpan();
+        return current != null && !current.isNoop();
+    }
+
+    public static <T> T inSpan(Tracer tracer, String name, Supplier<T> work) {
+        if (!isRecording(tracer)) {
+            return work.get();
+        }
+        Span span = tracer.nextSpan().name(name).start();
+        try (Tracer.SpanInScope scope = tracer.withSpan(span)) {
+            return work.get();
+        } catch (RuntimeException | Error e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
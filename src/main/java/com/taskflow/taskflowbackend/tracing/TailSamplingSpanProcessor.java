@@ -0,0 +1,142 @@
+package com.taskflow.taskflowbackend.tracing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tail sampling within this process. Spans that were recorded but not head-sampled (see
+ * {@link HeadTailSampler}) are held per trace until the trace's local root span ends; the
+ * whole trace is then exported if the root took at least {@code latencyThreshold} or any of
+ * its spans failed, and dropped otherwise. Head-sampled spans are left to the regular
+ * batch processor.
+ * <p>
+ * At most {@code maxPendingTraces} traces are held; spans of further traces are dropped.
+ * Spans that end after their root (work left running on another thread) are not exported.
+ * Metrics: {@code tracing.tail.traces} tagged {@code decision=kept|dropped|overflow}.
+ */
+class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private static final AttributeKey<String> OUTCOME = AttributeKey.stringKey("outcome");
+
+    private final SpanExporter exporter;
+    private final long latencyThresholdNanos;
+    private final int maxPendingTraces;
+    private final Map<String, List<SpanData>> pending = new ConcurrentHashMap<>();
+    private final Counter kept;
+    private final Counter dropped;
+    private final Counter overflow;
+
+    TailSamplingSpanProcessor(SpanExporter exporter, Duration latencyThreshold, int maxPendingTraces,
+                              MeterRegistry meterRegistry) {
+        this.exporter = exporter;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.maxPendingTraces = maxPendingTraces;
+        this.kept = decisions(meterRegistry, "kept");
+        this.dropped = decisions(meterRegistry, "dropped");
+        this.overflow = decisions(meterRegistry, "overflow");
+    }
+
+    private static Counter decisions(MeterRegistry meterRegistry, String decision) {
+        return Counter.builder("tracing.tail.traces")
+                .tag("decision", decision)
+                .description("Traces decided by tail sampling")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        SpanContext context = span.getSpanContext();
+        if (context.isSampled()) {
+            return;
+        }
+        String traceId = context.getTraceId();
+        SpanContext parent = span.getParentSpanContext();
+        SpanData data = span.toSpanData();
+
+        if (parent.isValid() && !parent.isRemote()) {
+            pending.compute(traceId, (id, spans) -> {
+                if (spans == null) {
+                    if (pending.size() >= maxPendingTraces) {
+                        overflow.increment();
+                        return null;
+                    }
+                    spans = new ArrayList<>();
+                }
+                spans.add(data);
+                return spans;
+            });
+            return;
+        }
+
+        // The local root ended: the trace is complete as far as this process knows
+        List<SpanData> spans = pending.remove(traceId);
+        if (spans == null) {
+            spans = new ArrayList<>(1);
+        }
+        spans.add(data);
+        if (shouldKeep(data, spans)) {
+            kept.increment();
+            exporter.export(spans);
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private boolean shouldKeep(SpanData root, List<SpanData> spans) {
+        if (root.getEndEpochNanos() - root.getStartEpochNanos() >= latencyThresholdNanos) {
+            return true;
+        }
+        // HTTP server spans tag 5xx responses with outcome=SERVER_ERROR rather than an error status
+        if ("SERVER_ERROR".equals(root.getAttributes().get(OUTCOME))) {
+            return true;
+        }
+        for (SpanData span : spans) {
+            if (span.getStatus().getStatusCode() == StatusCode.ERROR) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return exporter.flush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        // The exporters are shared with the batch processor, which shuts them down
+        pending.clear();
+        return CompletableResultCode.ofSuccess();
+    }
+}
@@ -0,0 +1,71 @@
+package com.taskflow.taskflowbackend.tracing;
+
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Set;
+
+/**
+ * Gives every public call into the application's services and repositories its own span,
+ * named {@code Class.method}, so a trace shows the path from controller to DynamoDB.
+ * Calls within a bean are not proxied and so not traced. Only applies to the {@code service}
+ * and {@code repository} packages; see {@link Spans} for why unsampled calls stay cheap.
+ */
+class TracedBeanPostProcessor implements BeanPostProcessor {
+
+    private static final Set<String> TRACED_PACKAGES = Set.of("service", "repository");
+
+    private final ObjectProvider<Tracer> tracer;
+
+    TracedBeanPostProcessor(ObjectProvider<Tracer> tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> type = AopUtils.getTargetClass(bean);
+        if (!TRACED_PACKAGES.contains(type.getPackageName()) || Modifier.isFinal(type.getModifiers())
+                || !(AnnotatedElementUtils.hasAnnotation(type, Service.class)
+                || AnnotatedElementUtils.hasAnnotation(type, Repository.class))) {
+            return bean;
+        }
+        String prefix = type.getSimpleName() + ".";
+        MethodInterceptor advice = invocation -> {
+            Method method = invocation.getMethod();
+            Tracer current = tracer.getIfAvailable(() -> Tracer.NOOP);
+            if (method.getDeclaringClass() == Object.class || !Spans.isRecording(current)) {
+                return invocation.proceed();
+            }
+            Span span = current.nextSpan().name(prefix + method.getName()).start();
+            try (Tracer.SpanInScope scope = current.withSpan(span)) {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                span.error(e);
+                throw e;
+            } finally {
+                span.end();
+            }
+        };
+        // Join an existing proxy rather than proxying a proxy
+        if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+            ((Advised) bean).addAdvice(advice);
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory(bean);
+        // Class-based, so beans injected by their concrete type still fit
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(advice);
+        return proxyFactory.getProxy(type.getClassLoader());
+    }
+}
@@ -0,0 +1,95 @@
+package com.taskflow.taskflowbackend.tracing;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.contextpropagation.ObservationAwareSpanThreadLocalAccessor;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Tracing on top of Spring Boot's OpenTelemetry setup: head and tail sampling, an optional
+ * span file, spans for service and repository calls. The HTTP server span comes from Spring's
+ * observation filter; exporting over OTLP is enabled with {@code management.otlp.tracing.endpoint}.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Replaces Boot's probability sampler ({@code management.tracing.sampling.probability} no longer applies).
+     */
+    @Bean
+    public Sampler tracingSampler(@Value("${tracing.head-probability:0.01}") double headProbability,
+                                  @Value("${tracing.tail.enabled:true}") boolean tailEnabled) {
+        return HeadTailSampler.create(headProbability, tailEnabled);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.tail.enabled", havingValue = "true", matchIfMissing = true)
+    public SpanProcessor tailSamplingSpanProcessor(ObjectProvider<SpanExporter> spanExporters, MeterRegistry meterRegistry,
+                                                   @Value("${tracing.tail.latency-threshold:PT1S}") Duration latencyThreshold,
+                                                   @Value("${tracing.tail.max-pending-traces:1000}") int maxPendingTraces) {
+        SpanExporter exporter = SpanExporter.composite(spanExporters.orderedStream().collect(Collectors.toList()));
+        return new TailSamplingSpanProcessor(exporter, latencyThreshold, maxPendingTraces, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnExpression("'${tracing.file.path:}' != ''")
+    public SpanExporter fileSpanExporter(@Value("${tracing.file.path}") String path) throws IOException {
+        return new FileSpanExporter(Path.of(path));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "management.tracing.enabled", havingValue = "true", matchIfMissing = true)
+    public static TracedBeanPostProcessor tracedBeanPostProcessor(ObjectProvider<Tracer> tracer) {
+        return new TracedBeanPostProcessor(tracer);
+    }
+
+    /**
+     * Makes the current span part of the context that the repository's pools (hedged reads,
+     * shard readers, scan segments) capture on submit, so their DynamoDB calls are traced too.
+     * Without it only observations are propagated, and spans opened by {@link Spans} are lost.
+     */
+    @Bean
+    @Lazy(false)
+    public SmartInitializingSingleton spanContextPropagation(ObjectProvider<Tracer> tracer) {
+        return () -> tracer.ifAvailable(t ->
+                ContextRegistry.getInstance().registerThreadLocalAccessor(new ObservationAwareSpanThreadLocalAccessor(t)));
+    }
+
+    /**
+     * Applied by Boot to the MVC async executor, so streamed lists keep the request's trace.
+     */
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return new ContextPropagatingTaskDecorator();
+    }
+
+    /**
+     * Lambda freezes the environment after each response, so spans are flushed before returning.
+     */
+    @Bean
+    @Lazy(false)
+    public SmartInitializingSingleton lambdaTraceFlush(ObjectProvider<SdkTracerProvider> tracerProvider) {
+        return () -> tracerProvider.ifAvailable(provider ->
+                LambdaTraceContext.onFlush(() -> provider.forceFlush().join(2, TimeUnit.SECONDS)));
+    }
+}
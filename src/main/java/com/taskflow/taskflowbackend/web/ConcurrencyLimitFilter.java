@@ -0,0 +1,224 @@
+package com.taskflow.taskflowbackend.web;
+
+import exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sheds load before it queues. Requests beyond an adaptive concurrency limit (see
+ * {@link GradientConcurrencyLimit}) are answered at once with 503 and {@code Retry-After},
+ * instead of waiting in Tomcat's queue until every request times out.
+ * <p>
+ * Lower priorities may only use part of the limit, so under pressure they are shed first:
+ * health checks are never shed, authenticated reads get the whole limit, authenticated
+ * writes {@code 90%} and auth endpoints and anonymous requests {@code 70%}. It runs before
+ * {@code JwtAuthenticationFilter}, so "authenticated" only means a bearer token is present;
+ * parsing it would already be the work we are trying to shed.
+ * <p>
+ * Streamed responses ({@code StreamingResponseBody}) hold their slot until the async
+ * request completes, since their paging and serialization is the expensive part. Event
+ * streams ({@code /api/todos/stream}) are long-lived connections and give the slot back
+ * as soon as they are set up.
+ * <p>
+ * Metrics: gauges {@code http.server.concurrency.limit} and {@code http.server.concurrency.in-flight},
+ * counter {@code http.server.requests.shed} tagged with {@code priority}.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    enum Priority {
+        CRITICAL(Double.POSITIVE_INFINITY),
+        READ(1.0),
+        WRITE(0.9),
+        AUTH(0.7);
+
+        private final double share;
+
+        Priority(double share) {
+            this.share = share;
+        }
+    }
+
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+
+    private final boolean enabled;
+    private final String retryAfterSeconds;
+    private final GradientConcurrencyLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<Priority, Counter> shed = new EnumMap<>(Priority.class);
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                  @Value("${api.concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${api.concurrency-limit.initial:50}") int initialLimit,
+                                  @Value("${api.concurrency-limit.min:10}") int minLimit,
+                                  @Value("${api.concurrency-limit.max:200}") int maxLimit,
+                                  @Value("${api.concurrency-limit.tolerance:1.5}") double tolerance,
+                                  @Value("${api.concurrency-limit.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = String.valueOf(retryAfterSeconds);
+        this.limit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance);
+
+        Gauge.builder("http.server.concurrency.limit", this, filter -> filter.currentLimit())
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("http.server.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .description("Requests currently holding a concurrency slot")
+                .register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            shed.put(priority, Counter.builder("http.server.requests.shed")
+                    .tag("priority", priority.name().toLowerCase())
+                    .description("Requests rejected with 503 by the concurrency limit")
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = priorityOf(request);
+        if (!tryAcquire(priority)) {
+            shed.get(priority).increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(ErrorCode.SERVER_OVERLOADED.getBody());
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean releaseLater = false;
+        try {
+            filterChain.doFilter(request, response);
+            releaseLater = request.isAsyncStarted() && !isEventStream(request);
+        } finally {
+            if (releaseLater) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(start));
+            } else {
+                // An event stream holds a connection for minutes; its latency says nothing about capacity
+                release(start, !request.isAsyncStarted());
+            }
+        }
+    }
+
+    private void release(long start, boolean sample) {
+        int current = inFlight.getAndDecrement();
+        if (sample) {
+            long rtt = System.nanoTime() - start;
+            synchronized (limit) {
+                limit.onSample(rtt, current);
+            }
+        }
+    }
+
+    static boolean isEventStream(HttpServletRequest request) {
+        if (PATHS.match("/api/todos/stream", request.getServletPath())) {
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    /**
+     * Gives the slot of an async request back once the response is complete, exactly once
+     * whichever way the request ends.
+     */
+    private final class ReleaseOnCompletion implements AsyncListener {
+        private final long start;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleaseOnCompletion(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            releaseOnce(true);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            releaseOnce(true);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Not a latency sample: the timeout is configuration, not capacity
+            releaseOnce(false);
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-dispatches keep the same listener and slot
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void releaseOnce(boolean sample) {
+            if (released.compareAndSet(false, true)) {
+                release(start, sample);
+            }
+        }
+    }
+
+    private boolean tryAcquire(Priority priority) {
+        if (priority == Priority.CRITICAL) {
+            inFlight.incrementAndGet();
+            return true;
+        }
+        int allowed = (int) Math.max(1, currentLimit() * priority.share);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private int currentLimit() {
+        synchronized (limit) {
+            return limit.getLimit();
+        }
+    }
+
+    static Priority priorityOf(HttpServletRequest request) {
+        String path = request.getServletPath();
+        if (PATHS.match("/api/health/**", path) || PATHS.match("/actuator/health/**", path)) {
+            return Priority.CRITICAL;
+        }
+        if (PATHS.match("/api/auth/**", path)) {
+            return Priority.AUTH;
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return Priority.AUTH;
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) ? Priority.READ : Priority.WRITE;
+    }
+}
@@ -0,0 +1,63 @@
+package com.taskflow.taskflowbackend.web;
+
+/**
+ * Concurrency limit that follows observed latency, after the gradient algorithm of
+ * Netflix' concurrency-limits. A long-term average of request latency is compared with
+ * each new sample: while latency stays near the average the limit grows by a small queue
+ * allowance, and when requests start to queue (latency above {@code tolerance} times the
+ * average) the limit shrinks in proportion. The average slowly follows the samples, so a
+ * permanent shift in latency becomes the new baseline rather than a permanent overload.
+ * <p>
+ * Not thread-safe on its own; {@link ConcurrencyLimitFilter} serializes updates.
+ */
+class GradientConcurrencyLimit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private double limit;
+    private double longRtt;
+    private long samples;
+
+    GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * @param rttNanos   latency of a completed request
+     * @param inFlight   requests in flight when it completed
+     */
+    void onSample(long rttNanos, int inFlight) {
+        rttNanos = Math.max(1, rttNanos);
+        samples++;
+        // Exponential average over roughly the last LONG_WINDOW samples, warming up as a plain mean
+        double factor = 1.0 / Math.min(samples, LONG_WINDOW);
+        longRtt = longRtt + (rttNanos - longRtt) * factor;
+
+        // After a lasting drop in latency the average lags far behind; pull it down faster
+        if (longRtt / rttNanos > 2) {
+            longRtt *= 0.95;
+        }
+
+        // Few requests in flight says nothing about capacity, so don't grow on it
+        if (inFlight * 2 < limit) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / rttNanos));
+        double queueAllowance = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueAllowance;
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
@@ -0,0 +1,103 @@
+package com.taskflow.taskflowbackend.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import util.RequestTimings;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Marks the handler and JSON serialization phases for {@link RequestTimingFilter}: an
+ * interceptor around handler execution, and Jackson converters that time their writes.
+ * The replacement converters also take the {@link TodoJsonHttpMessageConverter} fast path.
+ * Streamed responses are written on an MVC async thread, which collects its own timings
+ * for the filter to add when the response completes.
+ */
+@Configuration
+public class RequestTimingConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AsyncHandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                RequestTimings.start(RequestTimings.Phase.HANDLER);
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                RequestTimings.stop(RequestTimings.Phase.HANDLER);
+            }
+
+            @Override
+            public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                       Object handler) {
+                // Called instead of afterCompletion when the handler returned a stream
+                RequestTimings.stop(RequestTimings.Phase.HANDLER);
+            }
+        });
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+                request.setAttribute(RequestTimingFilter.ASYNC_TIMINGS_ATTRIBUTE, RequestTimings.begin(),
+                        RequestAttributes.SCOPE_REQUEST);
+            }
+
+            @Override
+            public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+                RequestTimings.end();
+            }
+        });
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            HttpMessageConverter<?> converter = converters.get(i);
+            if (converter.getClass() == MappingJackson2HttpMessageConverter.class) {
+                converters.set(i, new TimedJacksonConverter(((MappingJackson2HttpMessageConverter) converter).getObjectMapper()));
+            }
+        }
+    }
+
+    /**
+     * Writes straight to the response, so this covers serialization and any flushes it triggers.
+     */
+    private static final class TimedJacksonConverter extends TodoJsonHttpMessageConverter {
+
+        TimedJacksonConverter(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+            RequestTimings.start(RequestTimings.Phase.SERIALIZATION);
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                RequestTimings.stop(RequestTimings.Phase.SERIALIZATION);
+            }
+        }
+    }
+}
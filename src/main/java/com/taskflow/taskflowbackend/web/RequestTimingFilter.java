@@ -0,0 +1,187 @@
+package com.taskflow.taskflowbackend.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import util.RequestTimings;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Breaks each request's latency down by {@link RequestTimings.Phase} and keeps the breakdown
+ * of requests slower than {@code api.slow-requests.threshold} in the {@link SlowRequestLog}.
+ * Per-route latency histograms come from Spring's own {@code http.server.requests} timer
+ * (tagged with the route template, method and status); this filter adds the timer
+ * {@code http.server.requests.phases}, tagged with {@code uri} and {@code phase}.
+ * <p>
+ * Registered as a servlet filter ahead of Spring Security, so JWT authentication is inside
+ * the measured span. Streamed responses are recorded when the async request completes,
+ * including the repository calls made while writing them (see {@link RequestTimingConfig});
+ * event streams are connections rather than responses and are not recorded.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private static final String UNMATCHED = "UNMATCHED";
+    /**
+     * Request attribute holding the {@link RequestTimings} of the thread writing a streamed response.
+     */
+    static final String ASYNC_TIMINGS_ATTRIBUTE = RequestTimingFilter.class.getName() + ".asyncTimings";
+
+    private final SlowRequestLog slowRequestLog;
+    private final MeterRegistry meterRegistry;
+    private final long thresholdNanos;
+    private final Map<String, Map<RequestTimings.Phase, Timer>> phaseTimers = new ConcurrentHashMap<>();
+
+    public RequestTimingFilter(SlowRequestLog slowRequestLog, MeterRegistry meterRegistry,
+                               @Value("${api.slow-requests.threshold:PT0.5S}") Duration threshold) {
+        this.slowRequestLog = slowRequestLog;
+        this.meterRegistry = meterRegistry;
+        this.thresholdNanos = threshold.toNanos();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        RequestTimings timings = RequestTimings.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTimings.end();
+            if (!request.isAsyncStarted()) {
+                record(request, response, startedAt, start, timings);
+            } else if (!ConcurrencyLimitFilter.isEventStream(request)) {
+                request.getAsyncContext().addListener(new RecordOnCompletion(request, response, startedAt, start, timings));
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, Instant startedAt, long start,
+                        RequestTimings timings) {
+        long total = System.nanoTime() - start;
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String route = pattern == null ? UNMATCHED : pattern.toString();
+        recordPhases(route, timings);
+        if (total >= thresholdNanos) {
+            slowRequestLog.add(new SlowRequest(startedAt, request.getMethod(), route, response.getStatus(),
+                    millis(total), breakdown(timings, total), timings.getCalls(RequestTimings.Phase.REPOSITORY)));
+        }
+    }
+
+    /**
+     * Records a streamed response once it is completely written, whether it ended normally,
+     * with an error or by timing out; the container completes the request in each case.
+     */
+    private final class RecordOnCompletion implements AsyncListener {
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final Instant startedAt;
+        private final long start;
+        private final RequestTimings timings;
+
+        private RecordOnCompletion(HttpServletRequest request, HttpServletResponse response, Instant startedAt, long start,
+                                   RequestTimings timings) {
+            this.request = request;
+            this.response = response;
+            this.startedAt = startedAt;
+            this.start = start;
+            this.timings = timings;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            Object async = request.getAttribute(ASYNC_TIMINGS_ATTRIBUTE);
+            if (async instanceof RequestTimings) {
+                timings.include((RequestTimings) async);
+            }
+            record(request, response, startedAt, start, timings);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Re-dispatches are still the same response
+            event.getAsyncContext().addListener(this);
+        }
+    }
+
+    private void recordPhases(String route, RequestTimings timings) {
+        Map<RequestTimings.Phase, Timer> timers = phaseTimers.computeIfAbsent(route, this::phaseTimers);
+        for (RequestTimings.Phase phase : RequestTimings.Phase.values()) {
+            if (timings.getCalls(phase) > 0) {
+                timers.get(phase).record(timings.getNanos(phase), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Map<RequestTimings.Phase, Timer> phaseTimers(String route) {
+        Map<RequestTimings.Phase, Timer> timers = new EnumMap<>(RequestTimings.Phase.class);
+        for (RequestTimings.Phase phase : RequestTimings.Phase.values()) {
+            timers.put(phase, Timer.builder("http.server.requests.phases")
+                    .tag("uri", route)
+                    .tag("phase", phaseName(phase))
+                    .description("Time per request spent in each phase, excluding nested phases")
+                    .register(meterRegistry));
+        }
+        return timers;
+    }
+
+    private static Map<String, Double> breakdown(RequestTimings timings, long total) {
+        Map<String, Double> phases = new LinkedHashMap<>();
+        long accounted = 0;
+        for (RequestTimings.Phase phase : RequestTimings.Phase.values()) {
+            long nanos = timings.getNanos(phase);
+            accounted += nanos;
+            phases.put(phaseName(phase), millis(nanos));
+        }
+        phases.put("other", millis(Math.max(0, total - accounted)));
+        return phases;
+    }
+
+    private static String phaseName(RequestTimings.Phase phase) {
+        switch (phase) {
+            case JWT:
+                return "jwt";
+            case USER_LOOKUP:
+                return "userLookup";
+            case HANDLER:
+                return "service";
+            case REPOSITORY:
+                return "repository";
+            default:
+                return "serialization";
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
@@ -0,0 +1,59 @@
+package com.taskflow.taskflowbackend.web;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One request slower than {@code api.slow-requests.threshold}, with its time broken down by
+ * phase in milliseconds: {@code jwt}, {@code userLookup}, {@code service}, {@code repository},
+ * {@code serialization} and {@code other} (filters, security, framework). Only the route
+ * template is kept, never the concrete path or user.
+ */
+public class SlowRequest {
+    private final Instant startedAt;
+    private final String method;
+    private final String route;
+    private final int status;
+    private final double totalMs;
+    private final Map<String, Double> phasesMs;
+    private final int repositoryCalls;
+
+    SlowRequest(Instant startedAt, String method, String route, int status, double totalMs,
+                Map<String, Double> phasesMs, int repositoryCalls) {
+        this.startedAt = startedAt;
+        this.method = method;
+        this.route = route;
+        this.status = status;
+        this.totalMs = totalMs;
+        this.phasesMs = phasesMs;
+        this.repositoryCalls = repositoryCalls;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public double getTotalMs() {
+        return totalMs;
+    }
+
+    public Map<String, Double> getPhasesMs() {
+        return phasesMs;
+    }
+
+    public int getRepositoryCalls() {
+        return repositoryCalls;
+    }
+}
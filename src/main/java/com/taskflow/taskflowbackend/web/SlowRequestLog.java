@@ -0,0 +1,37 @@
+package com.taskflow.taskflowbackend.web;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * The latest {@code api.slow-requests.capacity} slow requests of this instance, newest first.
+ */
+@Component
+public class SlowRequestLog {
+
+    private final int capacity;
+    private final Deque<SlowRequest> requests = new ArrayDeque<>();
+
+    public SlowRequestLog(@Value("${api.slow-requests.capacity:50}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    synchronized void add(SlowRequest request) {
+        if (capacity <= 0) {
+            return;
+        }
+        if (requests.size() == capacity) {
+            requests.removeLast();
+        }
+        requests.addFirst(request);
+    }
+
+    public synchronized List<SlowRequest> latest() {
+        return new ArrayList<>(requests);
+    }
+}
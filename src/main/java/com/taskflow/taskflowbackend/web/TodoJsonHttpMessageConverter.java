@@ -0,0 +1,55 @@
+package com.taskflow.taskflowbackend.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import util.TodoJson;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The application's Jackson converter with a fast path: todos, todo lists and auth responses
+ * are written by {@link TodoJson}, everything else (and sparse fieldsets, JSON views, other
+ * charsets) by Jackson. Both produce the same bytes. Lambda requests run through the same
+ * Spring MVC converters, so the proxy response body is produced the same way.
+ */
+public class TodoJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TodoJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        Object value = unwrap(object);
+        if (value != null && isUtf8(outputMessage.getHeaders().getContentType()) && TodoJson.supports(value)) {
+            TodoJson.write(value, outputMessage.getBody());
+            return;
+        }
+        super.writeInternal(object, type, outputMessage);
+    }
+
+    /**
+     * The value to write, or null if Jackson-specific settings apply to it.
+     */
+    private static Object unwrap(Object object) {
+        if (!(object instanceof MappingJacksonValue)) {
+            return object;
+        }
+        MappingJacksonValue container = (MappingJacksonValue) object;
+        if (container.getFilters() != null || container.getSerializationView() != null) {
+            return null;
+        }
+        return container.getValue();
+    }
+
+    private static boolean isUtf8(MediaType contentType) {
+        Charset charset = contentType == null ? null : contentType.getCharset();
+        return charset == null || charset.equals(StandardCharsets.UTF_8);
+    }
+}
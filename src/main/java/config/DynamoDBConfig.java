@@ -1,8 +1,12 @@
 package config;
 
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import repository.DynamoDbCallInterceptor;
+import repository.DynamoDbTracingInterceptor;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
@@ -13,10 +17,13 @@ import java.net.URI;
 public class DynamoDBConfig {
 
     @Bean
-    public DynamoDbClient dynamoDbClient() {
+    public DynamoDbClient dynamoDbClient(ObjectProvider<Tracer> tracer) {
         return DynamoDbClient.builder()
                 .endpointOverride(URI.create("http://dynamodb-local:8000"))
                 .region(Region.of("eu-central-1"))
+                .overrideConfiguration(c -> c
+                        .addExecutionInterceptor(new DynamoDbCallInterceptor())
+                        .addExecutionInterceptor(new DynamoDbTracingInterceptor(tracer.getIfAvailable(() -> Tracer.NOOP))))
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import service.TodoSearchService;
+
+/**
+ * Indexes every stored todo for search once at startup when {@code search.backfill=true}.
+ * Until it completes, todos written before search existed are not found.
+ */
+@Component
+@ConditionalOnProperty(name = "search.backfill", havingValue = "true")
+public class SearchIndexBackfillRunner implements ApplicationRunner {
+
+    private static final Logger logger = LogManager.getLogger(SearchIndexBackfillRunner.class);
+
+    private final TodoSearchService searchService;
+
+    // Set to resume an interrupted run; by default every start is a fresh pass
+    @Value("${search.backfill-run-id:}")
+    private String runId;
+
+    public SearchIndexBackfillRunner(TodoSearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String run = runId == null || runId.isBlank() ? String.valueOf(System.currentTimeMillis()) : runId;
+        logger.info("Starting search index backfill run {}", run);
+        Thread worker = new Thread(() -> {
+            try {
+                searchService.reindexAll(run);
+            } catch (RuntimeException e) {
+                logger.error("Search index backfill failed: {}", e.getMessage(), e);
+            }
+        }, "search-index-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+}
@@ -0,0 +1,52 @@
+package config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import repository.SingleTableMigrator;
+
+/**
+ * Runs the single-table copy once at startup when {@code dynamodb.single-table.migrate=true}.
+ * The application keeps serving from the configured layout while the copy runs in the background.
+ */
+@Component
+@ConditionalOnProperty(name = "dynamodb.single-table.migrate", havingValue = "true")
+public class SingleTableMigrationRunner implements ApplicationRunner {
+
+    private static final Logger logger = LogManager.getLogger(SingleTableMigrationRunner.class);
+
+    private final SingleTableMigrator migrator;
+
+    @Value("${dynamodb.single-table.migration-segments:8}")
+    private int segments;
+
+    // Set to resume an interrupted run; by default every start is a fresh catch-up pass
+    @Value("${dynamodb.single-table.migration-run-id:}")
+    private String runId;
+
+    public SingleTableMigrationRunner(SingleTableMigrator migrator) {
+        this.migrator = migrator;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String run = runId == null || runId.isBlank() ? String.valueOf(System.currentTimeMillis()) : runId;
+        logger.info("Starting single-table migration run {}", run);
+        Thread worker = new Thread(() -> {
+            try {
+                SingleTableMigrator.Report report = migrator.migrate(segments, run);
+                if (!report.isVerified()) {
+                    logger.warn("Single-table migration counts differ, run it again before switching dynamodb.layout");
+                }
+            } catch (RuntimeException e) {
+                logger.error("Single-table migration failed: {}", e.getMessage(), e);
+            }
+        }, "single-table-migration");
+        worker.setDaemon(true);
+        worker.start();
+    }
+}
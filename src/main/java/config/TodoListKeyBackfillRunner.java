@@ -0,0 +1,48 @@
+package config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import repository.TodoListKeyBackfill;
+
+/**
+ * Runs the todo list key backfill once at startup when {@code todos.list-keys.backfill=true}.
+ * Until it completes, todos written before filtered listing are missing from status-filtered
+ * and due-date-sorted lists.
+ */
+@Component
+@ConditionalOnProperty(name = "todos.list-keys.backfill", havingValue = "true")
+public class TodoListKeyBackfillRunner implements ApplicationRunner {
+
+    private static final Logger logger = LogManager.getLogger(TodoListKeyBackfillRunner.class);
+
+    private final TodoListKeyBackfill backfill;
+
+    // Set to resume an interrupted run; by default every start is a fresh pass
+    @Value("${todos.list-keys.backfill-run-id:}")
+    private String runId;
+
+    public TodoListKeyBackfillRunner(TodoListKeyBackfill backfill) {
+        this.backfill = backfill;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String run = runId == null || runId.isBlank() ? String.valueOf(System.currentTimeMillis()) : runId;
+        logger.info("Starting todo list key backfill run {}", run);
+        Thread worker = new Thread(() -> {
+            try {
+                // 0 segments: the scanner's default (dynamodb.scan.segments)
+                backfill.backfill(0, run);
+            } catch (RuntimeException e) {
+                logger.error("Todo list key backfill failed: {}", e.getMessage(), e);
+            }
+        }, "todo-list-key-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+}
@@ -0,0 +1,48 @@
+package config;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import repository.TodoShardBackfill;
+
+/**
+ * Runs the todo shard backfill once at startup when {@code todos.sharding.backfill=true}.
+ * Run it to completion before setting {@code todos.sharding.enabled}, which switches listing
+ * to the sharded indexes.
+ */
+@Component
+@ConditionalOnProperty(name = "todos.sharding.backfill", havingValue = "true")
+public class TodoShardBackfillRunner implements ApplicationRunner {
+
+    private static final Logger logger = LogManager.getLogger(TodoShardBackfillRunner.class);
+
+    private final TodoShardBackfill backfill;
+
+    // Set to resume an interrupted run; by default every start is a fresh pass
+    @Value("${todos.sharding.backfill-run-id:}")
+    private String runId;
+
+    public TodoShardBackfillRunner(TodoShardBackfill backfill) {
+        this.backfill = backfill;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String run = runId == null || runId.isBlank() ? String.valueOf(System.currentTimeMillis()) : runId;
+        logger.info("Starting todo shard backfill run {}", run);
+        Thread worker = new Thread(() -> {
+            try {
+                // 0 segments: the scanner's default (dynamodb.scan.segments)
+                backfill.backfill(0, run);
+            } catch (RuntimeException e) {
+                logger.error("Todo shard backfill failed: {}", e.getMessage(), e);
+            }
+        }, "todo-shard-backfill");
+        worker.setDaemon(true);
+        worker.start();
+    }
+}
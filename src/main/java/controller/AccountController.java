@@ -0,0 +1,31 @@
+package controller;
+
+import model.AccountPurgeStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import service.AccountDeletionService;
+
+import java.security.Principal;
+
+@RestController
+@RequestMapping("/api/account")
+public class AccountController {
+
+    private final AccountDeletionService accountDeletionService;
+
+    public AccountController(AccountDeletionService accountDeletionService) {
+        this.accountDeletionService = accountDeletionService;
+    }
+
+    /**
+     * Deletes the current account. The account stops working at once; its todos are
+     * purged in the background, hence 202 rather than 204.
+     */
+    @DeleteMapping
+    public ResponseEntity<AccountPurgeStatus> deleteAccount(Principal principal) {
+        return ResponseEntity.accepted()
+                .body(new AccountPurgeStatus(accountDeletionService.deleteAccount(principal.getName())));
+    }
+}
@@ -0,0 +1,34 @@
+package controller;
+
+import model.AccountPurgeStatus;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import repository.AccountPurgeJobRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * {@code /actuator/accountpurges}: account purges that have not completed yet, across all instances.
+ * Restricted to users with the stored role {@code ADMIN}.
+ */
+@Component
+@Endpoint(id = "accountpurges")
+@ConditionalOnProperty(name = "dynamodb.enabled", havingValue = "true", matchIfMissing = true)
+public class AccountPurgeEndpoint {
+
+    private final AccountPurgeJobRepository jobRepository;
+
+    public AccountPurgeEndpoint(AccountPurgeJobRepository jobRepository) {
+        this.jobRepository = jobRepository;
+    }
+
+    @ReadOperation
+    public List<AccountPurgeStatus> unfinished() {
+        return jobRepository.findUnfinished().stream()
+                .map(AccountPurgeStatus::new)
+                .collect(Collectors.toList());
+    }
+}
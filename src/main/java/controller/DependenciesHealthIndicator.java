@@ -0,0 +1,31 @@
+package controller;
+
+import model.HealthSnapshot;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import service.HealthMonitor;
+
+/**
+ * {@code dependencies} component of {@code /actuator/health}, answered from the
+ * {@link HealthMonitor} snapshots. Replaces Spring's {@code db} indicator, which queries
+ * the database on every call ({@code management.health.db.enabled=false}).
+ */
+@Component
+public class DependenciesHealthIndicator implements HealthIndicator {
+
+    private final HealthMonitor healthMonitor;
+
+    public DependenciesHealthIndicator(HealthMonitor healthMonitor) {
+        this.healthMonitor = healthMonitor;
+    }
+
+    @Override
+    public Health health() {
+        HealthSnapshot.Status status = healthMonitor.getOverallStatus();
+        Health.Builder builder = status == HealthSnapshot.Status.UP ? Health.up()
+                : status == HealthSnapshot.Status.DOWN ? Health.down()
+                : Health.unknown();
+        return builder.withDetails(healthMonitor.getReports()).build();
+    }
+}
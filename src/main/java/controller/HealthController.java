@@ -1,55 +1,59 @@
 package controller;
 
+import model.HealthSnapshot;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import service.DatabaseHealthService;
-import java.util.Optional;
+import service.HealthMonitor;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Health endpoints. They only read the snapshots {@link HealthMonitor} refreshes in the
+ * background and never touch a database themselves.
+ */
 @RestController
 @RequestMapping("/api/health")
 public class HealthController {
 
-    private final DatabaseHealthService databaseHealthService;
+    private final HealthMonitor healthMonitor;
 
-    public HealthController(Optional<DatabaseHealthService> databaseHealthService) {
-        this.databaseHealthService = databaseHealthService.orElse(null);
+    public HealthController(HealthMonitor healthMonitor) {
+        this.healthMonitor = healthMonitor;
     }
 
     @GetMapping("/database")
     public ResponseEntity<Map<String, Object>> checkDatabaseHealth() {
-        if (databaseHealthService == null) {
-            Map<String, Object> healthData = new HashMap<>();
+        Map<String, Object> healthData = new HashMap<>();
+        if (!healthMonitor.hasProbes()) {
             healthData.put("status", "UNKNOWN");
             healthData.put("database", "not-configured");
             return ResponseEntity.ok(healthData);
         }
-        Map<String, Object> healthData = databaseHealthService.checkDatabaseHealth();
-        
-        // Return HTTP 503 Service Unavailable if database is down
-        if ("DOWN".equals(healthData.get("status"))) {
+        HealthSnapshot.Status status = healthMonitor.getOverallStatus();
+        healthData.put("status", status.toString());
+        healthData.put("checks", healthMonitor.getReports());
+
+        // Return HTTP 503 Service Unavailable if a database is down
+        if (status == HealthSnapshot.Status.DOWN) {
             return ResponseEntity.status(503).body(healthData);
         }
-        
+
         return ResponseEntity.ok(healthData);
     }
 
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getSystemStatus() {
         Map<String, Object> systemStatus = new HashMap<>();
-        
-        // Check database health
-        if (databaseHealthService != null) {
-            Map<String, Object> dbHealth = databaseHealthService.checkDatabaseHealth();
-            systemStatus.put("database", dbHealth);
-            systemStatus.put("status", "UP".equals(dbHealth.get("status")) ? "UP" : "DEGRADED");
-            boolean dbConnected = databaseHealthService.isDatabaseConnected();
-            systemStatus.put("database_connected", dbConnected);
-            systemStatus.put("database_status", databaseHealthService.getDatabaseStatus());
+
+        if (healthMonitor.hasProbes()) {
+            HealthSnapshot.Status status = healthMonitor.getOverallStatus();
+            systemStatus.put("database", healthMonitor.getReports());
+            systemStatus.put("status", status == HealthSnapshot.Status.UP ? "UP" : "DEGRADED");
+            systemStatus.put("database_connected", status == HealthSnapshot.Status.UP);
+            systemStatus.put("database_status", status.toString());
         } else {
             systemStatus.put("database", Map.of(
                     "status", "UNKNOWN",
@@ -59,7 +63,7 @@ public class HealthController {
             systemStatus.put("database_connected", false);
             systemStatus.put("database_status", "Database not configured");
         }
-        
+
         // Add basic system info
         systemStatus.put("application", "taskflow-backend");
         systemStatus.put("timestamp", System.currentTimeMillis());
@@ -74,4 +78,4 @@ public class HealthController {
         response.put("timestamp", String.valueOf(System.currentTimeMillis()));
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,29 @@
+package controller;
+
+import com.taskflow.taskflowbackend.web.SlowRequest;
+import com.taskflow.taskflowbackend.web.SlowRequestLog;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/slowrequests}: the latest slow requests of this instance, newest first,
+ * with their latency broken down by phase. Restricted to users with the stored role {@code ADMIN}.
+ */
+@Component
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+    private final SlowRequestLog slowRequestLog;
+
+    public SlowRequestsEndpoint(SlowRequestLog slowRequestLog) {
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    @ReadOperation
+    public List<SlowRequest> latest() {
+        return slowRequestLog.latest();
+    }
+}
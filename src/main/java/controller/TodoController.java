@@ -1,38 +1,147 @@
 package controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import exception.BadRequestException;
 import jakarta.validation.Valid;
 import model.TodoRequest;
 import model.TodoResponse;
 import model.EditTodoRequest;
+import model.TodoFields;
+import model.TodoQuery;
+import model.TodoChanges;
+import model.TodoImportResult;
+import model.TodoStats;
+import service.TodoImportService;
+import service.TodoStreamService;
 import service.TodoService;
+import util.TodoJson;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.Principal;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 @RestController
 @RequestMapping("/api/todos")
 public class TodoController {
 
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final TodoService todoService;
+    private final TodoImportService todoImportService;
+    private final TodoStreamService todoStreamService;
+    private final ObjectMapper objectMapper;
+
+    // Streaming only pays off on the servlet deployment; the Lambda proxy buffers the whole body anyway
+    @Value("${todos.streaming.enabled:true}")
+    private boolean streamingEnabled;
 
-    public TodoController(TodoService todoService) {
+    public TodoController(TodoService todoService, TodoImportService todoImportService,
+                          TodoStreamService todoStreamService, ObjectMapper objectMapper) {
         this.todoService = todoService;
+        this.todoImportService = todoImportService;
+        this.todoStreamService = todoStreamService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
     public ResponseEntity<TodoResponse> createTodo(@Valid @RequestBody TodoRequest request) {
-        return ResponseEntity.ok(todoService.createTodo(request));
+        TodoResponse created = todoService.createTodo(request);
+        return ResponseEntity.ok().eTag(etag(created)).body(created);
     }
 
     @GetMapping
-    public ResponseEntity<List<TodoResponse>> getAllTodos() {
-        return ResponseEntity.ok(todoService.getAllTodos());
+    public ResponseEntity<?> getAllTodos(@RequestParam(required = false) String status,
+                                         @RequestParam(required = false) String sort,
+                                         @RequestParam(required = false) String createdFrom,
+                                         @RequestParam(required = false) String createdTo,
+                                         @RequestParam(required = false) String dueFrom,
+                                         @RequestParam(required = false) String dueTo,
+                                         @RequestParam(required = false) String fields,
+                                         @RequestParam(defaultValue = "false") boolean includeArchived) {
+        Set<String> fieldSet = TodoFields.parse(fields);
+        TodoQuery query = TodoQuery.of(status, sort, createdFrom, createdTo, dueFrom, dueTo, fieldSet);
+        if (includeArchived) {
+            query = query.includingArchived();
+        }
+        if (!streamingEnabled) {
+            return ResponseEntity.ok(withFields(todoService.getTodos(query), fieldSet));
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(streamJsonArray(todoService.streamTodos(query), fieldSet));
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<TodoResponse>> searchTodos(@RequestParam("q") String query,
+                                                          @RequestParam(defaultValue = "20") int limit) {
+        if (limit < 1) {
+            throw new BadRequestException("limit must be positive");
+        }
+        return ResponseEntity.ok(todoService.searchTodos(query, limit));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<TodoStats> getStats() {
+        return ResponseEntity.ok(todoService.getStats());
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<TodoChanges> getChanges(@RequestParam(required = false) String since) {
+        return ResponseEntity.ok(todoService.getChanges(since));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(Principal principal,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return todoStreamService.open(principal.getName(), lastEventId);
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<?> exportTodos() throws IOException {
+        Stream<TodoResponse> todos = todoService.streamAllTodos();
+        if (!streamingEnabled) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writeNdjson(todos, buffer);
+            return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(buffer.toByteArray());
+        }
+        StreamingResponseBody body = out -> writeNdjson(todos, out);
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<TodoImportResult> importTodos(InputStream body,
+                                                        @RequestHeader(value = "Content-Encoding", required = false) String contentEncoding)
+            throws IOException {
+        InputStream in = "gzip".equalsIgnoreCase(contentEncoding) ? new GZIPInputStream(body, 64 * 1024) : body;
+        return ResponseEntity.ok(todoImportService.importTodos(in));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<TodoResponse> getTodo(@PathVariable String id) {
-        return ResponseEntity.ok(todoService.getTodoById(id));
+    public ResponseEntity<MappingJacksonValue> getTodo(@PathVariable String id,
+                                                       @RequestParam(required = false) String fields) {
+        Set<String> fieldSet = TodoFields.parse(fields);
+        TodoResponse todo = todoService.getTodoById(id, fieldSet);
+        return ResponseEntity.ok().eTag(etag(todo)).body(withFields(todo, fieldSet));
     }
 
     @DeleteMapping("/{id}")
@@ -42,12 +151,90 @@ public class TodoController {
     }
 
     @PutMapping("/{id}/toggle")
-    public ResponseEntity<TodoResponse> toggleTodo(@PathVariable String id) {
-        return ResponseEntity.ok(todoService.toggleTodo(id));
+    public ResponseEntity<TodoResponse> toggleTodo(@PathVariable String id,
+                                                   @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        TodoResponse toggled = todoService.toggleTodo(id, parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(etag(toggled)).body(toggled);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<TodoResponse> editTodo(@PathVariable String id, @Valid @RequestBody EditTodoRequest request) {
-        return ResponseEntity.ok(todoService.editTodo(id, request));
+    public ResponseEntity<TodoResponse> editTodo(@PathVariable String id, @Valid @RequestBody EditTodoRequest request,
+                                                 @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        TodoResponse edited = todoService.editTodo(id, request, parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(etag(edited)).body(edited);
+    }
+
+    private static String etag(TodoResponse todo) {
+        return "\"" + todo.getVersion() + "\"";
+    }
+
+    /**
+     * @return the version the client expects, or null when the update is unconditional
+     */
+    static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("If-Match must be an ETag returned by this API");
+        }
+    }
+
+    /**
+     * Writes each todo to the response as soon as its page arrives from DynamoDB,
+     * so memory per request is bounded by one page instead of the whole list.
+     */
+    private StreamingResponseBody streamJsonArray(Stream<TodoResponse> todos, Set<String> fields) {
+        if (fields.isEmpty()) {
+            return out -> {
+                try (todos) {
+                    TodoJson.writeArray(todos.iterator(), out);
+                }
+            };
+        }
+        ObjectWriter writer = objectMapper.writer(fieldFilter(fields))
+                .forType(TodoResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out -> {
+            try (todos; JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                Iterator<TodoResponse> it = todos.iterator();
+                while (it.hasNext()) {
+                    writer.writeValue(generator, it.next());
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    /**
+     * One JSON object per line, so clients can process an export record by record.
+     */
+    private static void writeNdjson(Stream<TodoResponse> todos, OutputStream out) throws IOException {
+        try (todos) {
+            TodoJson.writeLines(todos.iterator(), out);
+        }
+    }
+
+    private static MappingJacksonValue withFields(Object body, Set<String> fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (!fields.isEmpty()) {
+            value.setFilters(fieldFilter(fields));
+        }
+        return value;
+    }
+
+    private static FilterProvider fieldFilter(Set<String> fields) {
+        return new SimpleFilterProvider()
+                .addFilter(TodoFields.FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(fields));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package controller;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import repository.TodoShards;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/todoshards}: per-user todo index shards, restricted to users with the stored role {@code ADMIN}.
+ * <ul>
+ *     <li>{@code GET /actuator/todoshards/{username}} - the user's shard counts</li>
+ *     <li>{@code POST /actuator/todoshards/{username} {"shards": n}} - raise the count to {@code n}</li>
+ * </ul>
+ */
+@Component
+@Endpoint(id = "todoshards")
+@ConditionalOnExpression("${dynamodb.enabled:true} and '${dynamodb.layout:multi-table}' == 'multi-table'")
+public class TodoShardsEndpoint {
+
+    private final TodoShards todoShards;
+
+    public TodoShardsEndpoint(TodoShards todoShards) {
+        this.todoShards = todoShards;
+    }
+
+    @ReadOperation
+    public Map<String, Object> layout(@Selector String username) {
+        return describe(username, todoShards.layout(username));
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> raise(@Selector String username, int shards) {
+        try {
+            return new WebEndpointResponse<>(describe(username, todoShards.raise(username, shards)));
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(Map.of("error", e.getMessage()), WebEndpointResponse.STATUS_BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(Map.of("error", e.getMessage()), WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+    }
+
+    private Map<String, Object> describe(String username, TodoShards.Layout layout) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("username", username);
+        body.put("enabled", todoShards.isEnabled());
+        body.put("shards", layout.getShards());
+        body.put("previousShards", layout.getPreviousShards());
+        body.put("raisedAt", layout.getRaisedAt());
+        return body;
+    }
+}
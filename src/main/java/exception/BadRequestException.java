@@ -0,0 +1,12 @@
+package exception;
+
+/**
+ * Invalid client input: an unknown field, a malformed query parameter or import record.
+ * Unlike other domain exceptions the message is sent to the client, so it must only
+ * describe the input and never internals.
+ */
+public class BadRequestException extends DomainException {
+    public BadRequestException(String message) {
+        super(ErrorCode.BAD_REQUEST, message);
+    }
+}
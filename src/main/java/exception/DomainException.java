@@ -0,0 +1,28 @@
+package exception;
+
+/**
+ * An expected outcome reported to the client with an {@link ErrorCode} (a missing todo,
+ * wrong credentials), not a fault. These are thrown at request rate by enumeration and
+ * scraping traffic and only their message is ever logged, so they skip the stack trace
+ * capture that dominates the cost of throwing.
+ */
+public class DomainException extends RuntimeException {
+
+    private final ErrorCode code;
+
+    public DomainException(ErrorCode code) {
+        this(code, code.getMessage());
+    }
+
+    /**
+     * @param message detail for the logs; clients only see the code's message
+     */
+    public DomainException(ErrorCode code, String message) {
+        super(message, null, false, false);
+        this.code = code;
+    }
+
+    public ErrorCode getCode() {
+        return code;
+    }
+}
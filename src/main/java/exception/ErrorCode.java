@@ -0,0 +1,66 @@
+package exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stable, machine-readable error codes. Each code has a fixed client-facing message, and its
+ * JSON body ({@code {"error": message, "code": CODE}}) and response are built once, so
+ * answering an expected error allocates nothing per request. The exception's own message
+ * may be more specific; it is only logged, never sent.
+ */
+public enum ErrorCode {
+
+    TODO_NOT_FOUND(HttpStatus.NOT_FOUND, "Todo not found"),
+    USER_NOT_FOUND(HttpStatus.NOT_FOUND, "User not found"),
+    // One message for unknown users and wrong passwords, so login cannot be used to probe usernames
+    INVALID_CREDENTIALS(HttpStatus.UNAUTHORIZED, "Invalid username or password"),
+    INVALID_TOKEN(HttpStatus.UNAUTHORIZED, "Token is invalid or expired"),
+    USERNAME_TAKEN(HttpStatus.CONFLICT, "Username already exists"),
+    PRECONDITION_FAILED(HttpStatus.PRECONDITION_FAILED, "Todo was modified concurrently, reload and retry"),
+    // An unconditional write that kept losing races with other writers
+    TODO_CONFLICT(HttpStatus.CONFLICT, "Todo is being modified concurrently, retry shortly"),
+    BAD_REQUEST(HttpStatus.BAD_REQUEST, "Bad request"),
+    AUTHENTICATION_FAILED(HttpStatus.UNAUTHORIZED, "Authentication failed"),
+    ACCESS_DENIED(HttpStatus.FORBIDDEN, "Access denied"),
+    SERVER_OVERLOADED(HttpStatus.SERVICE_UNAVAILABLE, "Server is overloaded, please retry shortly"),
+    INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred");
+
+    private final HttpStatus status;
+    private final String message;
+    private final byte[] body;
+    private final ResponseEntity<byte[]> response;
+
+    ErrorCode(HttpStatus status, String message) {
+        this.status = status;
+        this.message = message;
+        // Messages are constants without characters that need JSON escaping
+        this.body = ("{\"error\":\"" + message + "\",\"code\":\"" + name() + "\"}").getBytes(StandardCharsets.UTF_8);
+        this.response = ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * The serialized body; shared, so callers must not modify it.
+     */
+    public byte[] getBody() {
+        return body;
+    }
+
+    /**
+     * The complete error response; immutable and shared between requests.
+     */
+    public ResponseEntity<byte[]> toResponse() {
+        return response;
+    }
+}
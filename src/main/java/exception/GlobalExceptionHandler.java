@@ -9,61 +9,108 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.AuthenticationException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import util.LogSampler;
 
+import javax.annotation.PreDestroy;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Expected outcomes arrive as {@link DomainException}s and are answered with their code's
+ * prebuilt response. Client errors (404/401/403/409/412/400) are logged through a
+ * {@link LogSampler}: bad-client traffic repeats them at request rate, so beyond
+ * {@code logging.sampling.burst} lines per code and window only a summary count is logged.
+ */
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
     private static final Logger logger = LogManager.getLogger(GlobalExceptionHandler.class);
 
-    @ExceptionHandler(TodoNotFoundException.class)
-    public ResponseEntity<Map<String, String>> handleTodoNotFound(TodoNotFoundException ex) {
-        logger.warn("Todo not found: {}", ex.getMessage());
-        Map<String, String> error = new HashMap<>();
-        error.put("error", ex.getMessage());
-        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    private final LogSampler sampler;
+    private final ScheduledExecutorService summaries;
+
+    public GlobalExceptionHandler(@Value("${logging.sampling.burst:10}") int burst,
+                                  @Value("${logging.sampling.window:PT1M}") Duration window) {
+        this.sampler = new LogSampler(logger, burst, window);
+        this.summaries = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-sampler-summaries");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = window.toMillis();
+        summaries.scheduleAtFixedRate(sampler::flush, period, period, TimeUnit.MILLISECONDS);
     }
 
-    @ExceptionHandler(UnauthorizedAccessException.class)
-    public ResponseEntity<Map<String, String>> handleUnauthorized(UnauthorizedAccessException ex) {
-        logger.warn("Unauthorized access: {}", ex.getMessage());
-        Map<String, String> error = new HashMap<>();
-        error.put("error", ex.getMessage());
-        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+    @PreDestroy
+    public void shutdown() {
+        summaries.shutdownNow();
+    }
+
+    @ExceptionHandler(DomainException.class)
+    public ResponseEntity<byte[]> handleDomain(DomainException ex) {
+        ErrorCode code = ex.getCode();
+        if (sampler.allow(code.name())) {
+            logger.warn("{}: {}", code, ex.getMessage());
+        }
+        return code.toResponse();
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidation(MethodArgumentNotValidException ex) {
-        logger.warn("Validation failed: {}", ex.getMessage());
+        if (sampler.allow(ErrorCode.BAD_REQUEST.name())) {
+            logger.warn("Validation failed: {}", ex.getMessage());
+        }
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getFieldErrors().forEach(error ->
                 errors.put(error.getField(), error.getDefaultMessage()));
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
     }
 
+    /**
+     * The one domain exception whose message reaches the client: it says what was wrong
+     * with the input, which the generic "Bad request" body cannot.
+     */
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<Map<String, String>> handleBadRequest(BadRequestException ex) {
+        if (sampler.allow(ErrorCode.BAD_REQUEST.name())) {
+            logger.warn("Bad request: {}", ex.getMessage());
+        }
+        Map<String, String> error = new HashMap<>();
+        error.put("error", ex.getMessage());
+        error.put("code", ErrorCode.BAD_REQUEST.name());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
     @ExceptionHandler(AuthenticationException.class)
     public ResponseEntity<Map<String, String>> handleAuthException(AuthenticationException ex) {
-        logger.warn("Authentication failed: {}", ex.getMessage());
+        if (sampler.allow(ErrorCode.AUTHENTICATION_FAILED.name())) {
+            logger.warn("Authentication failed: {}", ex.getMessage());
+        }
         Map<String, String> error = new HashMap<>();
         error.put("error", "Authentication failed: " + ex.getMessage());
+        error.put("code", ErrorCode.AUTHENTICATION_FAILED.name());
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
     }
 
     @ExceptionHandler(AccessDeniedException.class)
     public ResponseEntity<Map<String, String>> handleAccessDenied(AccessDeniedException ex) {
-        logger.warn("Access denied: {}", ex.getMessage());
+        if (sampler.allow(ErrorCode.ACCESS_DENIED.name())) {
+            logger.warn("Access denied: {}", ex.getMessage());
+        }
         Map<String, String> error = new HashMap<>();
         error.put("error", "Access denied: " + ex.getMessage());
+        error.put("code", ErrorCode.ACCESS_DENIED.name());
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
     }
 
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, String>> handleOtherExceptions(Exception ex) {
+    public ResponseEntity<byte[]> handleOtherExceptions(Exception ex) {
         logger.error("Unhandled exception: {}", ex.getMessage(), ex);
-        Map<String, String> error = new HashMap<>();
-        error.put("error", "An unexpected error occurred");
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        return ErrorCode.INTERNAL_ERROR.toResponse();
     }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package exception;
+
+public class PreconditionFailedException extends DomainException {
+    public PreconditionFailedException(String message) {
+        super(ErrorCode.PRECONDITION_FAILED, message);
+    }
+}
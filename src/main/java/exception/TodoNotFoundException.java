@@ -1,7 +1,7 @@
 package exception;
 
-public class TodoNotFoundException extends RuntimeException {
+public class TodoNotFoundException extends DomainException {
     public TodoNotFoundException(String message) {
-        super(message);
+        super(ErrorCode.TODO_NOT_FOUND, message);
     }
-}
\ No newline at end of file
+}
@@ -1,7 +0,0 @@
-package exception;
-
-public class UnauthorizedAccessException extends RuntimeException {
-    public UnauthorizedAccessException(String message) {
-        super(message);
-    }
-}
\ No newline at end of file
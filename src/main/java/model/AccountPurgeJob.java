@@ -0,0 +1,156 @@
+package model;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+
+import java.time.Instant;
+
+/**
+ * Progress of the background purge that follows an account deletion, one item per
+ * username. Unfinished jobs are picked up again after a restart, and failed ones after a
+ * backoff; finished ones expire through DynamoDB TTL on {@code expiresAt}.
+ * <p>
+ * The instance running a purge holds a lease on the job ({@code owner} until
+ * {@code leaseExpiresAt}), so other instances leave it alone until the lease runs out.
+ */
+@DynamoDbBean
+public class AccountPurgeJob {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private String userId;
+    private String jobId;
+    private Status status;
+    private long todosDeleted;
+    private Instant requestedAt;
+    private Instant updatedAt;
+    private Instant completedAt;
+    private String error;
+    private int attempts;
+    private Instant nextAttemptAt;
+    private String owner;
+    private Long leaseExpiresAt;
+    private Long expiresAt;
+
+    @DynamoDbPartitionKey
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getTodosDeleted() {
+        return todosDeleted;
+    }
+
+    public void setTodosDeleted(long todosDeleted) {
+        this.todosDeleted = todosDeleted;
+    }
+
+    public Instant getRequestedAt() {
+        return requestedAt;
+    }
+
+    public void setRequestedAt(Instant requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * Failed runs so far; the backoff before the next one doubles with each.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * When a failed job may be retried; null while it has not failed.
+     */
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    /**
+     * The instance holding the lease; null once no instance runs the job.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * End of the owner's lease in epoch milliseconds, a number so conditions can compare it.
+     */
+    public Long getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(Long leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    /**
+     * Expiry in epoch seconds, the format DynamoDB TTL expects. Only set once the job completed.
+     */
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
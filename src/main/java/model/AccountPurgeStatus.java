@@ -0,0 +1,54 @@
+package model;
+
+import java.time.Instant;
+
+/**
+ * Public view of an {@link AccountPurgeJob}, without the username.
+ */
+public class AccountPurgeStatus {
+    private final String jobId;
+    private final AccountPurgeJob.Status status;
+    private final long todosDeleted;
+    private final Instant requestedAt;
+    private final Instant updatedAt;
+    private final int attempts;
+    private final Instant nextAttemptAt;
+
+    public AccountPurgeStatus(AccountPurgeJob job) {
+        this.jobId = job.getJobId();
+        this.status = job.getStatus();
+        this.todosDeleted = job.getTodosDeleted();
+        this.requestedAt = job.getRequestedAt();
+        this.updatedAt = job.getUpdatedAt();
+        this.attempts = job.getAttempts();
+        this.nextAttemptAt = job.getNextAttemptAt();
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public AccountPurgeJob.Status getStatus() {
+        return status;
+    }
+
+    public long getTodosDeleted() {
+        return todosDeleted;
+    }
+
+    public Instant getRequestedAt() {
+        return requestedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+}
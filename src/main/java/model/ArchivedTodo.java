@@ -0,0 +1,43 @@
+package model;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondarySortKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+import java.time.Instant;
+
+/**
+ * A todo in the {@code todo_archive} table: the same attributes, keyed by owner and id so a
+ * user's archive is one partition, with local indexes for the two list orders and a global
+ * one for lookups by id.
+ */
+@DynamoDbBean
+public class ArchivedTodo extends Todo {
+
+    @Override
+    @DynamoDbPartitionKey
+    public String getUserId() {
+        return super.getUserId();
+    }
+
+    @Override
+    @DynamoDbSortKey
+    @DynamoDbSecondaryPartitionKey(indexNames = "id-index")
+    public String getId() {
+        return super.getId();
+    }
+
+    @Override
+    @DynamoDbSecondarySortKey(indexNames = "userId-createdAt-index")
+    public Instant getCreatedAt() {
+        return super.getCreatedAt();
+    }
+
+    @Override
+    @DynamoDbSecondarySortKey(indexNames = "userId-dueDate-index")
+    public String getDueSortKey() {
+        return super.getDueSortKey();
+    }
+}
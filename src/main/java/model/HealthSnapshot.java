@@ -0,0 +1,64 @@
+package model;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Result of the latest run of one health probe, as cached by {@code HealthMonitor}.
+ */
+public class HealthSnapshot {
+
+    public enum Status {
+        UP, DOWN, UNKNOWN
+    }
+
+    private final String probe;
+    private final Status status;
+    private final Map<String, Object> details;
+    private final String error;
+    private final Instant checkedAt;
+    private final long durationMs;
+
+    public HealthSnapshot(String probe, Status status, Map<String, Object> details, String error,
+                          Instant checkedAt, long durationMs) {
+        this.probe = probe;
+        this.status = status;
+        this.details = details == null ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(details));
+        this.error = error;
+        this.checkedAt = checkedAt;
+        this.durationMs = durationMs;
+    }
+
+    /**
+     * Placeholder until the probe has completed once.
+     */
+    public static HealthSnapshot pending(String probe) {
+        return new HealthSnapshot(probe, Status.UNKNOWN, Map.of(), null, null, 0);
+    }
+
+    public String getProbe() {
+        return probe;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Map<String, Object> getDetails() {
+        return details;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public Instant getCheckedAt() {
+        return checkedAt;
+    }
+
+    public long getDurationMs() {
+        return durationMs;
+    }
+}
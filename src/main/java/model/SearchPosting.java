@@ -0,0 +1,63 @@
+package model;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbIgnore;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+/**
+ * One entry of a user's inverted index: a term occurring in one todo. The sort key
+ * is {@code <term>#<todoId>}, so a prefix query on the sort key finds every todo
+ * containing a term that starts with the typed text.
+ */
+@DynamoDbBean
+public class SearchPosting {
+
+    private String userId;
+    private String termKey;
+    private String todoId;
+    private Double weight;
+
+    public static String termKey(String term, String todoId) {
+        return term + "#" + todoId;
+    }
+
+    @DynamoDbPartitionKey
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    @DynamoDbSortKey
+    public String getTermKey() {
+        return termKey;
+    }
+
+    public void setTermKey(String termKey) {
+        this.termKey = termKey;
+    }
+
+    public String getTodoId() {
+        return todoId;
+    }
+
+    public void setTodoId(String todoId) {
+        this.todoId = todoId;
+    }
+
+    public Double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Double weight) {
+        this.weight = weight;
+    }
+
+    @DynamoDbIgnore
+    public String getTerm() {
+        return termKey.substring(0, termKey.lastIndexOf('#'));
+    }
+}
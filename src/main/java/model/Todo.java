@@ -2,11 +2,21 @@ package model;
 
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondarySortKey;
+import software.amazon.awssdk.enhanced.dynamodb.extensions.annotations.DynamoDbVersionAttribute;
 
 import java.time.Instant;
 
 @DynamoDbBean
 public class Todo {
+
+    /**
+     * Sort key value used for todos without a due date, so they sort after dated ones
+     * instead of dropping out of the due-date indexes.
+     */
+    public static final String NO_DUE_DATE = "9999-12-31";
+
     private String id;
     private String title;
     private String description;
@@ -14,6 +24,11 @@ public class Todo {
     private Instant createdAt;
     private Instant updatedAt;
     private String dueDate;
+    private Long version;
+    private Integer shard;
+    private Instant completedAt;
+    private Instant archivedAt;
+    private Long expiresAt;
 
     private String userId;
 
@@ -50,6 +65,8 @@ public class Todo {
         this.status = status;
     }
 
+    @DynamoDbSecondarySortKey(indexNames = {"userId-createdAt-index", "userStatus-createdAt-index",
+            "userShard-createdAt-index", "userStatusShard-createdAt-index"})
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -58,6 +75,7 @@ public class Todo {
         this.createdAt = createdAt;
     }
 
+    @DynamoDbSecondarySortKey(indexNames = {"userId-updatedAt-index", "userShard-updatedAt-index"})
     public Instant getUpdatedAt() {
         return updatedAt;
     }
@@ -74,6 +92,25 @@ public class Todo {
         this.dueDate = dueDate;
     }
 
+    /**
+     * Incremented on every write; puts are conditional on the version that was read,
+     * so concurrent edits fail instead of overwriting each other. Null for todos
+     * written before versioning, which the first write treats as a new record.
+     */
+    @DynamoDbVersionAttribute
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Also the partition key of the unsharded per-user indexes. With sharding on, writes only
+     * stop landing there once those indexes are dropped ({@code todos.sharding.drop-unsharded-indexes}).
+     */
+    @DynamoDbSecondaryPartitionKey(indexNames = {"userId-createdAt-index", "userId-dueDate-index", "userId-updatedAt-index"})
     public String getUserId() {
         return userId;
     }
@@ -81,4 +118,100 @@ public class Todo {
     public void setUserId(String userId) {
         this.userId = userId;
     }
+
+    /**
+     * Derived {@code <userId>#<status>} key so status filters run as key conditions. Kept on
+     * sharded todos as a plain attribute, so the unsharded indexes can be rebuilt. Todos written
+     * before it existed get it from {@code TodoListKeyBackfill}.
+     */
+    @DynamoDbSecondaryPartitionKey(indexNames = {"userStatus-createdAt-index", "userStatus-dueDate-index"})
+    public String getUserStatus() {
+        return userId == null || status == null ? null : userId + "#" + status;
+    }
+
+    public void setUserStatus(String userStatus) {
+        // Derived from userId and status
+    }
+
+    /**
+     * When the todo was last marked completed; null while pending. Todos completed before this
+     * was recorded fall back to {@code updatedAt} for archival.
+     */
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    /**
+     * Set once the todo has been moved to the archive table. The copy left in {@code todos}
+     * loses its title, description and index keys, and points reads by id at the archive
+     * until TTL removes it.
+     */
+    public Instant getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(Instant archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+
+    /**
+     * TTL (epoch seconds) of an archived todo's leftover copy in {@code todos}.
+     */
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * Which of the owner's index shards this todo is written to, assigned once on the first
+     * save. Null for todos written before sharding, until the backfill sets them to 0.
+     */
+    public Integer getShard() {
+        return shard;
+    }
+
+    public void setShard(Integer shard) {
+        this.shard = shard;
+    }
+
+    /**
+     * Derived {@code <userId>#<shard>} key, so one user's todos spread over several index partitions.
+     */
+    @DynamoDbSecondaryPartitionKey(indexNames = {"userShard-createdAt-index", "userShard-dueDate-index", "userShard-updatedAt-index"})
+    public String getUserShard() {
+        return userId == null || shard == null ? null : userId + "#" + shard;
+    }
+
+    public void setUserShard(String userShard) {
+        // Derived from userId and shard
+    }
+
+    /**
+     * Derived {@code <userId>#<status>#<shard>} key, the sharded counterpart of {@link #getUserStatus()}.
+     */
+    @DynamoDbSecondaryPartitionKey(indexNames = {"userStatusShard-createdAt-index", "userStatusShard-dueDate-index"})
+    public String getUserStatusShard() {
+        return userId == null || status == null || shard == null ? null : userId + "#" + status + "#" + shard;
+    }
+
+    public void setUserStatusShard(String userStatusShard) {
+        // Derived from userId, status and shard
+    }
+
+    @DynamoDbSecondarySortKey(indexNames = {"userId-dueDate-index", "userStatus-dueDate-index",
+            "userShard-dueDate-index", "userStatusShard-dueDate-index"})
+    public String getDueSortKey() {
+        return dueDate == null ? NO_DUE_DATE : dueDate;
+    }
+
+    public void setDueSortKey(String dueSortKey) {
+        // Derived from dueDate
+    }
 }
@@ -0,0 +1,43 @@
+package model;
+
+import java.util.List;
+
+public class TodoChanges {
+    private final List<TodoResponse> changed;
+    private final List<String> deleted;
+    private final String syncToken;
+    private final boolean reset;
+
+    public TodoChanges(List<TodoResponse> changed, List<String> deleted, String syncToken, boolean reset) {
+        this.changed = changed;
+        this.deleted = deleted;
+        this.syncToken = syncToken;
+        this.reset = reset;
+    }
+
+    /**
+     * Todos created or updated since the token, oldest change first.
+     */
+    public List<TodoResponse> getChanged() {
+        return changed;
+    }
+
+    /**
+     * Ids of todos deleted since the token.
+     */
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    public String getSyncToken() {
+        return syncToken;
+    }
+
+    /**
+     * True when {@code changed} is the complete list and the client should replace its local copy,
+     * either because no token was sent or because it is older than the tombstone retention.
+     */
+    public boolean isReset() {
+        return reset;
+    }
+}
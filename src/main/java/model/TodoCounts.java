@@ -0,0 +1,173 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * A user's todo counters, or a change to them. Pending todos are counted per due date
+ * rather than as a single overdue number: a todo becomes overdue by time passing, without
+ * a write, so {@link #overdue(LocalDate)} sums the due dates before the given day instead.
+ * <p>
+ * Counters read from storage also carry their {@code revision}, which every change
+ * increments, and when they last changed.
+ */
+public class TodoCounts {
+
+    public static final TodoCounts NONE = new TodoCounts(0, 0, 0, Collections.emptyMap(), 0, null);
+
+    private final long total;
+    private final long pending;
+    private final long completed;
+    private final Map<String, Long> pendingByDueDate;
+    private final long revision;
+    private final Instant updatedAt;
+
+    public TodoCounts(long total, long pending, long completed, Map<String, Long> pendingByDueDate,
+                      long revision, Instant updatedAt) {
+        this.total = total;
+        this.pending = pending;
+        this.completed = completed;
+        TreeMap<String, Long> dueDates = new TreeMap<>();
+        pendingByDueDate.forEach((date, count) -> {
+            if (count != 0) {
+                dueDates.put(date, count);
+            }
+        });
+        this.pendingByDueDate = Collections.unmodifiableMap(dueDates);
+        this.revision = revision;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * What one todo contributes to its owner's counters.
+     */
+    public static TodoCounts of(Todo todo) {
+        if (todo == null) {
+            return NONE;
+        }
+        boolean isPending = "PENDING".equals(todo.getStatus());
+        boolean isCompleted = "COMPLETED".equals(todo.getStatus());
+        Map<String, Long> dueDates = isPending && todo.getDueDate() != null
+                ? Map.of(todo.getDueDate(), 1L)
+                : Collections.emptyMap();
+        return new TodoCounts(1, isPending ? 1 : 0, isCompleted ? 1 : 0, dueDates, 0, null);
+    }
+
+    /**
+     * Counts the todos in one pass, without building an intermediate object per todo.
+     */
+    public static TodoCounts count(Iterator<Todo> todos) {
+        long total = 0;
+        long pending = 0;
+        long completed = 0;
+        Map<String, Long> dueDates = new TreeMap<>();
+        while (todos.hasNext()) {
+            Todo todo = todos.next();
+            total++;
+            if ("PENDING".equals(todo.getStatus())) {
+                pending++;
+                if (todo.getDueDate() != null) {
+                    dueDates.merge(todo.getDueDate(), 1L, Long::sum);
+                }
+            } else if ("COMPLETED".equals(todo.getStatus())) {
+                completed++;
+            }
+        }
+        return new TodoCounts(total, pending, completed, dueDates, 0, null);
+    }
+
+    public TodoCounts plus(TodoCounts other) {
+        Map<String, Long> dueDates = new TreeMap<>(pendingByDueDate);
+        other.pendingByDueDate.forEach((date, count) -> dueDates.merge(date, count, Long::sum));
+        return new TodoCounts(total + other.total, pending + other.pending, completed + other.completed,
+                dueDates, 0, null);
+    }
+
+    public TodoCounts minus(TodoCounts other) {
+        return plus(other.negated());
+    }
+
+    public TodoCounts negated() {
+        Map<String, Long> dueDates = new TreeMap<>();
+        pendingByDueDate.forEach((date, count) -> dueDates.put(date, -count));
+        return new TodoCounts(-total, -pending, -completed, dueDates, 0, null);
+    }
+
+    public boolean isEmpty() {
+        return total == 0 && pending == 0 && completed == 0 && pendingByDueDate.isEmpty();
+    }
+
+    /**
+     * Pending todos due before {@code today}.
+     */
+    public long overdue(LocalDate today) {
+        long overdue = 0;
+        for (Map.Entry<String, Long> entry : pendingByDueDate.entrySet()) {
+            // yyyy-MM-dd sorts like the dates it stands for
+            if (entry.getKey().compareTo(today.toString()) >= 0) {
+                break;
+            }
+            overdue += entry.getValue();
+        }
+        return overdue;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    /**
+     * Pending todos per {@code yyyy-MM-dd} due date, in date order; dates without any are left out.
+     */
+    public Map<String, Long> getPendingByDueDate() {
+        return pendingByDueDate;
+    }
+
+    public long getRevision() {
+        return revision;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Equal counters; revision and update time are not compared.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TodoCounts)) {
+            return false;
+        }
+        TodoCounts other = (TodoCounts) o;
+        return total == other.total && pending == other.pending && completed == other.completed
+                && pendingByDueDate.equals(other.pendingByDueDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(total, pending, completed, pendingByDueDate);
+    }
+
+    @Override
+    public String toString() {
+        return "TodoCounts{total=" + total + ", pending=" + pending + ", completed=" + completed
+                + ", pendingByDueDate=" + pendingByDueDate + "}";
+    }
+}
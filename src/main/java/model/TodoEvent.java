@@ -0,0 +1,94 @@
+package model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A change to one of a user's todos, pushed to that user's open event streams.
+ */
+public class TodoEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED,
+        /** Synthetic: the requested Last-Event-ID is no longer buffered, the client must re-sync. */
+        RESYNC
+    }
+
+    private String id;
+    private Type type;
+    private String userId;
+    private String todoId;
+    private TodoResponse todo;
+    private Instant occurredAt;
+
+    public TodoEvent() {
+    }
+
+    public static TodoEvent of(Type type, String userId, TodoResponse todo) {
+        TodoEvent event = new TodoEvent();
+        event.setId(UUID.randomUUID().toString());
+        event.setType(type);
+        event.setUserId(userId);
+        event.setTodoId(todo.getId());
+        // Deletes only carry the id
+        event.setTodo(type == Type.DELETED ? null : todo);
+        event.setOccurredAt(Instant.now());
+        return event;
+    }
+
+    public static TodoEvent resync(String userId) {
+        TodoEvent event = new TodoEvent();
+        event.setType(Type.RESYNC);
+        event.setUserId(userId);
+        event.setOccurredAt(Instant.now());
+        return event;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getTodoId() {
+        return todoId;
+    }
+
+    public void setTodoId(String todoId) {
+        this.todoId = todoId;
+    }
+
+    public TodoResponse getTodo() {
+        return todo;
+    }
+
+    public void setTodo(TodoResponse todo) {
+        this.todo = todo;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+
+    public void setOccurredAt(Instant occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+}
@@ -0,0 +1,56 @@
+package model;
+
+import exception.BadRequestException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses the {@code ?fields=} sparse fieldset parameter for todo reads.
+ * Field names match both the {@link TodoResponse} properties and the
+ * DynamoDB attribute names, so the same set drives projection and serialization.
+ */
+public final class TodoFields {
+
+    public static final String FILTER_ID = "todoFields";
+
+    public static final List<String> ALLOWED = List.of(
+            "id", "title", "description", "status", "createdAt", "updatedAt", "dueDate", "version");
+
+    private TodoFields() {
+    }
+
+    /**
+     * @return the requested fields, or an empty set when every field should be returned
+     * @throws BadRequestException if an unknown field is requested
+     */
+    public static Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Collections.emptySet();
+        }
+        Set<String> parsed = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ALLOWED.contains(name)) {
+                throw new BadRequestException("Unknown field '" + name + "', allowed fields are " + ALLOWED);
+            }
+            parsed.add(name);
+        }
+        return parsed;
+    }
+
+    public static Set<String> withRequired(Set<String> fields, String... required) {
+        if (fields.isEmpty()) {
+            return fields;
+        }
+        Set<String> projected = new LinkedHashSet<>(fields);
+        projected.addAll(Arrays.asList(required));
+        return projected;
+    }
+}
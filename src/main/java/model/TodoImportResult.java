@@ -0,0 +1,30 @@
+package model;
+
+import java.util.List;
+
+public class TodoImportResult {
+    private final long imported;
+    private final long skipped;
+    private final List<String> errors;
+
+    public TodoImportResult(long imported, long skipped, List<String> errors) {
+        this.imported = imported;
+        this.skipped = skipped;
+        this.errors = errors;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Reasons for the first skipped records, capped so the response stays small.
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,207 @@
+package model;
+
+import exception.BadRequestException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Filter, sort and projection options for listing a user's todos. Every option
+ * maps onto an index key condition; combinations that would need a filter
+ * expression are rejected when the query is built.
+ */
+public class TodoQuery {
+
+    public enum SortField {
+        CREATED_AT("createdAt"),
+        DUE_DATE("dueDate");
+
+        private final String parameter;
+
+        SortField(String parameter) {
+            this.parameter = parameter;
+        }
+
+        static SortField fromParameter(String value) {
+            for (SortField field : values()) {
+                if (field.parameter.equals(value)) {
+                    return field;
+                }
+            }
+            throw new BadRequestException("Unknown sort field '" + value + "', allowed fields are createdAt and dueDate");
+        }
+    }
+
+    public static final List<String> STATUSES = List.of("PENDING", "COMPLETED");
+
+    private final String status;
+    private final SortField sortField;
+    private final boolean descending;
+    private final String rangeFrom;
+    private final String rangeTo;
+    private final Instant createdFrom;
+    private final Instant createdTo;
+    private final Set<String> fields;
+    private final boolean includeArchived;
+
+    private TodoQuery(String status, SortField sortField, boolean descending, String rangeFrom, String rangeTo,
+                      Instant createdFrom, Instant createdTo, Set<String> fields, boolean includeArchived) {
+        this.status = status;
+        this.sortField = sortField;
+        this.descending = descending;
+        this.rangeFrom = rangeFrom;
+        this.rangeTo = rangeTo;
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+        this.fields = fields;
+        this.includeArchived = includeArchived;
+    }
+
+    public static TodoQuery all() {
+        return all(Collections.emptySet());
+    }
+
+    public static TodoQuery all(Set<String> fields) {
+        return new TodoQuery(null, SortField.CREATED_AT, false, null, null, null, null, fields, false);
+    }
+
+    /**
+     * Builds a query from request parameters.
+     *
+     * @param sort {@code createdAt}, {@code dueDate}, or either prefixed with {@code -} for descending order
+     * @throws BadRequestException on unknown values or a date range that does not match the sort field
+     */
+    public static TodoQuery of(String status, String sort, String createdFrom, String createdTo,
+                               String dueFrom, String dueTo, Set<String> fields) {
+        if (status != null && !STATUSES.contains(status)) {
+            throw new BadRequestException("Unknown status '" + status + "', allowed values are " + STATUSES);
+        }
+
+        boolean createdRange = createdFrom != null || createdTo != null;
+        boolean dueRange = dueFrom != null || dueTo != null;
+        if (createdRange && dueRange) {
+            throw new BadRequestException("Only one of the createdAt and dueDate ranges can be applied");
+        }
+
+        boolean descending = sort != null && sort.startsWith("-");
+        SortField sortField;
+        if (sort != null) {
+            sortField = SortField.fromParameter(descending ? sort.substring(1) : sort);
+        } else {
+            sortField = dueRange ? SortField.DUE_DATE : SortField.CREATED_AT;
+        }
+
+        // The range is a key condition on the index sort key, so it must match the sort field
+        if ((createdRange && sortField != SortField.CREATED_AT) || (dueRange && sortField != SortField.DUE_DATE)) {
+            throw new BadRequestException("Date range must be on the sort field '" + sortField.parameter + "'");
+        }
+
+        Instant createdAfter = instant(createdFrom);
+        Instant createdBefore = instant(createdTo);
+        String from;
+        String to;
+        if (createdRange) {
+            // Instant.toString() drops trailing zeros, so "12:00:05.1Z" sorts before "12:00:05Z".
+            // A whole second more on each side yields a superset of the matches; see matches(Todo).
+            from = createdAfter == null ? null : createdAfter.truncatedTo(ChronoUnit.SECONDS).minusSeconds(1).toString();
+            to = createdBefore == null ? null : createdBefore.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1).toString();
+        } else {
+            from = date(dueFrom);
+            to = date(dueTo);
+        }
+        if (dueRange && to == null) {
+            // Keep undated todos (stored under the NO_DUE_DATE sentinel) out of an open-ended range
+            to = LocalDate.parse(Todo.NO_DUE_DATE).minusDays(1).toString();
+        }
+        return new TodoQuery(status, sortField, descending, from, to, createdAfter, createdBefore, fields, false);
+    }
+
+    /**
+     * The same query, also reading completed todos that were moved to the archive.
+     */
+    public TodoQuery includingArchived() {
+        return new TodoQuery(status, sortField, descending, rangeFrom, rangeTo, createdFrom, createdTo, fields, true);
+    }
+
+    /**
+     * Whether the todo is exactly inside the requested createdAt range. Repositories trim the
+     * key range with it, which is wider (see {@link #getRangeFrom()}); needs {@code createdAt}
+     * to be read when {@link #hasCreatedRange()}.
+     */
+    public boolean matches(Todo todo) {
+        if (!hasCreatedRange()) {
+            return true;
+        }
+        Instant createdAt = todo.getCreatedAt();
+        return (createdFrom == null || !createdAt.isBefore(createdFrom))
+                && (createdTo == null || !createdAt.isAfter(createdTo));
+    }
+
+    public boolean hasCreatedRange() {
+        return createdFrom != null || createdTo != null;
+    }
+
+    private static Instant instant(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid timestamp '" + value + "', expected ISO-8601 like 2024-01-01T12:00:00Z");
+        }
+    }
+
+    private static String date(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value).toString();
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid date '" + value + "', expected yyyy-MM-dd");
+        }
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public SortField getSortField() {
+        return sortField;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Inclusive lower bound on the sort key, already formatted as stored; {@code null} if unbounded.
+     * A createdAt bound is a whole second wider than requested, and the results must be
+     * trimmed with {@link #matches(Todo)}.
+     */
+    public String getRangeFrom() {
+        return rangeFrom;
+    }
+
+    /**
+     * Inclusive upper bound on the sort key, already formatted as stored; {@code null} if unbounded.
+     * Widened like {@link #getRangeFrom()}.
+     */
+    public String getRangeTo() {
+        return rangeTo;
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public boolean isIncludeArchived() {
+        return includeArchived;
+    }
+}
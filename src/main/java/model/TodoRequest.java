@@ -1,6 +1,7 @@
 package model;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
 public class TodoRequest {
@@ -11,6 +12,9 @@ public class TodoRequest {
     @Size(max = 1000, message = "Description must be less than 1000 characters")
     private String description;
 
+    @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Due date must be formatted as yyyy-MM-dd")
+    private String dueDate;
+
     public String getTitle() {
         return title;
     }
@@ -26,4 +30,12 @@ public class TodoRequest {
     public void setDescription(String description) {
         this.description = description;
     }
+
+    public String getDueDate() {
+        return dueDate;
+    }
+
+    public void setDueDate(String dueDate) {
+        this.dueDate = dueDate;
+    }
 }
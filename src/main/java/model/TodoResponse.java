@@ -1,7 +1,10 @@
 package model;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+
 import java.time.Instant;
 
+@JsonFilter(TodoFields.FILTER_ID)
 public class TodoResponse {
     private String id;
     private String title;
@@ -9,6 +12,8 @@ public class TodoResponse {
     private String status;
     private Instant createdAt;
     private Instant updatedAt;
+    private String dueDate;
+    private long version;
 
 
     public String getId() {
@@ -58,4 +63,23 @@ public class TodoResponse {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public String getDueDate() {
+        return dueDate;
+    }
+
+    public void setDueDate(String dueDate) {
+        this.dueDate = dueDate;
+    }
+
+    /**
+     * Also sent as the ETag; pass it back in If-Match to make an update conditional.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
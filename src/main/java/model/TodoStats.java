@@ -0,0 +1,54 @@
+package model;
+
+import java.time.LocalDate;
+
+public class TodoStats {
+    private long total;
+    private long pending;
+    private long completed;
+    private long overdue;
+
+    public static TodoStats of(TodoCounts counts, LocalDate today) {
+        TodoStats stats = new TodoStats();
+        stats.setTotal(counts.getTotal());
+        stats.setPending(counts.getPending());
+        stats.setCompleted(counts.getCompleted());
+        stats.setOverdue(counts.overdue(today));
+        return stats;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public void setPending(long pending) {
+        this.pending = pending;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    /**
+     * Pending todos whose due date has passed (UTC).
+     */
+    public long getOverdue() {
+        return overdue;
+    }
+
+    public void setOverdue(long overdue) {
+        this.overdue = overdue;
+    }
+}
@@ -0,0 +1,68 @@
+package model;
+
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
+
+import java.time.Instant;
+
+/**
+ * Marker left behind by a deleted todo so delta sync can report the delete.
+ * Expires through DynamoDB TTL on {@code expiresAt}.
+ */
+@DynamoDbBean
+public class TodoTombstone {
+
+    private String userId;
+    private String todoId;
+    private Instant deletedAt;
+    private Long expiresAt;
+
+    @DynamoDbPartitionKey
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Derived {@code <deletedAt>#<todoId>} key so tombstones are read in deletion order.
+     */
+    @DynamoDbSortKey
+    public String getChangeKey() {
+        return deletedAt == null || todoId == null ? null : deletedAt + "#" + todoId;
+    }
+
+    public void setChangeKey(String changeKey) {
+        // Derived from deletedAt and todoId
+    }
+
+    public String getTodoId() {
+        return todoId;
+    }
+
+    public void setTodoId(String todoId) {
+        this.todoId = todoId;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Instant deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    /**
+     * Expiry in epoch seconds, the format DynamoDB TTL expects.
+     */
+    public Long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
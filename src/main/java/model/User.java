@@ -2,6 +2,8 @@ package model;
 
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
 
+import java.time.Instant;
+
 @DynamoDbBean
 public class User {
 
@@ -9,6 +11,9 @@ public class User {
     private String username;
     private String password;
     private String role;
+    private Integer todoShards;
+    private Integer previousTodoShards;
+    private Instant todoShardsRaisedAt;
 
     @DynamoDbPartitionKey
     public String getId() {
@@ -43,4 +48,34 @@ public class User {
     public void setRole(String role) {
         this.role = role;
     }
+
+    /**
+     * Number of index shards this user's todos are spread over (see {@code TodoShards}); null means one.
+     */
+    public Integer getTodoShards() {
+        return todoShards;
+    }
+
+    public void setTodoShards(Integer todoShards) {
+        this.todoShards = todoShards;
+    }
+
+    /**
+     * The shard count before the last raise; new todos keep using it for a grace period.
+     */
+    public Integer getPreviousTodoShards() {
+        return previousTodoShards;
+    }
+
+    public void setPreviousTodoShards(Integer previousTodoShards) {
+        this.previousTodoShards = previousTodoShards;
+    }
+
+    public Instant getTodoShardsRaisedAt() {
+        return todoShardsRaisedAt;
+    }
+
+    public void setTodoShardsRaisedAt(Instant todoShardsRaisedAt) {
+        this.todoShardsRaisedAt = todoShardsRaisedAt;
+    }
 }
@@ -0,0 +1,32 @@
+package repository;
+
+import model.AccountPurgeJob;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AccountPurgeJobRepository {
+    void save(AccountPurgeJob job);
+
+    /**
+     * Saves the job only while {@code owner} still holds its lease.
+     *
+     * @return false if the lease was taken over by another instance, and nothing was written
+     */
+    boolean save(AccountPurgeJob job, String owner);
+
+    /**
+     * Writes the job with the lease it carries ({@link AccountPurgeJob#getOwner()} until
+     * {@link AccountPurgeJob#getLeaseExpiresAt()}), if the stored job is unfinished and its
+     * lease is free, expired or already this owner's.
+     *
+     * @return false if another instance holds the lease or the job completed
+     */
+    boolean acquire(AccountPurgeJob job, long nowMillis);
+    Optional<AccountPurgeJob> findByUserId(String userId);
+
+    /**
+     * Jobs that have not completed yet, including failed ones.
+     */
+    List<AccountPurgeJob> findUnfinished();
+}
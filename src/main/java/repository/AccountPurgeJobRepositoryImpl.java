@@ -0,0 +1,134 @@
+package repository;
+
+import model.AccountPurgeJob;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveSpecification;
+import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Purge jobs in the {@code account_purge_jobs} table. The table only ever holds the
+ * handful of deletions from the last weeks, so listing unfinished jobs is a scan.
+ */
+@Repository
+@ConditionalOnProperty(name = "dynamodb.enabled", havingValue = "true", matchIfMissing = true)
+public class AccountPurgeJobRepositoryImpl implements AccountPurgeJobRepository {
+
+    static final String TABLE_NAME = "account_purge_jobs";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbTable<AccountPurgeJob> jobTable;
+
+    public AccountPurgeJobRepositoryImpl(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.jobTable = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build()
+                .table(TABLE_NAME, TableSchema.fromBean(AccountPurgeJob.class));
+    }
+
+    @PostConstruct
+    private void createTableIfNotExists() {
+        try {
+            dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(TABLE_NAME).build());
+            return;
+        } catch (ResourceNotFoundException rnfe) {
+            // Create below
+        }
+
+        dynamoDbClient.createTable(CreateTableRequest.builder()
+                .tableName(TABLE_NAME)
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .keySchema(KeySchemaElement.builder().attributeName("userId").keyType(KeyType.HASH).build())
+                .attributeDefinitions(
+                        AttributeDefinition.builder().attributeName("userId").attributeType(ScalarAttributeType.S).build())
+                .build());
+
+        try (DynamoDbWaiter waiter = dynamoDbClient.waiter()) {
+            waiter.waitUntilTableExists(b -> b.tableName(TABLE_NAME));
+        }
+
+        dynamoDbClient.updateTimeToLive(r -> r.tableName(TABLE_NAME)
+                .timeToLiveSpecification(TimeToLiveSpecification.builder().attributeName("expiresAt").enabled(true).build()));
+    }
+
+    @Override
+    public void save(AccountPurgeJob job) {
+        jobTable.putItem(job);
+    }
+
+    @Override
+    public boolean save(AccountPurgeJob job, String owner) {
+        return putIf(job, Expression.builder()
+                .expression("#owner = :owner")
+                .putExpressionName("#owner", "owner")
+                .putExpressionValue(":owner", AttributeValue.fromS(owner))
+                .build());
+    }
+
+    @Override
+    public boolean acquire(AccountPurgeJob job, long nowMillis) {
+        return putIf(job, Expression.builder()
+                .expression("#status <> :completed"
+                        + " AND (attribute_not_exists(#owner) OR #owner = :owner OR #leaseExpiresAt < :now)")
+                .putExpressionName("#status", "status")
+                .putExpressionName("#owner", "owner")
+                .putExpressionName("#leaseExpiresAt", "leaseExpiresAt")
+                .putExpressionValue(":completed", AttributeValue.fromS(AccountPurgeJob.Status.COMPLETED.name()))
+                .putExpressionValue(":owner", AttributeValue.fromS(job.getOwner()))
+                .putExpressionValue(":now", AttributeValue.fromN(Long.toString(nowMillis)))
+                .build());
+    }
+
+    private boolean putIf(AccountPurgeJob job, Expression condition) {
+        try {
+            jobTable.putItem(PutItemEnhancedRequest.builder(AccountPurgeJob.class)
+                    .item(job)
+                    .conditionExpression(condition)
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public Optional<AccountPurgeJob> findByUserId(String userId) {
+        return Optional.ofNullable(jobTable.getItem(r -> r.key(k -> k.partitionValue(userId)).consistentRead(true)));
+    }
+
+    @Override
+    public List<AccountPurgeJob> findUnfinished() {
+        List<AccountPurgeJob> jobs = new ArrayList<>();
+        jobTable.scan(r -> r.consistentRead(true)
+                        .filterExpression(Expression.builder()
+                                .expression("#status <> :completed")
+                                .putExpressionName("#status", "status")
+                                .putExpressionValue(":completed", AttributeValue.fromS(AccountPurgeJob.Status.COMPLETED.name()))
+                                .build()))
+                .items()
+                .forEach(jobs::add);
+        return jobs;
+    }
+}
@@ -0,0 +1,87 @@
+package repository;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.DeleteRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Low-level BatchWriteItem with retries for unprocessed items. Used where the enhanced
+ * batch API does not fit, e.g. for versioned records whose extension conditions
+ * BatchWriteItem does not accept.
+ */
+final class BatchWrites {
+
+    static final int MAX_BATCH_SIZE = 25;
+    private static final int MAX_ATTEMPTS = 8;
+
+    private BatchWrites() {
+    }
+
+    /**
+     * Unconditionally puts up to 25 items into the table.
+     */
+    static void putAll(DynamoDbClient dynamoDbClient, String tableName, List<Map<String, AttributeValue>> items) {
+        List<WriteRequest> writes = new ArrayList<>(items.size());
+        for (Map<String, AttributeValue> item : items) {
+            writes.add(WriteRequest.builder()
+                    .putRequest(PutRequest.builder().item(item).build())
+                    .build());
+        }
+        writeAll(dynamoDbClient, tableName, writes);
+    }
+
+    /**
+     * Unconditionally deletes up to 25 items, given by their primary keys, from the table.
+     */
+    static void deleteAll(DynamoDbClient dynamoDbClient, String tableName, List<Map<String, AttributeValue>> keys) {
+        List<WriteRequest> writes = new ArrayList<>(keys.size());
+        for (Map<String, AttributeValue> key : keys) {
+            writes.add(WriteRequest.builder()
+                    .deleteRequest(DeleteRequest.builder().key(key).build())
+                    .build());
+        }
+        writeAll(dynamoDbClient, tableName, writes);
+    }
+
+    private static void writeAll(DynamoDbClient dynamoDbClient, String tableName, List<WriteRequest> writes) {
+        if (writes.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("A batch holds at most " + MAX_BATCH_SIZE + " items");
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<WriteRequest>> pending = Map.of(tableName, writes);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (attempt > 0) {
+                // Throttled items come back unprocessed; back off exponentially before retrying them
+                sleep(Math.min(50L << attempt, 5000L));
+            }
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(pending)
+                    .build());
+            if (!response.hasUnprocessedItems() || response.unprocessedItems().isEmpty()) {
+                return;
+            }
+            pending = response.unprocessedItems();
+        }
+        throw new IllegalStateException("Batch write to " + tableName + " still throttled after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying batch write", e);
+        }
+    }
+}
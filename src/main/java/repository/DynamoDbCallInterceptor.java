@@ -0,0 +1,28 @@
+package repository;
+
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import util.RequestTimings;
+
+/**
+ * Charges DynamoDB calls made on a request thread, retries included, to the request's
+ * {@code repository} phase. The sync client runs these hooks on the calling thread.
+ */
+public class DynamoDbCallInterceptor implements ExecutionInterceptor {
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        RequestTimings.start(RequestTimings.Phase.REPOSITORY);
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        RequestTimings.stop(RequestTimings.Phase.REPOSITORY);
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        RequestTimings.stop(RequestTimings.Phase.REPOSITORY);
+    }
+}
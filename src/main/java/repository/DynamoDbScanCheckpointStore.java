@@ -0,0 +1,100 @@
+package repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveSpecification;
+import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Scan checkpoints in the {@code scan_checkpoints} table, one item per job and segment.
+ * Checkpoints expire a week after their last update.
+ */
+@Repository
+@ConditionalOnProperty(name = "dynamodb.enabled", havingValue = "true", matchIfMissing = true)
+public class DynamoDbScanCheckpointStore implements ScanCheckpointStore {
+
+    static final String TABLE_NAME = "scan_checkpoints";
+    private static final Duration RETENTION = Duration.ofDays(7);
+
+    private final DynamoDbClient dynamoDbClient;
+
+    public DynamoDbScanCheckpointStore(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = dynamoDbClient;
+    }
+
+    @PostConstruct
+    private void createTableIfNotExists() {
+        try {
+            dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(TABLE_NAME).build());
+            return;
+        } catch (ResourceNotFoundException rnfe) {
+            // Create below
+        }
+
+        dynamoDbClient.createTable(CreateTableRequest.builder()
+                .tableName(TABLE_NAME)
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .keySchema(
+                        KeySchemaElement.builder().attributeName("checkpointId").keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName("segment").keyType(KeyType.RANGE).build())
+                .attributeDefinitions(
+                        AttributeDefinition.builder().attributeName("checkpointId").attributeType(ScalarAttributeType.S).build(),
+                        AttributeDefinition.builder().attributeName("segment").attributeType(ScalarAttributeType.N).build())
+                .build());
+
+        try (DynamoDbWaiter waiter = dynamoDbClient.waiter()) {
+            waiter.waitUntilTableExists(b -> b.tableName(TABLE_NAME));
+        }
+
+        dynamoDbClient.updateTimeToLive(r -> r.tableName(TABLE_NAME)
+                .timeToLiveSpecification(TimeToLiveSpecification.builder().attributeName("expiresAt").enabled(true).build()));
+    }
+
+    @Override
+    public Optional<Checkpoint> load(String checkpointId, int segment) {
+        GetItemResponse response = dynamoDbClient.getItem(r -> r.tableName(TABLE_NAME)
+                .key(key(checkpointId, segment))
+                .consistentRead(true));
+        if (!response.hasItem() || response.item().isEmpty()) {
+            return Optional.empty();
+        }
+        AttributeValue lastKey = response.item().get("lastEvaluatedKey");
+        return Optional.of(new Checkpoint(lastKey == null ? null : lastKey.m()));
+    }
+
+    @Override
+    public void save(String checkpointId, int segment, Map<String, AttributeValue> lastEvaluatedKey) {
+        Map<String, AttributeValue> item = new HashMap<>(key(checkpointId, segment));
+        Instant now = Instant.now();
+        item.put("updatedAt", AttributeValue.fromS(now.toString()));
+        item.put("expiresAt", AttributeValue.fromN(String.valueOf(now.plus(RETENTION).getEpochSecond())));
+        if (lastEvaluatedKey != null) {
+            item.put("lastEvaluatedKey", AttributeValue.fromM(lastEvaluatedKey));
+        }
+        dynamoDbClient.putItem(r -> r.tableName(TABLE_NAME).item(item));
+    }
+
+    private static Map<String, AttributeValue> key(String checkpointId, int segment) {
+        return Map.of(
+                "checkpointId", AttributeValue.fromS(checkpointId),
+                "segment", AttributeValue.fromN(String.valueOf(segment)));
+    }
+}
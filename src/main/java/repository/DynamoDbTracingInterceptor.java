@@ -0,0 +1,112 @@
+package repository;
+
+import com.taskflow.taskflowbackend.tracing.Spans;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+/**
+ * One span per DynamoDB call ({@code DynamoDB.<Operation>}) with a child span per HTTP
+ * attempt, so retries and throttling show up in traces. Only calls made inside a recorded
+ * trace are traced; the sync client runs these hooks on the calling thread.
+ */
+public class DynamoDbTracingInterceptor implements ExecutionInterceptor {
+
+    private static final ExecutionAttribute<TracedCall> CALL = new ExecutionAttribute<>("TracedDynamoDbCall");
+
+    private final Tracer tracer;
+
+    public DynamoDbTracingInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        if (!Spans.isRecording(tracer)) {
+            return;
+        }
+        String operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        Span span = tracer.nextSpan()
+                .name("DynamoDB." + operation)
+                .tag("db.system", "dynamodb")
+                .tag("rpc.method", operation);
+        context.request().getValueForField("TableName", String.class)
+                .ifPresent(table -> span.tag("aws.dynamodb.table_names", table));
+        executionAttributes.putAttribute(CALL, new TracedCall(operation, span.start()));
+    }
+
+    @Override
+    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+        TracedCall call = executionAttributes.getAttribute(CALL);
+        if (call == null) {
+            return;
+        }
+        // A previous attempt that failed without a response (e.g. a timeout) is still open
+        call.endAttempt(null, "no response");
+        call.attempts++;
+        call.attempt = tracer.nextSpan(call.span)
+                .name("DynamoDB." + call.operation + " attempt")
+                .tag("attempt", String.valueOf(call.attempts))
+                .start();
+    }
+
+    @Override
+    public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+        TracedCall call = executionAttributes.getAttribute(CALL);
+        if (call != null) {
+            call.endAttempt(String.valueOf(context.httpResponse().statusCode()), null);
+        }
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        TracedCall call = executionAttributes.getAttribute(CALL);
+        if (call != null) {
+            call.span.tag("attempts", String.valueOf(call.attempts)).end();
+        }
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        TracedCall call = executionAttributes.getAttribute(CALL);
+        if (call != null) {
+            call.endAttempt(null, context.exception().getClass().getSimpleName());
+            call.span.tag("attempts", String.valueOf(call.attempts))
+                    .error(context.exception())
+                    .end();
+        }
+    }
+
+    /**
+     * Spans of one call; only touched by the thread executing it.
+     */
+    private static final class TracedCall {
+        private final String operation;
+        private final Span span;
+        private Span attempt;
+        private int attempts;
+
+        TracedCall(String operation, Span span) {
+            this.operation = operation;
+            this.span = span;
+        }
+
+        void endAttempt(String statusCode, String failure) {
+            if (attempt == null) {
+                return;
+            }
+            if (statusCode != null) {
+                attempt.tag("http.status_code", statusCode);
+            }
+            if (failure != null) {
+                attempt.tag("failure", failure);
+            }
+            attempt.end();
+            attempt = null;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package repository;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import util.RequestTimings;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in hedging for single-item reads ({@code dynamodb.hedging.enabled}). The read runs on
+ * a small pool; if it has not answered within the recent {@code percentile} latency of that
+ * operation, an identical second read is sent. The first successful response wins and the
+ * other call is interrupted, which the SDK turns into an aborted request.
+ * <p>
+ * Hedges are paid from a budget that every read tops up by {@code max-extra-percent} of a
+ * hedge, so during a DynamoDB-wide slowdown hedging stops at that share of extra traffic
+ * instead of doubling the load. When the pool is saturated reads run on the caller's thread
+ * without hedging.
+ * <p>
+ * Metrics, tagged with {@code operation}: {@code dynamodb.hedging.calls},
+ * {@code dynamodb.hedging.hedges}, {@code dynamodb.hedging.wins} ({@code winner=primary|hedge}),
+ * {@code dynamodb.hedging.budget.exhausted} and the gauge {@code dynamodb.hedging.threshold}
+ * in milliseconds. Hedge rate is hedges/calls, win rate is wins{winner=hedge}/hedges.
+ */
+@Component
+@ConditionalOnProperty(name = "dynamodb.enabled", havingValue = "true", matchIfMissing = true)
+public class HedgedReads {
+
+    // Below this many samples the percentile is noise, so no hedging yet
+    private static final int MIN_SAMPLES = 100;
+    private static final int WINDOW_SIZE = 1024;
+    private static final int RECOMPUTE_INTERVAL = 64;
+    private static final long MILLI_TOKENS_PER_HEDGE = 1000;
+    private static final long MAX_BUDGET = 10 * MILLI_TOKENS_PER_HEDGE;
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long depositPerCall;
+    private final long minDelayNanos;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor;
+    private final AtomicLong budget = new AtomicLong(MAX_BUDGET);
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    public HedgedReads(MeterRegistry meterRegistry,
+                       @Value("${dynamodb.hedging.enabled:false}") boolean enabled,
+                       @Value("${dynamodb.hedging.percentile:0.95}") double percentile,
+                       @Value("${dynamodb.hedging.max-extra-percent:5}") double maxExtraPercent,
+                       @Value("${dynamodb.hedging.min-delay:PT0.005S}") Duration minDelay,
+                       @Value("${dynamodb.hedging.threads:32}") int threads) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.depositPerCall = Math.round(maxExtraPercent / 100 * MILLI_TOKENS_PER_HEDGE);
+        this.minDelayNanos = minDelay.toNanos();
+        AtomicInteger threadCount = new AtomicInteger();
+        // Reads carry the caller's trace context, so their DynamoDB calls show up in the trace
+        this.executor = enabled
+                ? ContextExecutorService.wrap(new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                        new SynchronousQueue<>(), r -> {
+                            Thread thread = new Thread(r, "dynamodb-hedged-read-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }), ContextSnapshotFactory.builder().build())
+                : null;
+    }
+
+    /**
+     * Reads are never hedged; for code that builds repositories by hand, like benchmarks.
+     */
+    public static HedgedReads disabled() {
+        return new HedgedReads(new SimpleMeterRegistry(), false, 0.95, 0, Duration.ZERO, 0);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the read, hedging it if enabled. The call must be idempotent and free of side effects.
+     */
+    public <T> T read(String operation, Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        // The attempts run on pool threads, where the SDK interceptor cannot see the request
+        return RequestTimings.time(RequestTimings.Phase.REPOSITORY, () -> hedged(operation, call));
+    }
+
+    private <T> T hedged(String operation, Supplier<T> call) {
+        Operation op = operations.computeIfAbsent(operation, Operation::new);
+        op.calls.increment();
+        deposit();
+
+        long start = System.nanoTime();
+        Attempt<T> primary;
+        try {
+            primary = new Attempt<>(call, executor);
+        } catch (RejectedExecutionException e) {
+            return call.get();
+        }
+        // Learn from every primary; one cut short by a winning hedge still took at least this long
+        primary.result.whenComplete((value, error) -> {
+            if (error == null || primary.task.isCancelled()) {
+                op.record(System.nanoTime() - start);
+            }
+        });
+
+        long threshold = op.threshold;
+        if (threshold == 0) {
+            return await(primary.result);
+        }
+        try {
+            return unwrap(() -> primary.result.get(threshold, TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            // Slower than the percentile: hedge below
+        }
+
+        if (!withdraw()) {
+            op.budgetExhausted.increment();
+            return await(primary.result);
+        }
+        Attempt<T> hedge;
+        try {
+            hedge = new Attempt<>(call, executor);
+        } catch (RejectedExecutionException e) {
+            return await(primary.result);
+        }
+        op.hedges.increment();
+
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        primary.result.whenComplete((value, error) -> settle(winner, value, error, failed, op.primaryWins, hedge, primary));
+        hedge.result.whenComplete((value, error) -> settle(winner, value, error, failed, op.hedgeWins, primary, primary));
+        return await(winner);
+    }
+
+    /**
+     * Completes the winner with the first success, or with the primary's error once both failed.
+     */
+    private static <T> void settle(CompletableFuture<T> winner, T value, Throwable error, AtomicInteger failed,
+                                   Counter wins, Attempt<T> other, Attempt<T> primary) {
+        if (error == null) {
+            if (winner.complete(value)) {
+                wins.increment();
+                // Interrupting the loser aborts its HTTP request
+                other.task.cancel(true);
+            }
+            return;
+        }
+        if (failed.incrementAndGet() == 2) {
+            primary.result.whenComplete((v, primaryError) -> winner.completeExceptionally(primaryError));
+        }
+    }
+
+    private void deposit() {
+        budget.getAndUpdate(balance -> Math.min(MAX_BUDGET, balance + depositPerCall));
+    }
+
+    private boolean withdraw() {
+        long balance;
+        do {
+            balance = budget.get();
+            if (balance < MILLI_TOKENS_PER_HEDGE) {
+                return false;
+            }
+        } while (!budget.compareAndSet(balance, balance - MILLI_TOKENS_PER_HEDGE));
+        return true;
+    }
+
+    /**
+     * One submitted read. The task handle is kept because cancelling a CompletableFuture
+     * does not interrupt the thread running it.
+     */
+    private static final class Attempt<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Future<?> task;
+
+        Attempt(Supplier<T> call, ExecutorService executor) {
+            this.task = executor.submit(() -> {
+                try {
+                    result.complete(call.get());
+                } catch (RuntimeException | Error e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return unwrap(future::get);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private interface Blocking<T> {
+        T get() throws InterruptedException, ExecutionException, TimeoutException;
+    }
+
+    /**
+     * Rethrows what the read threw, so callers see the same exceptions as without hedging.
+     */
+    private static <T> T unwrap(Blocking<T> blocking) throws TimeoutException {
+        try {
+            return blocking.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for DynamoDB", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Latency window and meters of one operation.
+     */
+    private final class Operation {
+        private final long[] window = new long[WINDOW_SIZE];
+        private long samples;
+        private volatile long threshold;
+        private final Counter calls;
+        private final Counter hedges;
+        private final Counter primaryWins;
+        private final Counter hedgeWins;
+        private final Counter budgetExhausted;
+
+        Operation(String name) {
+            calls = Counter.builder("dynamodb.hedging.calls").tag("operation", name).register(meterRegistry);
+            hedges = Counter.builder("dynamodb.hedging.hedges").tag("operation", name).register(meterRegistry);
+            primaryWins = Counter.builder("dynamodb.hedging.wins").tag("operation", name).tag("winner", "primary").register(meterRegistry);
+            hedgeWins = Counter.builder("dynamodb.hedging.wins").tag("operation", name).tag("winner", "hedge").register(meterRegistry);
+            budgetExhausted = Counter.builder("dynamodb.hedging.budget.exhausted").tag("operation", name).register(meterRegistry);
+            Gauge.builder("dynamodb.hedging.threshold", this, op -> op.threshold / 1_000_000.0)
+                    .tag("operation", name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+
+        synchronized void record(long nanos) {
+            window[(int) (samples % WINDOW_SIZE)] = nanos;
+            samples++;
+            if (samples >= MIN_SAMPLES && samples % RECOMPUTE_INTERVAL == 0) {
+                long[] sorted = Arrays.copyOf(window, (int) Math.min(samples, WINDOW_SIZE));
+                Arrays.sort(sorted);
+                long value = sorted[(int) Math.min(sorted.length - 1, Math.floor(percentile * sorted.length))];
+                threshold = Math.max(minDelayNanos, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package repository;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Consumer;
+
+/**
+ * Full-table scans split into {@code segment}/{@code totalSegments} workers on a
+ * dedicated fork-join pool. Consumed read capacity is throttled across all segments
+ * with a token bucket, and resumable jobs checkpoint each segment's
+ * {@code LastEvaluatedKey} after every page.
+ * <p>
+ * The consumer is called concurrently from all segment workers and must be thread-safe.
+ * A resumed job may hand the consumer the page that was in flight when it stopped a
+ * second time, so consumers should be idempotent.
+ */
+@Component
+@ConditionalOnProperty(name = "dynamodb.enabled", havingValue = "true", matchIfMissing = true)
+public class ParallelScanner {
+
+    private static final Logger logger = LogManager.getLogger(ParallelScanner.class);
+    private static final ContextSnapshotFactory CONTEXT = ContextSnapshotFactory.builder().build();
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ScanCheckpointStore checkpointStore;
+
+    @Value("${dynamodb.scan.segments:8}")
+    private int defaultSegments = 8;
+
+    @Value("${dynamodb.scan.max-rcu-per-second:0}")
+    private long defaultMaxReadCapacityPerSecond;
+
+    public ParallelScanner(DynamoDbClient dynamoDbClient, ScanCheckpointStore checkpointStore) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.checkpointStore = checkpointStore;
+    }
+
+    public <T> Result scan(ScanJob job, TableSchema<T> schema, Consumer<T> consumer) {
+        return scan(job, item -> consumer.accept(schema.mapToItem(item)));
+    }
+
+    public Result scan(ScanJob job, Consumer<Map<String, AttributeValue>> consumer) {
+        int segments = job.getSegments() > 0 ? job.getSegments() : defaultSegments;
+        long maxRcu = job.getMaxReadCapacityPerSecond() > 0 ? job.getMaxReadCapacityPerSecond() : defaultMaxReadCapacityPerSecond;
+        Bucket throttle = maxRcu > 0
+                ? Bucket.builder().addLimit(Bandwidth.classic(maxRcu, Refill.greedy(maxRcu, Duration.ofSeconds(1)))).build()
+                : null;
+
+        Result result = new Result();
+        // Segments scan with the caller's trace context, so a traced caller sees their pages
+        ContextSnapshot context = CONTEXT.captureAll();
+        ForkJoinPool pool = new ForkJoinPool(segments);
+        try {
+            List<Future<?>> workers = new ArrayList<>(segments);
+            for (int segment = 0; segment < segments; segment++) {
+                int current = segment;
+                workers.add(pool.submit(context.wrap(() -> scanSegment(job, current, segments, throttle, maxRcu, consumer, result))));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning " + job.getTableName(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Scan of " + job.getTableName() + " failed", e.getCause());
+        } finally {
+            // Stop the remaining segments when one failed; checkpoints keep their progress
+            pool.shutdownNow();
+        }
+
+        logger.info("Scanned {} in {} segments: {}", job.getTableName(), segments, result);
+        return result;
+    }
+
+    private void scanSegment(ScanJob job, int segment, int totalSegments, Bucket throttle, long maxRcu,
+                             Consumer<Map<String, AttributeValue>> consumer, Result result) {
+        String checkpointId = job.getCheckpointId() == null ? null : job.getCheckpointId() + "/" + totalSegments;
+        Map<String, AttributeValue> startKey = null;
+        if (checkpointId != null) {
+            Optional<ScanCheckpointStore.Checkpoint> checkpoint = checkpointStore.load(checkpointId, segment);
+            if (checkpoint.isPresent()) {
+                if (checkpoint.get().isDone()) {
+                    result.segmentsSkipped.incrementAndGet();
+                    return;
+                }
+                startKey = checkpoint.get().getLastEvaluatedKey();
+            }
+        }
+
+        do {
+            ScanRequest.Builder request = ScanRequest.builder()
+                    .tableName(job.getTableName())
+                    .segment(segment)
+                    .totalSegments(totalSegments)
+                    .returnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            if (startKey != null) {
+                request.exclusiveStartKey(startKey);
+            }
+            ScanResponse page = dynamoDbClient.scan(job.getCustomizer().apply(request).build());
+
+            page.items().forEach(consumer);
+            result.items.addAndGet(page.count());
+            double consumed = page.consumedCapacity() == null || page.consumedCapacity().capacityUnits() == null
+                    ? 0 : page.consumedCapacity().capacityUnits();
+            result.readCapacity.add(consumed);
+
+            startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty() ? page.lastEvaluatedKey() : null;
+            if (checkpointId != null) {
+                checkpointStore.save(checkpointId, segment, startKey);
+            }
+            if (throttle != null) {
+                throttle(throttle, maxRcu, (long) Math.ceil(consumed));
+            }
+        } while (startKey != null);
+        result.segmentsCompleted.incrementAndGet();
+    }
+
+    /**
+     * Pays for a page after the fact; a single 1 MB page can cost more than the bucket
+     * holds, so large costs are paid in capacity-sized installments.
+     */
+    private static void throttle(Bucket bucket, long capacity, long cost) {
+        try {
+            while (cost > 0) {
+                long installment = Math.min(cost, capacity);
+                bucket.asBlocking().consume(installment);
+                cost -= installment;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while throttling scan", e);
+        }
+    }
+
+    public static final class Result {
+        private final AtomicLong items = new AtomicLong();
+        private final DoubleAdder readCapacity = new DoubleAdder();
+        private final AtomicInteger segmentsCompleted = new AtomicInteger();
+        private final AtomicInteger segmentsSkipped = new AtomicInteger();
+
+        /**
+         * Items matched; with {@code Select.COUNT} this is the count.
+         */
+        public long getItems() {
+            return items.get();
+        }
+
+        public double getReadCapacity() {
+            return readCapacity.sum();
+        }
+
+        public int getSegmentsCompleted() {
+            return segmentsCompleted.get();
+        }
+
+        /**
+         * Segments a resumed job found already finished.
+         */
+        public int getSegmentsSkipped() {
+            return segmentsSkipped.get();
+        }
+
+        @Override
+        public String toString() {
+            return "items=" + getItems() + " rcu=" + Math.round(getReadCapacity())
+                    + " segments=" + getSegmentsCompleted() + " skipped=" + getSegmentsSkipped();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package repository;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persists per-segment scan progress so {@link ParallelScanner} jobs can resume.
+ */
+public interface ScanCheckpointStore {
+
+    /**
+     * @return the saved progress of the segment, or empty if it never started
+     */
+    Optional<Checkpoint> load(String checkpointId, int segment);
+
+    /**
+     * @param lastEvaluatedKey the key to continue from, or null once the segment is finished
+     */
+    void save(String checkpointId, int segment, Map<String, AttributeValue> lastEvaluatedKey);
+
+    final class Checkpoint {
+        private final Map<String, AttributeValue> lastEvaluatedKey;
+
+        public Checkpoint(Map<String, AttributeValue> lastEvaluatedKey) {
+            this.lastEvaluatedKey = lastEvaluatedKey;
+        }
+
+        public Map<String, AttributeValue> getLastEvaluatedKey() {
+            return lastEvaluatedKey;
+        }
+
+        public boolean isDone() {
+            return lastEvaluatedKey == null;
+        }
+    }
+}
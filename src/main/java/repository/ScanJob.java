@@ -0,0 +1,79 @@
+package repository;
+
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Describes one run of the {@link ParallelScanner}. Unset values fall back to the
+ * {@code dynamodb.scan.*} defaults.
+ */
+public final class ScanJob {
+
+    private final String tableName;
+    private int segments;
+    private long maxReadCapacityPerSecond;
+    private String checkpointId;
+    private UnaryOperator<ScanRequest.Builder> customizer = UnaryOperator.identity();
+
+    private ScanJob(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public static ScanJob of(String tableName) {
+        return new ScanJob(tableName);
+    }
+
+    /**
+     * Number of parallel segments; each is scanned by its own worker.
+     */
+    public ScanJob segments(int segments) {
+        this.segments = segments;
+        return this;
+    }
+
+    /**
+     * Caps the read capacity consumed by the whole job, across all segments.
+     */
+    public ScanJob maxReadCapacityPerSecond(long maxReadCapacityPerSecond) {
+        this.maxReadCapacityPerSecond = maxReadCapacityPerSecond;
+        return this;
+    }
+
+    /**
+     * Makes the job resumable: progress of each segment is saved under this id after
+     * every page, and a later job with the same id continues where it stopped.
+     */
+    public ScanJob resumable(String checkpointId) {
+        this.checkpointId = checkpointId;
+        return this;
+    }
+
+    /**
+     * Adds filter expressions, projections or {@code Select.COUNT} to every scan request.
+     */
+    public ScanJob customize(UnaryOperator<ScanRequest.Builder> customizer) {
+        this.customizer = customizer;
+        return this;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public int getSegments() {
+        return segments;
+    }
+
+    public long getMaxReadCapacityPerSecond() {
+        return maxReadCapacityPerSecond;
+    }
+
+    public String getCheckpointId() {
+        return checkpointId;
+    }
+
+    public UnaryOperator<ScanRequest.Builder> getCustomizer() {
+        return customizer;
+    }
+}
@@ -0,0 +1,35 @@
+package repository;
+
+import model.SearchPosting;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface SearchIndexRepository {
+    void saveAll(Collection<SearchPosting> postings);
+    void deleteAll(String userId, Collection<String> termKeys);
+
+    /**
+     * Deletes every posting of the user.
+     *
+     * @return the number of postings deleted
+     */
+    long deleteByUserId(String userId);
+
+    /**
+     * Returns up to {@code limit} of the user's postings whose term starts with the prefix,
+     * in term key order; {@link Integer#MAX_VALUE} pages through all of them.
+     */
+    List<SearchPosting> findByTermPrefix(String userId, String prefix, int limit);
+
+    /**
+     * Batch-reads the user's postings with the given {@code <term>#<todoId>} keys; missing
+     * keys are skipped and order is not preserved.
+     */
+    List<SearchPosting> findByTermKeys(String userId, Collection<String> termKeys);
+
+    /**
+     * Counts the user's postings whose term starts with the prefix without returning them.
+     */
+    long countByTermPrefix(String userId, String prefix);
+}
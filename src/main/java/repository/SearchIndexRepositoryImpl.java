@@ -0,0 +1,199 @@
+package repository;
+
+import model.SearchPosting;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.*;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+@ConditionalOnProperty(name = "dynamodb.enabled", havingValue = "true", matchIfMissing = true)
+public class SearchIndexRepositoryImpl implements SearchIndexRepository {
+
+    private static final String TABLE_NAME = "todo_search_index";
+    private static final int MAX_BATCH_SIZE = 25;
+    private static final int MAX_BATCH_ATTEMPTS = 5;
+    private static final int MAX_BATCH_GET_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbTable<SearchPosting> postingTable;
+    private final DynamoDbClient dynamoDbClient;
+
+    public SearchIndexRepositoryImpl(DynamoDbClient dynamoDbClient) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+
+        this.postingTable = enhancedClient.table(TABLE_NAME, TableSchema.fromBean(SearchPosting.class));
+    }
+
+    @PostConstruct
+    private void createTableIfNotExists() {
+        try {
+            dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(TABLE_NAME).build());
+        } catch (ResourceNotFoundException rnfe) {
+            dynamoDbClient.createTable(CreateTableRequest.builder()
+                    .tableName(TABLE_NAME)
+                    .billingMode(BillingMode.PAY_PER_REQUEST)
+                    .keySchema(
+                            KeySchemaElement.builder().attributeName("userId").keyType(KeyType.HASH).build(),
+                            KeySchemaElement.builder().attributeName("termKey").keyType(KeyType.RANGE).build()
+                    )
+                    .attributeDefinitions(
+                            AttributeDefinition.builder().attributeName("userId").attributeType(ScalarAttributeType.S).build(),
+                            AttributeDefinition.builder().attributeName("termKey").attributeType(ScalarAttributeType.S).build()
+                    )
+                    .build());
+
+            try (DynamoDbWaiter waiter = dynamoDbClient.waiter()) {
+                waiter.waitUntilTableExists(b -> b.tableName(TABLE_NAME));
+            }
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<SearchPosting> postings) {
+        List<SearchPosting> items = new ArrayList<>(postings);
+        for (int i = 0; i < items.size(); i += MAX_BATCH_SIZE) {
+            WriteBatch.Builder<SearchPosting> batch = WriteBatch.builder(SearchPosting.class)
+                    .mappedTableResource(postingTable);
+            items.subList(i, Math.min(i + MAX_BATCH_SIZE, items.size())).forEach(batch::addPutItem);
+            writeBatch(batch.build());
+        }
+    }
+
+    @Override
+    public void deleteAll(String userId, Collection<String> termKeys) {
+        List<Key> keys = termKeys.stream()
+                .map(termKey -> Key.builder().partitionValue(userId).sortValue(termKey).build())
+                .collect(Collectors.toList());
+        for (int i = 0; i < keys.size(); i += MAX_BATCH_SIZE) {
+            WriteBatch.Builder<SearchPosting> batch = WriteBatch.builder(SearchPosting.class)
+                    .mappedTableResource(postingTable);
+            keys.subList(i, Math.min(i + MAX_BATCH_SIZE, keys.size())).forEach(batch::addDeleteItem);
+            writeBatch(batch.build());
+        }
+    }
+
+    @Override
+    public long deleteByUserId(String userId) {
+        long deleted = 0;
+        List<String> termKeys = new ArrayList<>(MAX_BATCH_SIZE);
+        Iterator<SearchPosting> postings = postingTable.query(r -> r
+                        .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(userId)))
+                        .attributesToProject("userId", "termKey"))
+                .items()
+                .iterator();
+        while (postings.hasNext()) {
+            termKeys.add(postings.next().getTermKey());
+            if (termKeys.size() == MAX_BATCH_SIZE || !postings.hasNext()) {
+                deleteAll(userId, termKeys);
+                deleted += termKeys.size();
+                termKeys.clear();
+            }
+        }
+        return deleted;
+    }
+
+    private void writeBatch(WriteBatch batch) {
+        BatchWriteResult result = enhancedClient.batchWriteItem(r -> r.addWriteBatch(batch));
+        for (int attempt = 1; attempt < MAX_BATCH_ATTEMPTS; attempt++) {
+            List<SearchPosting> unprocessedPuts = result.unprocessedPutItemsForTable(postingTable);
+            List<Key> unprocessedDeletes = result.unprocessedDeleteItemsForTable(postingTable);
+            if (unprocessedPuts.isEmpty() && unprocessedDeletes.isEmpty()) {
+                return;
+            }
+
+            // Throttled items come back unprocessed; back off exponentially before retrying them
+            sleep(50L << attempt);
+            WriteBatch.Builder<SearchPosting> retry = WriteBatch.builder(SearchPosting.class)
+                    .mappedTableResource(postingTable);
+            unprocessedPuts.forEach(retry::addPutItem);
+            unprocessedDeletes.forEach(retry::addDeleteItem);
+            result = enhancedClient.batchWriteItem(r -> r.addWriteBatch(retry.build()));
+        }
+        if (!result.unprocessedPutItemsForTable(postingTable).isEmpty()
+                || !result.unprocessedDeleteItemsForTable(postingTable).isEmpty()) {
+            throw new IllegalStateException("Search index batch write still throttled after " + MAX_BATCH_ATTEMPTS + " attempts");
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying search index batch write", e);
+        }
+    }
+
+    @Override
+    public List<SearchPosting> findByTermPrefix(String userId, String prefix, int limit) {
+        List<SearchPosting> postings = new ArrayList<>();
+        postingTable.query(r -> r
+                        .queryConditional(QueryConditional.sortBeginsWith(k -> k.partitionValue(userId).sortValue(prefix)))
+                        .limit(Math.min(limit, MAX_PAGE_SIZE)))
+                .items()
+                .stream()
+                .limit(limit)
+                .forEach(postings::add);
+        return postings;
+    }
+
+    @Override
+    public List<SearchPosting> findByTermKeys(String userId, Collection<String> termKeys) {
+        List<String> keys = new ArrayList<>(new HashSet<>(termKeys));
+        List<SearchPosting> postings = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += MAX_BATCH_GET_SIZE) {
+            ReadBatch.Builder<SearchPosting> batch = ReadBatch.builder(SearchPosting.class).mappedTableResource(postingTable);
+            keys.subList(i, Math.min(i + MAX_BATCH_GET_SIZE, keys.size()))
+                    .forEach(termKey -> batch.addGetItem(Key.builder().partitionValue(userId).sortValue(termKey).build()));
+            // The result pages follow up on unprocessed keys
+            enhancedClient.batchGetItem(r -> r.addReadBatch(batch.build()))
+                    .resultsForTable(postingTable)
+                    .forEach(postings::add);
+        }
+        return postings;
+    }
+
+    @Override
+    public long countByTermPrefix(String userId, String prefix) {
+        QueryRequest request = QueryRequest.builder()
+                .tableName(TABLE_NAME)
+                .keyConditionExpression("userId = :userId AND begins_with(termKey, :prefix)")
+                .expressionAttributeValues(Map.of(
+                        ":userId", AttributeValue.fromS(userId),
+                        ":prefix", AttributeValue.fromS(prefix)))
+                .select(Select.COUNT)
+                .build();
+        return dynamoDbClient.queryPaginator(request).stream().mapToLong(QueryResponse::count).sum();
+    }
+}
@@ -0,0 +1,165 @@
+package repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Scatter-gather over the shards of one index partition: every shard is queried in parallel
+ * and the per-shard results, each already sorted by the index sort key, are k-way merged into
+ * one sorted stream.
+ * <p>
+ * Each shard is read one page ahead: the first pages of all shards are requested together,
+ * and taking a page requests that shard's next one in the background. So a caller reading
+ * the whole list waits for roughly the slowest shard's pages, not the sum of all of them,
+ * and at most two pages per shard are held at a time.
+ */
+public final class ShardMerge {
+
+    private ShardMerge() {
+    }
+
+    /**
+     * @param shards  per shard, its result pages in sort order; each iterator is only ever
+     *                advanced by one thread at a time
+     * @param sortKey the index sort key as stored, so the merge orders exactly like DynamoDB
+     */
+    public static <T> Stream<T> merge(List<Iterator<List<T>>> shards, Function<T, String> sortKey,
+                                      boolean descending, Executor executor) {
+        if (shards.size() == 1) {
+            Iterator<List<T>> pages = shards.get(0);
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED), false)
+                    .flatMap(List::stream);
+        }
+
+        Comparator<Cursor<T>> byKey = Comparator.comparing(cursor -> cursor.headKey);
+        if (descending) {
+            byKey = byKey.reversed();
+        }
+        // Equal keys come out in shard order, so the result does not depend on fetch timing
+        Comparator<Cursor<T>> order = byKey.thenComparingInt(cursor -> cursor.shard);
+
+        List<Cursor<T>> cursors = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            cursors.add(new Cursor<>(i, shards.get(i), sortKey, executor));
+        }
+        Merger<T> merger = new Merger<>(cursors, order);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merger, Spliterator.ORDERED), false)
+                .onClose(merger::close);
+    }
+
+    private static final class Merger<T> implements Iterator<T> {
+        private final List<Cursor<T>> cursors;
+        private final Comparator<Cursor<T>> order;
+        private PriorityQueue<Cursor<T>> heads;
+
+        private Merger(List<Cursor<T>> cursors, Comparator<Cursor<T>> order) {
+            this.cursors = cursors;
+            this.order = order;
+        }
+
+        /**
+         * The heap is built on first use, so a stream that is never consumed costs the
+         * first page of each shard and no waiting.
+         */
+        private PriorityQueue<Cursor<T>> heads() {
+            if (heads == null) {
+                heads = new PriorityQueue<>(cursors.size(), order);
+                for (Cursor<T> cursor : cursors) {
+                    if (cursor.advance()) {
+                        heads.add(cursor);
+                    }
+                }
+            }
+            return heads;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads().isEmpty();
+        }
+
+        @Override
+        public T next() {
+            Cursor<T> cursor = heads().poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            T item = cursor.head;
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+            return item;
+        }
+
+        void close() {
+            for (Cursor<T> cursor : cursors) {
+                cursor.nextPage.cancel(false);
+            }
+        }
+    }
+
+    private static final class Cursor<T> {
+        private final int shard;
+        private final Iterator<List<T>> pages;
+        private final Function<T, String> sortKey;
+        private final Executor executor;
+        private CompletableFuture<List<T>> nextPage;
+        private List<T> page = List.of();
+        private int index;
+        private T head;
+        private String headKey;
+
+        private Cursor(int shard, Iterator<List<T>> pages, Function<T, String> sortKey, Executor executor) {
+            this.shard = shard;
+            this.pages = pages;
+            this.sortKey = sortKey;
+            this.executor = executor;
+            this.nextPage = fetch();
+        }
+
+        /**
+         * Completes with null once the shard has no more pages.
+         */
+        private CompletableFuture<List<T>> fetch() {
+            return CompletableFuture.supplyAsync(() -> pages.hasNext() ? pages.next() : null, executor);
+        }
+
+        /**
+         * Moves to the shard's next item, waiting for its next page if needed.
+         *
+         * @return false when the shard is exhausted
+         */
+        boolean advance() {
+            while (index >= page.size()) {
+                List<T> fetched;
+                try {
+                    fetched = nextPage.join();
+                } catch (CompletionException e) {
+                    throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+                }
+                if (fetched == null) {
+                    head = null;
+                    return false;
+                }
+                page = fetched;
+                index = 0;
+                nextPage = fetch();
+            }
+            head = page.get(index++);
+            headKey = sortKey.apply(head);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package repository;
+
+import model.Todo;
+import model.TodoTombstone;
+import model.User;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.extensions.VersionedRecordExtension;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.LocalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ResourceInUseException;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveSpecification;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTimeToLiveRequest;
+import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-table layout ({@code dynamodb.layout=single-table}). A user's profile, todos
+ * and tombstones share one partition, so a single Query on {@code PK=USER#<username>}
+ * returns them together and user lookups are strongly consistent GetItems:
+ * <pre>
+ *   PK                SK                               entity
+ *   USER#alice        PROFILE                          USER
+ *   USER#alice        TODO#01HV...                     TODO
+ *   USER#alice        TOMBSTONE#2024-...#01HV...       TOMBSTONE
+ *   USER#alice        COUNTS                           COUNTS
+ * </pre>
+ * Todo sort orders and status filters are local secondary indexes on the same partition;
+ * lookups by todo or user id go through the sparse {@code id-index} GSI.
+ */
+public final class SingleTableSchemas {
+
+    public static final String TABLE_NAME = "taskflow";
+
+    static final String PK = "PK";
+    static final String SK = "SK";
+    static final String ENTITY = "entity";
+    static final String USER_PREFIX = "USER#";
+    static final String PROFILE = "PROFILE";
+    static final String TODO_PREFIX = "TODO#";
+    static final String TOMBSTONE_PREFIX = "TOMBSTONE#";
+    static final String COUNTS = "COUNTS";
+
+    static final String ID_INDEX = "id-index";
+    static final String CREATED_AT_INDEX = "createdAt-index";
+    static final String DUE_DATE_INDEX = "dueDate-index";
+    static final String UPDATED_AT_INDEX = "updatedAt-index";
+    static final String STATUS_CREATED_AT_INDEX = "status-createdAt-index";
+    static final String STATUS_DUE_DATE_INDEX = "status-dueDate-index";
+
+    public static final TableSchema<Todo> TODO = StaticTableSchema.builder(Todo.class)
+            .newItemSupplier(Todo::new)
+            .addAttribute(String.class, a -> a.name(PK)
+                    .getter(t -> USER_PREFIX + t.getUserId())
+                    .setter((t, v) -> { })
+                    .tags(StaticAttributeTags.primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name(SK)
+                    .getter(t -> TODO_PREFIX + t.getId())
+                    .setter((t, v) -> { })
+                    .tags(StaticAttributeTags.primarySortKey()))
+            .addAttribute(String.class, a -> a.name(ENTITY)
+                    .getter(t -> "TODO")
+                    .setter((t, v) -> { }))
+            .addAttribute(String.class, a -> a.name("id")
+                    .getter(Todo::getId)
+                    .setter(Todo::setId)
+                    .tags(StaticAttributeTags.secondaryPartitionKey(ID_INDEX)))
+            .addAttribute(String.class, a -> a.name("userId").getter(Todo::getUserId).setter(Todo::setUserId))
+            .addAttribute(String.class, a -> a.name("title").getter(Todo::getTitle).setter(Todo::setTitle))
+            .addAttribute(String.class, a -> a.name("description").getter(Todo::getDescription).setter(Todo::setDescription))
+            .addAttribute(String.class, a -> a.name("status").getter(Todo::getStatus).setter(Todo::setStatus))
+            .addAttribute(String.class, a -> a.name("dueDate").getter(Todo::getDueDate).setter(Todo::setDueDate))
+            .addAttribute(Instant.class, a -> a.name("createdAt")
+                    .getter(Todo::getCreatedAt)
+                    .setter(Todo::setCreatedAt)
+                    .tags(StaticAttributeTags.secondarySortKey(CREATED_AT_INDEX)))
+            .addAttribute(Instant.class, a -> a.name("updatedAt")
+                    .getter(Todo::getUpdatedAt)
+                    .setter(Todo::setUpdatedAt)
+                    .tags(StaticAttributeTags.secondarySortKey(UPDATED_AT_INDEX)))
+            .addAttribute(String.class, a -> a.name("dueSortKey")
+                    .getter(Todo::getDueSortKey)
+                    .setter((t, v) -> { })
+                    .tags(StaticAttributeTags.secondarySortKey(DUE_DATE_INDEX)))
+            .addAttribute(String.class, a -> a.name("statusCreatedAt")
+                    .getter(t -> t.getStatus() == null || t.getCreatedAt() == null ? null : t.getStatus() + "#" + t.getCreatedAt())
+                    .setter((t, v) -> { })
+                    .tags(StaticAttributeTags.secondarySortKey(STATUS_CREATED_AT_INDEX)))
+            .addAttribute(String.class, a -> a.name("statusDueSortKey")
+                    .getter(t -> t.getStatus() == null ? null : t.getStatus() + "#" + t.getDueSortKey())
+                    .setter((t, v) -> { })
+                    .tags(StaticAttributeTags.secondarySortKey(STATUS_DUE_DATE_INDEX)))
+            .addAttribute(Long.class, a -> a.name("version")
+                    .getter(Todo::getVersion)
+                    .setter(Todo::setVersion)
+                    .tags(VersionedRecordExtension.AttributeTags.versionAttribute()))
+            .build();
+
+    public static final TableSchema<User> USER = StaticTableSchema.builder(User.class)
+            .newItemSupplier(User::new)
+            .addAttribute(String.class, a -> a.name(PK)
+                    .getter(u -> USER_PREFIX + u.getUsername())
+                    .setter((u, v) -> { })
+                    .tags(StaticAttributeTags.primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name(SK)
+                    .getter(u -> PROFILE)
+                    .setter((u, v) -> { })
+                    .tags(StaticAttributeTags.primarySortKey()))
+            .addAttribute(String.class, a -> a.name(ENTITY)
+                    .getter(u -> "USER")
+                    .setter((u, v) -> { }))
+            .addAttribute(String.class, a -> a.name("id")
+                    .getter(User::getId)
+                    .setter(User::setId)
+                    .tags(StaticAttributeTags.secondaryPartitionKey(ID_INDEX)))
+            .addAttribute(String.class, a -> a.name("username").getter(User::getUsername).setter(User::setUsername))
+            .addAttribute(String.class, a -> a.name("password").getter(User::getPassword).setter(User::setPassword))
+            .addAttribute(String.class, a -> a.name("role").getter(User::getRole).setter(User::setRole))
+            .build();
+
+    public static final TableSchema<TodoTombstone> TOMBSTONE = StaticTableSchema.builder(TodoTombstone.class)
+            .newItemSupplier(TodoTombstone::new)
+            .addAttribute(String.class, a -> a.name(PK)
+                    .getter(t -> USER_PREFIX + t.getUserId())
+                    .setter((t, v) -> { })
+                    .tags(StaticAttributeTags.primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name(SK)
+                    .getter(t -> TOMBSTONE_PREFIX + t.getChangeKey())
+                    .setter((t, v) -> { })
+                    .tags(StaticAttributeTags.primarySortKey()))
+            .addAttribute(String.class, a -> a.name(ENTITY)
+                    .getter(t -> "TOMBSTONE")
+                    .setter((t, v) -> { }))
+            .addAttribute(String.class, a -> a.name("userId").getter(TodoTombstone::getUserId).setter(TodoTombstone::setUserId))
+            .addAttribute(String.class, a -> a.name("todoId").getter(TodoTombstone::getTodoId).setter(TodoTombstone::setTodoId))
+            .addAttribute(Instant.class, a -> a.name("deletedAt").getter(TodoTombstone::getDeletedAt).setter(TodoTombstone::setDeletedAt))
+            .addAttribute(Long.class, a -> a.name("expiresAt").getter(TodoTombstone::getExpiresAt).setter(TodoTombstone::setExpiresAt))
+            .build();
+
+    private SingleTableSchemas() {
+    }
+
+    static String userKey(String username) {
+        return USER_PREFIX + username;
+    }
+
+    static String todoKey(String todoId) {
+        return TODO_PREFIX + todoId;
+    }
+
+    /**
+     * Creates the table with all indexes. LSIs can only be defined at creation time,
+     * which is why the layout gets a new table instead of altering {@code todos}.
+     */
+    static synchronized void createTableIfNotExists(DynamoDbClient dynamoDbClient) {
+        try {
+            dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(TABLE_NAME).build());
+            return;
+        } catch (ResourceNotFoundException rnfe) {
+            // Create below
+        }
+
+        List<AttributeDefinition> attributes = new ArrayList<>();
+        for (String name : List.of(PK, SK, "id", "createdAt", "updatedAt", "dueSortKey", "statusCreatedAt", "statusDueSortKey")) {
+            attributes.add(AttributeDefinition.builder().attributeName(name).attributeType(ScalarAttributeType.S).build());
+        }
+
+        boolean created = false;
+        try {
+            dynamoDbClient.createTable(CreateTableRequest.builder()
+                    .tableName(TABLE_NAME)
+                    .billingMode(BillingMode.PAY_PER_REQUEST)
+                    .keySchema(
+                            KeySchemaElement.builder().attributeName(PK).keyType(KeyType.HASH).build(),
+                            KeySchemaElement.builder().attributeName(SK).keyType(KeyType.RANGE).build())
+                    .attributeDefinitions(attributes)
+                    .localSecondaryIndexes(
+                            localSecondaryIndex(CREATED_AT_INDEX, "createdAt"),
+                            localSecondaryIndex(DUE_DATE_INDEX, "dueSortKey"),
+                            localSecondaryIndex(UPDATED_AT_INDEX, "updatedAt"),
+                            localSecondaryIndex(STATUS_CREATED_AT_INDEX, "statusCreatedAt"),
+                            localSecondaryIndex(STATUS_DUE_DATE_INDEX, "statusDueSortKey"))
+                    .globalSecondaryIndexes(GlobalSecondaryIndex.builder()
+                            .indexName(ID_INDEX)
+                            .keySchema(KeySchemaElement.builder().attributeName("id").keyType(KeyType.HASH).build())
+                            .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                            .build())
+                    .build());
+            created = true;
+        } catch (ResourceInUseException e) {
+            // Another instance is creating it; wait below
+        }
+
+        try (DynamoDbWaiter waiter = dynamoDbClient.waiter()) {
+            waiter.waitUntilTableExists(b -> b.tableName(TABLE_NAME));
+        }
+        if (!created) {
+            return;
+        }
+
+        // Tombstones expire on their own; profiles and todos carry no expiresAt
+        dynamoDbClient.updateTimeToLive(UpdateTimeToLiveRequest.builder()
+                .tableName(TABLE_NAME)
+                .timeToLiveSpecification(TimeToLiveSpecification.builder()
+                        .attributeName("expiresAt")
+                        .enabled(true)
+                        .build())
+                .build());
+    }
+
+    private static LocalSecondaryIndex localSecondaryIndex(String indexName, String sortKey) {
+        return LocalSecondaryIndex.builder()
+                .indexName(indexName)
+                .keySchema(
+                        KeySchemaElement.builder().attributeName(PK).keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName(sortKey).keyType(KeyType.RANGE).build())
+                .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                .build();
+    }
+}
@@ -0,0 +1,354 @@
+package repository;
+
+import exception.PreconditionFailedException;
+import model.Todo;
+import model.TodoCounts;
+import model.TodoQuery;
+import model.TodoTombstone;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static repository.SingleTableSchemas.*;
+
+/**
+ * {@link TodoRepository} on the single-table layout, see {@link SingleTableSchemas}.
+ * Lookups by todo id alone go through the {@code id-index} GSI and are therefore
+ * eventually consistent; everything scoped to a user reads the user's partition, and
+ * {@link #findById(String, String, Set)} reads the todo's own item strongly consistently.
+ */
+@Repository
+@ConditionalOnExpression("${dynamodb.enabled:true} and '${dynamodb.layout:multi-table}' == 'single-table'")
+public class SingleTableTodoRepository implements TodoRepository {
+
+    private static final int MAX_BATCH_GET_SIZE = 100;
+    private static final Expression IS_TODO = Expression.builder()
+            .expression("#entity = :todo")
+            .putExpressionName("#entity", ENTITY)
+            .putExpressionValue(":todo", AttributeValue.fromS("TODO"))
+            .build();
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbEnhancedClient enhancedClient;
+    private final DynamoDbTable<Todo> todoTable;
+    private final DynamoDbTable<TodoTombstone> tombstoneTable;
+    private final ParallelScanner scanner;
+    private final HedgedReads hedgedReads;
+    private final TodoCounters counters;
+
+    public SingleTableTodoRepository(DynamoDbClient dynamoDbClient, ParallelScanner scanner, HedgedReads hedgedReads) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.scanner = scanner;
+        this.hedgedReads = hedgedReads;
+        this.enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+        this.todoTable = enhancedClient.table(TABLE_NAME, TODO);
+        this.tombstoneTable = enhancedClient.table(TABLE_NAME, TOMBSTONE);
+        this.counters = new TodoCounters(dynamoDbClient, TABLE_NAME,
+                userId -> Map.of(PK, AttributeValue.fromS(userKey(userId)), SK, AttributeValue.fromS(COUNTS)),
+                Map.of(ENTITY, AttributeValue.fromS(COUNTS)));
+    }
+
+    @PostConstruct
+    private void createTableIfNotExists() {
+        SingleTableSchemas.createTableIfNotExists(dynamoDbClient);
+    }
+
+    @Override
+    public void save(Todo todo, TodoCounts change) {
+        if (!change.isEmpty()) {
+            saveCounted(todo, change);
+            return;
+        }
+        try {
+            Todo saved = todoTable.updateItem(todo);
+            todo.setVersion(saved.getVersion());
+        } catch (ConditionalCheckFailedException e) {
+            throw new PreconditionFailedException("Todo was modified concurrently, reload and retry");
+        }
+    }
+
+    /**
+     * A Put of the whole todo next to the counter update, conditional on the version it was
+     * read with like the version extension's own writes.
+     */
+    private void saveCounted(Todo todo, TodoCounts change) {
+        Long readVersion = todo.getVersion();
+        todo.setVersion(readVersion == null ? 1 : readVersion + 1);
+        Put.Builder put = Put.builder()
+                .tableName(TABLE_NAME)
+                .item(TODO.itemToMap(todo, true))
+                .expressionAttributeNames(Map.of("#v", "version"));
+        if (readVersion == null) {
+            put.conditionExpression("attribute_not_exists(#v)");
+        } else {
+            put.conditionExpression("#v = :v")
+                    .expressionAttributeValues(Map.of(":v", AttributeValue.fromN(readVersion.toString())));
+        }
+        try {
+            TodoTransactions.write(dynamoDbClient, List.of(
+                    TransactWriteItem.builder().put(put.build()).build(),
+                    counters.add(todo.getUserId(), change)));
+        } catch (RuntimeException e) {
+            todo.setVersion(readVersion);
+            throw e;
+        }
+    }
+
+    @Override
+    public void saveAll(List<Todo> todos) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            items.add(TODO.itemToMap(todo, true));
+        }
+        BatchWrites.putAll(dynamoDbClient, TABLE_NAME, items);
+        counters.addAll(todos);
+    }
+
+    @Override
+    public Optional<Todo> findById(String id) {
+        return findById(id, Set.of());
+    }
+
+    @Override
+    public Optional<Todo> findById(String id, Set<String> attributes) {
+        return hedgedReads.read("todo-get", () -> todoTable.index(ID_INDEX)
+                .query(r -> {
+                    r.queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(id)));
+                    // Users share the id index, so keep only todo items
+                    r.filterExpression(IS_TODO);
+                    if (!attributes.isEmpty()) {
+                        r.attributesToProject(attributes);
+                    }
+                })
+                .stream()
+                .flatMap(page -> page.items().stream())
+                .findFirst());
+    }
+
+    @Override
+    public Optional<Todo> findById(String userId, String id, Set<String> attributes) {
+        // The enhanced GetItem has no projection support, so go through the low-level client
+        GetItemRequest.Builder request = GetItemRequest.builder()
+                .tableName(TABLE_NAME)
+                .key(Map.of(PK, AttributeValue.fromS(userKey(userId)), SK, AttributeValue.fromS(todoKey(id))))
+                .consistentRead(true);
+        if (!attributes.isEmpty()) {
+            Map<String, String> names = new HashMap<>();
+            StringJoiner projection = new StringJoiner(",");
+            for (String attribute : attributes) {
+                names.put("#" + attribute, attribute);
+                projection.add("#" + attribute);
+            }
+            request.projectionExpression(projection.toString()).expressionAttributeNames(names);
+        }
+        GetItemResponse response = hedgedReads.read("todo-get", () -> dynamoDbClient.getItem(request.build()));
+        return !response.hasItem() || response.item().isEmpty()
+                ? Optional.empty()
+                : Optional.of(TODO.mapToItem(response.item()));
+    }
+
+    @Override
+    public ParallelScanner.Result scanAll(String checkpointId, Consumer<Todo> consumer) {
+        // Profiles and tombstones share the table; the filter still reads (and bills) them
+        ScanJob job = ScanJob.of(TABLE_NAME)
+                .resumable(checkpointId)
+                .customize(scan -> scan
+                        .filterExpression("#entity = :todo")
+                        .expressionAttributeNames(Map.of("#entity", ENTITY))
+                        .expressionAttributeValues(Map.of(":todo", AttributeValue.fromS("TODO"))));
+        return scanner.scan(job, TODO, consumer);
+    }
+
+    @Override
+    public List<Todo> findAllById(Collection<String> ids) {
+        List<Todo> todos = new ArrayList<>();
+        for (String id : new HashSet<>(ids)) {
+            findById(id).ifPresent(todos::add);
+        }
+        return todos;
+    }
+
+    @Override
+    public List<Todo> findAllById(String userId, Collection<String> ids) {
+        // Owner known: strongly keyed batch reads on the user's partition instead of one GSI query per id
+        List<String> keys = new ArrayList<>(new HashSet<>(ids));
+        List<Todo> todos = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += MAX_BATCH_GET_SIZE) {
+            ReadBatch.Builder<Todo> batch = ReadBatch.builder(Todo.class).mappedTableResource(todoTable);
+            keys.subList(i, Math.min(i + MAX_BATCH_GET_SIZE, keys.size()))
+                    .forEach(id -> batch.addGetItem(Key.builder()
+                            .partitionValue(userKey(userId))
+                            .sortValue(todoKey(id))
+                            .build()));
+            enhancedClient.batchGetItem(r -> r.addReadBatch(batch.build()))
+                    .resultsForTable(todoTable)
+                    .forEach(todos::add);
+        }
+        return todos;
+    }
+
+    @Override
+    public Stream<Todo> query(String userId, TodoQuery query) {
+        boolean byDueDate = query.getSortField() == TodoQuery.SortField.DUE_DATE;
+        String indexName;
+        String prefix;
+        if (query.getStatus() != null) {
+            indexName = byDueDate ? STATUS_DUE_DATE_INDEX : STATUS_CREATED_AT_INDEX;
+            prefix = query.getStatus() + "#";
+        } else {
+            indexName = byDueDate ? DUE_DATE_INDEX : CREATED_AT_INDEX;
+            prefix = "";
+        }
+
+        Set<String> fields = query.getFields();
+        if (!fields.isEmpty() && query.hasCreatedRange()) {
+            // The createdAt range is trimmed exactly, so it is projected even when not asked for
+            fields = new HashSet<>(fields);
+            fields.add("createdAt");
+        }
+        Set<String> projection = fields;
+        return todoTable.index(indexName)
+                .query(r -> {
+                    r.queryConditional(keyCondition(userKey(userId), prefix, query.getRangeFrom(), query.getRangeTo()));
+                    r.scanIndexForward(!query.isDescending());
+                    if (!projection.isEmpty()) {
+                        r.attributesToProject(projection);
+                    }
+                })
+                .stream()
+                .flatMap(page -> page.items().stream())
+                .filter(query::matches);
+    }
+
+    private static QueryConditional keyCondition(String partitionValue, String prefix, String from, String to) {
+        if (from == null && to == null) {
+            return prefix.isEmpty()
+                    ? QueryConditional.keyEqualTo(k -> k.partitionValue(partitionValue))
+                    : QueryConditional.sortBeginsWith(k -> k.partitionValue(partitionValue).sortValue(prefix));
+        }
+        // Open ends stay inside the status prefix; U+FFFF sorts after any timestamp or date
+        String lower = prefix + (from != null ? from : "");
+        String upper = prefix + (to != null ? to : "\uffff");
+        if (prefix.isEmpty() && from == null) {
+            return QueryConditional.sortLessThanOrEqualTo(k -> k.partitionValue(partitionValue).sortValue(upper));
+        }
+        if (prefix.isEmpty() && to == null) {
+            return QueryConditional.sortGreaterThanOrEqualTo(k -> k.partitionValue(partitionValue).sortValue(lower));
+        }
+        return QueryConditional.sortBetween(
+                Key.builder().partitionValue(partitionValue).sortValue(lower).build(),
+                Key.builder().partitionValue(partitionValue).sortValue(upper).build());
+    }
+
+    @Override
+    public Stream<Todo> findUpdatedSince(String userId, Instant since) {
+        return todoTable.index(UPDATED_AT_INDEX)
+                .query(r -> r.queryConditional(QueryConditional.sortGreaterThanOrEqualTo(
+                        k -> k.partitionValue(userKey(userId)).sortValue(lowerBoundKey(since)))))
+                .stream()
+                .flatMap(page -> page.items().stream())
+                .filter(todo -> !todo.getUpdatedAt().isBefore(since));
+    }
+
+    @Override
+    public List<TodoTombstone> findTombstonesSince(String userId, Instant since) {
+        return tombstoneTable.query(r -> r.queryConditional(QueryConditional.sortBetween(
+                        Key.builder().partitionValue(userKey(userId)).sortValue(TOMBSTONE_PREFIX + lowerBoundKey(since)).build(),
+                        Key.builder().partitionValue(userKey(userId)).sortValue(TOMBSTONE_PREFIX + "\uffff").build())))
+                .items()
+                .stream()
+                .filter(tombstone -> !tombstone.getDeletedAt().isBefore(since))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * See TodoRepositoryImpl: Instant.toString() is not fixed-width, so start a whole second early.
+     */
+    private static String lowerBoundKey(Instant since) {
+        return since.truncatedTo(ChronoUnit.SECONDS).minusSeconds(1).toString();
+    }
+
+    @Override
+    public void deleteById(String id) {
+        findById(id, Set.of("id", "userId")).ifPresent(todo -> todoTable.deleteItem(Key.builder()
+                .partitionValue(userKey(todo.getUserId()))
+                .sortValue(todoKey(id))
+                .build()));
+    }
+
+    @Override
+    public void deleteAllById(String userId, List<String> ids) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            keys.add(Map.of(PK, AttributeValue.fromS(userKey(userId)), SK, AttributeValue.fromS(todoKey(id))));
+        }
+        BatchWrites.deleteAll(dynamoDbClient, TABLE_NAME, keys);
+    }
+
+    @Override
+    public void deleteWithTombstone(Todo todo, TodoTombstone tombstone) {
+        Delete.Builder delete = Delete.builder()
+                .tableName(TABLE_NAME)
+                .key(Map.of(PK, AttributeValue.fromS(userKey(todo.getUserId())), SK, AttributeValue.fromS(todoKey(todo.getId()))))
+                .expressionAttributeNames(Map.of("#sk", SK, "#v", "version"));
+        if (todo.getVersion() == null) {
+            delete.conditionExpression("attribute_exists(#sk) AND attribute_not_exists(#v)");
+        } else {
+            delete.conditionExpression("attribute_exists(#sk) AND #v = :v")
+                    .expressionAttributeValues(Map.of(":v", AttributeValue.fromN(todo.getVersion().toString())));
+        }
+        TodoTransactions.write(dynamoDbClient, List.of(
+                TransactWriteItem.builder().delete(delete.build()).build(),
+                TransactWriteItem.builder().put(Put.builder()
+                        .tableName(TABLE_NAME)
+                        .item(TOMBSTONE.itemToMap(tombstone, true))
+                        .build()).build(),
+                counters.add(todo.getUserId(), TodoCounts.of(todo).negated())));
+    }
+
+    @Override
+    public TodoCounts findCounts(String userId) {
+        return counters.read(userId);
+    }
+
+    @Override
+    public boolean resetCounts(String userId, TodoCounts counts, long expectedRevision) {
+        return counters.reset(userId, counts, expectedRevision);
+    }
+
+    @Override
+    public void deleteCounts(String userId) {
+        counters.delete(userId);
+    }
+}
@@ -0,0 +1,96 @@
+package repository;
+
+import model.User;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static repository.SingleTableSchemas.*;
+
+/**
+ * {@link UserRepository} on the single-table layout. Username lookups, the hot path of
+ * every authenticated request, become GetItems on the user's partition instead of a
+ * GSI query.
+ */
+@Repository
+@ConditionalOnExpression("${dynamodb.enabled:true} and '${dynamodb.layout:multi-table}' == 'single-table'")
+public class SingleTableUserRepository implements UserRepository {
+
+    private static final Expression IS_USER = Expression.builder()
+            .expression("#entity = :user")
+            .putExpressionName("#entity", ENTITY)
+            .putExpressionValue(":user", AttributeValue.fromS("USER"))
+            .build();
+
+    private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbTable<User> userTable;
+    private final HedgedReads hedgedReads;
+    private final ParallelScanner scanner;
+
+    public SingleTableUserRepository(DynamoDbClient dynamoDbClient, HedgedReads hedgedReads, ParallelScanner scanner) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.hedgedReads = hedgedReads;
+        this.scanner = scanner;
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+        this.userTable = enhancedClient.table(TABLE_NAME, USER);
+    }
+
+    @PostConstruct
+    private void createTableIfNotExists() {
+        SingleTableSchemas.createTableIfNotExists(dynamoDbClient);
+    }
+
+    @Override
+    public void save(User user) {
+        userTable.putItem(user);
+    }
+
+    @Override
+    public Optional<User> findById(String id) {
+        return userTable.index(ID_INDEX)
+                .query(r -> r.queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(id)))
+                        .filterExpression(IS_USER))
+                .stream()
+                .flatMap(page -> page.items().stream())
+                .findFirst();
+    }
+
+    @Override
+    public Optional<User> findByUsername(String username) {
+        return Optional.ofNullable(hedgedReads.read("user-by-username", () -> userTable.getItem(profileKey(username))));
+    }
+
+    @Override
+    public void deleteById(String id) {
+        findById(id).ifPresent(user -> userTable.deleteItem(profileKey(user.getUsername())));
+    }
+
+    @Override
+    public ParallelScanner.Result scanUsernames(Consumer<String> consumer) {
+        // Todos and tombstones share the table; the filter still reads (and bills) them
+        ScanJob job = ScanJob.of(TABLE_NAME)
+                .customize(scan -> scan
+                        .filterExpression("#entity = :user")
+                        .projectionExpression("#username")
+                        .expressionAttributeNames(Map.of("#entity", ENTITY, "#username", "username"))
+                        .expressionAttributeValues(Map.of(":user", AttributeValue.fromS("USER"))));
+        return scanner.scan(job, item -> consumer.accept(item.get("username").s()));
+    }
+
+    private static Key profileKey(String username) {
+        return Key.builder().partitionValue(userKey(username)).sortValue(PROFILE).build();
+    }
+}
@@ -0,0 +1,171 @@
+package repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves todos that have been completed for longer than {@code todos.archive.after} from
+ * {@code todos} to {@code todo_archive}, every {@code todos.archive.interval}. Enable the job
+ * ({@code todos.archive.job-enabled}) on one instance; runs elsewhere would only compete for
+ * the same items.
+ * <p>
+ * Each todo moves in one transaction: the full item is put into the archive, and the item in
+ * {@code todos} is cut down to a pointer (its title, description and index keys removed, so
+ * it drops out of every list and sync index at once) whose {@code expiresAt} lets TTL delete
+ * it for free. Reads by id, including search results, follow the pointer to the archive. The
+ * transaction is conditional on the version the scan read, so a todo edited meanwhile stays.
+ */
+@Component
+@ConditionalOnExpression("${dynamodb.enabled:true} and '${dynamodb.layout:multi-table}' == 'multi-table'"
+        + " and ${todos.archive.enabled:false} and ${todos.archive.job-enabled:false}")
+public class TodoArchiver {
+
+    private static final Logger logger = LogManager.getLogger(TodoArchiver.class);
+
+    // Index keys of the todo in todos; removing any of the pair takes it out of that index.
+    // Title and description go too: only the archive needs them.
+    private static final List<String> HOT_REMOVED_ATTRIBUTES = List.of(
+            "userStatus", "userShard", "userStatusShard", "createdAt", "updatedAt", "dueSortKey",
+            "title", "description");
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ParallelScanner scanner;
+    private final Duration after;
+    private final Duration interval;
+    private final ScheduledExecutorService scheduler;
+
+    public TodoArchiver(DynamoDbClient dynamoDbClient, ParallelScanner scanner,
+                        @Value("${todos.archive.after:P30D}") Duration after,
+                        @Value("${todos.archive.interval:PT6H}") Duration interval) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.scanner = scanner;
+        this.after = after;
+        this.interval = interval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "todo-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                archive(Instant.now());
+            } catch (RuntimeException e) {
+                logger.error("Todo archival failed: {}", e.getMessage(), e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return the number of todos moved to the archive
+     */
+    public long archive(Instant now) {
+        String cutoff = now.minus(after).truncatedTo(ChronoUnit.SECONDS).toString();
+        AtomicLong archived = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        // Todos completed before completedAt was recorded are aged by their last update
+        ScanJob job = ScanJob.of(TodoRepositoryImpl.TABLE_NAME)
+                .customize(scan -> scan
+                        .filterExpression("#status = :completed AND attribute_not_exists(#archivedAt)"
+                                + " AND (#completedAt < :cutoff OR (attribute_not_exists(#completedAt) AND #updatedAt < :cutoff))")
+                        .expressionAttributeNames(Map.of("#status", "status", "#archivedAt", "archivedAt",
+                                "#completedAt", "completedAt", "#updatedAt", "updatedAt"))
+                        .expressionAttributeValues(Map.of(":completed", AttributeValue.fromS("COMPLETED"),
+                                ":cutoff", AttributeValue.fromS(cutoff))));
+        ParallelScanner.Result result = scanner.scan(job, item -> {
+            if (move(item, now)) {
+                archived.incrementAndGet();
+            } else {
+                skipped.incrementAndGet();
+            }
+        });
+        logger.info("Archived {} todos completed before {} ({} changed during the run, {})",
+                archived.get(), cutoff, skipped.get(), result);
+        return archived.get();
+    }
+
+    private boolean move(Map<String, AttributeValue> item, Instant now) {
+        Map<String, AttributeValue> copy = new HashMap<>(item);
+        copy.remove("userStatus");
+        copy.remove("userShard");
+        copy.remove("userStatusShard");
+        copy.put("archivedAt", AttributeValue.fromS(now.toString()));
+
+        Map<String, String> names = new HashMap<>();
+        StringBuilder remove = new StringBuilder();
+        for (int i = 0; i < HOT_REMOVED_ATTRIBUTES.size(); i++) {
+            names.put("#k" + i, HOT_REMOVED_ATTRIBUTES.get(i));
+            remove.append(i == 0 ? " REMOVE " : ", ").append("#k").append(i);
+        }
+        names.put("#archivedAt", "archivedAt");
+        names.put("#expiresAt", "expiresAt");
+        names.put("#status", "status");
+        names.put("#v", "version");
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":now", AttributeValue.fromS(now.toString()));
+        // Already due: TTL deletes the pointer within days, at no write cost
+        values.put(":expiresAt", AttributeValue.fromN(Long.toString(now.getEpochSecond())));
+        values.put(":completed", AttributeValue.fromS("COMPLETED"));
+        String unchanged = "#status = :completed AND attribute_not_exists(#archivedAt) AND ";
+        AttributeValue version = item.get("version");
+        if (version == null) {
+            unchanged += "attribute_not_exists(#v)";
+        } else {
+            unchanged += "#v = :v";
+            values.put(":v", version);
+        }
+
+        try {
+            dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder()
+                    .transactItems(
+                            TransactWriteItem.builder().put(Put.builder()
+                                    .tableName(TodoRepositoryImpl.ARCHIVE_TABLE_NAME)
+                                    .item(copy)
+                                    .build()).build(),
+                            TransactWriteItem.builder().update(Update.builder()
+                                    .tableName(TodoRepositoryImpl.TABLE_NAME)
+                                    .key(Map.of("id", item.get("id")))
+                                    .updateExpression("SET #archivedAt = :now, #expiresAt = :expiresAt" + remove)
+                                    .conditionExpression(unchanged)
+                                    .expressionAttributeNames(names)
+                                    .expressionAttributeValues(values)
+                                    .build()).build())
+                    .build());
+            return true;
+        } catch (TransactionCanceledException e) {
+            // Edited, reopened or deleted since the scan read it
+            return false;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package repository;
+
+import model.Todo;
+import model.TodoCounts;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The item holding a user's {@link TodoCounts}, shared by both layouts, which only differ in
+ * where it lives. Changes are {@code ADD}s, so concurrent writers never overwrite each other,
+ * and every change increments {@code revision}:
+ * <pre>
+ *   total  pending  completed  pendingDue#2025-03-01  ...  revision  updatedAt
+ * </pre>
+ * A due date whose count drops to zero keeps its attribute until the next reset.
+ * <p>
+ * Every counted write of a user updates this one item, so it caps that user's write rate
+ * at what a single item takes, however many index shards ({@link TodoShards}) the todos
+ * are spread over. Concurrent writers also conflict on it; {@link TodoTransactions} retries those.
+ */
+final class TodoCounters {
+
+    private static final String TOTAL = "total";
+    private static final String PENDING = "pending";
+    private static final String COMPLETED = "completed";
+    private static final String PENDING_DUE_PREFIX = "pendingDue#";
+    private static final String REVISION = "revision";
+    private static final String UPDATED_AT = "updatedAt";
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final Function<String, Map<String, AttributeValue>> keyOf;
+    private final Map<String, AttributeValue> fixedAttributes;
+
+    /**
+     * @param keyOf           the primary key of a user's counter item
+     * @param fixedAttributes written with every change, e.g. the entity type in a shared table
+     */
+    TodoCounters(DynamoDbClient dynamoDbClient, String tableName,
+                 Function<String, Map<String, AttributeValue>> keyOf, Map<String, AttributeValue> fixedAttributes) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.keyOf = keyOf;
+        this.fixedAttributes = fixedAttributes;
+    }
+
+    /**
+     * The change as part of a transaction, so it lands together with the todo write.
+     */
+    TransactWriteItem add(String userId, TodoCounts change) {
+        UpdateItemRequest request = addRequest(userId, change);
+        return TransactWriteItem.builder().update(Update.builder()
+                        .tableName(request.tableName())
+                        .key(request.key())
+                        .updateExpression(request.updateExpression())
+                        .expressionAttributeNames(request.expressionAttributeNames())
+                        .expressionAttributeValues(request.expressionAttributeValues())
+                        .build())
+                .build();
+    }
+
+    /**
+     * Counts todos written outside a transaction, per owner, one update each.
+     */
+    void addAll(List<Todo> todos) {
+        Map<String, List<Todo>> byOwner = todos.stream().collect(Collectors.groupingBy(Todo::getUserId));
+        byOwner.forEach((userId, owned) -> dynamoDbClient.updateItem(addRequest(userId, TodoCounts.count(owned.iterator()))));
+    }
+
+    private UpdateItemRequest addRequest(String userId, TodoCounts change) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, AttributeValue> values = new HashMap<>();
+        StringJoiner add = new StringJoiner(", ", "ADD ", "");
+        add.add("#revision :one");
+        names.put("#revision", REVISION);
+        values.put(":one", AttributeValue.fromN("1"));
+        addTerm(add, names, values, "total", TOTAL, change.getTotal());
+        addTerm(add, names, values, "pending", PENDING, change.getPending());
+        addTerm(add, names, values, "completed", COMPLETED, change.getCompleted());
+        int i = 0;
+        for (Map.Entry<String, Long> entry : change.getPendingByDueDate().entrySet()) {
+            addTerm(add, names, values, "d" + i++, PENDING_DUE_PREFIX + entry.getKey(), entry.getValue());
+        }
+
+        StringJoiner set = new StringJoiner(", ", " SET ", "");
+        set.add("#updatedAt = :now");
+        names.put("#updatedAt", UPDATED_AT);
+        values.put(":now", AttributeValue.fromS(Instant.now().toString()));
+        int f = 0;
+        for (Map.Entry<String, AttributeValue> fixed : fixedAttributes.entrySet()) {
+            set.add("#f" + f + " = :f" + f);
+            names.put("#f" + f, fixed.getKey());
+            values.put(":f" + f, fixed.getValue());
+            f++;
+        }
+
+        return UpdateItemRequest.builder()
+                .tableName(tableName)
+                .key(keyOf.apply(userId))
+                .updateExpression(add.toString() + set)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .build();
+    }
+
+    private static void addTerm(StringJoiner add, Map<String, String> names, Map<String, AttributeValue> values,
+                                String placeholder, String attribute, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        add.add("#" + placeholder + " :" + placeholder);
+        names.put("#" + placeholder, attribute);
+        values.put(":" + placeholder, AttributeValue.fromN(Long.toString(delta)));
+    }
+
+    /**
+     * Strongly consistent, so a user sees their own writes; {@link TodoCounts#NONE} when the
+     * user has no counters yet.
+     */
+    TodoCounts read(String userId) {
+        GetItemResponse response = dynamoDbClient.getItem(r -> r.tableName(tableName)
+                .key(keyOf.apply(userId))
+                .consistentRead(true));
+        return response.hasItem() && !response.item().isEmpty() ? fromItem(response.item()) : TodoCounts.NONE;
+    }
+
+    /**
+     * Replaces the counters, unless they changed since they were read at {@code expectedRevision}.
+     *
+     * @return false if they changed
+     */
+    boolean reset(String userId, TodoCounts counts, long expectedRevision) {
+        Map<String, AttributeValue> item = new HashMap<>(keyOf.apply(userId));
+        item.putAll(fixedAttributes);
+        item.put(TOTAL, number(counts.getTotal()));
+        item.put(PENDING, number(counts.getPending()));
+        item.put(COMPLETED, number(counts.getCompleted()));
+        counts.getPendingByDueDate().forEach((date, count) -> item.put(PENDING_DUE_PREFIX + date, number(count)));
+        item.put(REVISION, number(expectedRevision + 1));
+        item.put(UPDATED_AT, AttributeValue.fromS(Instant.now().toString()));
+
+        PutItemRequest.Builder put = PutItemRequest.builder()
+                .tableName(tableName)
+                .item(item)
+                .expressionAttributeNames(Map.of("#revision", REVISION));
+        if (expectedRevision == 0) {
+            put.conditionExpression("attribute_not_exists(#revision)");
+        } else {
+            put.conditionExpression("#revision = :revision")
+                    .expressionAttributeValues(Map.of(":revision", number(expectedRevision)));
+        }
+        try {
+            dynamoDbClient.putItem(put.build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    void delete(String userId) {
+        dynamoDbClient.deleteItem(r -> r.tableName(tableName).key(keyOf.apply(userId)));
+    }
+
+    static TodoCounts fromItem(Map<String, AttributeValue> item) {
+        Map<String, Long> dueDates = new TreeMap<>();
+        item.forEach((name, value) -> {
+            if (name.startsWith(PENDING_DUE_PREFIX)) {
+                dueDates.put(name.substring(PENDING_DUE_PREFIX.length()), Long.parseLong(value.n()));
+            }
+        });
+        AttributeValue updatedAt = item.get(UPDATED_AT);
+        return new TodoCounts(longValue(item, TOTAL), longValue(item, PENDING), longValue(item, COMPLETED), dueDates,
+                longValue(item, REVISION), updatedAt == null ? null : Instant.parse(updatedAt.s()));
+    }
+
+    private static long longValue(Map<String, AttributeValue> item, String name) {
+        AttributeValue value = item.get(name);
+        return value == null ? 0 : Long.parseLong(value.n());
+    }
+
+    private static AttributeValue number(long value) {
+        return AttributeValue.fromN(Long.toString(value));
+    }
+}
@@ -0,0 +1,100 @@
+package repository;
+
+import model.Todo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gives todos written before filtered and sorted listing their {@code userStatus} and
+ * {@code dueSortKey}, so the status and due-date indexes hold every todo. Only items missing
+ * either key are touched, and the update leaves {@code version} alone, so clients' ETags
+ * stay valid. Archived todos are skipped: they dropped out of the indexes on purpose.
+ * <p>
+ * The update is conditional on the status and due date the scan saw: a todo that changed in
+ * the meantime was rewritten by the application, which set both keys already.
+ */
+@Component
+@ConditionalOnExpression("${dynamodb.enabled:true} and '${dynamodb.layout:multi-table}' == 'multi-table'")
+public class TodoListKeyBackfill {
+
+    private static final Logger logger = LogManager.getLogger(TodoListKeyBackfill.class);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ParallelScanner scanner;
+
+    public TodoListKeyBackfill(DynamoDbClient dynamoDbClient, ParallelScanner scanner) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.scanner = scanner;
+    }
+
+    /**
+     * @param runId checkpoints are kept per run, so an interrupted run with the same id resumes
+     * @return the number of todos that were given their list keys
+     */
+    public long backfill(int segments, String runId) {
+        AtomicLong updated = new AtomicLong();
+        ScanJob job = ScanJob.of(TodoRepositoryImpl.TABLE_NAME)
+                .segments(segments)
+                .resumable("todo-list-key-backfill/" + runId)
+                .customize(scan -> scan
+                        .filterExpression("(attribute_not_exists(#userStatus) OR attribute_not_exists(#dueSortKey))"
+                                + " AND attribute_not_exists(#archivedAt)")
+                        .projectionExpression("#id, #userId, #status, #dueDate")
+                        .expressionAttributeNames(Map.of("#userStatus", "userStatus", "#dueSortKey", "dueSortKey",
+                                "#archivedAt", "archivedAt", "#id", "id", "#userId", "userId",
+                                "#status", "status", "#dueDate", "dueDate")));
+        ParallelScanner.Result result = scanner.scan(job, item -> {
+            if (setListKeys(item)) {
+                updated.incrementAndGet();
+            }
+        });
+        logger.info("Todo list key backfill {} finished: {} todos updated ({})", runId, updated.get(), result);
+        return updated.get();
+    }
+
+    private boolean setListKeys(Map<String, AttributeValue> item) {
+        AttributeValue userId = item.get("userId");
+        AttributeValue status = item.get("status");
+        if (userId == null || status == null) {
+            return false;
+        }
+        AttributeValue dueDate = item.get("dueDate");
+        Map<String, String> names = new HashMap<>(Map.of("#userStatus", "userStatus", "#dueSortKey", "dueSortKey",
+                "#archivedAt", "archivedAt", "#status", "status", "#dueDate", "dueDate"));
+        Map<String, AttributeValue> values = new HashMap<>(Map.of(
+                ":userStatus", AttributeValue.fromS(userId.s() + "#" + status.s()),
+                ":dueSortKey", AttributeValue.fromS(dueDate == null ? Todo.NO_DUE_DATE : dueDate.s()),
+                ":status", status));
+        String sameDueDate;
+        if (dueDate == null) {
+            sameDueDate = "attribute_not_exists(#dueDate)";
+        } else {
+            sameDueDate = "#dueDate = :dueDate";
+            values.put(":dueDate", dueDate);
+        }
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(TodoRepositoryImpl.TABLE_NAME)
+                    .key(Map.of("id", item.get("id")))
+                    .updateExpression("SET #userStatus = :userStatus, #dueSortKey = :dueSortKey")
+                    .conditionExpression("attribute_not_exists(#archivedAt) AND #status = :status AND " + sameDueDate)
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values)
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            // Rewritten, archived or deleted since the scan read it
+            return false;
+        }
+    }
+}
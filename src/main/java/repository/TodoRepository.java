@@ -1,13 +1,136 @@
 package repository;
 
 import model.Todo;
+import model.TodoCounts;
+import model.TodoQuery;
+import model.TodoTombstone;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface TodoRepository {
-    void save(Todo todo);
+    /**
+     * Writes the todo conditionally on the version it was read with and stores the
+     * new version back on it.
+     *
+     * @throws exception.PreconditionFailedException if the todo was changed in the meantime
+     */
+    default void save(Todo todo) {
+        save(todo, TodoCounts.NONE);
+    }
+
+    /**
+     * Like {@link #save(Todo)}, and applies {@code change} to the owner's counters in the same
+     * transaction, so the counters move exactly when the write succeeds.
+     *
+     * @throws exception.PreconditionFailedException if the todo was changed in the meantime
+     */
+    void save(Todo todo, TodoCounts change);
+
+    /**
+     * Writes up to 25 todos in one BatchWriteItem call, retrying throttled items, then counts
+     * them as new on their owners' counters.
+     * Unconditional: callers are responsible for ids not colliding with existing todos.
+     */
+    void saveAll(List<Todo> todos);
+
+    /**
+     * For callers that do not know the owner; may be eventually consistent, so prefer
+     * {@link #findById(String, String, Set)} whenever the owner is known.
+     */
     Optional<Todo> findById(String id);
-    List<Todo> findAll();
+
+    /**
+     * Reads only the given attributes; an empty set reads the whole item.
+     */
+    Optional<Todo> findById(String id, Set<String> attributes);
+
+    /**
+     * The user's todo, read strongly consistently by its full key, so users always see their
+     * own latest writes. Empty if the user has no todo with this id, including when it belongs
+     * to someone else. Reads only the given attributes; an empty set reads the whole item.
+     */
+    Optional<Todo> findById(String userId, String id, Set<String> attributes);
+
+    /**
+     * Streams every todo of every user to the consumer through a parallel segmented scan.
+     * For administrative jobs only, such as the search index backfill; the consumer is called
+     * from several threads. An archived todo comes as its pointer, without title or
+     * description; {@link #findAllById(String, Collection)} reads the archived copy.
+     *
+     * @param checkpointId makes the scan resumable under this id, or null
+     */
+    ParallelScanner.Result scanAll(String checkpointId, Consumer<Todo> consumer);
+
+    /**
+     * Batch-reads the given todos; missing ids are skipped and order is not preserved.
+     */
+    List<Todo> findAllById(Collection<String> ids);
+
+    /**
+     * Batch-reads the given todos of one user, archived ones included; ids owned by other
+     * users are skipped.
+     */
+    List<Todo> findAllById(String userId, Collection<String> ids);
+
+    /**
+     * Lazily streams a user's todos ordered by creation time. Pages are only
+     * fetched from DynamoDB as the stream is consumed.
+     */
+    default Stream<Todo> findByUserId(String userId) {
+        return query(userId, TodoQuery.all());
+    }
+
+    /**
+     * Lazily streams the user's todos matching the query. Status, sort order and
+     * date range are evaluated as index key conditions, so the cost tracks the
+     * number of matching items rather than the size of the user's list.
+     */
+    Stream<Todo> query(String userId, TodoQuery query);
+
+    /**
+     * Lazily streams the user's todos updated at or after {@code since}, oldest change first.
+     */
+    Stream<Todo> findUpdatedSince(String userId, Instant since);
+
+    /**
+     * Tombstones of the user's todos deleted at or after {@code since}, oldest first.
+     */
+    List<TodoTombstone> findTombstonesSince(String userId, Instant since);
+
     void deleteById(String id);
-}
\ No newline at end of file
+
+    /**
+     * Deletes up to 25 of the user's todos in one BatchWriteItem call, retrying throttled
+     * items. Leaves no tombstones; meant for purging a deleted account.
+     */
+    void deleteAllById(String userId, List<String> ids);
+
+    /**
+     * Deletes the todo as read, writes its tombstone and takes it off the owner's counters in
+     * one transaction, so a sync can never observe the delete without the tombstone.
+     *
+     * @throws exception.PreconditionFailedException if the todo was changed or deleted in the meantime
+     */
+    void deleteWithTombstone(Todo todo, TodoTombstone tombstone);
+
+    /**
+     * The user's counters as of the latest write, {@link TodoCounts#NONE} if they have none.
+     */
+    TodoCounts findCounts(String userId);
+
+    /**
+     * Replaces the user's counters with recounted values, unless a write changed them
+     * since they were read at {@code expectedRevision}.
+     *
+     * @return false if the counters changed in the meantime
+     */
+    boolean resetCounts(String userId, TodoCounts counts, long expectedRevision);
+
+    void deleteCounts(String userId);
+}
@@ -1,85 +1,839 @@
 package repository;
 
+import exception.PreconditionFailedException;
+import model.ArchivedTodo;
 import model.Todo;
+import model.TodoCounts;
+import model.TodoQuery;
+import model.TodoTombstone;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
 import repository.TodoRepository;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.*;
+import software.amazon.awssdk.core.pagination.sync.SdkIterable;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
 import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.Delete;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexUpdate;
+import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
 import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
 import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.LocalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.Put;
 import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveSpecification;
+import software.amazon.awssdk.services.dynamodb.model.TimeToLiveStatus;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateTimeToLiveRequest;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
 
 import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository
-@ConditionalOnProperty(name = "dynamodb.enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnExpression("${dynamodb.enabled:true} and '${dynamodb.layout:multi-table}' == 'multi-table'")
 public class TodoRepositoryImpl implements TodoRepository {
 
+    public static final String TABLE_NAME = "todos";
+    private static final String USER_CREATED_AT_INDEX = "userId-createdAt-index";
+    private static final String USER_DUE_DATE_INDEX = "userId-dueDate-index";
+    private static final String USER_STATUS_CREATED_AT_INDEX = "userStatus-createdAt-index";
+    private static final String USER_STATUS_DUE_DATE_INDEX = "userStatus-dueDate-index";
+    private static final String USER_UPDATED_AT_INDEX = "userId-updatedAt-index";
+    private static final String USER_SHARD_CREATED_AT_INDEX = "userShard-createdAt-index";
+    private static final String USER_SHARD_DUE_DATE_INDEX = "userShard-dueDate-index";
+    private static final String USER_SHARD_UPDATED_AT_INDEX = "userShard-updatedAt-index";
+    private static final String USER_STATUS_SHARD_CREATED_AT_INDEX = "userStatusShard-createdAt-index";
+    private static final String USER_STATUS_SHARD_DUE_DATE_INDEX = "userStatusShard-dueDate-index";
+    static final String TOMBSTONE_TABLE_NAME = "todo_tombstones";
+    static final String ARCHIVE_TABLE_NAME = "todo_archive";
+    private static final String ARCHIVE_CREATED_AT_INDEX = "userId-createdAt-index";
+    private static final String ARCHIVE_DUE_DATE_INDEX = "userId-dueDate-index";
+    private static final String ARCHIVE_ID_INDEX = "id-index";
+    static final String COUNTERS_TABLE_NAME = "todo_counters";
+    private static final int MAX_BATCH_GET_SIZE = 100;
+
     private final DynamoDbEnhancedClient enhancedClient;
     private final DynamoDbTable<Todo> todoTable;
+    private final DynamoDbTable<TodoTombstone> tombstoneTable;
+    private final DynamoDbTable<ArchivedTodo> archiveTable;
     private final DynamoDbClient dynamoDbClient;
+    private final ParallelScanner scanner;
+    private final HedgedReads hedgedReads;
+    private final TodoShards shards;
+    private final TodoCounters counters;
+    private final boolean archiveEnabled;
+    private final Duration indexWaitTimeout;
+    private final boolean dropUnshardedIndexes;
 
-    public TodoRepositoryImpl(DynamoDbClient dynamoDbClient) {
+    public TodoRepositoryImpl(DynamoDbClient dynamoDbClient, ParallelScanner scanner, HedgedReads hedgedReads,
+                              TodoShards shards, @Value("${todos.archive.enabled:false}") boolean archiveEnabled,
+                              @Value("${dynamodb.index-wait-timeout:PT5M}") Duration indexWaitTimeout,
+                              @Value("${todos.sharding.drop-unsharded-indexes:false}") boolean dropUnshardedIndexes) {
         this.dynamoDbClient = dynamoDbClient;
+        this.scanner = scanner;
+        this.hedgedReads = hedgedReads;
+        this.shards = shards;
+        this.archiveEnabled = archiveEnabled;
+        this.indexWaitTimeout = indexWaitTimeout;
+        this.dropUnshardedIndexes = dropUnshardedIndexes;
         this.enhancedClient = DynamoDbEnhancedClient.builder()
                 .dynamoDbClient(dynamoDbClient)
                 .build();
 
-        this.todoTable = enhancedClient.table("todos", TableSchema.fromBean(Todo.class));
+        this.todoTable = enhancedClient.table(TABLE_NAME, TableSchema.fromBean(Todo.class));
+        this.tombstoneTable = enhancedClient.table(TOMBSTONE_TABLE_NAME, TableSchema.fromBean(TodoTombstone.class));
+        this.archiveTable = enhancedClient.table(ARCHIVE_TABLE_NAME, TableSchema.fromBean(ArchivedTodo.class));
+        this.counters = new TodoCounters(dynamoDbClient, COUNTERS_TABLE_NAME,
+                userId -> Map.of("userId", AttributeValue.fromS(userId)), Map.of());
     }
 
     @PostConstruct
     private void createTableIfNotExists() {
-        final String tableName = "todos";
+        createTodoTableIfNotExists();
+        createTombstoneTableIfNotExists();
+        createCountersTableIfNotExists();
+        if (archiveEnabled) {
+            createArchiveTableIfNotExists();
+            enableTodoExpiry();
+        }
+    }
+
+    private void createTodoTableIfNotExists() {
+        TableDescription table;
         try {
-            dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(tableName).build());
+            table = dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(TABLE_NAME).build()).table();
         } catch (ResourceNotFoundException rnfe) {
+            List<AttributeDefinition> attributes = new ArrayList<>(List.of(
+                    AttributeDefinition.builder().attributeName("id").attributeType(ScalarAttributeType.S).build(),
+                    AttributeDefinition.builder().attributeName("createdAt").attributeType(ScalarAttributeType.S).build(),
+                    AttributeDefinition.builder().attributeName("updatedAt").attributeType(ScalarAttributeType.S).build(),
+                    AttributeDefinition.builder().attributeName("dueSortKey").attributeType(ScalarAttributeType.S).build()));
+            List<GlobalSecondaryIndex> indexes = new ArrayList<>();
+            if (shards.isEnabled()) {
+                // A new table has nothing to backfill, so the unsharded indexes are never needed
+                attributes.add(AttributeDefinition.builder().attributeName("userShard").attributeType(ScalarAttributeType.S).build());
+                attributes.add(AttributeDefinition.builder().attributeName("userStatusShard").attributeType(ScalarAttributeType.S).build());
+                indexes.addAll(List.of(
+                        globalSecondaryIndex(USER_SHARD_CREATED_AT_INDEX, "userShard", "createdAt"),
+                        globalSecondaryIndex(USER_SHARD_DUE_DATE_INDEX, "userShard", "dueSortKey"),
+                        globalSecondaryIndex(USER_SHARD_UPDATED_AT_INDEX, "userShard", "updatedAt"),
+                        globalSecondaryIndex(USER_STATUS_SHARD_CREATED_AT_INDEX, "userStatusShard", "createdAt"),
+                        globalSecondaryIndex(USER_STATUS_SHARD_DUE_DATE_INDEX, "userStatusShard", "dueSortKey")));
+            } else {
+                attributes.add(AttributeDefinition.builder().attributeName("userId").attributeType(ScalarAttributeType.S).build());
+                attributes.add(AttributeDefinition.builder().attributeName("userStatus").attributeType(ScalarAttributeType.S).build());
+                indexes.addAll(List.of(
+                        globalSecondaryIndex(USER_CREATED_AT_INDEX, "userId", "createdAt"),
+                        globalSecondaryIndex(USER_DUE_DATE_INDEX, "userId", "dueSortKey"),
+                        globalSecondaryIndex(USER_STATUS_CREATED_AT_INDEX, "userStatus", "createdAt"),
+                        globalSecondaryIndex(USER_STATUS_DUE_DATE_INDEX, "userStatus", "dueSortKey"),
+                        globalSecondaryIndex(USER_UPDATED_AT_INDEX, "userId", "updatedAt")));
+            }
             dynamoDbClient.createTable(CreateTableRequest.builder()
-                    .tableName(tableName)
+                    .tableName(TABLE_NAME)
                     .billingMode(BillingMode.PAY_PER_REQUEST)
                     .keySchema(KeySchemaElement.builder()
                             .attributeName("id")
                             .keyType(KeyType.HASH)
                             .build())
-                    .attributeDefinitions(AttributeDefinition.builder()
-                            .attributeName("id")
-                            .attributeType(ScalarAttributeType.S)
-                            .build())
+                    .attributeDefinitions(attributes)
+                    .globalSecondaryIndexes(indexes)
                     .build());
 
             try (DynamoDbWaiter waiter = dynamoDbClient.waiter()) {
-                waiter.waitUntilTableExists(b -> b.tableName(tableName));
+                waiter.waitUntilTableExists(b -> b.tableName(TABLE_NAME));
+            }
+            return;
+        }
+
+        // Ensure GSIs exist on tables created before they were introduced (idempotent: add if missing)
+        // DynamoDB only accepts one index creation per UpdateTable call, so they are added one at a time.
+        // All of them share one deadline: startup fails rather than blocking for as long as a backfill takes
+        Instant deadline = Instant.now().plus(indexWaitTimeout);
+        if (!shards.isEnabled()) {
+            ensureIndex(table, USER_CREATED_AT_INDEX, "userId", "createdAt", deadline);
+            ensureIndex(table, USER_DUE_DATE_INDEX, "userId", "dueSortKey", deadline);
+            ensureIndex(table, USER_STATUS_CREATED_AT_INDEX, "userStatus", "createdAt", deadline);
+            ensureIndex(table, USER_STATUS_DUE_DATE_INDEX, "userStatus", "dueSortKey", deadline);
+            ensureIndex(table, USER_UPDATED_AT_INDEX, "userId", "updatedAt", deadline);
+            return;
+        }
+        // Only created once sharding is switched on; every todo carries the shard keys regardless,
+        // so DynamoDB fills the new indexes from the existing items
+        ensureIndex(table, USER_SHARD_CREATED_AT_INDEX, "userShard", "createdAt", deadline);
+        ensureIndex(table, USER_SHARD_DUE_DATE_INDEX, "userShard", "dueSortKey", deadline);
+        ensureIndex(table, USER_SHARD_UPDATED_AT_INDEX, "userShard", "updatedAt", deadline);
+        ensureIndex(table, USER_STATUS_SHARD_CREATED_AT_INDEX, "userStatusShard", "createdAt", deadline);
+        ensureIndex(table, USER_STATUS_SHARD_DUE_DATE_INDEX, "userStatusShard", "dueSortKey", deadline);
+        // Reads use the sharded indexes from here on, but every write still lands in the unsharded
+        // ones, on one partition per user, until they are gone. Dropped only on request, once the
+        // shard backfill has completed: before that, the sharded indexes miss older todos
+        if (dropUnshardedIndexes) {
+            for (String index : List.of(USER_CREATED_AT_INDEX, USER_DUE_DATE_INDEX, USER_STATUS_CREATED_AT_INDEX,
+                    USER_STATUS_DUE_DATE_INDEX, USER_UPDATED_AT_INDEX)) {
+                dropIndex(table, index, deadline);
             }
         }
     }
 
+    private void createTombstoneTableIfNotExists() {
+        try {
+            dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(TOMBSTONE_TABLE_NAME).build());
+            return;
+        } catch (ResourceNotFoundException rnfe) {
+            // Create below
+        }
+
+        dynamoDbClient.createTable(CreateTableRequest.builder()
+                .tableName(TOMBSTONE_TABLE_NAME)
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .keySchema(
+                        KeySchemaElement.builder().attributeName("userId").keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName("changeKey").keyType(KeyType.RANGE).build()
+                )
+                .attributeDefinitions(
+                        AttributeDefinition.builder().attributeName("userId").attributeType(ScalarAttributeType.S).build(),
+                        AttributeDefinition.builder().attributeName("changeKey").attributeType(ScalarAttributeType.S).build()
+                )
+                .build());
+
+        try (DynamoDbWaiter waiter = dynamoDbClient.waiter()) {
+            waiter.waitUntilTableExists(b -> b.tableName(TOMBSTONE_TABLE_NAME));
+        }
+
+        // Tombstones only need to outlive the oldest sync token still accepted
+        dynamoDbClient.updateTimeToLive(UpdateTimeToLiveRequest.builder()
+                .tableName(TOMBSTONE_TABLE_NAME)
+                .timeToLiveSpecification(TimeToLiveSpecification.builder()
+                        .attributeName("expiresAt")
+                        .enabled(true)
+                        .build())
+                .build());
+    }
+
+    private void createCountersTableIfNotExists() {
+        try {
+            dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(COUNTERS_TABLE_NAME).build());
+            return;
+        } catch (ResourceNotFoundException rnfe) {
+            // Create below
+        }
+
+        dynamoDbClient.createTable(CreateTableRequest.builder()
+                .tableName(COUNTERS_TABLE_NAME)
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .keySchema(KeySchemaElement.builder().attributeName("userId").keyType(KeyType.HASH).build())
+                .attributeDefinitions(
+                        AttributeDefinition.builder().attributeName("userId").attributeType(ScalarAttributeType.S).build())
+                .build());
+
+        try (DynamoDbWaiter waiter = dynamoDbClient.waiter()) {
+            waiter.waitUntilTableExists(b -> b.tableName(COUNTERS_TABLE_NAME));
+        }
+    }
+
+    private void createArchiveTableIfNotExists() {
+        try {
+            dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(ARCHIVE_TABLE_NAME).build());
+            return;
+        } catch (ResourceNotFoundException rnfe) {
+            // Create below
+        }
+
+        // Local indexes: a user's archive is read as one partition in either list order
+        dynamoDbClient.createTable(CreateTableRequest.builder()
+                .tableName(ARCHIVE_TABLE_NAME)
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .keySchema(
+                        KeySchemaElement.builder().attributeName("userId").keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName("id").keyType(KeyType.RANGE).build()
+                )
+                .attributeDefinitions(
+                        AttributeDefinition.builder().attributeName("userId").attributeType(ScalarAttributeType.S).build(),
+                        AttributeDefinition.builder().attributeName("id").attributeType(ScalarAttributeType.S).build(),
+                        AttributeDefinition.builder().attributeName("createdAt").attributeType(ScalarAttributeType.S).build(),
+                        AttributeDefinition.builder().attributeName("dueSortKey").attributeType(ScalarAttributeType.S).build()
+                )
+                .localSecondaryIndexes(
+                        localSecondaryIndex(ARCHIVE_CREATED_AT_INDEX, "userId", "createdAt"),
+                        localSecondaryIndex(ARCHIVE_DUE_DATE_INDEX, "userId", "dueSortKey"))
+                // Only needed once the leftover copy in todos has expired, so keys are enough
+                .globalSecondaryIndexes(GlobalSecondaryIndex.builder()
+                        .indexName(ARCHIVE_ID_INDEX)
+                        .keySchema(KeySchemaElement.builder().attributeName("id").keyType(KeyType.HASH).build())
+                        .projection(Projection.builder().projectionType(ProjectionType.KEYS_ONLY).build())
+                        .build())
+                .build());
+
+        try (DynamoDbWaiter waiter = dynamoDbClient.waiter()) {
+            waiter.waitUntilTableExists(b -> b.tableName(ARCHIVE_TABLE_NAME));
+        }
+    }
+
+    /**
+     * Archived todos leave a pointer in {@code todos} that TTL removes.
+     */
+    private void enableTodoExpiry() {
+        TimeToLiveStatus status = dynamoDbClient.describeTimeToLive(b -> b.tableName(TABLE_NAME))
+                .timeToLiveDescription()
+                .timeToLiveStatus();
+        if (status == TimeToLiveStatus.ENABLED || status == TimeToLiveStatus.ENABLING) {
+            return;
+        }
+        dynamoDbClient.updateTimeToLive(UpdateTimeToLiveRequest.builder()
+                .tableName(TABLE_NAME)
+                .timeToLiveSpecification(TimeToLiveSpecification.builder()
+                        .attributeName("expiresAt")
+                        .enabled(true)
+                        .build())
+                .build());
+    }
+
+    /**
+     * Creates the index if the table lacks it and waits until it is ACTIVE. An index still
+     * CREATING from an earlier start is waited for as well, since queries against it fail until
+     * DynamoDB has backfilled it. Past the deadline startup fails: DynamoDB keeps building the
+     * index, and the next start picks up where this one stopped.
+     */
+    private void ensureIndex(TableDescription table, String indexName, String partitionKey, String sortKey, Instant deadline) {
+        boolean hasIndex = table.globalSecondaryIndexes() != null && table.globalSecondaryIndexes().stream()
+                .anyMatch(i -> indexName.equals(i.indexName()));
+        if (!hasIndex) {
+            GlobalSecondaryIndex index = globalSecondaryIndex(indexName, partitionKey, sortKey);
+            dynamoDbClient.updateTable(UpdateTableRequest.builder()
+                    .tableName(TABLE_NAME)
+                    .attributeDefinitions(
+                            AttributeDefinition.builder().attributeName(partitionKey).attributeType(ScalarAttributeType.S).build(),
+                            AttributeDefinition.builder().attributeName(sortKey).attributeType(ScalarAttributeType.S).build()
+                    )
+                    .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder()
+                            .create(b -> b.indexName(index.indexName())
+                                    .keySchema(index.keySchema())
+                                    .projection(index.projection()))
+                            .build())
+                    .build());
+        }
+
+        // The table stays ACTIVE while the index backfills, so wait on the index itself
+        while (true) {
+            TableDescription desc = dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(TABLE_NAME).build()).table();
+            IndexStatus status = desc.globalSecondaryIndexes().stream()
+                    .filter(i -> indexName.equals(i.indexName()))
+                    .map(i -> i.indexStatus())
+                    .findFirst()
+                    .orElse(null);
+            if (status == IndexStatus.ACTIVE) {
+                return;
+            }
+            if (Instant.now().isAfter(deadline)) {
+                throw new IllegalStateException("Index " + indexName + " on table " + TABLE_NAME + " is still " + status
+                        + " after dynamodb.index-wait-timeout (" + indexWaitTimeout + "). DynamoDB keeps building it;"
+                        + " start the application again once describe-table reports it ACTIVE, or raise the timeout");
+            }
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for index " + indexName, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes the index and waits until it is gone, one at a time like creation. The items keep
+     * {@code userId} and {@code userStatus}, so switching sharding off again rebuilds the index.
+     */
+    private void dropIndex(TableDescription table, String indexName, Instant deadline) {
+        IndexStatus status = table.globalSecondaryIndexes() == null ? null : table.globalSecondaryIndexes().stream()
+                .filter(i -> indexName.equals(i.indexName()))
+                .map(i -> i.indexStatus())
+                .findFirst()
+                .orElse(null);
+        if (status == null) {
+            return;
+        }
+        if (status != IndexStatus.DELETING) {
+            dynamoDbClient.updateTable(UpdateTableRequest.builder()
+                    .tableName(TABLE_NAME)
+                    .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder()
+                            .delete(b -> b.indexName(indexName))
+                            .build())
+                    .build());
+        }
+
+        while (true) {
+            TableDescription desc = dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(TABLE_NAME).build()).table();
+            boolean present = desc.globalSecondaryIndexes() != null && desc.globalSecondaryIndexes().stream()
+                    .anyMatch(i -> indexName.equals(i.indexName()));
+            if (!present) {
+                return;
+            }
+            if (Instant.now().isAfter(deadline)) {
+                throw new IllegalStateException("Index " + indexName + " on table " + TABLE_NAME + " is still being deleted"
+                        + " after dynamodb.index-wait-timeout (" + indexWaitTimeout + "); start the application again once it is gone");
+            }
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while deleting index " + indexName, e);
+            }
+        }
+    }
+
+    private static GlobalSecondaryIndex globalSecondaryIndex(String indexName, String partitionKey, String sortKey) {
+        return GlobalSecondaryIndex.builder()
+                .indexName(indexName)
+                .keySchema(
+                        KeySchemaElement.builder().attributeName(partitionKey).keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName(sortKey).keyType(KeyType.RANGE).build()
+                )
+                .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                .build();
+    }
+
+    private static LocalSecondaryIndex localSecondaryIndex(String indexName, String partitionKey, String sortKey) {
+        return LocalSecondaryIndex.builder()
+                .indexName(indexName)
+                .keySchema(
+                        KeySchemaElement.builder().attributeName(partitionKey).keyType(KeyType.HASH).build(),
+                        KeySchemaElement.builder().attributeName(sortKey).keyType(KeyType.RANGE).build()
+                )
+                .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                .build();
+    }
+
     @Override
-    public void save(Todo todo) {
-        todoTable.putItem(todo);
+    public void save(Todo todo, TodoCounts change) {
+        todo.setShard(shards.shardFor(todo));
+        if (todo.getArchivedAt() != null || !change.isEmpty()) {
+            putInTransaction(todo, change);
+            return;
+        }
+        try {
+            // UpdateItem rather than PutItem so the incremented version comes back in the same call
+            Todo saved = todoTable.updateItem(todo);
+            todo.setVersion(saved.getVersion());
+        } catch (ConditionalCheckFailedException e) {
+            throw new PreconditionFailedException("Todo was modified concurrently, reload and retry");
+        }
+    }
+
+    /**
+     * Writes the todo together with the items that have to change with it: the owner's
+     * counters, and the archived copy when an archived todo is written. Writing an archived
+     * todo brings it back: the full item returns to {@code todos}, replacing the leftover copy
+     * if TTL has not removed it yet, and leaves the archive.
+     */
+    private void putInTransaction(Todo todo, TodoCounts change) {
+        boolean restoring = todo.getArchivedAt() != null;
+        Long readVersion = todo.getVersion();
+        todo.setArchivedAt(null);
+        todo.setExpiresAt(null);
+        // What the version extension would have written
+        todo.setVersion(readVersion == null ? 1 : readVersion + 1);
+        Map<String, AttributeValue> item = todoTable.tableSchema().itemToMap(todo, true);
+
+        Map<String, String> names = Map.of("#id", "id", "#v", "version");
+        Map<String, AttributeValue> values = readVersion == null
+                ? null
+                : Map.of(":v", AttributeValue.fromN(readVersion.toString()));
+        String unchanged = readVersion == null ? "attribute_not_exists(#v)" : "#v = :v";
+        List<TransactWriteItem> writes = new ArrayList<>(3);
+        Put.Builder put = Put.builder()
+                .tableName(TABLE_NAME)
+                .item(item)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .conditionExpression(restoring ? "attribute_not_exists(#id) OR " + unchanged : unchanged);
+        writes.add(TransactWriteItem.builder().put(put.build()).build());
+        if (restoring) {
+            writes.add(TransactWriteItem.builder().delete(Delete.builder()
+                    .tableName(ARCHIVE_TABLE_NAME)
+                    .key(archiveKey(todo.getUserId(), todo.getId()))
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values)
+                    .conditionExpression("attribute_exists(#id) AND " + unchanged)
+                    .build()).build());
+        }
+        if (!change.isEmpty()) {
+            writes.add(counters.add(todo.getUserId(), change));
+        }
+        try {
+            TodoTransactions.write(dynamoDbClient, writes);
+        } catch (RuntimeException e) {
+            todo.setVersion(readVersion);
+            throw e;
+        }
+    }
+
+    private static Map<String, AttributeValue> archiveKey(String userId, String id) {
+        return Map.of("userId", AttributeValue.fromS(userId), "id", AttributeValue.fromS(id));
+    }
+
+    @Override
+    public void saveAll(List<Todo> todos) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            todo.setShard(shards.shardFor(todo));
+            items.add(todoTable.tableSchema().itemToMap(todo, true));
+        }
+        BatchWrites.putAll(dynamoDbClient, TABLE_NAME, items);
+        counters.addAll(todos);
     }
 
     @Override
     public Optional<Todo> findById(String id) {
-        return Optional.ofNullable(todoTable.getItem(r -> r.key(k -> k.partitionValue(id))));
+        return findById(id, Collections.emptySet());
+    }
+
+    @Override
+    public Optional<Todo> findById(String id, Set<String> attributes) {
+        Todo todo = read(id, attributes, false);
+        return archiveEnabled ? followArchive(null, id, todo) : Optional.ofNullable(todo);
     }
 
     @Override
-    public List<Todo> findAll() {
+    public Optional<Todo> findById(String userId, String id, Set<String> attributes) {
+        Todo todo = read(id, attributes.isEmpty() ? attributes : withAttribute(attributes, "userId"), true);
+        if (todo != null && !userId.equals(todo.getUserId())) {
+            return Optional.empty();
+        }
+        return archiveEnabled ? followArchive(userId, id, todo) : Optional.ofNullable(todo);
+    }
+
+    private Todo read(String id, Set<String> attributes, boolean consistentRead) {
+        if (attributes.isEmpty()) {
+            return hedgedReads.read("todo-get", () -> todoTable.getItem(r -> r
+                    .key(k -> k.partitionValue(id))
+                    .consistentRead(consistentRead)));
+        }
+
+        // The enhanced GetItem has no projection support, so go through the low-level client
+        if (archiveEnabled) {
+            // Enough to recognize the pointer to an archived todo
+            attributes = withAttribute(withAttribute(attributes, "archivedAt"), "userId");
+        }
+        Map<String, String> names = new HashMap<>();
+        StringJoiner projection = new StringJoiner(",");
+        for (String attribute : attributes) {
+            names.put("#" + attribute, attribute);
+            projection.add("#" + attribute);
+        }
+        GetItemRequest request = GetItemRequest.builder()
+                .tableName(TABLE_NAME)
+                .key(Map.of("id", AttributeValue.fromS(id)))
+                .projectionExpression(projection.toString())
+                .expressionAttributeNames(names)
+                .consistentRead(consistentRead)
+                .build();
+        GetItemResponse response = hedgedReads.read("todo-get", () -> dynamoDbClient.getItem(request));
+        return !response.hasItem() || response.item().isEmpty() ? null : todoTable.tableSchema().mapToItem(response.item());
+    }
+
+    private static Set<String> withAttribute(Set<String> attributes, String attribute) {
+        Set<String> with = new HashSet<>(attributes);
+        with.add(attribute);
+        return with;
+    }
+
+    /**
+     * Resolves a read from {@code todos} to the archived todo when the item found there is the
+     * pointer left behind by archiving, or when nothing is found because TTL removed the pointer.
+     * A known {@code owner} is read by key, strongly consistently; otherwise the owner is looked
+     * up through the archive's id index.
+     */
+    private Optional<Todo> followArchive(String owner, String id, Todo hot) {
+        if (hot != null && hot.getArchivedAt() == null) {
+            return Optional.of(hot);
+        }
+        String userId = hot != null ? hot.getUserId() : owner != null ? owner : findArchivedOwner(id);
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(archiveTable.getItem(r -> r
+                .key(k -> k.partitionValue(userId).sortValue(id))
+                .consistentRead(owner != null)));
+    }
+
+    private String findArchivedOwner(String id) {
+        return archiveTable.index(ARCHIVE_ID_INDEX)
+                .query(r -> r.queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(id))).limit(1))
+                .stream()
+                .flatMap(page -> page.items().stream())
+                .map(Todo::getUserId)
+                .findFirst()
+                .orElse(null);
+    }
+
+    @Override
+    public ParallelScanner.Result scanAll(String checkpointId, Consumer<Todo> consumer) {
+        return scanner.scan(ScanJob.of(TABLE_NAME).resumable(checkpointId), todoTable.tableSchema(), consumer);
+    }
+
+    @Override
+    public List<Todo> findAllById(Collection<String> ids) {
+        List<String> keys = new ArrayList<>(ids);
         List<Todo> todos = new ArrayList<>();
-        todoTable.scan().items().forEach(todos::add);
+        for (int i = 0; i < keys.size(); i += MAX_BATCH_GET_SIZE) {
+            ReadBatch.Builder<Todo> batch = ReadBatch.builder(Todo.class).mappedTableResource(todoTable);
+            keys.subList(i, Math.min(i + MAX_BATCH_GET_SIZE, keys.size()))
+                    .forEach(id -> batch.addGetItem(Key.builder().partitionValue(id).build()));
+            // The result pages re-request unprocessed keys on their own
+            enhancedClient.batchGetItem(r -> r.addReadBatch(batch.build()))
+                    .resultsForTable(todoTable)
+                    .forEach(todos::add);
+        }
         return todos;
     }
 
+    @Override
+    public List<Todo> findAllById(String userId, Collection<String> ids) {
+        List<Todo> todos = findAllById(ids);
+        todos.removeIf(todo -> !userId.equals(todo.getUserId()));
+        if (!archiveEnabled) {
+            return todos;
+        }
+
+        // Pointers left by archiving, and ids whose pointer TTL already removed, are read from the archive
+        Set<String> archived = new HashSet<>(ids);
+        todos.removeIf(todo -> todo.getArchivedAt() != null);
+        todos.forEach(todo -> archived.remove(todo.getId()));
+        List<String> keys = new ArrayList<>(archived);
+        for (int i = 0; i < keys.size(); i += MAX_BATCH_GET_SIZE) {
+            ReadBatch.Builder<ArchivedTodo> batch = ReadBatch.builder(ArchivedTodo.class).mappedTableResource(archiveTable);
+            keys.subList(i, Math.min(i + MAX_BATCH_GET_SIZE, keys.size()))
+                    .forEach(id -> batch.addGetItem(Key.builder().partitionValue(userId).sortValue(id).build()));
+            enhancedClient.batchGetItem(r -> r.addReadBatch(batch.build()))
+                    .resultsForTable(archiveTable)
+                    .forEach(todos::add);
+        }
+        return todos;
+    }
+
+    @Override
+    public Stream<Todo> query(String userId, TodoQuery query) {
+        boolean byStatus = query.getStatus() != null;
+        boolean byDueDate = query.getSortField() == TodoQuery.SortField.DUE_DATE;
+        int shardCount = shards.readShards(userId);
+        // Only completed todos are archived
+        boolean archived = query.isIncludeArchived() && archiveEnabled
+                && (!byStatus || "COMPLETED".equals(query.getStatus()));
+
+        Set<String> fields = query.getFields();
+        if (!fields.isEmpty() && (shardCount > 1 || archived || query.hasCreatedRange())) {
+            // The merge compares sort keys and the createdAt range is trimmed exactly,
+            // so they are projected even when not asked for
+            fields = new HashSet<>(fields);
+            fields.add(byDueDate ? "dueDate" : "createdAt");
+        }
+
+        List<Iterator<List<Todo>>> pages = new ArrayList<>(shardCount + 1);
+        if (shards.isEnabled()) {
+            String indexName = byStatus
+                    ? (byDueDate ? USER_STATUS_SHARD_DUE_DATE_INDEX : USER_STATUS_SHARD_CREATED_AT_INDEX)
+                    : (byDueDate ? USER_SHARD_DUE_DATE_INDEX : USER_SHARD_CREATED_AT_INDEX);
+            String partitionPrefix = byStatus ? userId + "#" + query.getStatus() + "#" : userId + "#";
+            for (int shard = 0; shard < shardCount; shard++) {
+                pages.add(pageItems(todoTable.index(indexName), partitionPrefix + shard, query, fields));
+            }
+        } else {
+            String indexName = byStatus
+                    ? (byDueDate ? USER_STATUS_DUE_DATE_INDEX : USER_STATUS_CREATED_AT_INDEX)
+                    : (byDueDate ? USER_DUE_DATE_INDEX : USER_CREATED_AT_INDEX);
+            String partitionValue = byStatus ? userId + "#" + query.getStatus() : userId;
+            pages.add(pageItems(todoTable.index(indexName), partitionValue, query, fields));
+        }
+        if (archived) {
+            pages.add(pageItems(archiveTable.index(byDueDate ? ARCHIVE_DUE_DATE_INDEX : ARCHIVE_CREATED_AT_INDEX),
+                    userId, query, fields));
+        }
+
+        // Pages are fetched lazily as the stream is consumed; with several partitions they are
+        // read in parallel and merged on the index sort key
+        return ShardMerge.merge(pages,
+                        byDueDate ? Todo::getDueSortKey : todo -> todo.getCreatedAt().toString(),
+                        query.isDescending(), shards.readExecutor())
+                .filter(query::matches);
+    }
+
+    private static <T extends Todo> Iterator<List<Todo>> pageItems(DynamoDbIndex<T> index, String partitionValue,
+                                                                  TodoQuery query, Set<String> fields) {
+        return pageItems(index.query(r -> {
+            r.queryConditional(keyCondition(partitionValue, query.getRangeFrom(), query.getRangeTo()));
+            r.scanIndexForward(!query.isDescending());
+            if (!fields.isEmpty()) {
+                r.attributesToProject(fields);
+            }
+        }));
+    }
+
+    private static <T extends Todo> Iterator<List<Todo>> pageItems(SdkIterable<Page<T>> pages) {
+        Iterator<Page<T>> iterator = pages.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public List<Todo> next() {
+                return Collections.unmodifiableList(iterator.next().items());
+            }
+        };
+    }
+
+    private static QueryConditional keyCondition(String partitionValue, String from, String to) {
+        if (from != null && to != null) {
+            return QueryConditional.sortBetween(
+                    Key.builder().partitionValue(partitionValue).sortValue(from).build(),
+                    Key.builder().partitionValue(partitionValue).sortValue(to).build());
+        }
+        if (from != null) {
+            return QueryConditional.sortGreaterThanOrEqualTo(k -> k.partitionValue(partitionValue).sortValue(from));
+        }
+        if (to != null) {
+            return QueryConditional.sortLessThanOrEqualTo(k -> k.partitionValue(partitionValue).sortValue(to));
+        }
+        return QueryConditional.keyEqualTo(k -> k.partitionValue(partitionValue));
+    }
+
+    @Override
+    public Stream<Todo> findUpdatedSince(String userId, Instant since) {
+        Stream<Todo> updated;
+        if (shards.isEnabled()) {
+            int shardCount = shards.readShards(userId);
+            List<Iterator<List<Todo>>> pages = new ArrayList<>(shardCount);
+            for (int shard = 0; shard < shardCount; shard++) {
+                String partitionValue = userId + "#" + shard;
+                pages.add(pageItems(todoTable.index(USER_SHARD_UPDATED_AT_INDEX)
+                        .query(r -> r.queryConditional(QueryConditional.sortGreaterThanOrEqualTo(
+                                k -> k.partitionValue(partitionValue).sortValue(lowerBoundKey(since)))))));
+            }
+            updated = ShardMerge.merge(pages, todo -> todo.getUpdatedAt().toString(), false, shards.readExecutor());
+        } else {
+            updated = todoTable.index(USER_UPDATED_AT_INDEX)
+                    .query(r -> r.queryConditional(QueryConditional.sortGreaterThanOrEqualTo(
+                            k -> k.partitionValue(userId).sortValue(lowerBoundKey(since)))))
+                    .stream()
+                    .flatMap(page -> page.items().stream());
+        }
+        return updated.filter(todo -> !todo.getUpdatedAt().isBefore(since));
+    }
+
+    @Override
+    public List<TodoTombstone> findTombstonesSince(String userId, Instant since) {
+        List<TodoTombstone> tombstones = new ArrayList<>();
+        tombstoneTable.query(r -> r.queryConditional(QueryConditional.sortGreaterThanOrEqualTo(
+                        k -> k.partitionValue(userId).sortValue(lowerBoundKey(since)))))
+                .items()
+                .forEach(tombstone -> {
+                    if (!tombstone.getDeletedAt().isBefore(since)) {
+                        tombstones.add(tombstone);
+                    }
+                });
+        return tombstones;
+    }
+
+    /**
+     * Instant.toString() drops trailing zeros, so "12:00:05.1Z" sorts before "12:00:05Z".
+     * Starting one whole second early yields a superset of the matches; callers trim it exactly.
+     */
+    private static String lowerBoundKey(Instant since) {
+        return since.truncatedTo(ChronoUnit.SECONDS).minusSeconds(1).toString();
+    }
+
     @Override
     public void deleteById(String id) {
         todoTable.deleteItem(r -> r.key(k -> k.partitionValue(id)));
     }
-}
\ No newline at end of file
+
+    @Override
+    public void deleteAllById(String userId, List<String> ids) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            keys.add(Map.of("id", AttributeValue.fromS(id)));
+        }
+        BatchWrites.deleteAll(dynamoDbClient, TABLE_NAME, keys);
+        if (archiveEnabled) {
+            List<Map<String, AttributeValue>> archiveKeys = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                archiveKeys.add(archiveKey(userId, id));
+            }
+            BatchWrites.deleteAll(dynamoDbClient, ARCHIVE_TABLE_NAME, archiveKeys);
+        }
+    }
+
+    @Override
+    public void deleteWithTombstone(Todo todo, TodoTombstone tombstone) {
+        Map<String, String> names = Map.of("#id", "id", "#v", "version");
+        Map<String, AttributeValue> values = todo.getVersion() == null
+                ? null
+                : Map.of(":v", AttributeValue.fromN(todo.getVersion().toString()));
+        String unchanged = "attribute_exists(#id) AND " + (todo.getVersion() == null ? "attribute_not_exists(#v)" : "#v = :v");
+        // Only the copy holding the todo is checked; the other one may be missing, which is a no-op
+        boolean archived = todo.getArchivedAt() != null;
+
+        List<TransactWriteItem> writes = new ArrayList<>(4);
+        Delete.Builder hot = Delete.builder()
+                .tableName(TABLE_NAME)
+                .key(Map.of("id", AttributeValue.fromS(todo.getId())));
+        if (!archived) {
+            hot.conditionExpression(unchanged).expressionAttributeNames(names).expressionAttributeValues(values);
+        }
+        writes.add(TransactWriteItem.builder().delete(hot.build()).build());
+        writes.add(TransactWriteItem.builder().put(Put.builder()
+                .tableName(TOMBSTONE_TABLE_NAME)
+                .item(tombstoneTable.tableSchema().itemToMap(tombstone, true))
+                .build()).build());
+        if (archiveEnabled) {
+            Delete.Builder cold = Delete.builder()
+                    .tableName(ARCHIVE_TABLE_NAME)
+                    .key(archiveKey(todo.getUserId(), todo.getId()));
+            if (archived) {
+                cold.conditionExpression(unchanged).expressionAttributeNames(names).expressionAttributeValues(values);
+            }
+            writes.add(TransactWriteItem.builder().delete(cold.build()).build());
+        }
+        writes.add(counters.add(todo.getUserId(), TodoCounts.of(todo).negated()));
+        TodoTransactions.write(dynamoDbClient, writes);
+    }
+
+    @Override
+    public TodoCounts findCounts(String userId) {
+        return counters.read(userId);
+    }
+
+    @Override
+    public boolean resetCounts(String userId, TodoCounts counts, long expectedRevision) {
+        return counters.reset(userId, counts, expectedRevision);
+    }
+
+    @Override
+    public void deleteCounts(String userId) {
+        counters.delete(userId);
+    }
+}
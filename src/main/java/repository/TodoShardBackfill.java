@@ -0,0 +1,86 @@
+package repository;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Puts todos written before sharding into shard 0 of their owner, so the sharded indexes
+ * hold every todo before reads are switched to them. Only items without a {@code shard} are
+ * touched, and the update leaves {@code version} alone, so clients' ETags stay valid.
+ * <p>
+ * The update is conditional on the status the scan saw: a todo whose status changed in the
+ * meantime was rewritten by the application, which assigned its shard already.
+ */
+@Component
+@ConditionalOnExpression("${dynamodb.enabled:true} and '${dynamodb.layout:multi-table}' == 'multi-table'")
+public class TodoShardBackfill {
+
+    private static final Logger logger = LogManager.getLogger(TodoShardBackfill.class);
+
+    private final DynamoDbClient dynamoDbClient;
+    private final ParallelScanner scanner;
+
+    public TodoShardBackfill(DynamoDbClient dynamoDbClient, ParallelScanner scanner) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.scanner = scanner;
+    }
+
+    /**
+     * @param runId checkpoints are kept per run, so an interrupted run with the same id resumes
+     * @return the number of todos that were given a shard
+     */
+    public long backfill(int segments, String runId) {
+        AtomicLong updated = new AtomicLong();
+        ScanJob job = ScanJob.of(TodoRepositoryImpl.TABLE_NAME)
+                .segments(segments)
+                .resumable("todo-shard-backfill/" + runId)
+                .customize(scan -> scan
+                        .filterExpression("attribute_not_exists(#shard)")
+                        .projectionExpression("#id, #userId, #status")
+                        .expressionAttributeNames(Map.of("#shard", "shard", "#id", "id",
+                                "#userId", "userId", "#status", "status")));
+        ParallelScanner.Result result = scanner.scan(job, item -> {
+            if (assignShardZero(item)) {
+                updated.incrementAndGet();
+            }
+        });
+        logger.info("Todo shard backfill {} finished: {} todos assigned to shard 0 ({})", runId, updated.get(), result);
+        return updated.get();
+    }
+
+    private boolean assignShardZero(Map<String, AttributeValue> item) {
+        AttributeValue userId = item.get("userId");
+        AttributeValue status = item.get("status");
+        if (userId == null || status == null) {
+            return false;
+        }
+        try {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(TodoRepositoryImpl.TABLE_NAME)
+                    .key(Map.of("id", item.get("id")))
+                    .updateExpression("SET #shard = :zero, #userShard = :userShard, #userStatusShard = :userStatusShard")
+                    .conditionExpression("attribute_not_exists(#shard) AND #status = :status")
+                    .expressionAttributeNames(Map.of("#shard", "shard", "#userShard", "userShard",
+                            "#userStatusShard", "userStatusShard", "#status", "status"))
+                    .expressionAttributeValues(Map.of(
+                            ":zero", AttributeValue.fromN("0"),
+                            ":userShard", AttributeValue.fromS(userId.s() + "#0"),
+                            ":userStatusShard", AttributeValue.fromS(userId.s() + "#" + status.s() + "#0"),
+                            ":status", status))
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            // Rewritten or deleted since the scan read it
+            return false;
+        }
+    }
+}
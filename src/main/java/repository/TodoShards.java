@@ -0,0 +1,216 @@
+package repository;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import model.Todo;
+import model.User;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write sharding of the per-user todo indexes ({@code todos.sharding.enabled}). A todo is
+ * written to shard {@code hash(id) mod n} of its owner, where {@code n} is stored on the user
+ * ({@link User#getTodoShards()}, one by default), and its index partition key becomes
+ * {@code <userId>#<shard>}. Listing queries every shard of the user in parallel and merges
+ * the results ({@link ShardMerge}).
+ * <p>
+ * Shard counts can only be raised. Readers always fan out to the new count; new todos keep
+ * using the previous count until twice {@code cache-ttl} has passed, by which time every
+ * instance has dropped its cached copy and reads the new shards too. A todo never moves
+ * once written, so nothing has to be re-sharded.
+ */
+@Component
+@ConditionalOnExpression("${dynamodb.enabled:true} and '${dynamodb.layout:multi-table}' == 'multi-table'")
+public class TodoShards {
+
+    private static final Logger logger = LogManager.getLogger(TodoShards.class);
+    // Cheaper than tracking recency: a full cache is dropped and refills from active users
+    private static final int MAX_CACHED_USERS = 10_000;
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final int maxShards;
+    private final Duration cacheTtl;
+    private final Clock clock;
+    private final ExecutorService readExecutor;
+    private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+
+    public TodoShards(UserRepository userRepository,
+                      @Value("${todos.sharding.enabled:false}") boolean enabled,
+                      @Value("${todos.sharding.max-shards:16}") int maxShards,
+                      @Value("${todos.sharding.cache-ttl:PT1M}") Duration cacheTtl,
+                      @Value("${todos.sharding.reader-threads:32}") int readerThreads) {
+        this(userRepository, enabled, maxShards, cacheTtl, readerThreads, Clock.systemUTC());
+    }
+
+    TodoShards(UserRepository userRepository, boolean enabled, int maxShards, Duration cacheTtl,
+               int readerThreads, Clock clock) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.maxShards = maxShards;
+        this.cacheTtl = cacheTtl;
+        this.clock = clock;
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(readerThreads, readerThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(readerThreads * 4), r -> {
+                    Thread thread = new Thread(r, "todo-shard-reader-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // A saturated pool fetches on the caller's thread: slower, never rejected
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        // Shard pages are fetched with the caller's trace context, so their queries show up in the trace
+        this.readExecutor = ContextExecutorService.wrap(executor, ContextSnapshotFactory.builder().build());
+    }
+
+    /**
+     * A layout that is always a single shard, for wiring without a user table (benchmarks).
+     */
+    public static TodoShards disabled() {
+        return new TodoShards(null, false, 1, Duration.ZERO, 1, Clock.systemUTC());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        readExecutor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    ExecutorService readExecutor() {
+        return readExecutor;
+    }
+
+    /**
+     * The shard a todo is written to. Todos that already have one keep it; with sharding
+     * disabled every todo goes to shard 0, so the sharded indexes are complete whenever they
+     * are switched on.
+     */
+    public int shardFor(Todo todo) {
+        if (todo.getShard() != null) {
+            return todo.getShard();
+        }
+        if (!enabled) {
+            return 0;
+        }
+        return Math.floorMod(todo.getId().hashCode(), layout(todo.getUserId()).writeShards(clock.instant(), cacheTtl.multipliedBy(2)));
+    }
+
+    /**
+     * How many shards to read for the user: every shard a todo may have been written to.
+     */
+    int readShards(String userId) {
+        return enabled ? layout(userId).shards : 1;
+    }
+
+    public Layout layout(String userId) {
+        Instant now = clock.instant();
+        Cached cached = cache.get(userId);
+        if (cached != null && now.isBefore(cached.expiresAt)) {
+            return cached.layout;
+        }
+        Layout layout = userRepository.findByUsername(userId).map(Layout::of).orElse(Layout.SINGLE);
+        if (cache.size() >= MAX_CACHED_USERS) {
+            cache.clear();
+        }
+        cache.put(userId, new Cached(layout, now.plus(cacheTtl)));
+        return layout;
+    }
+
+    /**
+     * Raises the user's shard count. Lowering is not possible, todos already written to the
+     * higher shards would no longer be read.
+     *
+     * @throws IllegalArgumentException if the count is not above the current one or above the maximum
+     * @throws IllegalStateException if the user does not exist
+     */
+    public Layout raise(String userId, int shards) {
+        if (shards > maxShards) {
+            throw new IllegalArgumentException("At most " + maxShards + " shards per user");
+        }
+        User user = userRepository.findByUsername(userId)
+                .orElseThrow(() -> new IllegalStateException("No such user: " + userId));
+        Layout current = Layout.of(user);
+        if (shards <= current.shards) {
+            throw new IllegalArgumentException("Shard counts can only be raised, " + userId + " has " + current.shards);
+        }
+
+        Instant now = clock.instant();
+        // Todos are still written with the count in effect now, until the new one is safe to use
+        user.setPreviousTodoShards(current.writeShards(now, cacheTtl.multipliedBy(2)));
+        user.setTodoShards(shards);
+        user.setTodoShardsRaisedAt(now);
+        userRepository.save(user);
+        cache.remove(userId);
+        logger.info("Raised todo shards of {} from {} to {}", userId, current.shards, shards);
+        return Layout.of(user);
+    }
+
+    /**
+     * A user's shard counts: {@code shards} to read, and the count new todos are written with
+     * (the previous one until the grace period after a raise has passed).
+     */
+    public static final class Layout {
+        static final Layout SINGLE = new Layout(1, 1, null);
+
+        private final int shards;
+        private final int previousShards;
+        private final Instant raisedAt;
+
+        private Layout(int shards, int previousShards, Instant raisedAt) {
+            this.shards = shards;
+            this.previousShards = previousShards;
+            this.raisedAt = raisedAt;
+        }
+
+        static Layout of(User user) {
+            int shards = user.getTodoShards() == null ? 1 : user.getTodoShards();
+            int previous = user.getPreviousTodoShards() == null ? shards : user.getPreviousTodoShards();
+            return new Layout(shards, previous, user.getTodoShardsRaisedAt());
+        }
+
+        int writeShards(Instant now, Duration grace) {
+            return raisedAt == null || !now.isBefore(raisedAt.plus(grace)) ? shards : previousShards;
+        }
+
+        public int getShards() {
+            return shards;
+        }
+
+        public int getPreviousShards() {
+            return previousShards;
+        }
+
+        public Instant getRaisedAt() {
+            return raisedAt;
+        }
+    }
+
+    private static final class Cached {
+        private final Layout layout;
+        private final Instant expiresAt;
+
+        private Cached(Layout layout, Instant expiresAt) {
+            this.layout = layout;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package repository;
+
+import exception.DomainException;
+import exception.ErrorCode;
+import exception.PreconditionFailedException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * TransactWriteItems for todo writes, which carry the owner's counter update. A canceled
+ * transaction is told apart by its cancellation reasons:
+ * <ul>
+ *     <li>{@code ConditionalCheckFailed}: a todo was modified concurrently (only the todo
+ *     writes carry conditions), which is the caller's 412.</li>
+ *     <li>{@code TransactionConflict}: another transaction touched one of the items, usually
+ *     the counter item every write of the user updates. Nothing was written, so the same
+ *     transaction is retried after a short backoff.</li>
+ *     <li>Throttling: retried the same way.</li>
+ * </ul>
+ * Anything else is rethrown as is.
+ */
+final class TodoTransactions {
+
+    static final int MAX_ATTEMPTS = 4;
+
+    private TodoTransactions() {
+    }
+
+    /**
+     * @throws PreconditionFailedException if a todo's condition failed
+     * @throws DomainException             {@link ErrorCode#TODO_CONFLICT} or {@link ErrorCode#SERVER_OVERLOADED}
+     *                                     when conflicts or throttling outlast the retries
+     */
+    static void write(DynamoDbClient dynamoDbClient, List<TransactWriteItem> writes) {
+        TransactWriteItemsRequest request = TransactWriteItemsRequest.builder().transactItems(writes).build();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                dynamoDbClient.transactWriteItems(request);
+                return;
+            } catch (TransactionCanceledException e) {
+                String reason = cause(e);
+                if ("ConditionalCheckFailed".equals(reason)) {
+                    throw new PreconditionFailedException("Todo was modified concurrently, reload and retry");
+                }
+                boolean conflict = "TransactionConflict".equals(reason);
+                if (!conflict && !isThrottling(reason)) {
+                    throw e;
+                }
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw new DomainException(conflict ? ErrorCode.TODO_CONFLICT : ErrorCode.SERVER_OVERLOADED,
+                            "Todo transaction canceled (" + reason + ") " + attempt + " times");
+                }
+                // Jittered, so writers that collided on the counter item do not collide again
+                sleep(ThreadLocalRandom.current().nextLong(10L << attempt, 20L << attempt));
+            }
+        }
+    }
+
+    /**
+     * The reason that decides the outcome: a failed condition over everything else, since
+     * retrying cannot make it pass.
+     */
+    private static String cause(TransactionCanceledException e) {
+        if (!e.hasCancellationReasons()) {
+            return null;
+        }
+        String cause = null;
+        for (CancellationReason reason : e.cancellationReasons()) {
+            String code = reason.code();
+            if ("ConditionalCheckFailed".equals(code)) {
+                return code;
+            }
+            if (code != null && !"None".equals(code) && cause == null) {
+                cause = code;
+            }
+        }
+        return cause;
+    }
+
+    private static boolean isThrottling(String reason) {
+        return "ThrottlingError".equals(reason) || "ProvisionedThroughputExceeded".equals(reason);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a todo transaction", e);
+        }
+    }
+}
@@ -2,10 +2,17 @@ package repository;
 
 import model.User;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface UserRepository {
     void save(User user);
     Optional<User> findById(String id);
     Optional<User> findByUsername(String username);
     void deleteById(String id);
+
+    /**
+     * Streams every username to the consumer through a parallel segmented scan.
+     * For administrative jobs only; the consumer is called from several threads.
+     */
+    ParallelScanner.Result scanUsernames(Consumer<String> consumer);
 }
@@ -2,7 +2,7 @@ package repository;
 
 import model.User;
 import repository.UserRepository;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.stereotype.Repository;
 import software.amazon.awssdk.enhanced.dynamodb.*;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
@@ -23,30 +23,38 @@ import software.amazon.awssdk.services.dynamodb.model.UpdateTableRequest;
 import software.amazon.awssdk.services.dynamodb.waiters.DynamoDbWaiter;
 import javax.annotation.PostConstruct;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import software.amazon.awssdk.core.pagination.sync.SdkIterable;
 import software.amazon.awssdk.enhanced.dynamodb.model.Page;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
 
 @Repository
-@ConditionalOnProperty(name = "dynamodb.enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnExpression("${dynamodb.enabled:true} and '${dynamodb.layout:multi-table}' == 'multi-table'")
 public class UserRepositoryImpl implements UserRepository {
 
+    public static final String TABLE_NAME = "users";
+
     private final DynamoDbTable<User> userTable;
     private final DynamoDbClient dynamoDbClient;
+    private final HedgedReads hedgedReads;
+    private final ParallelScanner scanner;
 
-    public UserRepositoryImpl(DynamoDbClient dynamoDbClient) {
+    public UserRepositoryImpl(DynamoDbClient dynamoDbClient, HedgedReads hedgedReads, ParallelScanner scanner) {
         this.dynamoDbClient = dynamoDbClient;
+        this.hedgedReads = hedgedReads;
+        this.scanner = scanner;
         DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
                 .dynamoDbClient(dynamoDbClient)
                 .build();
 
-        this.userTable = enhancedClient.table("users", TableSchema.fromBean(User.class));
+        this.userTable = enhancedClient.table(TABLE_NAME, TableSchema.fromBean(User.class));
     }
 
     @PostConstruct
     private void createTableAndIndexesIfNotExist() {
-        final String tableName = "users";
+        final String tableName = TABLE_NAME;
         final String gsiName = "username-index";
 
         boolean tableExists = true;
@@ -123,19 +131,35 @@ public class UserRepositoryImpl implements UserRepository {
 
     @Override
     public Optional<User> findByUsername(String username) {
-        // Query the GSI for efficient username lookups
-        SdkIterable<Page<User>> pages = userTable.index("username-index")
-                .query(r -> r.queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(username))));
-        for (Page<User> page : pages) {
-            if (!page.items().isEmpty()) {
-                return Optional.of(page.items().get(0));
+        // Runs on every authenticated request, so it is worth hedging
+        return hedgedReads.read("user-by-username", () -> {
+            // Query the GSI for efficient username lookups
+            SdkIterable<Page<User>> pages = userTable.index("username-index")
+                    .query(r -> r.queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(username))));
+            for (Page<User> page : pages) {
+                if (!page.items().isEmpty()) {
+                    return Optional.of(page.items().get(0));
+                }
             }
-        }
-        return Optional.empty();
+            return Optional.<User>empty();
+        });
     }
 
     @Override
     public void deleteById(String id) {
         userTable.deleteItem(r -> r.key(k -> k.partitionValue(id)));
     }
+
+    @Override
+    public ParallelScanner.Result scanUsernames(Consumer<String> consumer) {
+        ScanJob job = ScanJob.of(TABLE_NAME)
+                .customize(scan -> scan
+                        .projectionExpression("#username")
+                        .expressionAttributeNames(Map.of("#username", "username")));
+        return scanner.scan(job, item -> {
+            if (item.containsKey("username")) {
+                consumer.accept(item.get("username").s());
+            }
+        });
+    }
 }
\ No newline at end of file
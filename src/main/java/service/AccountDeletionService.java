@@ -0,0 +1,400 @@
+package service;
+
+import exception.DomainException;
+import exception.ErrorCode;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import model.AccountPurgeJob;
+import model.Todo;
+import model.TodoQuery;
+import model.User;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import repository.AccountPurgeJobRepository;
+import repository.SearchIndexRepository;
+import repository.TodoRepository;
+import repository.UserRepository;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Account deletion. The profile is deleted right away, so the account stops working
+ * immediately; the user's todos and search postings are purged in the background.
+ * <p>
+ * A purge queries the user's todos by id only and deletes them in BatchWriteItem-sized
+ * batches on a small worker pool, with at most {@code accounts.purge.max-in-flight-batches}
+ * outstanding. Deletes across all purges are capped at {@code accounts.purge.max-deletes-per-second}
+ * so a large account does not starve live traffic. Progress is saved in an
+ * {@link AccountPurgeJob}; since every pass re-queries what is left, a purge interrupted by a
+ * crash simply starts over without redoing finished work.
+ * <p>
+ * Every instance checks for due jobs at startup and every {@code accounts.purge.retry-interval}:
+ * unfinished jobs whose lease has expired, and failed jobs whose backoff has passed. The
+ * backoff starts at {@code accounts.purge.retry-backoff} and doubles with each failure, up to
+ * {@link #MAX_RETRY_BACKOFF}. An instance only runs a job after taking its lease with a
+ * conditional write, and renews the lease with each progress save; if the lease was taken
+ * over in the meantime, it stops. So one job is never purged by several instances at once,
+ * and the delete rate limit holds per job.
+ */
+@Service
+public class AccountDeletionService {
+
+    private static final Logger logger = LogManager.getLogger(AccountDeletionService.class);
+
+    private static final int BATCH_SIZE = 25;
+    private static final int PROGRESS_INTERVAL_BATCHES = 20;
+    // Todos created by requests still in flight when the profile was deleted need another pass
+    private static final int MAX_PASSES = 3;
+    private static final Duration COMPLETED_RETENTION = Duration.ofDays(30);
+    static final Duration MAX_RETRY_BACKOFF = Duration.ofHours(1);
+
+    private final UserRepository userRepository;
+    private final TodoRepository todoRepository;
+    private final SearchIndexRepository searchIndexRepository;
+    private final AccountPurgeJobRepository jobRepository;
+    private final ExecutorService coordinator;
+    private final ExecutorService deleters;
+    private final Bucket throttle;
+    private final int maxInFlightBatches;
+    private final Duration lease;
+    private final Duration retryInterval;
+    private final Duration retryBackoff;
+    // Identifies this instance as a job's lease owner
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+    // Users whose purge is queued or running here, so the periodic check does not queue it twice
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService retries;
+
+    public AccountDeletionService(UserRepository userRepository,
+                                  TodoRepository todoRepository,
+                                  SearchIndexRepository searchIndexRepository,
+                                  AccountPurgeJobRepository jobRepository,
+                                  @Value("${accounts.purge.deleter-threads:2}") int deleterThreads,
+                                  @Value("${accounts.purge.max-in-flight-batches:4}") int maxInFlightBatches,
+                                  @Value("${accounts.purge.max-deletes-per-second:200}") long maxDeletesPerSecond,
+                                  @Value("${accounts.purge.lease:PT5M}") Duration lease,
+                                  @Value("${accounts.purge.retry-interval:PT1M}") Duration retryInterval,
+                                  @Value("${accounts.purge.retry-backoff:PT1M}") Duration retryBackoff) {
+        this.userRepository = userRepository;
+        this.todoRepository = todoRepository;
+        this.searchIndexRepository = searchIndexRepository;
+        this.jobRepository = jobRepository;
+        // One purge at a time; queued purges wait their turn
+        this.coordinator = Executors.newSingleThreadExecutor(r -> daemon(r, "account-purge"));
+        this.deleters = Executors.newFixedThreadPool(deleterThreads, r -> daemon(r, "account-purge-deleter"));
+        this.retries = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "account-purge-retries"));
+        this.throttle = Bucket.builder()
+                .addLimit(Bandwidth.classic(maxDeletesPerSecond, Refill.greedy(maxDeletesPerSecond, Duration.ofSeconds(1))))
+                .build();
+        this.maxInFlightBatches = maxInFlightBatches;
+        this.lease = lease;
+        this.retryInterval = retryInterval;
+        this.retryBackoff = retryBackoff;
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Interrupted purges stay unfinished and resume once their lease expires
+        retries.shutdownNow();
+        coordinator.shutdownNow();
+        deleters.shutdownNow();
+    }
+
+    /**
+     * Deletes the account and schedules the purge of its data. Deleting an account whose
+     * purge is still running returns that purge.
+     */
+    public AccountPurgeJob deleteAccount(String username) {
+        Optional<AccountPurgeJob> existing = jobRepository.findByUserId(username)
+                .filter(job -> job.getStatus() != AccountPurgeJob.Status.COMPLETED);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new DomainException(ErrorCode.USER_NOT_FOUND));
+
+        Instant now = Instant.now();
+        AccountPurgeJob job = new AccountPurgeJob();
+        job.setUserId(username);
+        job.setJobId(UUID.randomUUID().toString());
+        job.setStatus(AccountPurgeJob.Status.PENDING);
+        job.setRequestedAt(now);
+        job.setUpdatedAt(now);
+        job.setOwner(instanceId);
+        job.setLeaseExpiresAt(now.plus(lease).toEpochMilli());
+        // Record the job first: if we crash right after deleting the profile, the purge still happens
+        jobRepository.save(job);
+        userRepository.deleteById(user.getId());
+
+        logger.info("Account {} deleted, purge {} scheduled", username, job.getJobId());
+        schedule(job);
+        return job;
+    }
+
+    /**
+     * Whether the username still has data being purged; it cannot be registered again until then.
+     */
+    public boolean isPurging(String username) {
+        return jobRepository.findByUserId(username)
+                .map(job -> job.getStatus() != AccountPurgeJob.Status.COMPLETED)
+                .orElse(false);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startRetries() {
+        retries.scheduleWithFixedDelay(() -> {
+            try {
+                resumeDue();
+            } catch (RuntimeException e) {
+                logger.error("Could not check for account purges to resume: {}", e.getMessage(), e);
+            }
+        }, 0, retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues every unfinished job whose lease has expired, failed ones only once their backoff
+     * has passed. The lease is taken when the job's turn comes.
+     */
+    void resumeDue() {
+        Instant now = Instant.now();
+        for (AccountPurgeJob job : jobRepository.findUnfinished()) {
+            boolean leased = job.getOwner() != null && job.getLeaseExpiresAt() != null
+                    && job.getLeaseExpiresAt() > now.toEpochMilli();
+            boolean backingOff = job.getStatus() == AccountPurgeJob.Status.FAILED
+                    && job.getNextAttemptAt() != null && job.getNextAttemptAt().isAfter(now);
+            if (leased || backingOff || scheduled.contains(job.getUserId())) {
+                continue;
+            }
+            logger.info("Resuming purge {} of account {} ({} todos deleted so far, {} failed attempts)",
+                    job.getJobId(), job.getUserId(), job.getTodosDeleted(), job.getAttempts());
+            schedule(job);
+        }
+    }
+
+    private void schedule(AccountPurgeJob job) {
+        if (!scheduled.add(job.getUserId())) {
+            return;
+        }
+        try {
+            coordinator.execute(() -> {
+                try {
+                    if (acquire(job)) {
+                        purge(job);
+                    }
+                } finally {
+                    scheduled.remove(job.getUserId());
+                }
+            });
+        } catch (RuntimeException e) {
+            scheduled.remove(job.getUserId());
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the job's lease for this instance, just before running it: a job that waited in
+     * the queue may have been taken over or finished by another instance meanwhile.
+     */
+    private boolean acquire(AccountPurgeJob job) {
+        Instant now = Instant.now();
+        String previousOwner = job.getOwner();
+        Long previousLease = job.getLeaseExpiresAt();
+        job.setOwner(instanceId);
+        job.setLeaseExpiresAt(now.plus(lease).toEpochMilli());
+        if (jobRepository.acquire(job, now.toEpochMilli())) {
+            return true;
+        }
+        job.setOwner(previousOwner);
+        job.setLeaseExpiresAt(previousLease);
+        logger.info("Purge {} of account {} is run by another instance", job.getJobId(), job.getUserId());
+        return false;
+    }
+
+    void purge(AccountPurgeJob job) {
+        String username = job.getUserId();
+        AtomicLong deleted = new AtomicLong(job.getTodosDeleted());
+        try {
+            job.setStatus(AccountPurgeJob.Status.RUNNING);
+            job.setError(null);
+            saveProgress(job, deleted);
+            // Covers a crash between recording the job and deleting the profile
+            userRepository.findByUsername(username).ifPresent(user -> userRepository.deleteById(user.getId()));
+
+            for (int pass = 0; pass < MAX_PASSES; pass++) {
+                if (purgePass(job, deleted) == 0) {
+                    break;
+                }
+            }
+            long postings = searchIndexRepository.deleteByUserId(username);
+            todoRepository.deleteCounts(username);
+
+            Instant now = Instant.now();
+            job.setStatus(AccountPurgeJob.Status.COMPLETED);
+            job.setCompletedAt(now);
+            job.setExpiresAt(now.plus(COMPLETED_RETENTION).getEpochSecond());
+            job.setNextAttemptAt(null);
+            release(job, deleted);
+            logger.info("Purge {} of account {} completed: {} todos, {} search postings",
+                    job.getJobId(), username, deleted.get(), postings);
+        } catch (LeaseLostException e) {
+            logger.warn("Purge {} of account {} stopped after {} todos: another instance took it over",
+                    job.getJobId(), username, deleted.get());
+        } catch (RuntimeException e) {
+            job.setStatus(AccountPurgeJob.Status.FAILED);
+            job.setError(e.getMessage());
+            job.setAttempts(job.getAttempts() + 1);
+            Duration backoff = backoff(job.getAttempts());
+            job.setNextAttemptAt(Instant.now().plus(backoff));
+            logger.error("Purge {} of account {} failed after {} todos (attempt {}), retrying in {}: {}",
+                    job.getJobId(), username, deleted.get(), job.getAttempts(), backoff, e.getMessage(), e);
+            try {
+                release(job, deleted);
+            } catch (RuntimeException saveFailure) {
+                // Still leased here: the job is resumed once the lease expires
+                logger.warn("Could not record the failure of purge {}: {}", job.getJobId(), saveFailure.getMessage());
+            }
+        }
+    }
+
+    /**
+     * {@code retry-backoff} doubled for every failure before this one, capped at {@link #MAX_RETRY_BACKOFF}.
+     */
+    Duration backoff(int attempts) {
+        Duration backoff = retryBackoff;
+        for (int i = 1; i < attempts && backoff.compareTo(MAX_RETRY_BACKOFF) < 0; i++) {
+            backoff = backoff.multipliedBy(2);
+        }
+        return backoff.compareTo(MAX_RETRY_BACKOFF) < 0 ? backoff : MAX_RETRY_BACKOFF;
+    }
+
+    /**
+     * Deletes every todo the user has right now.
+     *
+     * @return the number of todos deleted in this pass
+     */
+    private long purgePass(AccountPurgeJob job, AtomicLong deleted) {
+        String username = job.getUserId();
+        Semaphore inFlight = new Semaphore(maxInFlightBatches);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        long before = deleted.get();
+        int batches = 0;
+
+        // Deleting behind a paginated query is safe: pages continue from the last key, not an offset
+        try (Stream<Todo> todos = todoRepository.query(username, TodoQuery.all(Set.of("id")).includingArchived())) {
+            Iterator<Todo> iterator = todos.iterator();
+            List<String> batch = new ArrayList<>(BATCH_SIZE);
+            while (iterator.hasNext() && failure.get() == null) {
+                batch.add(iterator.next().getId());
+                if (batch.size() == BATCH_SIZE || !iterator.hasNext()) {
+                    submit(username, batch, inFlight, deleted, failure);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                    if (++batches % PROGRESS_INTERVAL_BATCHES == 0) {
+                        saveProgress(job, deleted);
+                    }
+                }
+            }
+        } finally {
+            // Wait for every outstanding batch before the next pass
+            inFlight.acquireUninterruptibly(maxInFlightBatches);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        saveProgress(job, deleted);
+        return deleted.get() - before;
+    }
+
+    private void submit(String username, List<String> ids, Semaphore inFlight, AtomicLong deleted,
+                        AtomicReference<RuntimeException> failure) {
+        try {
+            throttle.asBlocking().consume(ids.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while purging account " + username, e);
+        }
+        // Blocks the query while the deleters are saturated
+        inFlight.acquireUninterruptibly();
+        try {
+            deleters.execute(() -> {
+                try {
+                    todoRepository.deleteAllById(username, ids);
+                    deleted.addAndGet(ids.size());
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Saves progress and renews the lease.
+     *
+     * @throws LeaseLostException if another instance has taken the job over
+     */
+    private void saveProgress(AccountPurgeJob job, AtomicLong deleted) {
+        Instant now = Instant.now();
+        job.setTodosDeleted(deleted.get());
+        job.setUpdatedAt(now);
+        job.setLeaseExpiresAt(now.plus(lease).toEpochMilli());
+        if (!jobRepository.save(job, instanceId)) {
+            throw new LeaseLostException();
+        }
+    }
+
+    /**
+     * Saves the final state and gives up the lease, so a failed job can be retried anywhere.
+     */
+    private void release(AccountPurgeJob job, AtomicLong deleted) {
+        job.setTodosDeleted(deleted.get());
+        job.setUpdatedAt(Instant.now());
+        job.setOwner(null);
+        job.setLeaseExpiresAt(null);
+        if (!jobRepository.save(job, instanceId)) {
+            throw new LeaseLostException();
+        }
+    }
+
+    /**
+     * The job's lease was taken over by another instance; this one must stop touching it.
+     */
+    private static final class LeaseLostException extends RuntimeException {
+        LeaseLostException() {
+            super("Lease taken over by another instance", null, false, false);
+        }
+    }
+}
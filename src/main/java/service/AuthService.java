@@ -1,6 +1,10 @@
 package service;
 
 import com.taskflow.taskflowbackend.auth.JwtService;
+import com.taskflow.taskflowbackend.profiling.PasswordHashEvent;
+import exception.BadRequestException;
+import exception.DomainException;
+import exception.ErrorCode;
 import model.User;
 import repository.UserRepository;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -14,27 +18,33 @@ public class AuthService {
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder bCryptPasswordEncoder = new BCryptPasswordEncoder();
     private final JwtService jwtService;
+    private final AccountDeletionService accountDeletionService;
 
-    public AuthService(UserRepository userRepository, JwtService jwtService) {
+    public AuthService(UserRepository userRepository, JwtService jwtService, AccountDeletionService accountDeletionService) {
         this.userRepository = userRepository;
         this.jwtService = jwtService;
+        this.accountDeletionService = accountDeletionService;
     }
 
     public String register(String username, String password) {
         // Check if user already exists
         if (userRepository.findByUsername(username).isPresent()) {
-            throw new RuntimeException("Username already exists");
+            throw new DomainException(ErrorCode.USERNAME_TAKEN);
+        }
+        // Todos are keyed by username, so a new account would lose its todos to the old account's purge
+        if (accountDeletionService.isPurging(username)) {
+            throw new DomainException(ErrorCode.USERNAME_TAKEN);
         }
         //Check password validity
         if (password.length() < 8 || !password.matches(".*\\d.*") || !password.matches(".*[A-Za-z].*")) {
-            throw new IllegalArgumentException("Password must be at least 8 characters long and contain both letters and numbers.");
+            throw new BadRequestException("Password must be at least 8 characters long and contain both letters and numbers.");
         }
 
         // Create new user
         User user = new User();
         user.setId(UUID.randomUUID().toString());
         user.setUsername(username);
-        user.setPassword(bCryptPasswordEncoder.encode(password));
+        user.setPassword(hashPassword(password));
         user.setRole("USER");
 
         // Save user
@@ -47,11 +57,11 @@ public class AuthService {
     public String login(String username, String password) {
         // Find user
         User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> new DomainException(ErrorCode.INVALID_CREDENTIALS, "User not found"));
 
         // Verify password
-        if (!bCryptPasswordEncoder.matches(password, user.getPassword())) {
-            throw new RuntimeException("Invalid password");
+        if (!passwordMatches(password, user.getPassword())) {
+            throw new DomainException(ErrorCode.INVALID_CREDENTIALS, "Invalid password");
         }
 
         // Generate token
@@ -63,19 +73,41 @@ public class AuthService {
         String username = jwtService.extractUsername(token);
         
         if (username == null) {
-            throw new RuntimeException("Invalid token");
+            throw new DomainException(ErrorCode.INVALID_TOKEN, "Invalid token");
         }
 
         // Verify token is valid
         if (!jwtService.isTokenValid(token, username)) {
-            throw new RuntimeException("Token is invalid or expired");
+            throw new DomainException(ErrorCode.INVALID_TOKEN);
         }
 
         // Verify user still exists in database
         User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+                .orElseThrow(() -> new DomainException(ErrorCode.INVALID_TOKEN, "User not found"));
 
         // Generate new token
         return jwtService.generateToken(username);
     }
+
+    private String hashPassword(String password) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.operation = "encode";
+        event.begin();
+        try {
+            return bCryptPasswordEncoder.encode(password);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private boolean passwordMatches(String password, String hash) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.operation = "matches";
+        event.begin();
+        try {
+            return bCryptPasswordEncoder.matches(password, hash);
+        } finally {
+            event.commit();
+        }
+    }
 }
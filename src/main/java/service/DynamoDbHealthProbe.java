@@ -0,0 +1,59 @@
+package service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import repository.SingleTableSchemas;
+import repository.TodoRepositoryImpl;
+import repository.UserRepositoryImpl;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.TableStatus;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes the tables of the active layout. DescribeTable is a control-plane call that
+ * consumes no read capacity; a table that is missing or not {@code ACTIVE}/{@code UPDATING}
+ * fails the probe.
+ */
+@Component
+@ConditionalOnProperty(name = "dynamodb.enabled", havingValue = "true", matchIfMissing = true)
+public class DynamoDbHealthProbe implements HealthProbe {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final List<String> tables;
+
+    public DynamoDbHealthProbe(DynamoDbClient dynamoDbClient,
+                               @Value("${dynamodb.layout:multi-table}") String layout) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tables = "single-table".equals(layout)
+                ? List.of(SingleTableSchemas.TABLE_NAME)
+                : List.of(UserRepositoryImpl.TABLE_NAME, TodoRepositoryImpl.TABLE_NAME);
+    }
+
+    @Override
+    public String getName() {
+        return "dynamodb";
+    }
+
+    @Override
+    public Map<String, Object> check() {
+        Map<String, Object> statuses = new LinkedHashMap<>();
+        for (String table : tables) {
+            TableStatus status = dynamoDbClient.describeTable(DescribeTableRequest.builder().tableName(table).build())
+                    .table()
+                    .tableStatus();
+            if (status != TableStatus.ACTIVE && status != TableStatus.UPDATING) {
+                throw new IllegalStateException("Table " + table + " is " + status);
+            }
+            statuses.put(table, status.toString());
+        }
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("database", "Amazon DynamoDB");
+        details.put("tables", statuses);
+        return details;
+    }
+}
@@ -0,0 +1,219 @@
+package service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import model.HealthSnapshot;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs every {@link HealthProbe} on a background schedule and keeps the latest result of
+ * each, so health endpoints answer from memory however often load balancers poll them and
+ * whatever state the dependencies are in.
+ * <p>
+ * A result older than {@code stale-after} is reported as {@code UNKNOWN}: the probe is hung
+ * or, on Lambda, the environment was frozen between invocations. Reports carry
+ * {@code checkedAt}, {@code ageMs} and {@code stale} so callers can judge for themselves.
+ * <p>
+ * Metrics, tagged with {@code probe}: timer {@code health.probe.duration} (with
+ * {@code outcome=up|down} and a percentile histogram), gauges {@code health.probe.up}
+ * (1 or 0) and {@code health.probe.age} in seconds.
+ */
+@Service
+public class HealthMonitor {
+
+    private static final Logger logger = LogManager.getLogger(HealthMonitor.class);
+
+    private final List<HealthProbe> probes;
+    private final Duration interval;
+    private final Duration staleAfter;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, HealthSnapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<String, Timer> upTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> downTimers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HealthMonitor(ObjectProvider<HealthProbe> probes, MeterRegistry meterRegistry,
+                         @Value("${health.probes.interval:PT10S}") Duration interval,
+                         @Value("${health.probes.stale-after:PT30S}") Duration staleAfter) {
+        this(probes.orderedStream().collect(Collectors.toList()), meterRegistry, interval, staleAfter, Clock.systemUTC());
+    }
+
+    HealthMonitor(List<HealthProbe> probes, MeterRegistry meterRegistry, Duration interval, Duration staleAfter,
+                  Clock clock) {
+        this.probes = probes;
+        this.interval = interval;
+        this.staleAfter = staleAfter;
+        this.clock = clock;
+        // One thread per probe, so a hanging dependency cannot delay the others
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(Math.max(1, probes.size()), r -> {
+            Thread thread = new Thread(r, "health-probe-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (HealthProbe probe : probes) {
+            String name = probe.getName();
+            snapshots.put(name, HealthSnapshot.pending(name));
+            upTimers.put(name, probeTimer(meterRegistry, name, "up"));
+            downTimers.put(name, probeTimer(meterRegistry, name, "down"));
+            Gauge.builder("health.probe.up", snapshots, s -> s.get(name).getStatus() == HealthSnapshot.Status.UP ? 1 : 0)
+                    .tag("probe", name)
+                    .description("Whether the latest probe of the dependency succeeded")
+                    .register(meterRegistry);
+            Gauge.builder("health.probe.age", snapshots, s -> ageSeconds(s.get(name)))
+                    .tag("probe", name)
+                    .baseUnit("seconds")
+                    .description("Time since the latest probe of the dependency completed")
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Timer probeTimer(MeterRegistry meterRegistry, String probe, String outcome) {
+        return Timer.builder("health.probe.duration")
+                .tag("probe", probe)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .description("Latency of health probes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        long period = interval.toMillis();
+        for (HealthProbe probe : probes) {
+            scheduler.scheduleWithFixedDelay(() -> refresh(probe), 0, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Runs all probes once on the calling thread.
+     */
+    void refreshAll() {
+        probes.forEach(this::refresh);
+    }
+
+    private void refresh(HealthProbe probe) {
+        String name = probe.getName();
+        Instant checkedAt = clock.instant();
+        long start = System.nanoTime();
+        HealthSnapshot snapshot;
+        try {
+            Map<String, Object> details = probe.check();
+            long nanos = System.nanoTime() - start;
+            upTimers.get(name).record(nanos, TimeUnit.NANOSECONDS);
+            snapshot = new HealthSnapshot(name, HealthSnapshot.Status.UP, details, null, checkedAt,
+                    TimeUnit.NANOSECONDS.toMillis(nanos));
+        } catch (Exception e) {
+            long nanos = System.nanoTime() - start;
+            downTimers.get(name).record(nanos, TimeUnit.NANOSECONDS);
+            snapshot = new HealthSnapshot(name, HealthSnapshot.Status.DOWN, null, String.valueOf(e.getMessage()),
+                    checkedAt, TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+        HealthSnapshot previous = snapshots.put(name, snapshot);
+        if (previous != null && previous.getStatus() != snapshot.getStatus()) {
+            if (snapshot.getStatus() == HealthSnapshot.Status.DOWN) {
+                logger.warn("Health probe {} is DOWN: {}", name, snapshot.getError());
+            } else {
+                logger.info("Health probe {} is {}", name, snapshot.getStatus());
+            }
+        }
+    }
+
+    public boolean hasProbes() {
+        return !probes.isEmpty();
+    }
+
+    /**
+     * Status of one probe's latest result, {@code UNKNOWN} while it has none or it is stale.
+     */
+    public HealthSnapshot.Status statusOf(HealthSnapshot snapshot) {
+        return isStale(snapshot) ? HealthSnapshot.Status.UNKNOWN : snapshot.getStatus();
+    }
+
+    /**
+     * {@code DOWN} if any probe is down, {@code UP} if all are up and fresh, {@code UNKNOWN} otherwise
+     * (including when there are no probes).
+     */
+    public HealthSnapshot.Status getOverallStatus() {
+        if (probes.isEmpty()) {
+            return HealthSnapshot.Status.UNKNOWN;
+        }
+        boolean allUp = true;
+        for (HealthSnapshot snapshot : snapshots.values()) {
+            HealthSnapshot.Status status = statusOf(snapshot);
+            if (status == HealthSnapshot.Status.DOWN) {
+                return HealthSnapshot.Status.DOWN;
+            }
+            allUp &= status == HealthSnapshot.Status.UP;
+        }
+        return allUp ? HealthSnapshot.Status.UP : HealthSnapshot.Status.UNKNOWN;
+    }
+
+    /**
+     * Latest result of every probe, by probe name, as shown by the health endpoints.
+     */
+    public Map<String, Object> getReports() {
+        Map<String, Object> reports = new LinkedHashMap<>();
+        for (HealthProbe probe : probes) {
+            reports.put(probe.getName(), report(snapshots.get(probe.getName())));
+        }
+        return reports;
+    }
+
+    private Map<String, Object> report(HealthSnapshot snapshot) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("status", statusOf(snapshot).toString());
+        if (snapshot.getCheckedAt() != null) {
+            report.put("lastStatus", snapshot.getStatus().toString());
+            report.put("checkedAt", snapshot.getCheckedAt().toString());
+            report.put("ageMs", Duration.between(snapshot.getCheckedAt(), clock.instant()).toMillis());
+            report.put("durationMs", snapshot.getDurationMs());
+        }
+        report.put("stale", isStale(snapshot));
+        if (snapshot.getError() != null) {
+            report.put("error", snapshot.getError());
+        }
+        report.putAll(snapshot.getDetails());
+        return report;
+    }
+
+    private boolean isStale(HealthSnapshot snapshot) {
+        return snapshot.getCheckedAt() != null
+                && Duration.between(snapshot.getCheckedAt(), clock.instant()).compareTo(staleAfter) > 0;
+    }
+
+    private double ageSeconds(HealthSnapshot snapshot) {
+        if (snapshot.getCheckedAt() == null) {
+            return Double.NaN;
+        }
+        return Duration.between(snapshot.getCheckedAt(), clock.instant()).toMillis() / 1000.0;
+    }
+}
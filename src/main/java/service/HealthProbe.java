@@ -0,0 +1,20 @@
+package service;
+
+import java.util.Map;
+
+/**
+ * One dependency checked by {@link HealthMonitor}. Probes run on the monitor's schedule,
+ * never on a request thread.
+ */
+public interface HealthProbe {
+
+    String getName();
+
+    /**
+     * Checks the dependency once.
+     *
+     * @return details to show with the result
+     * @throws Exception if the dependency is unavailable
+     */
+    Map<String, Object> check() throws Exception;
+}
@@ -0,0 +1,29 @@
+package service;
+
+import model.TodoEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * Single-instance fan-out that hands events straight back to the local bus.
+ * Suitable for one task and for tests; deployments with several ECS tasks need a
+ * shared backend (e.g. Redis pub/sub or SNS) implementing {@link TodoEventFanout}.
+ */
+@Component
+@ConditionalOnProperty(name = "todos.events.fanout", havingValue = "in-memory", matchIfMissing = true)
+public class InMemoryTodoEventFanout implements TodoEventFanout {
+
+    private volatile Consumer<TodoEvent> receiver = event -> { };
+
+    @Override
+    public void publish(TodoEvent event) {
+        receiver.accept(event);
+    }
+
+    @Override
+    public void setReceiver(Consumer<TodoEvent> receiver) {
+        this.receiver = receiver;
+    }
+}
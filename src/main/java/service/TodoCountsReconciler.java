@@ -0,0 +1,144 @@
+package service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import model.Todo;
+import model.TodoCounts;
+import model.TodoQuery;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+import repository.ParallelScanner;
+import repository.TodoRepository;
+import repository.UserRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Recounts every user's todos every {@code todos.counters.reconcile.interval} and corrects
+ * counters that drifted, e.g. through imports that failed between the batch write and the
+ * counter update, or data written before counters existed. Enable it on one instance.
+ * <p>
+ * A user's counters are only replaced if no write changed them while their todos were
+ * counted, and users with a write in the last {@code quiet-period} are left for the next
+ * run, since the per-user indexes the count reads may not show that write yet.
+ */
+@Service
+@ConditionalOnExpression("${dynamodb.enabled:true} and ${todos.counters.reconcile.enabled:false}")
+public class TodoCountsReconciler {
+
+    private static final Logger logger = LogManager.getLogger(TodoCountsReconciler.class);
+    // Lets the application finish starting, and fixes a fresh deployment's counters soon after
+    private static final Duration INITIAL_DELAY = Duration.ofMinutes(1);
+    private static final Set<String> COUNTED_FIELDS = Set.of("id", "status", "dueDate");
+
+    enum Outcome { UNCHANGED, CORRECTED, BUSY }
+
+    private final UserRepository userRepository;
+    private final TodoRepository todoRepository;
+    private final Duration interval;
+    private final Duration quietPeriod;
+    private final Clock clock;
+    private final Counter corrected;
+    private final ScheduledExecutorService scheduler;
+
+    @Autowired
+    public TodoCountsReconciler(UserRepository userRepository, TodoRepository todoRepository, MeterRegistry meterRegistry,
+                                @Value("${todos.counters.reconcile.interval:PT24H}") Duration interval,
+                                @Value("${todos.counters.reconcile.quiet-period:PT1M}") Duration quietPeriod) {
+        this(userRepository, todoRepository, meterRegistry, interval, quietPeriod, Clock.systemUTC());
+    }
+
+    TodoCountsReconciler(UserRepository userRepository, TodoRepository todoRepository, MeterRegistry meterRegistry,
+                         Duration interval, Duration quietPeriod, Clock clock) {
+        this.userRepository = userRepository;
+        this.todoRepository = todoRepository;
+        this.interval = interval;
+        this.quietPeriod = quietPeriod;
+        this.clock = clock;
+        this.corrected = Counter.builder("todos.counters.corrected")
+                .description("Users whose todo counters had drifted and were recounted")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "todo-counts-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcileAll();
+            } catch (RuntimeException e) {
+                logger.error("Todo counter reconciliation failed: {}", e.getMessage(), e);
+            }
+        }, INITIAL_DELAY.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public void reconcileAll() {
+        AtomicLong users = new AtomicLong();
+        AtomicLong fixed = new AtomicLong();
+        AtomicLong busy = new AtomicLong();
+        ParallelScanner.Result result = userRepository.scanUsernames(username -> {
+            users.incrementAndGet();
+            try {
+                Outcome outcome = reconcile(username);
+                if (outcome == Outcome.CORRECTED) {
+                    fixed.incrementAndGet();
+                } else if (outcome == Outcome.BUSY) {
+                    busy.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                // One user's failure should not stop the others
+                logger.warn("Could not reconcile todo counters of {}: {}", username, e.getMessage());
+            }
+        });
+        logger.info("Reconciled todo counters of {} users: {} corrected, {} left for the next run ({})",
+                users.get(), fixed.get(), busy.get(), result);
+    }
+
+    Outcome reconcile(String username) {
+        TodoCounts stored = todoRepository.findCounts(username);
+        Instant quietSince = clock.instant().minus(quietPeriod);
+        if (stored.getUpdatedAt() != null && stored.getUpdatedAt().isAfter(quietSince)) {
+            return Outcome.BUSY;
+        }
+
+        TodoCounts actual;
+        // A todo being archived can briefly show up in both tables, so count each id once
+        Set<String> seen = new HashSet<>();
+        try (Stream<Todo> todos = todoRepository.query(username, TodoQuery.all(COUNTED_FIELDS).includingArchived())) {
+            actual = TodoCounts.count(todos.filter(todo -> seen.add(todo.getId())).iterator());
+        }
+        if (actual.equals(stored)) {
+            return Outcome.UNCHANGED;
+        }
+        if (!todoRepository.resetCounts(username, actual, stored.getRevision())) {
+            return Outcome.BUSY;
+        }
+        corrected.increment();
+        logger.info("Corrected todo counters of {}: {} -> {}", username, stored, actual);
+        return Outcome.CORRECTED;
+    }
+}
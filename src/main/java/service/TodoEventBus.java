@@ -0,0 +1,161 @@
+package service;
+
+import model.TodoEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+/**
+ * In-process pub/sub for todo events. Publishing goes through the {@link TodoEventFanout}
+ * so every instance sees every event; received events are kept in a small per-user
+ * replay buffer for Last-Event-ID resume and handed to that user's local listeners.
+ * Listeners are called on the delivering thread and must not block.
+ */
+@Service
+public class TodoEventBus {
+
+    private static final Logger logger = LogManager.getLogger(TodoEventBus.class);
+
+    private final TodoEventFanout fanout;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final int replaySize;
+
+    public TodoEventBus(TodoEventFanout fanout, @Value("${todos.stream.replay-size:100}") int replaySize) {
+        this.fanout = fanout;
+        this.replaySize = replaySize;
+        fanout.setReceiver(this::deliver);
+    }
+
+    public void publish(TodoEvent event) {
+        try {
+            fanout.publish(event);
+        } catch (RuntimeException e) {
+            // Push is best effort; the write already succeeded and clients can still re-sync
+            logger.warn("Failed to publish {} event for todo {}: {}", event.getType(), event.getTodoId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Registers a listener for the user's events. When {@code lastEventId} is given, the
+     * buffered events after it are replayed first, or a RESYNC event when it is no longer
+     * buffered. Replay and registration happen atomically, so no event is missed or repeated.
+     */
+    public void subscribe(String userId, String lastEventId, Consumer<TodoEvent> listener) {
+        while (true) {
+            Channel channel = channels.computeIfAbsent(userId, u -> new Channel());
+            synchronized (channel) {
+                if (channel.evicted) {
+                    // Lost a race with evictIdle; the next computeIfAbsent creates a fresh channel
+                    continue;
+                }
+                register(channel, userId, lastEventId, listener);
+                return;
+            }
+        }
+    }
+
+    private static void register(Channel channel, String userId, String lastEventId, Consumer<TodoEvent> listener) {
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            List<TodoEvent> missed = channel.eventsAfter(lastEventId);
+            if (missed == null) {
+                listener.accept(TodoEvent.resync(userId));
+            } else {
+                missed.forEach(listener);
+            }
+        }
+        channel.listeners.add(listener);
+        channel.touch();
+    }
+
+    public void unsubscribe(String userId, Consumer<TodoEvent> listener) {
+        Channel channel = channels.get(userId);
+        if (channel != null) {
+            synchronized (channel) {
+                channel.listeners.remove(listener);
+                channel.touch();
+            }
+        }
+    }
+
+    /**
+     * Drops replay buffers of users without listeners that have been idle for longer
+     * than {@code idle}, so memory only grows with recently connected users.
+     */
+    public void evictIdle(Duration idle) {
+        long cutoff = System.nanoTime() - idle.toNanos();
+        channels.entrySet().removeIf(entry -> {
+            Channel channel = entry.getValue();
+            synchronized (channel) {
+                channel.evicted = channel.listeners.isEmpty() && channel.lastActive - cutoff < 0;
+                return channel.evicted;
+            }
+        });
+    }
+
+    void deliver(TodoEvent event) {
+        Channel channel = channels.get(event.getUserId());
+        if (channel == null) {
+            // Nobody on this instance is or was recently connected for this user
+            return;
+        }
+        synchronized (channel) {
+            channel.append(event, replaySize);
+            for (Consumer<TodoEvent> listener : channel.listeners) {
+                try {
+                    listener.accept(event);
+                } catch (RuntimeException e) {
+                    logger.warn("Todo event listener failed: {}", e.getMessage());
+                }
+            }
+            channel.touch();
+        }
+    }
+
+    private static final class Channel {
+        private final ArrayDeque<TodoEvent> recent = new ArrayDeque<>();
+        private final Set<Consumer<TodoEvent>> listeners = new CopyOnWriteArraySet<>();
+        private long lastActive = System.nanoTime();
+        private boolean evicted;
+
+        void append(TodoEvent event, int capacity) {
+            if (recent.size() == capacity) {
+                recent.removeFirst();
+            }
+            recent.addLast(event);
+        }
+
+        /**
+         * @return the events after the given id, or null when the id is not buffered
+         */
+        List<TodoEvent> eventsAfter(String eventId) {
+            List<TodoEvent> after = new ArrayList<>();
+            Iterator<TodoEvent> it = recent.descendingIterator();
+            while (it.hasNext()) {
+                TodoEvent event = it.next();
+                if (eventId.equals(event.getId())) {
+                    Collections.reverse(after);
+                    return after;
+                }
+                after.add(event);
+            }
+            return null;
+        }
+
+        void touch() {
+            lastActive = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package service;
+
+import model.TodoEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries todo events between application instances. Every event published on
+ * any instance must be delivered to the receivers of all instances, including
+ * the publishing one. Implementations are selected with {@code todos.events.fanout}.
+ */
+public interface TodoEventFanout {
+
+    void publish(TodoEvent event);
+
+    /**
+     * Registers the local receiver; called once by {@link TodoEventBus} at startup.
+     */
+    void setReceiver(Consumer<TodoEvent> receiver);
+}
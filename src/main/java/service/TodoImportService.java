@@ -0,0 +1,208 @@
+package service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import exception.BadRequestException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import model.Todo;
+import model.TodoImportResult;
+import model.TodoQuery;
+import model.TodoRequest;
+import model.TodoResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import repository.TodoRepository;
+import util.Ulid;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk NDJSON import. Records are parsed one at a time and grouped into
+ * BatchWriteItem-sized batches that are written on a small worker pool. At most
+ * {@code todos.import.max-in-flight-batches} batches are outstanding per import;
+ * beyond that the parser blocks, so memory stays constant however large the upload.
+ */
+@Service
+public class TodoImportService {
+
+    private static final Logger logger = LogManager.getLogger(TodoImportService.class);
+
+    private static final int BATCH_SIZE = 25;
+    private static final int MAX_REPORTED_ERRORS = 20;
+
+    private final TodoRepository todoRepository;
+    private final TodoSearchService todoSearchService;
+    private final ObjectReader recordReader;
+    private final Validator validator;
+    private final ExecutorService writers;
+    private final int maxInFlightBatches;
+
+    public TodoImportService(TodoRepository todoRepository,
+                             TodoSearchService todoSearchService,
+                             ObjectMapper objectMapper,
+                             Validator validator,
+                             @Value("${todos.import.writer-threads:4}") int writerThreads,
+                             @Value("${todos.import.max-in-flight-batches:8}") int maxInFlightBatches) {
+        this.todoRepository = todoRepository;
+        this.todoSearchService = todoSearchService;
+        this.recordReader = objectMapper.readerFor(TodoResponse.class);
+        this.validator = validator;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread thread = new Thread(r, "todo-import-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writers.shutdown();
+    }
+
+    /**
+     * Imports NDJSON records into the current user's list. Records get fresh ids so an
+     * import can never overwrite another user's todo; status, creation time and due date
+     * are kept. Invalid records are skipped and reported, malformed JSON aborts the import.
+     */
+    public TodoImportResult importTodos(InputStream ndjson) throws IOException {
+        String userId = SecurityContextHolder.getContext().getAuthentication().getName();
+        Semaphore inFlight = new Semaphore(maxInFlightBatches);
+        AtomicLong imported = new AtomicLong();
+        AtomicReference<RuntimeException> writeFailure = new AtomicReference<>();
+        List<String> errors = new ArrayList<>();
+        long skipped = 0;
+        long record = 0;
+
+        try (MappingIterator<TodoResponse> records = recordReader.readValues(ndjson)) {
+            List<Todo> batch = new ArrayList<>(BATCH_SIZE);
+            while (writeFailure.get() == null) {
+                TodoResponse next;
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    next = records.nextValue();
+                } catch (JsonProcessingException e) {
+                    // The parser cannot resynchronise after a syntax error, so stop here
+                    // Only the position: the parser's message quotes the input and its own internals
+                    throw new BadRequestException("Malformed JSON in record " + (record + 1)
+                            + (e.getLocation() == null ? "" : " at line " + e.getLocation().getLineNr()
+                            + ", column " + e.getLocation().getColumnNr()));
+                }
+                record++;
+
+                String invalid = validate(next);
+                if (invalid != null) {
+                    skipped++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("Record " + record + ": " + invalid);
+                    }
+                    continue;
+                }
+
+                batch.add(toTodo(next, userId));
+                if (batch.size() == BATCH_SIZE) {
+                    submit(batch, inFlight, imported, writeFailure);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty() && writeFailure.get() == null) {
+                submit(batch, inFlight, imported, writeFailure);
+            }
+        } finally {
+            // Wait for every outstanding batch before reporting
+            inFlight.acquireUninterruptibly(maxInFlightBatches);
+        }
+
+        if (writeFailure.get() != null) {
+            throw new IllegalStateException("Import aborted after " + imported.get() + " todos", writeFailure.get());
+        }
+        logger.info("Imported {} todos for {} ({} skipped)", imported.get(), userId, skipped);
+        return new TodoImportResult(imported.get(), skipped, errors);
+    }
+
+    private void submit(List<Todo> batch, Semaphore inFlight, AtomicLong imported,
+                        AtomicReference<RuntimeException> writeFailure) {
+        // Blocks the parser while the writers are saturated
+        inFlight.acquireUninterruptibly();
+        try {
+            writers.execute(() -> {
+                try {
+                    todoRepository.saveAll(batch);
+                    todoSearchService.indexTodos(batch);
+                    imported.addAndGet(batch.size());
+                } catch (RuntimeException e) {
+                    writeFailure.compareAndSet(null, e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks a record against the constraints of {@link TodoRequest}, the body of a single
+     * create, plus the status, which only imports can set.
+     */
+    private String validate(TodoResponse record) {
+        if (record == null) {
+            return "empty record";
+        }
+        TodoRequest request = new TodoRequest();
+        request.setTitle(record.getTitle());
+        request.setDescription(record.getDescription());
+        request.setDueDate(record.getDueDate());
+        Set<ConstraintViolation<TodoRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (record.getStatus() != null && !TodoQuery.STATUSES.contains(record.getStatus())) {
+            return "unknown status '" + record.getStatus() + "'";
+        }
+        return null;
+    }
+
+    private static Todo toTodo(TodoResponse record, String userId) {
+        Instant now = Instant.now();
+        Todo todo = new Todo();
+        todo.setId(Ulid.generate());
+        todo.setUserId(userId);
+        todo.setTitle(record.getTitle());
+        todo.setDescription(record.getDescription());
+        todo.setStatus(record.getStatus() != null ? record.getStatus() : "PENDING");
+        todo.setDueDate(record.getDueDate());
+        todo.setCreatedAt(record.getCreatedAt() != null ? record.getCreatedAt() : now);
+        // Imported todos are changes as far as delta sync is concerned
+        todo.setUpdatedAt(now);
+        // Batch puts bypass the versioning extension, so start the version explicitly
+        todo.setVersion(1L);
+        return todo;
+    }
+}
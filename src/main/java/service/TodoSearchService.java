@@ -0,0 +1,395 @@
+package service;
+
+import model.SearchPosting;
+import model.Todo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import repository.ParallelScanner;
+import repository.SearchIndexRepository;
+import repository.TodoRepository;
+import util.SearchTokenizer;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains a per-user inverted index over todo titles and descriptions and answers
+ * ranked search-as-you-type queries from it. Index updates are incremental: only
+ * postings for terms that were added or removed by an edit are written.
+ * <p>
+ * A failed update does not fail the todo write. The todo is queued instead, and a
+ * background task rebuilds its postings from the stored todo every
+ * {@code search.repair-interval}. Todos written before the index existed, or whose repair
+ * was lost with a restart, are indexed by {@link #reindexAll(String)}.
+ */
+@Service
+public class TodoSearchService {
+
+    private static final Logger logger = LogManager.getLogger(TodoSearchService.class);
+
+    static final int MAX_RESULTS = 100;
+    // Postings read up front per query word; longer lists are only read as far as the other words require
+    static final int MAX_POSTINGS_PER_TERM = 1000;
+    // Most postings a prefix list is read to; todos beyond it are left out of the results
+    static final int MAX_POSTINGS_PER_PREFIX = 10 * MAX_POSTINGS_PER_TERM;
+    // Failed index updates kept for repair; past it, only the backfill catches up
+    static final int MAX_PENDING_REPAIRS = 10_000;
+    private static final double EXACT_MATCH_BOOST = 1.5;
+
+    private final SearchIndexRepository searchIndexRepository;
+    private final TodoRepository todoRepository;
+    private final Duration repairInterval;
+    // Todos whose last index update failed, by id, with the term keys they may have left behind
+    private final Map<String, PendingRepair> pendingRepairs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public TodoSearchService(SearchIndexRepository searchIndexRepository, TodoRepository todoRepository,
+                             @Value("${search.repair-interval:PT1M}") Duration repairInterval) {
+        this.searchIndexRepository = searchIndexRepository;
+        this.todoRepository = todoRepository;
+        this.repairInterval = repairInterval;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "search-index-repair");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                repairPending();
+            } catch (RuntimeException e) {
+                logger.error("Search index repair failed: {}", e.getMessage(), e);
+            }
+        }, repairInterval.toMillis(), repairInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public void indexTodo(Todo todo) {
+        reindexTodo(null, todo);
+    }
+
+    /**
+     * Indexes freshly written todos with as few batch writes as possible, for bulk imports.
+     */
+    public void indexTodos(List<Todo> todos) {
+        List<SearchPosting> postings = new ArrayList<>();
+        todos.forEach(todo -> postings.addAll(postings(todo)));
+        try {
+            searchIndexRepository.saveAll(postings);
+        } catch (RuntimeException e) {
+            logger.error("Failed to index {} imported todos, queued for repair: {}", todos.size(), e.getMessage());
+            todos.forEach(todo -> queueRepair(todo, List.of()));
+        }
+    }
+
+    /**
+     * Brings the index from the state of {@code before} to the state of {@code after};
+     * either side may be {@code null} for a create or delete.
+     */
+    public void reindexTodo(Todo before, Todo after) {
+        Todo todo = after != null ? after : before;
+        Map<String, Double> oldTerms = before == null ? Map.of() : SearchTokenizer.weigh(before.getTitle(), before.getDescription());
+        Map<String, Double> newTerms = after == null ? Map.of() : SearchTokenizer.weigh(after.getTitle(), after.getDescription());
+
+        List<String> removed = oldTerms.keySet().stream()
+                .filter(term -> !newTerms.containsKey(term))
+                .map(term -> SearchPosting.termKey(term, todo.getId()))
+                .collect(Collectors.toList());
+        List<SearchPosting> changed = newTerms.entrySet().stream()
+                .filter(e -> !e.getValue().equals(oldTerms.get(e.getKey())))
+                .map(e -> posting(todo, e.getKey(), e.getValue()))
+                .collect(Collectors.toList());
+
+        // The index is derived data; a failed update must not fail the todo write that triggered it
+        try {
+            if (!removed.isEmpty()) {
+                searchIndexRepository.deleteAll(todo.getUserId(), removed);
+            }
+            if (!changed.isEmpty()) {
+                searchIndexRepository.saveAll(changed);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to update search index for todo {}, queued for repair: {}", todo.getId(), e.getMessage());
+            // Which writes went through is unknown, so any old term may have been left behind
+            queueRepair(todo, oldTerms.keySet().stream()
+                    .map(term -> SearchPosting.termKey(term, todo.getId()))
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    public void removeTodo(Todo todo) {
+        reindexTodo(todo, null);
+    }
+
+    /**
+     * Writes the postings of every stored todo through a resumable parallel scan, for todos
+     * written before the index existed or whose repair was lost. Postings are overwritten with
+     * the same values, so running it again is harmless.
+     *
+     * @param runId checkpoints are kept per run, so an interrupted run with the same id resumes
+     * @return the number of todos indexed
+     */
+    public long reindexAll(String runId) {
+        AtomicLong indexed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ParallelScanner.Result result = todoRepository.scanAll("search-index-backfill/" + runId, todo -> {
+            try {
+                // An archived todo's pointer has no text; the archive has
+                Todo stored = todo.getArchivedAt() == null ? todo
+                        : todoRepository.findAllById(todo.getUserId(), List.of(todo.getId())).stream().findFirst().orElse(null);
+                if (stored != null) {
+                    searchIndexRepository.saveAll(postings(stored));
+                    indexed.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                // One todo's failure should not stop the others
+                failed.incrementAndGet();
+                logger.warn("Could not index todo {}: {}", todo.getId(), e.getMessage());
+            }
+        });
+        logger.info("Search index backfill {} finished: {} todos indexed, {} failed ({})",
+                runId, indexed.get(), failed.get(), result);
+        return indexed.get();
+    }
+
+    /**
+     * Rebuilds the postings of every queued todo from its stored state: stale term keys the
+     * stored text no longer has are deleted, and its current postings written. A todo that is
+     * gone only has its stale keys deleted. Failures stay queued.
+     */
+    void repairPending() {
+        int repaired = 0;
+        for (String todoId : List.copyOf(pendingRepairs.keySet())) {
+            PendingRepair repair = pendingRepairs.remove(todoId);
+            if (repair == null) {
+                continue;
+            }
+            try {
+                Todo stored = todoRepository.findAllById(repair.userId, List.of(todoId)).stream().findFirst().orElse(null);
+                List<SearchPosting> postings = stored == null ? List.of() : postings(stored);
+                Set<String> current = postings.stream().map(SearchPosting::getTermKey).collect(Collectors.toSet());
+                List<String> stale = repair.staleTermKeys.stream()
+                        .filter(termKey -> !current.contains(termKey))
+                        .collect(Collectors.toList());
+                if (!stale.isEmpty()) {
+                    searchIndexRepository.deleteAll(repair.userId, stale);
+                }
+                if (!postings.isEmpty()) {
+                    searchIndexRepository.saveAll(postings);
+                }
+                repaired++;
+            } catch (RuntimeException e) {
+                pendingRepairs.merge(todoId, repair, PendingRepair::merge);
+                logger.warn("Could not repair search index for todo {}, {} repairs pending: {}",
+                        todoId, pendingRepairs.size(), e.getMessage());
+                // The index is probably still unavailable; the rest wait for the next run
+                break;
+            }
+        }
+        if (repaired > 0) {
+            logger.info("Repaired search index for {} todos", repaired);
+        }
+    }
+
+    int pendingRepairs() {
+        return pendingRepairs.size();
+    }
+
+    private void queueRepair(Todo todo, Collection<String> staleTermKeys) {
+        if (pendingRepairs.size() >= MAX_PENDING_REPAIRS && !pendingRepairs.containsKey(todo.getId())) {
+            logger.warn("Search index repair queue is full, todo {} is left for the backfill", todo.getId());
+            return;
+        }
+        pendingRepairs.merge(todo.getId(), new PendingRepair(todo.getUserId(), staleTermKeys), PendingRepair::merge);
+    }
+
+    /**
+     * Ranks the user's todos against the query. Every query word must match; the last
+     * word matches as a prefix so results update while the user types. Each posting
+     * contributes its term weight scaled by how rare the term is among the user's todos,
+     * and a whole-word match on the last word counts more than a prefix match.
+     * <p>
+     * Each word's postings are read up to {@link #MAX_POSTINGS_PER_TERM}. Matches are driven
+     * from the rarest word read completely; a longer list of a whole word is then only
+     * probed for the driver's todos by exact key and counted for its rarity, and a longer
+     * prefix list is read up to {@link #MAX_POSTINGS_PER_PREFIX}. When every list is long,
+     * the postings already read for the first word drive the matches. Both keep a one-letter
+     * word from reading a whole posting list on each keystroke, at the cost of leaving out
+     * matches beyond what was read.
+     */
+    public List<Todo> search(String userId, String query, int limit) {
+        List<String> words = SearchTokenizer.tokenizeQuery(query);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        List<QueryWord> queryWords = new ArrayList<>(words.size());
+        for (int i = 0; i < words.size(); i++) {
+            QueryWord queryWord = new QueryWord(words.get(i), i == words.size() - 1);
+            // One more than the cap tells a complete list from a truncated one
+            queryWord.postings = searchIndexRepository.findByTermPrefix(
+                    userId, queryWord.keyPrefix(), MAX_POSTINGS_PER_TERM + 1);
+            queryWords.add(queryWord);
+        }
+
+        QueryWord driver = queryWords.stream()
+                .filter(QueryWord::isComplete)
+                .min(Comparator.comparingInt(queryWord -> queryWord.postings.size()))
+                .orElseGet(() -> queryWords.get(0).truncated());
+        Map<String, Double> scores = scoreWord(driver.word, driver.postings, distinctTodos(driver.postings));
+        for (QueryWord queryWord : queryWords) {
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+            if (queryWord == driver) {
+                continue;
+            }
+            Map<String, Double> wordScores;
+            if (queryWord.isComplete()) {
+                wordScores = scoreWord(queryWord.word, queryWord.postings, distinctTodos(queryWord.postings));
+            } else if (!queryWord.prefix) {
+                List<String> termKeys = scores.keySet().stream()
+                        .map(todoId -> SearchPosting.termKey(queryWord.word, todoId))
+                        .collect(Collectors.toList());
+                // A whole word has one posting per todo, so the count is the number of matching todos
+                wordScores = scoreWord(queryWord.word, searchIndexRepository.findByTermKeys(userId, termKeys),
+                        searchIndexRepository.countByTermPrefix(userId, queryWord.keyPrefix()));
+            } else {
+                List<SearchPosting> postings = searchIndexRepository.findByTermPrefix(
+                        userId, queryWord.keyPrefix(), MAX_POSTINGS_PER_PREFIX);
+                wordScores = scoreWord(queryWord.word, postings, distinctTodos(postings));
+            }
+            scores.keySet().retainAll(wordScores.keySet());
+            for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                entry.setValue(entry.getValue() + wordScores.get(entry.getKey()));
+            }
+        }
+        if (scores.isEmpty()) {
+            return List.of();
+        }
+
+        List<String> ranked = scores.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(Math.min(limit, MAX_RESULTS))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        Map<String, Double> finalScores = scores;
+        return todoRepository.findAllById(userId, ranked).stream()
+                .sorted(Comparator.comparing((Todo todo) -> finalScores.get(todo.getId())).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private static long distinctTodos(List<SearchPosting> postings) {
+        Set<String> todoIds = new HashSet<>();
+        postings.forEach(p -> todoIds.add(p.getTodoId()));
+        return todoIds.size();
+    }
+
+    /**
+     * @param matchingTodos how many of the user's todos the word matches, for its rarity
+     */
+    private static Map<String, Double> scoreWord(String word, List<SearchPosting> postings, long matchingTodos) {
+        double rarity = 1.0 / Math.log(Math.E + matchingTodos);
+
+        Map<String, Double> scores = new HashMap<>();
+        for (SearchPosting posting : postings) {
+            double score = posting.getWeight() * rarity;
+            if (word.equals(posting.getTerm())) {
+                score *= EXACT_MATCH_BOOST;
+            }
+            // A prefix can match several terms of the same todo; keep the best one
+            scores.merge(posting.getTodoId(), score, Math::max);
+        }
+        return scores;
+    }
+
+    /**
+     * A word of the query with the postings read for it so far.
+     */
+    private static final class QueryWord {
+        private final String word;
+        private final boolean prefix;
+        private List<SearchPosting> postings;
+
+        private QueryWord(String word, boolean prefix) {
+            this.word = word;
+            this.prefix = prefix;
+        }
+
+        private String keyPrefix() {
+            return prefix ? word : word + "#";
+        }
+
+        private boolean isComplete() {
+            return postings.size() <= MAX_POSTINGS_PER_TERM;
+        }
+
+        /**
+         * Drops the extra posting that marked the list as longer than the cap.
+         */
+        private QueryWord truncated() {
+            postings = postings.subList(0, Math.min(postings.size(), MAX_POSTINGS_PER_TERM));
+            return this;
+        }
+    }
+
+    /**
+     * A todo whose index update failed, with every term key it may still have postings under.
+     */
+    private static final class PendingRepair {
+        private final String userId;
+        private final Set<String> staleTermKeys;
+
+        private PendingRepair(String userId, Collection<String> staleTermKeys) {
+            this.userId = userId;
+            this.staleTermKeys = Set.copyOf(staleTermKeys);
+        }
+
+        private static PendingRepair merge(PendingRepair a, PendingRepair b) {
+            Set<String> staleTermKeys = new HashSet<>(a.staleTermKeys);
+            staleTermKeys.addAll(b.staleTermKeys);
+            return new PendingRepair(a.userId, staleTermKeys);
+        }
+    }
+
+    private static List<SearchPosting> postings(Todo todo) {
+        List<SearchPosting> postings = new ArrayList<>();
+        SearchTokenizer.weigh(todo.getTitle(), todo.getDescription())
+                .forEach((term, weight) -> postings.add(posting(todo, term, weight)));
+        return postings;
+    }
+
+    private static SearchPosting posting(Todo todo, String term, double weight) {
+        SearchPosting posting = new SearchPosting();
+        posting.setUserId(todo.getUserId());
+        posting.setTermKey(SearchPosting.termKey(term, todo.getId()));
+        posting.setTodoId(todo.getId());
+        posting.setWeight(weight);
+        return posting;
+    }
+}
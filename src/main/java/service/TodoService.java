@@ -4,35 +4,66 @@ import model.Todo;
 import model.TodoRequest;
 import model.TodoResponse;
 import model.EditTodoRequest;
+import model.TodoFields;
+import model.TodoChanges;
+import model.TodoCounts;
+import model.TodoEvent;
+import model.TodoQuery;
+import model.TodoStats;
+import io.micrometer.core.instrument.MeterRegistry;
 import repository.TodoRepository;
+import util.SingleFlight;
+import util.Ulid;
 import org.springframework.stereotype.Service;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class TodoService {
 
+    // Attempts at a write without If-Match before giving up on a todo other writers keep changing
+    static final int MAX_WRITE_ATTEMPTS = 3;
+
     private final TodoRepository todoRepository;
+    private final TodoSearchService todoSearchService;
+    private final TodoSyncService todoSyncService;
+    private final TodoEventBus todoEventBus;
+    // Keyed by id and projection; each caller gets its own copy because writes mutate the todo
+    private final SingleFlight<String, Optional<Todo>> todoLookups;
 
-    public TodoService(TodoRepository todoRepository) {
+    public TodoService(TodoRepository todoRepository, TodoSearchService todoSearchService,
+                       TodoSyncService todoSyncService, TodoEventBus todoEventBus,
+                       MeterRegistry meterRegistry) {
         this.todoRepository = todoRepository;
+        this.todoSearchService = todoSearchService;
+        this.todoSyncService = todoSyncService;
+        this.todoEventBus = todoEventBus;
+        this.todoLookups = new SingleFlight<>("todo-by-id", meterRegistry, todo -> todo.map(TodoService::copyOf));
     }
 
     public TodoResponse createTodo(TodoRequest request) {
         Todo todo = new Todo();
-        todo.setId(UUID.randomUUID().toString());
+        todo.setId(Ulid.generate());
         todo.setTitle(request.getTitle());
         todo.setDescription(request.getDescription());
+        todo.setDueDate(request.getDueDate());
         todo.setStatus("PENDING");
         todo.setCreatedAt(Instant.now());
         todo.setUpdatedAt(Instant.now());
         todo.setUserId(getCurrentUsername()); // Set userId BEFORE saving
-        todoRepository.save(todo);
-        return mapToResponse(todo);
+        todoRepository.save(todo, TodoCounts.of(todo));
+        todoSearchService.indexTodo(todo);
+        return publish(TodoEvent.Type.CREATED, todo);
     }
 
     private String getCurrentUsername() {
@@ -40,76 +71,226 @@ public class TodoService {
     }
 
     public List<TodoResponse> getAllTodos() {
+        return getTodos(TodoQuery.all());
+    }
+
+    public List<TodoResponse> getTodos(TodoQuery query) {
+        return streamTodos(query).collect(Collectors.toList());
+    }
+
+    public Stream<TodoResponse> streamAllTodos() {
+        return streamTodos(TodoQuery.all());
+    }
+
+    /**
+     * Returns the current user's todos matching the query as a lazy stream. The user
+     * is resolved eagerly, so the stream can be consumed off the request thread.
+     */
+    public Stream<TodoResponse> streamTodos(TodoQuery query) {
         String currentUser = getCurrentUsername();
-        return todoRepository.findAll().stream()
-                .filter(todo -> currentUser.equals(todo.getUserId()))
-                .map(this::mapToResponse)
-                .collect(Collectors.toList());
+        return todoRepository.query(currentUser, query)
+                .map(TodoService::mapToResponse);
+    }
+
+    /**
+     * The current user's counters: one read, however many todos they have.
+     */
+    public TodoStats getStats() {
+        return TodoStats.of(todoRepository.findCounts(getCurrentUsername()), LocalDate.now(ZoneOffset.UTC));
+    }
+
+    public TodoChanges getChanges(String syncToken) {
+        return todoSyncService.changesSince(getCurrentUsername(), syncToken);
     }
 
     public TodoResponse getTodoById(String id) {
-        Todo todo = todoRepository.findById(id)
-                .orElseThrow(() -> new exception.TodoNotFoundException("Todo not found"));
+        return getTodoById(id, Collections.emptySet());
+    }
 
-        if (!getCurrentUsername().equals(todo.getUserId())) {
-            throw new exception.UnauthorizedAccessException("Unauthorized access");
-        }
+    public TodoResponse getTodoById(String id, Set<String> fields) {
+        // version is always read for the ETag
+        Todo todo = findTodo(id, TodoFields.withRequired(fields, "version"))
+                .orElseThrow(() -> new exception.TodoNotFoundException("Todo not found"));
 
         return mapToResponse(todo);
     }
 
     public void deleteTodo(String id) {
-        Todo todo = todoRepository.findById(id)
+        Todo todo = findTodo(id, Collections.emptySet())
                 .orElseThrow(() -> new exception.TodoNotFoundException("Todo not found"));
 
-        if (!getCurrentUsername().equals(todo.getUserId())) {
-            throw new exception.UnauthorizedAccessException("Unauthorized access");
+        todoRepository.deleteWithTombstone(todo, todoSyncService.tombstoneFor(todo));
+        forgetTodo(todo);
+        todoSearchService.removeTodo(todo);
+        publish(TodoEvent.Type.DELETED, todo);
+    }
+
+    public TodoResponse toggleTodo(String id) {
+        return toggleTodo(id, null);
+    }
+
+    /**
+     * @param expectedVersion version from the client's If-Match, or null for an unconditional toggle
+     */
+    public TodoResponse toggleTodo(String id, Long expectedVersion) {
+        for (int attempt = 1; ; attempt++) {
+            Todo todo = findTodo(id, Collections.emptySet())
+                    .orElseThrow(() -> new exception.TodoNotFoundException("Todo not found"));
+            checkVersion(todo, expectedVersion);
+
+            TodoCounts before = TodoCounts.of(todo);
+            // Toggle status between PENDING and COMPLETED
+            String newStatus = "PENDING".equals(todo.getStatus()) ? "COMPLETED" : "PENDING";
+            Instant now = Instant.now();
+            todo.setStatus(newStatus);
+            todo.setCompletedAt("COMPLETED".equals(newStatus) ? now : null);
+            todo.setUpdatedAt(now);
+
+            try {
+                todoRepository.save(todo, TodoCounts.of(todo).minus(before));
+            } catch (exception.PreconditionFailedException e) {
+                forgetTodo(todo);
+                retryOrRethrow(e, expectedVersion, attempt);
+                continue;
+            }
+            forgetTodo(todo);
+            return publish(TodoEvent.Type.UPDATED, todo);
         }
+    }
 
-        todoRepository.deleteById(id);
+    public TodoResponse editTodo(String id, EditTodoRequest request) {
+        return editTodo(id, request, null);
     }
 
-    public TodoResponse toggleTodo(String id) {
-        Todo todo = todoRepository.findById(id)
-                .orElseThrow(() -> new exception.TodoNotFoundException("Todo not found"));
+    /**
+     * @param expectedVersion version from the client's If-Match, or null for an unconditional edit
+     */
+    public TodoResponse editTodo(String id, EditTodoRequest request, Long expectedVersion) {
+        for (int attempt = 1; ; attempt++) {
+            Todo todo = findTodo(id, Collections.emptySet())
+                    .orElseThrow(() -> new exception.TodoNotFoundException("Todo not found"));
+            checkVersion(todo, expectedVersion);
+
+            Todo before = searchableCopy(todo);
+
+            // Update title
+            todo.setTitle(request.getTitle());
+            todo.setUpdatedAt(Instant.now());
 
-        if (!getCurrentUsername().equals(todo.getUserId())) {
-            throw new exception.UnauthorizedAccessException("Unauthorized access");
+            try {
+                todoRepository.save(todo);
+            } catch (exception.PreconditionFailedException e) {
+                forgetTodo(todo);
+                retryOrRethrow(e, expectedVersion, attempt);
+                continue;
+            }
+            forgetTodo(todo);
+            todoSearchService.reindexTodo(before, todo);
+            return publish(TodoEvent.Type.UPDATED, todo);
         }
+    }
 
-        // Toggle status between PENDING and COMPLETED
-        String newStatus = "PENDING".equals(todo.getStatus()) ? "COMPLETED" : "PENDING";
-        todo.setStatus(newStatus);
-        todo.setUpdatedAt(Instant.now());
+    public List<TodoResponse> searchTodos(String query, int limit) {
+        return todoSearchService.search(getCurrentUsername(), query, limit).stream()
+                .map(TodoService::mapToResponse)
+                .collect(Collectors.toList());
+    }
 
-        todoRepository.save(todo);
-        return mapToResponse(todo);
+    private TodoResponse publish(TodoEvent.Type type, Todo todo) {
+        TodoResponse response = mapToResponse(todo);
+        todoEventBus.publish(TodoEvent.of(type, todo.getUserId(), response));
+        return response;
     }
 
-    public TodoResponse editTodo(String id, EditTodoRequest request) {
-        Todo todo = todoRepository.findById(id)
-                .orElseThrow(() -> new exception.TodoNotFoundException("Todo not found"));
+    /**
+     * Decides what a lost race means. With an If-Match the client edited that exact version,
+     * so it gets the 412. Without one it asked for the change whatever the current state, so
+     * the todo is re-read and the change reapplied, up to {@link #MAX_WRITE_ATTEMPTS} times;
+     * a todo that keeps changing under it is a 409.
+     */
+    private static void retryOrRethrow(exception.PreconditionFailedException e, Long expectedVersion, int attempt) {
+        if (expectedVersion != null) {
+            throw e;
+        }
+        if (attempt >= MAX_WRITE_ATTEMPTS) {
+            throw new exception.DomainException(exception.ErrorCode.TODO_CONFLICT,
+                    "Todo still modified concurrently after " + attempt + " attempts");
+        }
+    }
 
-        if (!getCurrentUsername().equals(todo.getUserId())) {
-            throw new exception.UnauthorizedAccessException("Unauthorized access");
+    /**
+     * Fails fast when the client edited a stale copy. The write itself is still
+     * conditional on the version read here, which catches races after this check.
+     */
+    private static void checkVersion(Todo todo, Long expectedVersion) {
+        long current = todo.getVersion() == null ? 0 : todo.getVersion();
+        if (expectedVersion != null && expectedVersion != current) {
+            throw new exception.PreconditionFailedException(
+                    "Todo has been modified (version " + current + ", expected " + expectedVersion + ")");
         }
+    }
 
-        // Update title
-        todo.setTitle(request.getTitle());
-        todo.setUpdatedAt(Instant.now());
+    /**
+     * Looks the todo up among the current user's, so someone else's todo is simply not found.
+     * Concurrent lookups of the same todo and projection share one DynamoDB read.
+     */
+    private Optional<Todo> findTodo(String id, Set<String> attributes) {
+        String userId = getCurrentUsername();
+        String todoKey = lookupKey(userId, id);
+        String key = attributes.isEmpty() ? todoKey : todoKey + "?" + String.join(",", new TreeSet<>(attributes));
+        return todoLookups.execute(key, () -> todoRepository.findById(userId, id, attributes));
+    }
 
-        todoRepository.save(todo);
-        return mapToResponse(todo);
+    private void forgetTodo(Todo todo) {
+        String todoKey = lookupKey(todo.getUserId(), todo.getId());
+        String projected = todoKey + "?";
+        todoLookups.forgetIf(key -> key.equals(todoKey) || key.startsWith(projected));
+    }
+
+    private static String lookupKey(String userId, String id) {
+        return userId + "/" + id;
+    }
+
+    /**
+     * Copies every stored attribute: coalesced callers save their copy, and a missing
+     * {@code shard} would be assigned anew, moving the todo to another index shard.
+     */
+    private static Todo copyOf(Todo todo) {
+        Todo copy = new Todo();
+        copy.setId(todo.getId());
+        copy.setUserId(todo.getUserId());
+        copy.setTitle(todo.getTitle());
+        copy.setDescription(todo.getDescription());
+        copy.setStatus(todo.getStatus());
+        copy.setDueDate(todo.getDueDate());
+        copy.setCreatedAt(todo.getCreatedAt());
+        copy.setUpdatedAt(todo.getUpdatedAt());
+        copy.setVersion(todo.getVersion());
+        copy.setShard(todo.getShard());
+        copy.setCompletedAt(todo.getCompletedAt());
+        copy.setArchivedAt(todo.getArchivedAt());
+        return copy;
+    }
+
+    private static Todo searchableCopy(Todo todo) {
+        Todo copy = new Todo();
+        copy.setId(todo.getId());
+        copy.setUserId(todo.getUserId());
+        copy.setTitle(todo.getTitle());
+        copy.setDescription(todo.getDescription());
+        return copy;
     }
 
-    private TodoResponse mapToResponse(Todo todo) {
+    static TodoResponse mapToResponse(Todo todo) {
         TodoResponse res = new TodoResponse();
         res.setId(todo.getId());
         res.setTitle(todo.getTitle());
         res.setDescription(todo.getDescription());
         res.setStatus(todo.getStatus());
+        res.setDueDate(todo.getDueDate());
         res.setCreatedAt(todo.getCreatedAt());
         res.setUpdatedAt(todo.getUpdatedAt());
+        res.setVersion(todo.getVersion() == null ? 0 : todo.getVersion());
         return res;
     }
 }
\ No newline at end of file
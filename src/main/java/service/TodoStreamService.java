@@ -0,0 +1,184 @@
+package service;
+
+import model.TodoEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Server-Sent Events connections for {@code GET /api/todos/stream}. Each connection
+ * has a bounded queue drained by a shared sender pool, so a slow client never blocks
+ * the publishing request; a client whose queue overflows is disconnected and resumes
+ * from the replay buffer with Last-Event-ID when it reconnects.
+ */
+@Service
+public class TodoStreamService {
+
+    private static final Logger logger = LogManager.getLogger(TodoStreamService.class);
+
+    private static final long RECONNECT_DELAY_MILLIS = 3000;
+
+    private final TodoEventBus todoEventBus;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService senders;
+
+    @Value("${todos.stream.buffer-size:64}")
+    private int bufferSize = 64;
+
+    @Value("${todos.stream.heartbeat-interval:PT15S}")
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    @Value("${todos.stream.timeout:PT30M}")
+    private Duration timeout = Duration.ofMinutes(30);
+
+    @Value("${todos.stream.replay-retention:PT10M}")
+    private Duration replayRetention = Duration.ofMinutes(10);
+
+    public TodoStreamService(TodoEventBus todoEventBus, @Value("${todos.stream.sender-threads:4}") int senderThreads) {
+        this.todoEventBus = todoEventBus;
+        this.senders = Executors.newFixedThreadPool(senderThreads);
+    }
+
+    @PostConstruct
+    void startHeartbeats() {
+        long period = heartbeatInterval.toMillis();
+        heartbeats.scheduleAtFixedRate(this::heartbeat, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeats.shutdownNow();
+        connections.forEach(Connection::disconnect);
+        senders.shutdown();
+    }
+
+    public SseEmitter open(String userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(connection::close);
+        emitter.onTimeout(connection::close);
+        emitter.onError(e -> connection.close());
+
+        connections.add(connection);
+        // Opening comment flushes the response headers so the client sees the stream as open
+        connection.enqueue(SseEmitter.event().comment("connected").reconnectTime(RECONNECT_DELAY_MILLIS));
+        todoEventBus.subscribe(userId, lastEventId, connection);
+        return emitter;
+    }
+
+    int connectionCount() {
+        return connections.size();
+    }
+
+    void heartbeat() {
+        try {
+            for (Connection connection : connections) {
+                // Keeps proxies and load balancers from closing idle connections
+                connection.enqueue(SseEmitter.event().comment("heartbeat"));
+            }
+            todoEventBus.evictIdle(replayRetention);
+        } catch (RuntimeException e) {
+            // An exception would cancel the scheduled task
+            logger.warn("Todo stream heartbeat failed: {}", e.getMessage());
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder toSse(TodoEvent event) {
+        if (event.getType() == TodoEvent.Type.RESYNC) {
+            return SseEmitter.event().name("resync").data(Map.of("reason", "Last-Event-ID is too old"), MediaType.APPLICATION_JSON);
+        }
+        return SseEmitter.event()
+                .id(event.getId())
+                .name(event.getType().name().toLowerCase())
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+
+    final class Connection implements Consumer<TodoEvent> {
+        private final String userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Connection(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        @Override
+        public void accept(TodoEvent event) {
+            enqueue(toSse(event));
+        }
+
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(event)) {
+                logger.info("Disconnecting slow todo stream consumer for {} ({} events buffered)", userId, bufferSize);
+                disconnect();
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed
+                close();
+            } finally {
+                draining.set(false);
+                if (!closed && !queue.isEmpty()) {
+                    scheduleDrain();
+                }
+            }
+        }
+
+        void disconnect() {
+            close();
+            emitter.complete();
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            connections.remove(this);
+            todoEventBus.unsubscribe(userId, this);
+            queue.clear();
+        }
+    }
+}
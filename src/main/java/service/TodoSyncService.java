@@ -0,0 +1,95 @@
+package service;
+
+import exception.BadRequestException;
+import model.Todo;
+import model.TodoChanges;
+import model.TodoQuery;
+import model.TodoResponse;
+import model.TodoTombstone;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import repository.TodoRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Delta sync over the per-user updatedAt index and the tombstone table. Tokens
+ * encode a high-water mark that trails the server clock by {@code todos.sync.overlap},
+ * covering index replication lag and clock skew between instances; changes inside
+ * the overlap are delivered twice, so clients must apply them idempotently.
+ */
+@Service
+public class TodoSyncService {
+
+    private static final String TOKEN_PREFIX = "v1:";
+
+    private final TodoRepository todoRepository;
+
+    @Value("${todos.sync.overlap:PT5S}")
+    private Duration overlap = Duration.ofSeconds(5);
+
+    @Value("${todos.sync.tombstone-ttl:P30D}")
+    private Duration tombstoneTtl = Duration.ofDays(30);
+
+    public TodoSyncService(TodoRepository todoRepository) {
+        this.todoRepository = todoRepository;
+    }
+
+    public TodoTombstone tombstoneFor(Todo todo) {
+        Instant now = Instant.now();
+        TodoTombstone tombstone = new TodoTombstone();
+        tombstone.setUserId(todo.getUserId());
+        tombstone.setTodoId(todo.getId());
+        tombstone.setDeletedAt(now);
+        tombstone.setExpiresAt(now.plus(tombstoneTtl).getEpochSecond());
+        return tombstone;
+    }
+
+    /**
+     * Returns the user's changes since the token. Without a token, or with one older than
+     * the tombstone retention, the full list is returned with {@code reset} set.
+     */
+    public TodoChanges changesSince(String userId, String token) {
+        Instant now = Instant.now();
+        String nextToken = encode(now.minus(overlap));
+
+        Instant since = token == null || token.isBlank() ? null : decode(token);
+        if (since == null || since.isBefore(now.minus(tombstoneTtl))) {
+            List<TodoResponse> all = todoRepository.query(userId, TodoQuery.all())
+                    .map(TodoService::mapToResponse)
+                    .collect(Collectors.toList());
+            return new TodoChanges(all, Collections.emptyList(), nextToken, true);
+        }
+
+        List<TodoResponse> changed = todoRepository.findUpdatedSince(userId, since)
+                .map(TodoService::mapToResponse)
+                .collect(Collectors.toList());
+        List<String> deleted = todoRepository.findTombstonesSince(userId, since).stream()
+                .map(TodoTombstone::getTodoId)
+                .collect(Collectors.toList());
+        return new TodoChanges(changed, deleted, nextToken, false);
+    }
+
+    static String encode(Instant highWaterMark) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((TOKEN_PREFIX + highWaterMark.toEpochMilli()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Instant decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (decoded.startsWith(TOKEN_PREFIX)) {
+                return Instant.ofEpochMilli(Long.parseLong(decoded.substring(TOKEN_PREFIX.length())));
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and malformed base64
+        }
+        throw new BadRequestException("Invalid sync token");
+    }
+}
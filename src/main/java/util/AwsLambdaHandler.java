@@ -2,11 +2,13 @@ package util;
 
 import com.amazonaws.serverless.exceptions.ContainerInitializationException;
 import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.Headers;
 import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
 import com.amazonaws.serverless.proxy.spring.SpringLambdaContainerHandler;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.taskflow.taskflowbackend.TaskflowBackendApplication;
+import com.taskflow.taskflowbackend.tracing.LambdaTraceContext;
 
 /**
  * AWS Lambda handler that integrates Spring Boot application with AWS Lambda using 
@@ -21,10 +23,16 @@ import com.taskflow.taskflowbackend.TaskflowBackendApplication;
  * - Memory: Recommended 512MB+ for Spring Boot apps
  * - Timeout: 30+ seconds for cold starts
  * - Environment Variables: Set SPRING_PROFILES_ACTIVE=lambda
+ * - Compression: responses above LAMBDA_COMPRESSION_MIN_SIZE bytes (default 2048) are gzipped
+ *   when the client accepts it; API Gateway needs binary media types enabled to pass them through
+ * - Tracing: the trace id is taken from the API Gateway request id, and spans are flushed
+ *   before each response is returned
  */
 public class AwsLambdaHandler implements RequestHandler<AwsProxyRequest, AwsProxyResponse> {
 
     private static SpringLambdaContainerHandler<AwsProxyRequest, AwsProxyResponse> handler;
+    private static final ResponseCompressor compressor = ResponseCompressor.fromEnvironment();
+    private static final String TRACEPARENT = "traceparent";
 
     static {
         try {
@@ -45,7 +53,27 @@ public class AwsLambdaHandler implements RequestHandler<AwsProxyRequest, AwsProx
 
     @Override
     public AwsProxyResponse handleRequest(AwsProxyRequest awsProxyRequest, Context context) {
+        propagateRequestId(awsProxyRequest);
         // Proxy the request to the Spring Boot application
-        return handler.proxy(awsProxyRequest, context);
+        AwsProxyResponse response = handler.proxy(awsProxyRequest, context);
+        LambdaTraceContext.flush();
+        return compressor.compress(awsProxyRequest, response);
+    }
+
+    /**
+     * Makes the API Gateway request id the trace id of the request.
+     */
+    private static void propagateRequestId(AwsProxyRequest request) {
+        if (request.getRequestContext() == null || request.getRequestContext().getRequestId() == null) {
+            return;
+        }
+        String traceparent = LambdaTraceContext.traceparent(request.getRequestContext().getRequestId());
+        if (request.getMultiValueHeaders() == null) {
+            request.setMultiValueHeaders(new Headers());
+        }
+        request.getMultiValueHeaders().putSingle(TRACEPARENT, traceparent);
+        if (request.getHeaders() != null) {
+            request.getHeaders().put(TRACEPARENT, traceparent);
+        }
     }
 }
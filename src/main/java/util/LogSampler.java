@@ -0,0 +1,121 @@
+package util;
+
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limit for repetitive log lines: per key, the first {@code burst} lines of each
+ * window are let through and the rest are only counted. The count is logged as one
+ * summary line when the key's window rolls over, or at the latest on {@link #flush()}.
+ * <p>
+ * Keys are expected to be a small fixed set (e.g. one per exception handler); a window is
+ * kept per key for the lifetime of the sampler.
+ */
+public class LogSampler {
+
+    private final Logger logger;
+    private final int burst;
+    private final Duration window;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    public LogSampler(Logger logger, int burst, Duration window) {
+        this(logger, burst, window, System::nanoTime);
+    }
+
+    LogSampler(Logger logger, int burst, Duration window, LongSupplier nanoClock) {
+        if (burst < 0 || window.isZero() || window.isNegative()) {
+            throw new IllegalArgumentException("burst must be >= 0 and window positive");
+        }
+        this.logger = logger;
+        this.burst = burst;
+        this.window = window;
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Whether the caller should log this occurrence of {@code key}; if not, it is counted
+     * towards the key's next summary.
+     */
+    public boolean allow(String key) {
+        long now = nanoClock.getAsLong();
+        Window current = windows.get(key);
+        if (current == null) {
+            Window created = new Window(now);
+            current = windows.putIfAbsent(key, created);
+            if (current == null) {
+                current = created;
+            }
+        }
+        long suppressed;
+        boolean allowed;
+        synchronized (current) {
+            suppressed = current.rollOver(now, windowNanos);
+            allowed = current.logged < burst;
+            if (allowed) {
+                current.logged++;
+            } else {
+                current.suppressed++;
+            }
+        }
+        if (suppressed > 0) {
+            summarize(key, suppressed);
+        }
+        return allowed;
+    }
+
+    /**
+     * Logs the summary of every key whose window has ended, so counts surface even when
+     * the key stops recurring. Meant to be called periodically, about once per window.
+     */
+    public void flush() {
+        long now = nanoClock.getAsLong();
+        windows.forEach((key, current) -> {
+            long suppressed;
+            synchronized (current) {
+                suppressed = current.rollOver(now, windowNanos);
+            }
+            if (suppressed > 0) {
+                summarize(key, suppressed);
+            }
+        });
+    }
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    private void summarize(String key, long suppressed) {
+        logger.warn("Suppressed {} more '{}' log lines in the last {}", suppressed, key, window);
+    }
+
+    private static final class Window {
+        private long start;
+        private int logged;
+        private long suppressed;
+
+        Window(long start) {
+            this.start = start;
+        }
+
+        /**
+         * Starts a new window if this one has ended, returning the count suppressed in it.
+         */
+        long rollOver(long now, long windowNanos) {
+            if (now - start < windowNanos) {
+                return 0;
+            }
+            long ended = suppressed;
+            start = now;
+            logged = 0;
+            suppressed = 0;
+            return ended;
+        }
+    }
+}
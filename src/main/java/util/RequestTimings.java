@@ -0,0 +1,120 @@
+package util;
+
+import java.util.function.Supplier;
+
+/**
+ * Where the time of one HTTP request goes, collected on the request thread. Phases nest
+ * (a repository call inside the user lookup inside JWT authentication) and time is always
+ * charged to the innermost open phase, so the phases never overlap and their sum plus
+ * {@code other} is the request's total.
+ * <p>
+ * {@link #start} and {@link #stop} are no-ops on threads without a request, such as pool
+ * threads of background jobs, so instrumented code does not need to know where it runs.
+ * A streamed response is written on an MVC async thread, which collects into its own
+ * instance that is {@link #include included} when the response completes.
+ */
+public final class RequestTimings {
+
+    public enum Phase {
+        JWT, USER_LOOKUP, HANDLER, REPOSITORY, SERIALIZATION
+    }
+
+    private static final int MAX_DEPTH = 16;
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final long[] nanos = new long[Phase.values().length];
+    private final int[] calls = new int[Phase.values().length];
+    private final Phase[] open = new Phase[MAX_DEPTH];
+    private int depth;
+    private long mark = System.nanoTime();
+
+    private RequestTimings() {
+    }
+
+    /**
+     * Starts collecting for the request on the current thread.
+     */
+    public static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    public static void start(Phase phase) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.enter(phase);
+        }
+    }
+
+    public static void stop(Phase phase) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.exit(phase);
+        }
+    }
+
+    public static <T> T time(Phase phase, Supplier<T> work) {
+        start(phase);
+        try {
+            return work.get();
+        } finally {
+            stop(phase);
+        }
+    }
+
+    private void enter(Phase phase) {
+        charge(System.nanoTime());
+        // A phase re-entered directly inside itself is still one call
+        if (depth == 0 || depth > MAX_DEPTH || open[depth - 1] != phase) {
+            calls[phase.ordinal()]++;
+        }
+        if (depth < MAX_DEPTH) {
+            open[depth] = phase;
+        }
+        depth++;
+    }
+
+    private void exit(Phase phase) {
+        // A stop without its start (e.g. a call that began before the request) is ignored
+        if (depth == 0 || (depth <= MAX_DEPTH && open[depth - 1] != phase)) {
+            return;
+        }
+        charge(System.nanoTime());
+        depth--;
+    }
+
+    private void charge(long now) {
+        if (depth > 0) {
+            Phase innermost = open[Math.min(depth, MAX_DEPTH) - 1];
+            nanos[innermost.ordinal()] += now - mark;
+        }
+        mark = now;
+    }
+
+    /**
+     * Adds what was collected for the same request on another thread, such as the one writing
+     * a streamed response. Call it once that thread is done.
+     */
+    public void include(RequestTimings other) {
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] += other.nanos[i];
+            calls[i] += other.calls[i];
+        }
+    }
+
+    /**
+     * Time spent in the phase itself, excluding phases nested inside it.
+     */
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public int getCalls(Phase phase) {
+        return calls[phase.ordinal()];
+    }
+}
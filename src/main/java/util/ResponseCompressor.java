@@ -0,0 +1,168 @@
+package util;
+
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-negotiated gzip for Lambda proxy responses. Embedded Tomcat compresses on
+ * its own ({@code server.compression.*}); behind API Gateway the body has to be
+ * compressed here and marked {@code isBase64Encoded} so the gateway sends the bytes as-is.
+ */
+public class ResponseCompressor {
+
+    public static final int DEFAULT_MIN_SIZE = 2048;
+
+    private static final List<String> COMPRESSIBLE_TYPES = List.of(
+            "application/json", "application/x-ndjson", "text/");
+
+    private final int minSize;
+
+    public ResponseCompressor(int minSize) {
+        this.minSize = minSize;
+    }
+
+    /**
+     * Uses {@code LAMBDA_COMPRESSION_MIN_SIZE} (bytes) when set.
+     */
+    public static ResponseCompressor fromEnvironment() {
+        String minSize = System.getenv("LAMBDA_COMPRESSION_MIN_SIZE");
+        return new ResponseCompressor(minSize == null || minSize.isBlank() ? DEFAULT_MIN_SIZE : Integer.parseInt(minSize.trim()));
+    }
+
+    public AwsProxyResponse compress(AwsProxyRequest request, AwsProxyResponse response) {
+        String body = response.getBody();
+        if (body == null || response.isBase64Encoded()) {
+            return response;
+        }
+        if (responseHeader(response, "Content-Encoding") != null || !isCompressible(responseHeader(response, "Content-Type"))) {
+            return response;
+        }
+        // Whether this type is compressed depends on Accept-Encoding, so caches must key on it
+        // even when this particular response goes out uncompressed
+        addVary(response);
+        if (body.length() < minSize || !acceptsGzip(requestHeader(request, "Accept-Encoding"))) {
+            return response;
+        }
+
+        byte[] raw = body.getBytes(StandardCharsets.UTF_8);
+        if (raw.length < minSize) {
+            return response;
+        }
+        response.setBody(Base64.getEncoder().encodeToString(gzip(raw)));
+        response.setBase64Encoded(true);
+        if (response.getMultiValueHeaders() != null) {
+            response.getMultiValueHeaders().remove("Content-Length");
+        }
+        response.addHeader("Content-Encoding", "gzip");
+        return response;
+    }
+
+    public static byte[] gzip(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * An explicit {@code gzip} entry decides over {@code *}, so {@code gzip;q=0, *} refuses gzip.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzipQuality = null;
+        Double wildcardQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (!name.equals("gzip") && !name.equals("*")) {
+                continue;
+            }
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip")) {
+                gzipQuality = quality;
+            } else {
+                wildcardQuality = quality;
+            }
+        }
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return wildcardQuality != null && wildcardQuality > 0;
+    }
+
+    private static void addVary(AwsProxyResponse response) {
+        String vary = responseHeader(response, "Vary");
+        // Another Vary value is combined with the existing ones
+        if (vary == null || !vary.toLowerCase(Locale.ROOT).contains("accept-encoding") && !vary.trim().equals("*")) {
+            response.addHeader("Vary", "Accept-Encoding");
+        }
+    }
+
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return COMPRESSIBLE_TYPES.stream().anyMatch(type::startsWith);
+    }
+
+    private static String responseHeader(AwsProxyResponse response, String name) {
+        if (response.getMultiValueHeaders() != null) {
+            String value = response.getMultiValueHeaders().getFirst(name);
+            if (value != null) {
+                return value;
+            }
+        }
+        return response.getHeaders() == null ? null : findIgnoreCase(response.getHeaders(), name);
+    }
+
+    private static String requestHeader(AwsProxyRequest request, String name) {
+        if (request.getMultiValueHeaders() != null) {
+            List<String> values = new ArrayList<>();
+            request.getMultiValueHeaders().forEach((key, value) -> {
+                if (key.equalsIgnoreCase(name) && value != null) {
+                    values.addAll(value);
+                }
+            });
+            if (!values.isEmpty()) {
+                return String.join(",", values);
+            }
+        }
+        return request.getHeaders() == null ? null : findIgnoreCase(request.getHeaders(), name);
+    }
+
+    private static String findIgnoreCase(Map<String, String> headers, String name) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
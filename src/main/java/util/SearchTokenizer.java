@@ -0,0 +1,95 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Splits todo text into normalized search terms: lower-cased, diacritics folded,
+ * split on anything that is not a letter or digit. Title terms weigh more than
+ * description terms when ranking.
+ */
+public final class SearchTokenizer {
+
+    public static final int MIN_TERM_LENGTH = 2;
+    public static final int MAX_TERM_LENGTH = 32;
+
+    static final double TITLE_WEIGHT = 3.0;
+    static final double DESCRIPTION_WEIGHT = 1.0;
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "an", "and", "are", "as", "at", "be", "by", "for", "in", "is", "it", "of", "on", "or", "the", "to", "with");
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Returns the indexable terms of the text in order of appearance, duplicates included.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : split(text)) {
+            if (token.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(token)) {
+                terms.add(truncate(token));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Splits a search query. Complete words are filtered like indexed text, but the
+     * last word is kept even when short or a stop word because the user may still be typing it.
+     */
+    public static List<String> tokenizeQuery(String query) {
+        List<String> tokens = split(query);
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            boolean last = i == tokens.size() - 1;
+            if (last || (token.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(token))) {
+                terms.add(truncate(token));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Term weights for a todo: every occurrence in the title counts {@value #TITLE_WEIGHT},
+     * every occurrence in the description {@value #DESCRIPTION_WEIGHT}.
+     */
+    public static Map<String, Double> weigh(String title, String description) {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (String term : tokenize(title)) {
+            weights.merge(term, TITLE_WEIGHT, Double::sum);
+        }
+        for (String term : tokenize(description)) {
+            weights.merge(term, DESCRIPTION_WEIGHT, Double::sum);
+        }
+        return weights;
+    }
+
+    private static List<String> split(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tokens;
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        for (String token : SEPARATORS.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static String truncate(String token) {
+        return token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token;
+    }
+}
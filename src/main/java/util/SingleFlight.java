@@ -0,0 +1,98 @@
+package util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the lookup, callers
+ * arriving while it is in flight wait for and share its result or exception. Nothing is
+ * kept once the call returns, so this never serves a result older than a call that was
+ * still running when the caller arrived.
+ * <p>
+ * Metrics: {@code singleflight.calls} tagged with the flight {@code name} and
+ * {@code outcome=executed|coalesced}, and {@code singleflight.errors}.
+ *
+ * @param <V> results must either be immutable or be given a {@code copier}, because
+ *            waiting callers otherwise share one instance with the caller that loaded it
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> copier;
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter errors;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this(name, meterRegistry, UnaryOperator.identity());
+    }
+
+    public SingleFlight(String name, MeterRegistry meterRegistry, UnaryOperator<V> copier) {
+        this.copier = copier;
+        this.executed = Counter.builder("singleflight.calls").tag("name", name).tag("outcome", "executed")
+                .description("Lookups that went to the backend").register(meterRegistry);
+        this.coalesced = Counter.builder("singleflight.calls").tag("name", name).tag("outcome", "coalesced")
+                .description("Lookups that shared a call already in flight").register(meterRegistry);
+        this.errors = Counter.builder("singleflight.errors").tag("name", name)
+                .description("Failed backend calls, each counted once however many callers shared it").register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            coalesced.increment();
+            return copier.apply(await(running));
+        }
+
+        executed.increment();
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            errors.increment();
+            // Unregister before completing, so callers arriving from now on start a fresh call
+            inFlight.remove(key, call);
+            call.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, call);
+        call.complete(value);
+        return value;
+    }
+
+    /**
+     * Stops callers from joining the in-flight call for the key. Call after writing what
+     * the key reads, so lookups that start after the write see it.
+     */
+    public void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    public void forgetIf(Predicate<? super K> predicate) {
+        inFlight.keySet().removeIf(predicate);
+    }
+
+    private static <V> V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            // Rethrow what the loader threw, so callers handle the same exception types either way
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
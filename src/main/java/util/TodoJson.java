@@ -0,0 +1,369 @@
+package util;
+
+import auth.AuthResponse;
+import model.TodoResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hand-written JSON for the hottest response bodies: {@link TodoResponse}, lists of them, and
+ * {@link AuthResponse}. The output is byte-for-byte what the application's ObjectMapper
+ * writes for them (same property order, nulls included, Instants in ISO-8601 with 0, 3, 6
+ * or 9 fraction digits, Jackson's string escaping), so clients cannot tell the two apart.
+ * <p>
+ * Bodies are built in a per-thread buffer that is reused across requests, and the date part
+ * of timestamps is cached per thread because a list's timestamps mostly fall on a few days.
+ * Sparse fieldsets ({@code ?fields=}) and anything else stay with Jackson.
+ */
+public final class TodoJson {
+
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+    // Buffers grown beyond this for one large list are not kept for the next request
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+    private static final int STREAM_CHUNK = 8 * 1024;
+
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] TITLE = ascii(",\"title\":");
+    private static final byte[] DESCRIPTION = ascii(",\"description\":");
+    private static final byte[] STATUS = ascii(",\"status\":");
+    private static final byte[] CREATED_AT = ascii(",\"createdAt\":");
+    private static final byte[] UPDATED_AT = ascii(",\"updatedAt\":");
+    private static final byte[] DUE_DATE = ascii(",\"dueDate\":");
+    private static final byte[] VERSION = ascii(",\"version\":");
+    private static final byte[] TOKEN = ascii("{\"token\":");
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    private static final ThreadLocal<Buffer> BUFFERS = ThreadLocal.withInitial(Buffer::new);
+
+    private TodoJson() {
+    }
+
+    /**
+     * Whether {@link #write} can serialize this value: a todo, a list containing only todos,
+     * or an auth response.
+     */
+    public static boolean supports(Object value) {
+        if (value instanceof TodoResponse || value instanceof AuthResponse) {
+            return true;
+        }
+        if (!(value instanceof List)) {
+            return false;
+        }
+        for (Object element : (List<?>) value) {
+            if (!(element instanceof TodoResponse)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @throws IllegalArgumentException if {@link #supports} is false for the value
+     */
+    public static void write(Object value, OutputStream out) throws IOException {
+        Buffer buffer = BUFFERS.get();
+        try {
+            append(buffer, value);
+            buffer.drainTo(out);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    public static byte[] toBytes(Object value) {
+        Buffer buffer = BUFFERS.get();
+        try {
+            append(buffer, value);
+            return Arrays.copyOf(buffer.bytes, buffer.size);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Writes a JSON array of todos as they are iterated, passing the output on in chunks, so
+     * memory stays bounded however long the list is.
+     */
+    public static void writeArray(Iterator<TodoResponse> todos, OutputStream out) throws IOException {
+        Buffer buffer = BUFFERS.get();
+        try {
+            buffer.put((byte) '[');
+            boolean first = true;
+            while (todos.hasNext()) {
+                if (!first) {
+                    buffer.put((byte) ',');
+                }
+                first = false;
+                appendTodo(buffer, todos.next());
+                if (buffer.size >= STREAM_CHUNK) {
+                    buffer.drainTo(out);
+                }
+            }
+            buffer.put((byte) ']');
+            buffer.drainTo(out);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Writes one todo object per line (NDJSON), passing the output on in chunks.
+     */
+    public static void writeLines(Iterator<TodoResponse> todos, OutputStream out) throws IOException {
+        Buffer buffer = BUFFERS.get();
+        try {
+            while (todos.hasNext()) {
+                appendTodo(buffer, todos.next());
+                buffer.put((byte) '\n');
+                if (buffer.size >= STREAM_CHUNK) {
+                    buffer.drainTo(out);
+                }
+            }
+            buffer.drainTo(out);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static void append(Buffer buffer, Object value) {
+        if (value instanceof TodoResponse) {
+            appendTodo(buffer, (TodoResponse) value);
+        } else if (value instanceof AuthResponse) {
+            buffer.put(TOKEN);
+            buffer.string(((AuthResponse) value).getToken());
+            buffer.put((byte) '}');
+        } else if (value instanceof List) {
+            List<?> todos = (List<?>) value;
+            buffer.put((byte) '[');
+            for (int i = 0; i < todos.size(); i++) {
+                if (i > 0) {
+                    buffer.put((byte) ',');
+                }
+                appendTodo(buffer, (TodoResponse) todos.get(i));
+            }
+            buffer.put((byte) ']');
+        } else {
+            throw new IllegalArgumentException("Not a todo or auth response: " + value);
+        }
+    }
+
+    private static void appendTodo(Buffer buffer, TodoResponse todo) {
+        if (todo == null) {
+            buffer.put(NULL);
+            return;
+        }
+        buffer.put(ID);
+        buffer.string(todo.getId());
+        buffer.put(TITLE);
+        buffer.string(todo.getTitle());
+        buffer.put(DESCRIPTION);
+        buffer.string(todo.getDescription());
+        buffer.put(STATUS);
+        buffer.string(todo.getStatus());
+        buffer.put(CREATED_AT);
+        buffer.instant(todo.getCreatedAt());
+        buffer.put(UPDATED_AT);
+        buffer.instant(todo.getUpdatedAt());
+        buffer.put(DUE_DATE);
+        buffer.string(todo.getDueDate());
+        buffer.put(VERSION);
+        buffer.number(todo.getVersion());
+        buffer.put((byte) '}');
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * A growable byte array owned by one thread, plus that thread's cached date prefix.
+     */
+    private static final class Buffer {
+        private byte[] bytes = new byte[INITIAL_CAPACITY];
+        private int size;
+        private long cachedDay = Long.MIN_VALUE;
+        // "yyyy-MM-ddT"
+        private final byte[] datePrefix = new byte[11];
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        void put(byte b) {
+            ensure(1);
+            bytes[size++] = b;
+        }
+
+        void put(byte[] raw) {
+            ensure(raw.length);
+            System.arraycopy(raw, 0, bytes, size, raw.length);
+            size += raw.length;
+        }
+
+        /**
+         * A quoted, escaped UTF-8 string with the escapes Jackson uses: the short forms for
+         * {@code " \ \b \t \n \f \r}, {@code \}{@code u00XX} for other control characters.
+         */
+        void string(String value) {
+            if (value == null) {
+                put(NULL);
+                return;
+            }
+            int length = value.length();
+            // Worst case: every char a six-byte escape
+            ensure(length * 6 + 2);
+            byte[] b = bytes;
+            int pos = size;
+            b[pos++] = '"';
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    if (c >= 0x20 && c != '"' && c != '\\') {
+                        b[pos++] = (byte) c;
+                        continue;
+                    }
+                    b[pos++] = '\\';
+                    switch (c) {
+                        case '"': b[pos++] = '"'; break;
+                        case '\\': b[pos++] = '\\'; break;
+                        case '\b': b[pos++] = 'b'; break;
+                        case '\t': b[pos++] = 't'; break;
+                        case '\n': b[pos++] = 'n'; break;
+                        case '\f': b[pos++] = 'f'; break;
+                        case '\r': b[pos++] = 'r'; break;
+                        default:
+                            b[pos++] = 'u';
+                            b[pos++] = '0';
+                            b[pos++] = '0';
+                            b[pos++] = HEX[c >> 4];
+                            b[pos++] = HEX[c & 0xF];
+                    }
+                } else if (c < 0x800) {
+                    b[pos++] = (byte) (0xC0 | (c >> 6));
+                    b[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    // Jackson escapes each half of a surrogate pair (and unpaired ones) instead of
+                    // combining them into a four-byte sequence
+                    b[pos++] = '\\';
+                    b[pos++] = 'u';
+                    b[pos++] = HEX[c >> 12];
+                    b[pos++] = HEX[(c >> 8) & 0xF];
+                    b[pos++] = HEX[(c >> 4) & 0xF];
+                    b[pos++] = HEX[c & 0xF];
+                } else {
+                    b[pos++] = (byte) (0xE0 | (c >> 12));
+                    b[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    b[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            b[pos++] = '"';
+            size = pos;
+        }
+
+        void number(long value) {
+            if (value < 0) {
+                // Not expected for versions; Long.MIN_VALUE has no positive counterpart
+                put(ascii(Long.toString(value)));
+                return;
+            }
+            ensure(19);
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            int pos = size + digits;
+            size = pos;
+            do {
+                bytes[--pos] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+        }
+
+        /**
+         * Same text as {@link Instant#toString()}; years outside 0000-9999 are left to it.
+         */
+        void instant(Instant instant) {
+            if (instant == null) {
+                put(NULL);
+                return;
+            }
+            long seconds = instant.getEpochSecond();
+            long day = Math.floorDiv(seconds, 86_400L);
+            if (day != cachedDay) {
+                LocalDate date = LocalDate.ofEpochDay(day);
+                if (date.getYear() < 0 || date.getYear() > 9999) {
+                    string(instant.toString());
+                    return;
+                }
+                digits(datePrefix, 0, date.getYear(), 4);
+                datePrefix[4] = '-';
+                digits(datePrefix, 5, date.getMonthValue(), 2);
+                datePrefix[7] = '-';
+                digits(datePrefix, 8, date.getDayOfMonth(), 2);
+                datePrefix[10] = 'T';
+                cachedDay = day;
+            }
+            int secondOfDay = (int) Math.floorMod(seconds, 86_400L);
+            int nano = instant.getNano();
+            ensure(32);
+            bytes[size++] = '"';
+            System.arraycopy(datePrefix, 0, bytes, size, datePrefix.length);
+            size += datePrefix.length;
+            digits(bytes, size, secondOfDay / 3600, 2);
+            bytes[size + 2] = ':';
+            digits(bytes, size + 3, secondOfDay / 60 % 60, 2);
+            bytes[size + 5] = ':';
+            digits(bytes, size + 6, secondOfDay % 60, 2);
+            size += 8;
+            if (nano != 0) {
+                bytes[size++] = '.';
+                if (nano % 1_000_000 == 0) {
+                    digits(bytes, size, nano / 1_000_000, 3);
+                    size += 3;
+                } else if (nano % 1_000 == 0) {
+                    digits(bytes, size, nano / 1_000, 6);
+                    size += 6;
+                } else {
+                    digits(bytes, size, nano, 9);
+                    size += 9;
+                }
+            }
+            bytes[size++] = 'Z';
+            bytes[size++] = '"';
+        }
+
+        /**
+         * Zero-padded decimal of {@code value} in exactly {@code count} bytes.
+         */
+        private static void digits(byte[] target, int offset, int value, int count) {
+            for (int i = offset + count - 1; i >= offset; i--) {
+                target[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+        }
+
+        void drainTo(OutputStream out) throws IOException {
+            if (size > 0) {
+                out.write(bytes, 0, size);
+                size = 0;
+            }
+        }
+
+        void release() {
+            size = 0;
+            if (bytes.length > MAX_RETAINED_CAPACITY) {
+                bytes = new byte[INITIAL_CAPACITY];
+            }
+        }
+    }
+}
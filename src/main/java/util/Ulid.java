@@ -0,0 +1,51 @@
+package util;
+
+import java.security.SecureRandom;
+
+/**
+ * Generates ULIDs: 26 Crockford base32 characters, a 48-bit millisecond timestamp
+ * followed by 80 random bits. Unlike UUIDs they sort by creation time, which keeps
+ * {@code TODO#<ulid>} sort keys in creation order within a user's partition.
+ */
+public final class Ulid {
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private Ulid() {
+    }
+
+    public static String generate() {
+        return generate(System.currentTimeMillis());
+    }
+
+    static String generate(long timestampMillis) {
+        byte[] random = new byte[10];
+        RANDOM.nextBytes(random);
+
+        char[] chars = new char[26];
+        // 48-bit timestamp -> 10 characters of 5 bits (top 2 bits are always zero)
+        for (int i = 9; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (timestampMillis & 0x1F)];
+            timestampMillis >>>= 5;
+        }
+        // 80 random bits -> 16 characters
+        long high = 0;
+        for (int i = 0; i < 5; i++) {
+            high = (high << 8) | (random[i] & 0xFF);
+        }
+        long low = 0;
+        for (int i = 5; i < 10; i++) {
+            low = (low << 8) | (random[i] & 0xFF);
+        }
+        for (int i = 17; i >= 10; i--) {
+            chars[i] = ALPHABET[(int) (high & 0x1F)];
+            high >>>= 5;
+        }
+        for (int i = 25; i >= 18; i--) {
+            chars[i] = ALPHABET[(int) (low & 0x1F)];
+            low >>>= 5;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,42 @@
+package benchmark;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import repository.DynamoDbScanCheckpointStore;
+import repository.HedgedReads;
+import repository.ParallelScanner;
+import repository.TodoRepositoryImpl;
+import repository.TodoShards;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * Wiring for benchmarks that need a real DynamoDB endpoint. Defaults to DynamoDB Local
+ * from compose.yaml; override with {@code -Ddynamodb.endpoint=...}.
+ */
+final class BenchmarkDynamoDb {
+
+    private BenchmarkDynamoDb() {
+    }
+
+    static DynamoDbClient client() {
+        return DynamoDbClient.builder()
+                .endpointOverride(URI.create(System.getProperty("dynamodb.endpoint", "http://localhost:8000")))
+                .region(Region.EU_CENTRAL_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("dummy", "dummy")))
+                .build();
+    }
+
+    static TodoRepositoryImpl todoRepository(DynamoDbClient client) {
+        TodoRepositoryImpl repository = new TodoRepositoryImpl(client,
+                new ParallelScanner(client, new DynamoDbScanCheckpointStore(client)), HedgedReads.disabled(),
+                TodoShards.disabled(), false, Duration.ofMinutes(5), false);
+        // Normally run by Spring as @PostConstruct
+        ReflectionTestUtils.invokeMethod(repository, "createTableIfNotExists");
+        return repository;
+    }
+}
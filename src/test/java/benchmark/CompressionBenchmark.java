@@ -0,0 +1,87 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import model.TodoResponse;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.ResponseCompressor;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of gzipping a {@code GET /api/todos} body against the bytes it saves, at
+ * typical list sizes. {@code rawBytes} and {@code compressedBytes} are reported as
+ * secondary results next to the time per compression.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="CompressionBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int todoCount;
+
+    private byte[] body;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sizes {
+        public long rawBytes;
+        public long compressedBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void buildBody() throws Exception {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+        Instant now = Instant.now();
+        List<TodoResponse> todos = new ArrayList<>();
+        for (int i = 0; i < todoCount; i++) {
+            TodoResponse todo = new TodoResponse();
+            todo.setId(UUID.randomUUID().toString());
+            todo.setTitle("Todo number " + i);
+            todo.setDescription("Remember to follow up on item " + i + " before the weekly review");
+            todo.setStatus(i % 3 == 0 ? "COMPLETED" : "PENDING");
+            todo.setCreatedAt(now.minusSeconds(i * 60L));
+            todo.setUpdatedAt(now.minusSeconds(i * 30L));
+            todos.add(todo);
+        }
+        body = mapper.writeValueAsBytes(todos);
+    }
+
+    @Benchmark
+    public byte[] gzip(Sizes sizes) {
+        byte[] compressed = ResponseCompressor.gzip(body);
+        sizes.rawBytes = body.length;
+        sizes.compressedBytes = compressed.length;
+        return compressed;
+    }
+}
@@ -0,0 +1,80 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import exception.ErrorCode;
+import exception.TodoNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU and allocation of the 404 path: throwing "todo not found" from {@code stackDepth}
+ * frames down (a request reaches the service through ~100 frames of filters, Spring MVC
+ * and proxies) and turning it into a response body.
+ * <ul>
+ *     <li>{@code previous}: a RuntimeException with a stack trace, a fresh HashMap body, Jackson serialization</li>
+ *     <li>{@code errorCode}: a stackless {@link TodoNotFoundException} and the code's prebuilt body</li>
+ * </ul>
+ * Run with the GC profiler for {@code gc.alloc.rate.norm} (bytes per operation):
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="ErrorResponseBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    @Param({"20", "100"})
+    public int stackDepth;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Benchmark
+    public byte[] previous() throws Exception {
+        try {
+            throwFrom(stackDepth, false);
+            throw new AssertionError();
+        } catch (RuntimeException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return mapper.writeValueAsBytes(error);
+        }
+    }
+
+    @Benchmark
+    public byte[] errorCode() {
+        try {
+            throwFrom(stackDepth, true);
+            throw new AssertionError();
+        } catch (TodoNotFoundException e) {
+            return e.getCode().toResponse().getBody();
+        }
+    }
+
+    private static void throwFrom(int depth, boolean stackless) {
+        if (depth > 0) {
+            throwFrom(depth - 1, stackless);
+            return;
+        }
+        throw stackless
+                ? new TodoNotFoundException(ErrorCode.TODO_NOT_FOUND.getMessage())
+                : new RuntimeException("Todo not found");
+    }
+}
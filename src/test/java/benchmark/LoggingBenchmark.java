@@ -0,0 +1,91 @@
+package benchmark;
+
+import exception.GlobalExceptionHandler;
+import exception.TodoNotFoundException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a request that ends in a logged client error (a 404 from
+ * {@link GlobalExceptionHandler}), as bad-client traffic produces, under each logging mode:
+ * <ul>
+ *     <li>{@code log4j2.xml}, unsampled: the previous setup, every line written on the request thread</li>
+ *     <li>{@code log4j2.xml}, sampled: the same appenders behind the {@code LogSampler}</li>
+ *     <li>{@code log4j2-async.xml}: async JSON loggers, with and without sampling</li>
+ * </ul>
+ * Stdout and the log file go to a temporary directory, so the console cost is that of a
+ * file or pipe as in a container or Lambda. With the async mode unsampled, the benchmark
+ * logs faster than the background writer can drain, so its result converges on the writer's
+ * throughput once the ring buffer is full; sampled, the writer keeps up.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="LoggingBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class LoggingBenchmark {
+
+    @Param({"log4j2.xml", "log4j2-async.xml"})
+    public String config;
+
+    @Param({"false", "true"})
+    public boolean sampled;
+
+    private Path directory;
+    private PrintStream stdout;
+    private PrintStream originalStdout;
+    private GlobalExceptionHandler handler;
+
+    @Setup(Level.Trial)
+    public void configureLogging() throws Exception {
+        directory = Files.createTempDirectory("logging-benchmark");
+        originalStdout = System.out;
+        stdout = new PrintStream(new FileOutputStream(directory.resolve("stdout.log").toFile()), true);
+        System.setOut(stdout);
+        System.setProperty("LOG_PATH", directory.toString());
+        Configurator.reconfigure(getClass().getClassLoader().getResource(config).toURI());
+        handler = new GlobalExceptionHandler(sampled ? 10 : Integer.MAX_VALUE, Duration.ofMinutes(1));
+    }
+
+    @TearDown(Level.Trial)
+    public void restore() {
+        handler.shutdown();
+        LogManager.shutdown();
+        System.setOut(originalStdout);
+        stdout.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> todoNotFound() {
+        return handler.handleDomain(new TodoNotFoundException("Todo not found with id: 01HZXJ6Y0Q8W4T2V9K3M5N7P1R"));
+    }
+}
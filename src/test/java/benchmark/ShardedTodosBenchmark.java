@@ -0,0 +1,196 @@
+package benchmark;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import model.Todo;
+import model.User;
+import repository.ParallelScanner;
+import repository.ShardMerge;
+import repository.TodoShards;
+import repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Throughput of one hot user's todos against the number of index shards. DynamoDB Local does
+ * not enforce per-partition limits, so the index partitions are modelled: each partition key
+ * accepts {@value #PARTITION_WRITES_PER_SECOND} writes per second (DynamoDB's per-partition
+ * write limit; throttled writes wait for capacity as the SDK's retries would), a write takes
+ * {@value #WRITE_LATENCY_MICROS} µs, and a query page of {@value #PAGE_SIZE} items takes
+ * {@value #PAGE_LATENCY_MICROS} µs.
+ * <ul>
+ *     <li>{@code write}: 32 threads creating todos for the same user, each placed by
+ *     {@link TodoShards#shardFor} for a user with {@code shards} shards. Expect about 1000 ops/s
+ *     per shard until the threads' own latency becomes the limit.</li>
+ *     <li>{@code listAll}: reading the user's {@code todoCount} todos through {@link ShardMerge}.
+ *     With one shard every page is fetched in turn; with {@code n} shards the shards are read in
+ *     parallel, so whole-list reads per second grow with {@code n}.</li>
+ * </ul>
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="ShardedTodosBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardedTodosBenchmark {
+
+    private static final int PARTITION_WRITES_PER_SECOND = 1000;
+    private static final int WRITE_LATENCY_MICROS = 4000;
+    private static final int PAGE_SIZE = 100;
+    private static final int PAGE_LATENCY_MICROS = 8000;
+    private static final String USER_ID = "hot-user";
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int shards;
+
+    @Param({"10000"})
+    public int todoCount;
+
+    private TodoShards todoShards;
+    private List<Bucket> partitions;
+    private List<List<String>> shardKeys;
+    private ExecutorService readers;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        todoShards = new TodoShards(new FixedShardsUserRepository(shards), true, 16, Duration.ofMinutes(1), 1);
+        partitions = new ArrayList<>(shards);
+        shardKeys = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            partitions.add(Bucket.builder()
+                    .addLimit(Bandwidth.classic(PARTITION_WRITES_PER_SECOND,
+                            Refill.greedy(PARTITION_WRITES_PER_SECOND, Duration.ofSeconds(1))))
+                    .build());
+            shardKeys.add(new ArrayList<>());
+        }
+        // createdAt sort keys, each shard's list in index order
+        Instant start = Instant.parse("2025-01-01T00:00:00Z");
+        for (int i = 0; i < todoCount; i++) {
+            shardKeys.get(todoShards.shardFor(newTodo())).add(start.plusSeconds(i).toString());
+        }
+        readers = Executors.newFixedThreadPool(Math.max(shards, 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        readers.shutdownNow();
+        todoShards.shutdown();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public void write() throws InterruptedException {
+        partitions.get(todoShards.shardFor(newTodo())).asBlocking().consume(1);
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(WRITE_LATENCY_MICROS));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long listAll() {
+        List<Iterator<List<String>>> pages = new ArrayList<>(shards);
+        for (List<String> keys : shardKeys) {
+            pages.add(new SimulatedPages(keys));
+        }
+        return ShardMerge.merge(pages, key -> key, false, readers).count();
+    }
+
+    private static Todo newTodo() {
+        Todo todo = new Todo();
+        todo.setId(UUID.randomUUID().toString());
+        todo.setUserId(USER_ID);
+        return todo;
+    }
+
+    /**
+     * The hot user with its shard count raised long ago, so new todos use all of it.
+     */
+    private static final class FixedShardsUserRepository implements UserRepository {
+        private final User user = new User();
+
+        private FixedShardsUserRepository(int shards) {
+            user.setUsername(USER_ID);
+            user.setTodoShards(shards);
+        }
+
+        @Override
+        public void save(User user) {
+        }
+
+        @Override
+        public Optional<User> findById(String id) {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<User> findByUsername(String username) {
+            return USER_ID.equals(username) ? Optional.of(user) : Optional.empty();
+        }
+
+        @Override
+        public void deleteById(String id) {
+        }
+
+        @Override
+        public ParallelScanner.Result scanUsernames(Consumer<String> consumer) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * A shard's query result, handed out a page at a time with the page latency.
+     */
+    private static final class SimulatedPages implements Iterator<List<String>> {
+        private final List<String> keys;
+        private int position;
+
+        private SimulatedPages(List<String> keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position < keys.size();
+        }
+
+        @Override
+        public List<String> next() {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(PAGE_LATENCY_MICROS));
+            int end = Math.min(position + PAGE_SIZE, keys.size());
+            List<String> page = keys.subList(position, end);
+            position = end;
+            return page;
+        }
+    }
+}
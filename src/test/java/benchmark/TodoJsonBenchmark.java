@@ -0,0 +1,92 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import model.TodoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.TodoJson;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a {@code GET /api/todos} body: the application's ObjectMapper against the
+ * hand-written {@link TodoJson}, both writing to a discarding stream as the HTTP converter
+ * writes to the response. Setup fails if the two outputs differ. Run with {@code -prof gc}
+ * to compare allocation per list as well.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="TodoJsonBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TodoJsonBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int todoCount;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+
+    private final OutputStream sink = OutputStream.nullOutputStream();
+
+    private List<TodoResponse> todos;
+
+    @Setup(Level.Trial)
+    public void buildTodos() throws Exception {
+        Instant now = Instant.now();
+        todos = new ArrayList<>();
+        for (int i = 0; i < todoCount; i++) {
+            TodoResponse todo = new TodoResponse();
+            todo.setId(UUID.randomUUID().toString());
+            todo.setTitle("Todo number " + i);
+            todo.setDescription(i % 2 == 0 ? null : "Remember to follow up on item " + i + " before the weekly review");
+            todo.setStatus(i % 3 == 0 ? "COMPLETED" : "PENDING");
+            todo.setCreatedAt(now.minusSeconds(i * 3_600L));
+            todo.setUpdatedAt(now.minusSeconds(i * 60L));
+            todo.setDueDate(i % 4 == 0 ? "2025-06-30" : null);
+            todo.setVersion(i);
+            todos.add(todo);
+        }
+        if (!Arrays.equals(mapper.writeValueAsBytes(todos), TodoJson.toBytes(todos))) {
+            throw new IllegalStateException("TodoJson output differs from Jackson");
+        }
+    }
+
+    @Benchmark
+    public void jackson() throws IOException {
+        mapper.writeValue(sink, todos);
+    }
+
+    @Benchmark
+    public void todoJson() throws IOException {
+        TodoJson.write(todos, sink);
+    }
+}
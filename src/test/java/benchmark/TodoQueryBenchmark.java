@@ -0,0 +1,94 @@
+package benchmark;
+
+import model.Todo;
+import model.TodoQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.TodoRepository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares a status key-condition query against reading the whole list and filtering
+ * in memory, for a user whose list grows while the number of matches stays fixed.
+ * The key-condition query should stay flat across {@code totalTodos}; the in-memory
+ * filter grows linearly with it.
+ *
+ * <p>Needs DynamoDB Local ({@code docker compose up dynamodb-local}), then:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="TodoQueryBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TodoQueryBenchmark {
+
+    private static final int MATCHING_TODOS = 20;
+
+    @Param({"100", "1000", "10000"})
+    public int totalTodos;
+
+    private DynamoDbClient client;
+    private TodoRepository repository;
+    private String userId;
+    private TodoQuery pendingQuery;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        client = BenchmarkDynamoDb.client();
+        repository = BenchmarkDynamoDb.todoRepository(client);
+        userId = "bench-" + UUID.randomUUID();
+        pendingQuery = TodoQuery.of("PENDING", null, null, null, null, null, Set.of());
+
+        Instant start = Instant.now();
+        IntStream.range(0, totalTodos).parallel().forEach(i -> {
+            Todo todo = new Todo();
+            todo.setId(UUID.randomUUID().toString());
+            todo.setUserId(userId);
+            todo.setTitle("Benchmark todo " + i);
+            todo.setDescription("x".repeat(200));
+            todo.setStatus(i < MATCHING_TODOS ? "PENDING" : "COMPLETED");
+            todo.setCreatedAt(start.plusMillis(i));
+            todo.setUpdatedAt(start.plusMillis(i));
+            repository.save(todo);
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        client.close();
+    }
+
+    @Benchmark
+    public long keyConditionQuery() {
+        return repository.query(userId, pendingQuery).count();
+    }
+
+    @Benchmark
+    public long filterInMemory() {
+        return repository.findByUserId(userId)
+                .filter(todo -> "PENDING".equals(todo.getStatus()))
+                .count();
+    }
+}
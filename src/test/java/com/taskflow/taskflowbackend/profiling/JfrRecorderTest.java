@@ -0,0 +1,83 @@
+package com.taskflow.taskflowbackend.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrRecorderTest {
+
+    @TempDir
+    Path directory;
+
+    private JfrRecorder recorder;
+
+    @AfterEach
+    void tearDown() {
+        if (recorder != null) {
+            recorder.shutdown();
+        }
+    }
+
+    private JfrRecorder recorder() {
+        recorder = new JfrRecorder(directory.toString(), Duration.ofMinutes(1), DataSize.ofMegabytes(50), 3);
+        return recorder;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String recordingName(Map<String, Object> status) {
+        return (String) ((Map<String, Object>) status.get("recording")).get("name");
+    }
+
+    @Test
+    void testRecordingCapturesCustomEvents() throws Exception {
+        JfrRecorder recorder = recorder();
+        String name = recordingName(recorder.start("default"));
+
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.operation = "matches";
+        event.begin();
+        event.commit();
+        recorder.stop();
+
+        Path file = recorder.file(name).orElseThrow();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("com.taskflow.PasswordHash")
+                && "matches".equals(e.getString("operation"))));
+    }
+
+    @Test
+    void testOnlyOneRecordingAtATime() {
+        JfrRecorder recorder = recorder();
+        recorder.start(null);
+
+        assertThrows(IllegalStateException.class, () -> recorder.start("profile"));
+        recorder.stop();
+        assertThrows(IllegalStateException.class, recorder::stop);
+    }
+
+    @Test
+    void testUnknownTemplateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> recorder().start("../../etc/passwd"));
+    }
+
+    @Test
+    void testRunningOrForeignFilesAreNotServed() {
+        JfrRecorder recorder = recorder();
+        String name = recordingName(recorder.start("default"));
+
+        assertTrue(recorder.file(name).isEmpty());
+        assertTrue(recorder.file("../secrets").isEmpty());
+        recorder.stop();
+        assertTrue(recorder.file(name).isPresent());
+    }
+}
@@ -0,0 +1,159 @@
+package com.taskflow.taskflowbackend.tracing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TailSamplingSpanProcessorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CapturingExporter exported = new CapturingExporter();
+    private SdkTracerProvider provider;
+
+    @AfterEach
+    void tearDown() {
+        if (provider != null) {
+            provider.shutdown();
+        }
+    }
+
+    private Tracer tracer(double headProbability, boolean tail) {
+        provider = SdkTracerProvider.builder()
+                .setSampler(HeadTailSampler.create(headProbability, tail))
+                .addSpanProcessor(SimpleSpanProcessor.create(exported))
+                .addSpanProcessor(new TailSamplingSpanProcessor(exported, Duration.ofMillis(500), 10, registry))
+                .build();
+        return provider.get("test");
+    }
+
+    /**
+     * A request span with one child; the request lasts {@code millis} and the child ends with {@code status}.
+     */
+    private static void request(Tracer tracer, long millis, StatusCode status) {
+        long start = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        Span root = tracer.spanBuilder("GET /api/todos").setStartTimestamp(start, TimeUnit.NANOSECONDS).startSpan();
+        try (Scope scope = root.makeCurrent()) {
+            Span child = tracer.spanBuilder("TodoService.listTodos").startSpan();
+            child.setStatus(status);
+            child.end();
+        }
+        root.end(start + TimeUnit.MILLISECONDS.toNanos(millis), TimeUnit.NANOSECONDS);
+    }
+
+    private double decisions(String decision) {
+        return registry.get("tracing.tail.traces").tag("decision", decision).counter().count();
+    }
+
+    @Test
+    void testFastTraceIsDropped() {
+        request(tracer(0, true), 10, StatusCode.UNSET);
+
+        assertTrue(exported.spans.isEmpty());
+        assertEquals(1.0, decisions("dropped"));
+    }
+
+    @Test
+    void testSlowTraceIsKeptWhole() {
+        request(tracer(0, true), 800, StatusCode.UNSET);
+
+        assertEquals(List.of("TodoService.listTodos", "GET /api/todos"), exported.names());
+        assertEquals(1.0, decisions("kept"));
+    }
+
+    @Test
+    void testFailedTraceIsKept() {
+        request(tracer(0, true), 10, StatusCode.ERROR);
+
+        assertEquals(2, exported.spans.size());
+    }
+
+    @Test
+    void testHeadSampledTraceIsExportedOnce() {
+        request(tracer(1.0, true), 800, StatusCode.UNSET);
+
+        assertEquals(2, exported.spans.size());
+        assertEquals(0.0, decisions("kept"));
+    }
+
+    @Test
+    void testNothingIsRecordedWithSamplingOff() {
+        Tracer tracer = tracer(0, false);
+        Span root = tracer.spanBuilder("GET /api/todos").startSpan();
+        try (Scope scope = root.makeCurrent()) {
+            assertFalse(root.isRecording());
+            assertFalse(tracer.spanBuilder("child").startSpan().isRecording());
+        }
+        root.end();
+
+        assertTrue(exported.spans.isEmpty());
+    }
+
+    @Test
+    void testPendingTracesAreBounded() {
+        Tracer tracer = tracer(0, true);
+        List<Span> roots = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            Span root = tracer.spanBuilder("request").startSpan();
+            try (Scope scope = root.makeCurrent()) {
+                tracer.spanBuilder("child").startSpan().end();
+            }
+            roots.add(root);
+        }
+
+        assertEquals(1.0, decisions("overflow"));
+        roots.forEach(Span::end);
+    }
+
+    @Test
+    void testTraceparentFromRequestId() {
+        String traceparent = LambdaTraceContext.traceparent("c6af9ac6-7b61-11e6-9a41-93e8deadbeef");
+        assertTrue(traceparent.startsWith("00-c6af9ac67b6111e69a4193e8deadbeef-"), traceparent);
+        assertTrue(traceparent.endsWith("-00"));
+
+        String hashed = LambdaTraceContext.traceparent("JKJaXmPLvHcESHA=");
+        assertTrue(hashed.matches("00-[0-9a-f]{32}-[0-9a-f]{16}-00"), hashed);
+        assertEquals(hashed.substring(0, 35), LambdaTraceContext.traceparent("JKJaXmPLvHcESHA=").substring(0, 35));
+    }
+
+    private static final class CapturingExporter implements SpanExporter {
+        private final List<SpanData> spans = new CopyOnWriteArrayList<>();
+
+        List<String> names() {
+            return spans.stream().map(SpanData::getName).collect(Collectors.toList());
+        }
+
+        @Override
+        public CompletableResultCode export(Collection<SpanData> batch) {
+            spans.addAll(batch);
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode flush() {
+            return CompletableResultCode.ofSuccess();
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
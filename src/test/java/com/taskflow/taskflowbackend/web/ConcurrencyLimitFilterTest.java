@@ -0,0 +1,188 @@
+package com.taskflow.taskflowbackend.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrencyLimitFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService clients = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        clients.shutdownNow();
+    }
+
+    private static MockHttpServletRequest request(String method, String path, boolean withToken) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        if (withToken) {
+            request.addHeader("Authorization", "Bearer token");
+        }
+        return request;
+    }
+
+    /**
+     * Holds {@code count} authenticated reads inside the filter until the returned latch is released.
+     */
+    private CountDownLatch occupy(ConcurrencyLimitFilter filter, int count) throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch entered = new CountDownLatch(count);
+        FilterChain blocking = (req, res) -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        for (int i = 0; i < count; i++) {
+            clients.submit(() -> {
+                filter.doFilter(request("GET", "/api/todos", true), new MockHttpServletResponse(), blocking);
+                return null;
+            });
+        }
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    @Test
+    void testPriorities() {
+        assertEquals(ConcurrencyLimitFilter.Priority.CRITICAL,
+                ConcurrencyLimitFilter.priorityOf(request("GET", "/api/health/ping", false)));
+        assertEquals(ConcurrencyLimitFilter.Priority.READ,
+                ConcurrencyLimitFilter.priorityOf(request("GET", "/api/todos", true)));
+        assertEquals(ConcurrencyLimitFilter.Priority.WRITE,
+                ConcurrencyLimitFilter.priorityOf(request("POST", "/api/todos", true)));
+        assertEquals(ConcurrencyLimitFilter.Priority.AUTH,
+                ConcurrencyLimitFilter.priorityOf(request("POST", "/api/auth/login", false)));
+        assertEquals(ConcurrencyLimitFilter.Priority.AUTH,
+                ConcurrencyLimitFilter.priorityOf(request("GET", "/api/todos", false)));
+    }
+
+    @Test
+    void testShedsOverLimitWith503AndRetryAfter() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(registry, true, 2, 2, 2, 1.5, 3);
+        CountDownLatch release = occupy(filter, 2);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/todos", true), response, (req, res) -> fail("should be shed"));
+
+        assertEquals(503, response.getStatus());
+        assertEquals("3", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("\"error\""));
+        assertEquals(1.0, registry.get("http.server.requests.shed").tag("priority", "read").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void testHealthChecksAreNeverShed() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(registry, true, 2, 2, 2, 1.5, 1);
+        CountDownLatch release = occupy(filter, 2);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean[] passed = {false};
+        filter.doFilter(request("GET", "/api/health/ping", false), response, (req, res) -> passed[0] = true);
+
+        assertTrue(passed[0]);
+        assertEquals(200, response.getStatus());
+        release.countDown();
+    }
+
+    @Test
+    void testAuthEndpointsAreShedBeforeReads() throws Exception {
+        // Limit 10: auth may use 7 slots, reads all 10
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(registry, true, 10, 10, 10, 1.5, 1);
+        CountDownLatch release = occupy(filter, 4);
+        CountDownLatch more = occupy(filter, 3);
+
+        MockHttpServletResponse login = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/api/auth/login", false), login, (req, res) -> fail("should be shed"));
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        boolean[] passed = {false};
+        filter.doFilter(request("GET", "/api/todos", true), read, (req, res) -> passed[0] = true);
+
+        assertEquals(503, login.getStatus());
+        assertTrue(passed[0]);
+        release.countDown();
+        more.countDown();
+    }
+
+    private double inFlight() {
+        return registry.get("http.server.concurrency.in-flight").gauge().value();
+    }
+
+    @Test
+    void testStreamedResponseHoldsItsSlotUntilComplete() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(registry, true, 1, 1, 1, 1.5, 1);
+        MockHttpServletRequest streamed = request("GET", "/api/todos", true);
+        streamed.setAsyncSupported(true);
+        filter.doFilter(streamed, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(1.0, inFlight());
+        MockHttpServletResponse shedResponse = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/todos", true), shedResponse, (req, res) -> fail("should be shed"));
+        assertEquals(503, shedResponse.getStatus());
+
+        ((MockAsyncContext) streamed.getAsyncContext()).complete();
+        assertEquals(0.0, inFlight());
+    }
+
+    @Test
+    void testEventStreamReleasesItsSlotAtOnce() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(registry, true, 1, 1, 1, 1.5, 1);
+        MockHttpServletRequest events = request("GET", "/api/todos/stream", true);
+        events.setAsyncSupported(true);
+        filter.doFilter(events, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertEquals(0.0, inFlight());
+    }
+
+    @Test
+    void testDisabledPassesEverythingThrough() throws Exception {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(registry, false, 1, 1, 1, 1.5, 1);
+        CountDownLatch release = occupy(filter, 1);
+
+        boolean[] passed = {false};
+        filter.doFilter(request("GET", "/api/todos", true), new MockHttpServletResponse(), (req, res) -> passed[0] = true);
+
+        assertTrue(passed[0]);
+        release.countDown();
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRisesAndGrowsWhenStable() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(50, 10, 200, 1.5);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(10_000_000, 50);
+        }
+        int steady = limit.getLimit();
+        assertTrue(steady > 50, "limit should grow while latency is stable, was " + steady);
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(100_000_000, steady);
+        }
+        assertTrue(limit.getLimit() < steady, "limit should shrink when requests queue");
+    }
+
+    @Test
+    void testLimitDoesNotGrowWhenMostlyIdle() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(50, 10, 200, 1.5);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(10_000_000, 5);
+        }
+        assertEquals(50, limit.getLimit());
+    }
+}
@@ -0,0 +1,146 @@
+package com.taskflow.taskflowbackend.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import util.RequestTimings;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestTimingFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SlowRequestLog log = new SlowRequestLog(2);
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * JWT authentication with a user lookup whose repository call takes 30 ms, then a handler
+     * with a 20 ms repository call.
+     */
+    private static final FilterChain TODO_LOOKUP = (req, res) -> {
+        req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/todos/{id}");
+        RequestTimings.start(RequestTimings.Phase.JWT);
+        RequestTimings.time(RequestTimings.Phase.USER_LOOKUP, () -> {
+            RequestTimings.time(RequestTimings.Phase.REPOSITORY, () -> {
+                sleep(30);
+                return null;
+            });
+            return null;
+        });
+        RequestTimings.stop(RequestTimings.Phase.JWT);
+        RequestTimings.start(RequestTimings.Phase.HANDLER);
+        RequestTimings.time(RequestTimings.Phase.REPOSITORY, () -> {
+            sleep(20);
+            return null;
+        });
+        RequestTimings.stop(RequestTimings.Phase.HANDLER);
+    };
+
+    @Test
+    void testSlowRequestIsCapturedWithExclusivePhases() throws Exception {
+        RequestTimingFilter filter = new RequestTimingFilter(log, registry, Duration.ZERO);
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/todos/42"), new MockHttpServletResponse(), TODO_LOOKUP);
+
+        List<SlowRequest> slow = log.latest();
+        assertEquals(1, slow.size());
+        SlowRequest request = slow.get(0);
+        assertEquals("/api/todos/{id}", request.getRoute());
+        assertEquals(2, request.getRepositoryCalls());
+        Map<String, Double> phases = request.getPhasesMs();
+        assertTrue(phases.get("repository") >= 50, "repository was " + phases.get("repository"));
+        // The nested repository call is not counted again in the user lookup
+        assertTrue(phases.get("userLookup") < 30, "userLookup was " + phases.get("userLookup"));
+        double sum = phases.values().stream().mapToDouble(Double::doubleValue).sum();
+        assertEquals(request.getTotalMs(), sum, 0.1);
+
+        assertEquals(1, registry.get("http.server.requests.phases")
+                .tags("uri", "/api/todos/{id}", "phase", "repository").timer().count());
+    }
+
+    @Test
+    void testFastRequestIsOnlyMeasured() throws Exception {
+        RequestTimingFilter filter = new RequestTimingFilter(log, registry, Duration.ofSeconds(10));
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/todos/42"), new MockHttpServletResponse(), TODO_LOOKUP);
+
+        assertTrue(log.latest().isEmpty());
+        assertEquals(1, registry.get("http.server.requests.phases")
+                .tags("uri", "/api/todos/{id}", "phase", "jwt").timer().count());
+    }
+
+    @Test
+    void testLogKeepsNewestWithinCapacity() throws Exception {
+        RequestTimingFilter filter = new RequestTimingFilter(log, registry, Duration.ZERO);
+        for (String method : new String[]{"GET", "PUT", "DELETE"}) {
+            filter.doFilter(new MockHttpServletRequest(method, "/api/todos/42"), new MockHttpServletResponse(),
+                    (req, res) -> { });
+        }
+
+        List<SlowRequest> slow = log.latest();
+        assertEquals(2, slow.size());
+        assertEquals("DELETE", slow.get(0).getMethod());
+        assertEquals("UNMATCHED", slow.get(0).getRoute());
+    }
+
+    @Test
+    void testStreamedResponseIsRecordedWhenComplete() throws Exception {
+        RequestTimingFilter filter = new RequestTimingFilter(log, registry, Duration.ZERO);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/todos/export");
+        request.setAsyncSupported(true);
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/todos/export");
+            req.startAsync();
+        });
+        assertTrue(log.latest().isEmpty());
+
+        // The async thread pages through the todos while writing them
+        RequestTimings writer = RequestTimings.begin();
+        RequestTimings.time(RequestTimings.Phase.REPOSITORY, () -> {
+            sleep(20);
+            return null;
+        });
+        RequestTimings.end();
+        request.setAttribute(RequestTimingFilter.ASYNC_TIMINGS_ATTRIBUTE, writer);
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        List<SlowRequest> slow = log.latest();
+        assertEquals(1, slow.size());
+        assertEquals("/api/todos/export", slow.get(0).getRoute());
+        assertEquals(1, slow.get(0).getRepositoryCalls());
+        assertTrue(slow.get(0).getTotalMs() >= 20, "total was " + slow.get(0).getTotalMs());
+    }
+
+    @Test
+    void testEventStreamIsNotRecorded() throws Exception {
+        RequestTimingFilter filter = new RequestTimingFilter(log, registry, Duration.ZERO);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/todos/stream");
+        request.setServletPath("/api/todos/stream");
+        request.setAsyncSupported(true);
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+
+        assertTrue(log.latest().isEmpty());
+    }
+
+    @Test
+    void testTimingOutsideARequestIsIgnored() {
+        assertEquals("ok", RequestTimings.time(RequestTimings.Phase.REPOSITORY, () -> "ok"));
+    }
+}
@@ -1,16 +1,34 @@
 package controller;
 
 import controller.TodoController;
+import exception.BadRequestException;
+import model.EditTodoRequest;
+import model.TodoQuery;
 import model.TodoRequest;
 import model.TodoResponse;
+import model.TodoStats;
+import service.TodoImportService;
+import service.TodoStreamService;
 import service.TodoService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -19,11 +37,16 @@ public class TodoControllerTest {
 
     private TodoService todoService;
     private TodoController todoController;
+    private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() {
         todoService = mock(TodoService.class);
-        todoController = new TodoController(todoService);
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+        todoController = new TodoController(todoService, mock(TodoImportService.class), mock(TodoStreamService.class), objectMapper);
     }
 
     @Test
@@ -54,16 +77,17 @@ public class TodoControllerTest {
         todo.setId(todoId);
         todo.setTitle("Sample Todo");
 
-        when(todoService.getTodoById(todoId)).thenReturn(todo);
+        when(todoService.getTodoById(todoId, Set.of())).thenReturn(todo);
 
-        ResponseEntity<TodoResponse> response = todoController.getTodo(todoId);
+        ResponseEntity<MappingJacksonValue> response = todoController.getTodo(todoId, null);
 
         assertEquals(200, response.getStatusCodeValue());
         assertNotNull(response.getBody());
-        assertEquals("123", response.getBody().getId());
-        assertEquals("Sample Todo", response.getBody().getTitle());
+        TodoResponse body = (TodoResponse) response.getBody().getValue();
+        assertEquals("123", body.getId());
+        assertEquals("Sample Todo", body.getTitle());
 
-        verify(todoService, times(1)).getTodoById(todoId);
+        verify(todoService, times(1)).getTodoById(todoId, Set.of());
     }
 
     @Test
@@ -77,4 +101,133 @@ public class TodoControllerTest {
         assertEquals(204, response.getStatusCodeValue());
         verify(todoService, times(1)).deleteTodo(todoId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetStats() {
+        TodoStats stats = new TodoStats();
+        stats.setTotal(3);
+        stats.setPending(2);
+        stats.setOverdue(1);
+        when(todoService.getStats()).thenReturn(stats);
+
+        ResponseEntity<TodoStats> response = todoController.getStats();
+
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(3, response.getBody().getTotal());
+        assertEquals(1, response.getBody().getOverdue());
+    }
+
+    @Test
+    void testGetAllTodosStreamsJsonArray() throws Exception {
+        TodoResponse first = new TodoResponse();
+        first.setId("1");
+        first.setTitle("First");
+        first.setCreatedAt(Instant.parse("2024-01-01T12:00:00Z"));
+        TodoResponse second = new TodoResponse();
+        second.setId("2");
+        second.setTitle("Second");
+
+        when(todoService.streamTodos(any(TodoQuery.class))).thenReturn(Stream.of(first, second));
+        ReflectionTestUtils.setField(todoController, "streamingEnabled", true);
+
+        ResponseEntity<?> response = todoController.getAllTodos(null, null, null, null, null, null, null, false);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+
+        TodoResponse[] written = objectMapper.readValue(out.toByteArray(), TodoResponse[].class);
+        assertEquals(2, written.length);
+        assertEquals("First", written[0].getTitle());
+        assertEquals(Instant.parse("2024-01-01T12:00:00Z"), written[0].getCreatedAt());
+        assertEquals("2", written[1].getId());
+        verify(todoService, never()).getTodos(any(TodoQuery.class));
+    }
+
+    @Test
+    void testGetAllTodosPassesFilterAndSortToService() {
+        when(todoService.getTodos(any(TodoQuery.class))).thenReturn(List.of());
+
+        todoController.getAllTodos("PENDING", "-dueDate", null, null, "2024-01-01", "2024-01-31", null, false);
+
+        verify(todoService).getTodos(argThat(query ->
+                "PENDING".equals(query.getStatus())
+                        && query.getSortField() == TodoQuery.SortField.DUE_DATE
+                        && query.isDescending()
+                        && "2024-01-01".equals(query.getRangeFrom())
+                        && "2024-01-31".equals(query.getRangeTo())));
+    }
+
+    @Test
+    void testGetAllTodosRejectsRangeOnOtherSortField() {
+        assertThrows(BadRequestException.class, () ->
+                todoController.getAllTodos(null, "createdAt", null, null, "2024-01-01", null, null, false));
+        verifyNoInteractions(todoService);
+    }
+
+    @Test
+    void testGetTodoWithSparseFieldset() throws Exception {
+        String todoId = "123";
+        TodoResponse todo = new TodoResponse();
+        todo.setId(todoId);
+        todo.setTitle("Sample Todo");
+        todo.setDescription("Long description");
+
+        when(todoService.getTodoById(todoId, Set.of("id", "title"))).thenReturn(todo);
+
+        MappingJacksonValue body = todoController.getTodo(todoId, "id,title").getBody();
+        String json = objectMapper.writer(body.getFilters()).writeValueAsString(body.getValue());
+
+        assertTrue(json.contains("\"title\":\"Sample Todo\""));
+        assertFalse(json.contains("description"));
+    }
+
+    @Test
+    void testGetTodoRejectsUnknownField() {
+        assertThrows(BadRequestException.class, () -> todoController.getTodo("123", "id,password"));
+        verifyNoInteractions(todoService);
+    }
+
+    @Test
+    void testExportTodosWritesOneRecordPerLine() throws Exception {
+        TodoResponse first = new TodoResponse();
+        first.setId("1");
+        first.setTitle("First");
+        TodoResponse second = new TodoResponse();
+        second.setId("2");
+        second.setTitle("Second");
+
+        when(todoService.streamAllTodos()).thenReturn(Stream.of(first, second));
+        ReflectionTestUtils.setField(todoController, "streamingEnabled", true);
+
+        ResponseEntity<?> response = todoController.exportTodos();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ((StreamingResponseBody) response.getBody()).writeTo(out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("First", objectMapper.readValue(lines[0], TodoResponse.class).getTitle());
+        assertEquals("2", objectMapper.readValue(lines[1], TodoResponse.class).getId());
+    }
+
+    @Test
+    void testEditTodoPassesIfMatchVersionAndReturnsETag() {
+        EditTodoRequest request = new EditTodoRequest();
+        request.setTitle("Updated");
+        TodoResponse edited = new TodoResponse();
+        edited.setId("1");
+        edited.setVersion(4);
+        when(todoService.editTodo("1", request, 3L)).thenReturn(edited);
+
+        ResponseEntity<TodoResponse> response = todoController.editTodo("1", request, "\"3\"");
+
+        assertEquals("\"4\"", response.getHeaders().getETag());
+        verify(todoService).editTodo("1", request, 3L);
+    }
+
+    @Test
+    void testParseIfMatch() {
+        assertNull(TodoController.parseIfMatch(null));
+        assertNull(TodoController.parseIfMatch("*"));
+        assertEquals(7L, TodoController.parseIfMatch("W/\"7\""));
+        assertThrows(BadRequestException.class, () -> TodoController.parseIfMatch("\"abc\""));
+    }
+}
@@ -0,0 +1,84 @@
+package exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlobalExceptionHandlerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(10, Duration.ofMinutes(1));
+
+    @AfterEach
+    void tearDown() {
+        handler.shutdown();
+    }
+
+    @Test
+    void testDomainExceptionIsAnsweredWithItsCode() throws Exception {
+        ResponseEntity<byte[]> response = handler.handleDomain(new TodoNotFoundException("Todo 42 not found"));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        JsonNode body = mapper.readTree(response.getBody());
+        assertEquals("Todo not found", body.get("error").asText());
+        assertEquals("TODO_NOT_FOUND", body.get("code").asText());
+        // The same prebuilt response every time
+        assertSame(response, handler.handleDomain(new TodoNotFoundException("Todo 43 not found")));
+    }
+
+    @Test
+    void testLoginFailuresShareOneClientMessage() throws Exception {
+        ResponseEntity<byte[]> unknownUser = handler.handleDomain(new DomainException(ErrorCode.INVALID_CREDENTIALS, "User not found"));
+        ResponseEntity<byte[]> wrongPassword = handler.handleDomain(new DomainException(ErrorCode.INVALID_CREDENTIALS, "Invalid password"));
+
+        assertEquals(HttpStatus.UNAUTHORIZED, unknownUser.getStatusCode());
+        assertArrayEquals(unknownUser.getBody(), wrongPassword.getBody());
+        assertEquals("Invalid username or password", mapper.readTree(unknownUser.getBody()).get("error").asText());
+    }
+
+    @Test
+    void testDomainExceptionsHaveNoStackTrace() {
+        DomainException ex = new TodoNotFoundException("Todo 42 not found");
+
+        assertEquals(0, ex.getStackTrace().length);
+        assertEquals(ErrorCode.TODO_NOT_FOUND, ex.getCode());
+    }
+
+    @Test
+    void testEveryCodeHasValidJsonBody() throws Exception {
+        for (ErrorCode code : ErrorCode.values()) {
+            JsonNode body = mapper.readTree(code.getBody());
+            assertEquals(code.getMessage(), body.get("error").asText());
+            assertEquals(code.name(), body.get("code").asText());
+            assertEquals(code.getStatus(), code.toResponse().getStatusCode());
+        }
+    }
+
+    @Test
+    void testBadRequestSaysWhatWasWrongWithTheInput() {
+        ResponseEntity<Map<String, String>> badRequest = handler.handleBadRequest(
+                new BadRequestException("Unknown field 'password', allowed fields are [id, title]"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, badRequest.getStatusCode());
+        assertEquals("Unknown field 'password', allowed fields are [id, title]", badRequest.getBody().get("error"));
+        assertEquals("BAD_REQUEST", badRequest.getBody().get("code"));
+    }
+
+    @Test
+    void testUnexpectedExceptionHidesDetails() throws Exception {
+        ResponseEntity<byte[]> response = handler.handleOtherExceptions(new NullPointerException("secret"));
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals("INTERNAL_ERROR", mapper.readTree(response.getBody()).get("code").asText());
+    }
+}
@@ -0,0 +1,67 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TodoCountsTest {
+
+    @Test
+    void testToggleMovesTodoBetweenStatuses() {
+        Todo todo = todo("PENDING", "2025-03-01");
+        TodoCounts before = TodoCounts.of(todo);
+        todo.setStatus("COMPLETED");
+
+        TodoCounts change = TodoCounts.of(todo).minus(before);
+
+        assertEquals(0, change.getTotal());
+        assertEquals(-1, change.getPending());
+        assertEquals(1, change.getCompleted());
+        assertEquals(Map.of("2025-03-01", -1L), change.getPendingByDueDate());
+    }
+
+    @Test
+    void testCreateAndDeleteCancelOut() {
+        TodoCounts created = TodoCounts.of(todo("PENDING", "2025-03-01"));
+
+        assertTrue(created.plus(created.negated()).isEmpty());
+        assertTrue(TodoCounts.NONE.isEmpty());
+    }
+
+    @Test
+    void testOverdueCountsPendingTodosDueBeforeToday() {
+        TodoCounts counts = TodoCounts.count(List.of(
+                todo("PENDING", "2025-02-27"),
+                todo("PENDING", "2025-02-28"),
+                todo("PENDING", "2025-02-28"),
+                todo("PENDING", "2025-03-01"),
+                todo("PENDING", null),
+                todo("COMPLETED", "2025-01-01")).iterator());
+
+        assertEquals(6, counts.getTotal());
+        assertEquals(5, counts.getPending());
+        assertEquals(1, counts.getCompleted());
+        assertEquals(3, counts.overdue(LocalDate.parse("2025-03-01")));
+        assertEquals(0, counts.overdue(LocalDate.parse("2025-02-27")));
+    }
+
+    @Test
+    void testEqualityIgnoresRevisionAndEmptyDueDates() {
+        TodoCounts stored = new TodoCounts(2, 1, 1, Map.of("2025-03-01", 1L, "2025-02-01", 0L), 7, null);
+        TodoCounts counted = TodoCounts.count(List.of(todo("PENDING", "2025-03-01"), todo("COMPLETED", null)).iterator());
+
+        assertEquals(counted, stored);
+        assertEquals(counted.hashCode(), stored.hashCode());
+    }
+
+    private static Todo todo(String status, String dueDate) {
+        Todo todo = new Todo();
+        todo.setStatus(status);
+        todo.setDueDate(dueDate);
+        return todo;
+    }
+}
@@ -0,0 +1,52 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TodoQueryTest {
+
+    @Test
+    void testCreatedRangeKeepsFractionalSecondsAtTheBoundaries() {
+        TodoQuery query = TodoQuery.of(null, null, "2024-01-01T12:00:05Z", "2024-01-01T12:00:08.5Z", null, null, Set.of());
+
+        // "12:00:05.3Z" sorts before the "12:00:05Z" it follows; the key range must still hold it
+        for (String createdAt : new String[]{"2024-01-01T12:00:05Z", "2024-01-01T12:00:05.3Z",
+                "2024-01-01T12:00:08.05Z", "2024-01-01T12:00:08.5Z"}) {
+            assertTrue(inKeyRange(query, createdAt), createdAt + " outside " + query.getRangeFrom() + ".." + query.getRangeTo());
+            assertTrue(query.matches(todo(createdAt)), createdAt);
+        }
+        assertFalse(query.matches(todo("2024-01-01T12:00:04.999Z")));
+        assertFalse(query.matches(todo("2024-01-01T12:00:08.500001Z")));
+    }
+
+    @Test
+    void testRawBoundsWouldMissFractionalTimestamps() {
+        // Why the key range is widened: compared as stored strings, a todo created 300 ms after
+        // the lower bound sorts before it
+        assertTrue(Instant.parse("2024-01-01T12:00:05.3Z").toString().compareTo("2024-01-01T12:00:05Z") < 0);
+    }
+
+    @Test
+    void testWithoutCreatedRangeEverythingMatches() {
+        TodoQuery query = TodoQuery.of("PENDING", null, null, null, "2024-01-01", null, Set.of());
+
+        assertFalse(query.hasCreatedRange());
+        assertTrue(query.matches(todo("2024-01-01T12:00:05Z")));
+        assertEquals("2024-01-01", query.getRangeFrom());
+    }
+
+    private static boolean inKeyRange(TodoQuery query, String createdAt) {
+        String key = Instant.parse(createdAt).toString();
+        return key.compareTo(query.getRangeFrom()) >= 0 && key.compareTo(query.getRangeTo()) <= 0;
+    }
+
+    private static Todo todo(String createdAt) {
+        Todo todo = new Todo();
+        todo.setCreatedAt(Instant.parse(createdAt));
+        return todo;
+    }
+}
@@ -0,0 +1,51 @@
+package repository;
+
+import model.ArchivedTodo;
+import model.Todo;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ArchivedTodoSchemaTest {
+
+    @Test
+    void testArchiveIsKeyedByOwnerAndId() {
+        TableMetadata metadata = TableSchema.fromBean(ArchivedTodo.class).tableMetadata();
+
+        assertEquals("userId", metadata.primaryPartitionKey());
+        assertEquals("id", metadata.primarySortKey().orElseThrow());
+        assertEquals("id", metadata.indexPartitionKey("id-index"));
+        assertEquals("createdAt", metadata.indexSortKey("userId-createdAt-index").orElseThrow());
+        assertEquals("dueSortKey", metadata.indexSortKey("userId-dueDate-index").orElseThrow());
+    }
+
+    @Test
+    void testArchivedItemReadsBackAsTodo() {
+        Todo todo = new Todo();
+        todo.setId("01HF7YAT00");
+        todo.setUserId("alice");
+        todo.setTitle("Buy milk");
+        todo.setStatus("COMPLETED");
+        todo.setCreatedAt(Instant.parse("2024-01-01T12:00:00Z"));
+        todo.setCompletedAt(Instant.parse("2024-01-02T12:00:00Z"));
+        todo.setVersion(3L);
+
+        // The archiver copies the item from todos as it is, plus archivedAt
+        Map<String, AttributeValue> item = TableSchema.fromBean(Todo.class).itemToMap(todo, true);
+        Todo archived = TableSchema.fromBean(ArchivedTodo.class).mapToItem(Map.of(
+                "id", item.get("id"), "userId", item.get("userId"), "title", item.get("title"),
+                "status", item.get("status"), "completedAt", item.get("completedAt"),
+                "version", item.get("version"), "archivedAt", AttributeValue.fromS("2024-02-01T12:00:00Z")));
+
+        assertEquals("Buy milk", archived.getTitle());
+        assertEquals(Instant.parse("2024-01-02T12:00:00Z"), archived.getCompletedAt());
+        assertEquals(Instant.parse("2024-02-01T12:00:00Z"), archived.getArchivedAt());
+        assertEquals(3L, archived.getVersion());
+    }
+}
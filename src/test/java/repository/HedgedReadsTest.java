@@ -0,0 +1,122 @@
+package repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HedgedReadsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private HedgedReads hedgedReads;
+
+    @AfterEach
+    void tearDown() {
+        if (hedgedReads != null) {
+            hedgedReads.shutdown();
+        }
+    }
+
+    /**
+     * Enabled with a 20 ms threshold floor and enough fast reads recorded to start hedging.
+     */
+    private HedgedReads warmedUp(double maxExtraPercent) {
+        HedgedReads reads = new HedgedReads(registry, true, 0.95, maxExtraPercent, Duration.ofMillis(20), 4);
+        for (int i = 0; i < 128; i++) {
+            reads.read("get", () -> "fast");
+        }
+        // Latencies are recorded as the reads complete, which can trail the last return slightly
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get("dynamodb.hedging.threshold").gauge().value() == 0 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        return reads;
+    }
+
+    private double count(String name, String... tags) {
+        return registry.get(name).tags(tags).counter().count();
+    }
+
+    @Test
+    void testDisabledRunsOnCallerThread() {
+        hedgedReads = HedgedReads.disabled();
+        Thread caller = Thread.currentThread();
+
+        assertSame(caller, hedgedReads.read("get", Thread::currentThread));
+    }
+
+    @Test
+    void testSlowPrimaryIsHedgedAndCancelled() throws InterruptedException {
+        hedgedReads = warmedUp(5);
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch primaryInterrupted = new CountDownLatch(1);
+
+        String result = hedgedReads.read("get", () -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(5000);
+                } catch (InterruptedException e) {
+                    primaryInterrupted.countDown();
+                    throw new IllegalStateException("aborted");
+                }
+                return "primary";
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", result);
+        assertEquals(2, attempts.get());
+        assertTrue(primaryInterrupted.await(5, TimeUnit.SECONDS));
+        assertEquals(1.0, count("dynamodb.hedging.hedges", "operation", "get"));
+        assertEquals(1.0, count("dynamodb.hedging.wins", "operation", "get", "winner", "hedge"));
+    }
+
+    @Test
+    void testFastPrimaryIsNotHedged() {
+        hedgedReads = warmedUp(5);
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertEquals("primary", hedgedReads.read("get", () -> {
+            attempts.incrementAndGet();
+            return "primary";
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, count("dynamodb.hedging.hedges", "operation", "get"));
+    }
+
+    @Test
+    void testBudgetCapsHedges() {
+        hedgedReads = warmedUp(0);
+        for (int i = 0; i < 12; i++) {
+            hedgedReads.read("get", () -> {
+                try {
+                    Thread.sleep(40);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "slow";
+            });
+        }
+
+        // The budget starts with ten hedges and a 0% share never refills it
+        assertEquals(10.0, count("dynamodb.hedging.hedges", "operation", "get"));
+        assertEquals(2.0, count("dynamodb.hedging.budget.exhausted", "operation", "get"));
+    }
+
+    @Test
+    void testErrorsPropagateUnwrapped() {
+        hedgedReads = warmedUp(5);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> hedgedReads.read("get", () -> {
+                    throw new IllegalArgumentException("bad key");
+                }));
+        assertEquals("bad key", e.getMessage());
+    }
+}
@@ -0,0 +1,138 @@
+package repository;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.Select;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ParallelScannerTest {
+
+    private final DynamoDbClient dynamoDbClient = mock(DynamoDbClient.class);
+    private final InMemoryCheckpointStore checkpointStore = new InMemoryCheckpointStore();
+    private final ParallelScanner scanner = new ParallelScanner(dynamoDbClient, checkpointStore);
+
+    /**
+     * Every segment holds two pages of one item each: "s<segment>-p0" and "s<segment>-p1".
+     */
+    private void stubTwoPagesPerSegment() {
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            boolean secondPage = request.hasExclusiveStartKey();
+            String id = "s" + request.segment() + "-p" + (secondPage ? 1 : 0);
+            ScanResponse.Builder page = ScanResponse.builder()
+                    .items(List.of(Map.of("id", AttributeValue.fromS(id))))
+                    .count(1)
+                    .consumedCapacity(ConsumedCapacity.builder().capacityUnits(0.5).build());
+            if (!secondPage) {
+                page.lastEvaluatedKey(Map.of("id", AttributeValue.fromS(id)));
+            }
+            return page.build();
+        });
+    }
+
+    @Test
+    void testScansEverySegmentToTheEnd() {
+        stubTwoPagesPerSegment();
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+
+        ParallelScanner.Result result = scanner.scan(ScanJob.of("todos").segments(4),
+                item -> seen.add(item.get("id").s()));
+
+        assertEquals(8, result.getItems());
+        assertEquals(4, result.getSegmentsCompleted());
+        assertEquals(4.0, result.getReadCapacity(), 0.001);
+        assertEquals(Set.of("s0-p0", "s0-p1", "s1-p0", "s1-p1", "s2-p0", "s2-p1", "s3-p0", "s3-p1"), seen);
+        verify(dynamoDbClient, times(8)).scan(any(ScanRequest.class));
+    }
+
+    @Test
+    void testResumableJobSkipsFinishedSegmentsAndResumesOthers() {
+        stubTwoPagesPerSegment();
+        checkpointStore.save("backfill/2", 0, null);
+        checkpointStore.save("backfill/2", 1, Map.of("id", AttributeValue.fromS("s1-p0")));
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+
+        ParallelScanner.Result result = scanner.scan(ScanJob.of("todos").segments(2).resumable("backfill"),
+                item -> seen.add(item.get("id").s()));
+
+        assertEquals(Set.of("s1-p1"), seen);
+        assertEquals(1, result.getSegmentsCompleted());
+        assertEquals(1, result.getSegmentsSkipped());
+        assertTrue(checkpointStore.load("backfill/2", 1).orElseThrow().isDone());
+    }
+
+    @Test
+    void testCheckpointsAreSavedAfterEveryPage() {
+        stubTwoPagesPerSegment();
+
+        scanner.scan(ScanJob.of("todos").segments(1).resumable("backfill"), item -> { });
+
+        assertEquals(List.of("s0-p0", "<done>"), checkpointStore.history);
+    }
+
+    @Test
+    void testCountUsesCustomizedRequest() {
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenAnswer(invocation -> {
+            ScanRequest request = invocation.getArgument(0);
+            assertEquals(Select.COUNT, request.select());
+            return ScanResponse.builder().items(Collections.emptyList()).count(5).build();
+        });
+
+        ParallelScanner.Result result = scanner.scan(
+                ScanJob.of("todos").segments(3).customize(scan -> scan.select(Select.COUNT)), item -> fail("no items expected"));
+
+        assertEquals(15, result.getItems());
+    }
+
+    @Test
+    void testFailedSegmentFailsTheJob() {
+        when(dynamoDbClient.scan(any(ScanRequest.class))).thenThrow(new IllegalStateException("throttled"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> scanner.scan(ScanJob.of("todos").segments(2), item -> { }));
+        assertEquals("throttled", e.getMessage());
+    }
+
+    private static final class InMemoryCheckpointStore implements ScanCheckpointStore {
+        private final Map<String, Map<String, AttributeValue>> keys = new ConcurrentHashMap<>();
+        private final Set<String> done = ConcurrentHashMap.newKeySet();
+        private final List<String> history = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public Optional<Checkpoint> load(String checkpointId, int segment) {
+            String key = checkpointId + "#" + segment;
+            if (done.contains(key)) {
+                return Optional.of(new Checkpoint(null));
+            }
+            return Optional.ofNullable(keys.get(key)).map(Checkpoint::new);
+        }
+
+        @Override
+        public void save(String checkpointId, int segment, Map<String, AttributeValue> lastEvaluatedKey) {
+            String key = checkpointId + "#" + segment;
+            if (lastEvaluatedKey == null) {
+                keys.remove(key);
+                done.add(key);
+                history.add("<done>");
+            } else {
+                keys.put(key, lastEvaluatedKey);
+                history.add(lastEvaluatedKey.get("id").s());
+            }
+        }
+    }
+}
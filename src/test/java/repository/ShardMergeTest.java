@@ -0,0 +1,108 @@
+package repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardMergeTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One shard's result pages, {@code pageSize} keys per page.
+     */
+    private static Iterator<List<String>> pages(int pageSize, String... keys) {
+        List<List<String>> pages = new ArrayList<>();
+        for (int i = 0; i < keys.length; i += pageSize) {
+            pages.add(List.of(keys).subList(i, Math.min(i + pageSize, keys.length)));
+        }
+        return pages.iterator();
+    }
+
+    private List<String> merge(boolean descending, List<Iterator<List<String>>> shards) {
+        return ShardMerge.merge(shards, Function.identity(), descending, executor).collect(Collectors.toList());
+    }
+
+    @Test
+    void testMergesShardsInSortKeyOrder() {
+        List<String> merged = merge(false, List.of(
+                pages(2, "2024-01-01", "2024-01-04", "2024-01-07"),
+                pages(1, "2024-01-02", "2024-01-05"),
+                pages(2),
+                pages(3, "2024-01-03", "2024-01-06", "2024-01-08", "2024-01-09")));
+
+        assertEquals(List.of("2024-01-01", "2024-01-02", "2024-01-03", "2024-01-04", "2024-01-05",
+                "2024-01-06", "2024-01-07", "2024-01-08", "2024-01-09"), merged);
+    }
+
+    @Test
+    void testDescendingMergesLargestFirst() {
+        List<String> merged = merge(true, List.of(
+                pages(2, "c", "a"),
+                pages(2, "d", "b")));
+
+        assertEquals(List.of("d", "c", "b", "a"), merged);
+    }
+
+    @Test
+    void testEqualKeysComeOutInShardOrder() {
+        List<Iterator<List<Object[]>>> shards = List.of(
+                List.of(List.<Object[]>of(new Object[]{"k", 0})).iterator(),
+                List.of(List.<Object[]>of(new Object[]{"k", 1})).iterator(),
+                List.of(List.<Object[]>of(new Object[]{"k", 2})).iterator());
+
+        List<Object> order = ShardMerge.merge(shards, item -> (String) item[0], false, executor)
+                .map(item -> item[1])
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(0, 1, 2), order);
+    }
+
+    @Test
+    void testSingleShardIsPassedThrough() {
+        assertEquals(List.of("a", "b", "c"), merge(false, List.of(pages(2, "a", "b", "c"))));
+    }
+
+    @Test
+    void testShardFailureReachesTheReader() {
+        Iterator<List<String>> failing = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public List<String> next() {
+                throw new IllegalStateException("throttled");
+            }
+        };
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> merge(false, List.of(pages(1, "a"), failing)));
+        assertEquals("throttled", e.getMessage());
+    }
+
+    @Test
+    void testLimitStopsEarly() {
+        List<String> firstTwo = ShardMerge.merge(List.of(pages(1, "a", "c", "e"), pages(1, "b", "d", "f")),
+                        Function.identity(), false, executor)
+                .limit(2)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of("a", "b"), firstTwo);
+    }
+}
@@ -0,0 +1,50 @@
+package repository;
+
+import model.Todo;
+import model.User;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleTableSchemasTest {
+
+    @Test
+    void testTodoSharesTheUserPartition() {
+        Todo todo = new Todo();
+        todo.setId("01HF7YAT00");
+        todo.setUserId("alice");
+        todo.setTitle("Buy milk");
+        todo.setStatus("PENDING");
+        todo.setCreatedAt(Instant.parse("2024-01-01T12:00:00Z"));
+        todo.setVersion(3L);
+
+        Map<String, AttributeValue> item = SingleTableSchemas.TODO.itemToMap(todo, true);
+
+        assertEquals("USER#alice", item.get("PK").s());
+        assertEquals("TODO#01HF7YAT00", item.get("SK").s());
+        assertEquals("TODO", item.get("entity").s());
+        assertEquals("PENDING#2024-01-01T12:00:00Z", item.get("statusCreatedAt").s());
+        assertEquals("PENDING#" + Todo.NO_DUE_DATE, item.get("statusDueSortKey").s());
+
+        Todo read = SingleTableSchemas.TODO.mapToItem(item);
+        assertEquals("Buy milk", read.getTitle());
+        assertEquals(3L, read.getVersion());
+    }
+
+    @Test
+    void testUserProfileKey() {
+        User user = new User();
+        user.setId("42");
+        user.setUsername("alice");
+
+        Map<String, AttributeValue> item = SingleTableSchemas.USER.itemToMap(user, true);
+
+        assertEquals("USER#alice", item.get("PK").s());
+        assertEquals("PROFILE", item.get("SK").s());
+        assertEquals("42", item.get("id").s());
+    }
+}
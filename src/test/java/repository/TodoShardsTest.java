@@ -0,0 +1,121 @@
+package repository;
+
+import model.Todo;
+import model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TodoShardsTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+    private static final Duration CACHE_TTL = Duration.ofMinutes(1);
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final User user = new User();
+
+    TodoShardsTest() {
+        user.setUsername("automation");
+        when(userRepository.findByUsername("automation")).thenReturn(Optional.of(user));
+    }
+
+    private TodoShards shardsAt(Instant now) {
+        return new TodoShards(userRepository, true, 16, CACHE_TTL, 1, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private static Todo todo(String id) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setUserId("automation");
+        return todo;
+    }
+
+    private static Set<Integer> shardsUsed(TodoShards shards) {
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            used.add(shards.shardFor(todo("todo-" + i)));
+        }
+        return used;
+    }
+
+    @Test
+    void testUsersDefaultToOneShard() {
+        TodoShards shards = shardsAt(NOW);
+
+        assertEquals(1, shards.readShards("automation"));
+        assertEquals(Set.of(0), shardsUsed(shards));
+    }
+
+    @Test
+    void testDisabledWritesEverythingToShardZero() {
+        user.setTodoShards(8);
+        TodoShards shards = new TodoShards(userRepository, false, 16, CACHE_TTL, 1, Clock.fixed(NOW, ZoneOffset.UTC));
+
+        assertEquals(1, shards.readShards("automation"));
+        assertEquals(Set.of(0), shardsUsed(shards));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testRaiseIsReadImmediatelyAndWrittenAfterGracePeriod() {
+        shardsAt(NOW).raise("automation", 4);
+        verify(userRepository).save(user);
+
+        TodoShards duringGrace = shardsAt(NOW.plus(CACHE_TTL));
+        assertEquals(4, duringGrace.readShards("automation"));
+        assertEquals(Set.of(0), shardsUsed(duringGrace));
+
+        TodoShards afterGrace = shardsAt(NOW.plus(CACHE_TTL.multipliedBy(2)));
+        assertEquals(Set.of(0, 1, 2, 3), shardsUsed(afterGrace));
+    }
+
+    @Test
+    void testRaiseDuringGraceKeepsTheCountInEffect() {
+        shardsAt(NOW).raise("automation", 2);
+        TodoShards.Layout layout = shardsAt(NOW.plusSeconds(10)).raise("automation", 8);
+
+        assertEquals(8, layout.getShards());
+        assertEquals(1, layout.getPreviousShards());
+    }
+
+    @Test
+    void testShardCountsCannotBeLowered() {
+        user.setTodoShards(4);
+        TodoShards shards = shardsAt(NOW);
+
+        assertThrows(IllegalArgumentException.class, () -> shards.raise("automation", 2));
+        assertThrows(IllegalArgumentException.class, () -> shards.raise("automation", 4));
+        assertThrows(IllegalArgumentException.class, () -> shards.raise("automation", 17));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void testTodosKeepTheirShard() {
+        user.setTodoShards(4);
+        TodoShards shards = shardsAt(NOW);
+        Todo todo = todo("todo-1");
+        todo.setShard(3);
+
+        assertEquals(3, shards.shardFor(todo));
+    }
+
+    @Test
+    void testShardKeysAreDerivedFromUserStatusAndShard() {
+        Todo todo = todo("todo-1");
+        todo.setStatus("PENDING");
+        assertNull(todo.getUserShard());
+
+        todo.setShard(2);
+        assertEquals("automation#2", todo.getUserShard());
+        assertEquals("automation#PENDING#2", todo.getUserStatusShard());
+    }
+}
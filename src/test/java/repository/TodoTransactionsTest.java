@@ -0,0 +1,63 @@
+package repository;
+
+import exception.DomainException;
+import exception.ErrorCode;
+import exception.PreconditionFailedException;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class TodoTransactionsTest {
+
+    private final DynamoDbClient client = mock(DynamoDbClient.class);
+
+    @Test
+    void testConflictOnTheCounterIsRetried() {
+        when(client.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(canceled("None", "TransactionConflict"))
+                .thenReturn(TransactWriteItemsResponse.builder().build());
+
+        TodoTransactions.write(client, List.of());
+
+        verify(client, times(2)).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
+
+    @Test
+    void testFailedConditionIsPreconditionFailedWithoutRetry() {
+        when(client.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(canceled("ConditionalCheckFailed", "TransactionConflict"));
+
+        assertThrows(PreconditionFailedException.class, () -> TodoTransactions.write(client, List.of()));
+
+        verify(client, times(1)).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
+
+    @Test
+    void testPersistentThrottlingIsOverloadedNotPreconditionFailed() {
+        when(client.transactWriteItems(any(TransactWriteItemsRequest.class)))
+                .thenThrow(canceled("ThrottlingError", "None"));
+
+        DomainException e = assertThrows(DomainException.class, () -> TodoTransactions.write(client, List.of()));
+
+        assertEquals(ErrorCode.SERVER_OVERLOADED, e.getCode());
+        verify(client, times(TodoTransactions.MAX_ATTEMPTS)).transactWriteItems(any(TransactWriteItemsRequest.class));
+    }
+
+    private static TransactionCanceledException canceled(String... codes) {
+        return TransactionCanceledException.builder()
+                .cancellationReasons(Arrays.stream(codes)
+                        .map(code -> CancellationReason.builder().code(code).build())
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,229 @@
+package service;
+
+import model.AccountPurgeJob;
+import model.Todo;
+import model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import repository.AccountPurgeJobRepository;
+import repository.SearchIndexRepository;
+import repository.TodoRepository;
+import repository.UserRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class AccountDeletionServiceTest {
+
+    private UserRepository userRepository;
+    private TodoRepository todoRepository;
+    private SearchIndexRepository searchIndexRepository;
+    private AccountPurgeJobRepository jobRepository;
+    private AccountDeletionService service;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        todoRepository = mock(TodoRepository.class);
+        searchIndexRepository = mock(SearchIndexRepository.class);
+        jobRepository = mock(AccountPurgeJobRepository.class);
+        service = new AccountDeletionService(userRepository, todoRepository, searchIndexRepository, jobRepository, 2, 2, 10_000,
+                Duration.ofMinutes(5), Duration.ofMinutes(1), Duration.ofMinutes(1));
+        when(jobRepository.save(any(AccountPurgeJob.class), any())).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static Stream<Todo> todos(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Todo todo = new Todo();
+            todo.setId("todo-" + i);
+            return todo;
+        });
+    }
+
+    private static AccountPurgeJob job(AccountPurgeJob.Status status) {
+        AccountPurgeJob job = new AccountPurgeJob();
+        job.setUserId("alice");
+        job.setJobId("job-1");
+        job.setStatus(status);
+        return job;
+    }
+
+    @Test
+    void testDeleteAccountRecordsJobBeforeDeletingProfile() {
+        User user = new User();
+        user.setId("user-1");
+        user.setUsername("alice");
+        when(jobRepository.findByUserId("alice")).thenReturn(Optional.empty());
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+
+        AccountPurgeJob job = service.deleteAccount("alice");
+
+        assertEquals("alice", job.getUserId());
+        assertNotNull(job.getJobId());
+        InOrder order = inOrder(jobRepository, userRepository);
+        order.verify(jobRepository).save(any(AccountPurgeJob.class));
+        order.verify(userRepository).deleteById("user-1");
+    }
+
+    @Test
+    void testDeleteAccountReturnsRunningPurge() {
+        AccountPurgeJob running = job(AccountPurgeJob.Status.RUNNING);
+        when(jobRepository.findByUserId("alice")).thenReturn(Optional.of(running));
+
+        assertSame(running, service.deleteAccount("alice"));
+        verify(userRepository, never()).deleteById(any());
+    }
+
+    @Test
+    void testPurgeDeletesInBatchesUntilNothingIsLeft() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.empty());
+        when(todoRepository.query(eq("alice"), any())).thenReturn(todos(60), Stream.empty());
+        List<Integer> batchSizes = new ArrayList<>();
+        doAnswer(invocation -> {
+            synchronized (batchSizes) {
+                batchSizes.add(invocation.<List<String>>getArgument(1).size());
+            }
+            return null;
+        }).when(todoRepository).deleteAllById(eq("alice"), anyList());
+        when(searchIndexRepository.deleteByUserId("alice")).thenReturn(12L);
+        AccountPurgeJob job = job(AccountPurgeJob.Status.PENDING);
+
+        service.purge(job);
+
+        assertEquals(AccountPurgeJob.Status.COMPLETED, job.getStatus());
+        assertEquals(60, job.getTodosDeleted());
+        assertNotNull(job.getExpiresAt());
+        batchSizes.sort(null);
+        assertEquals(List.of(10, 25, 25), batchSizes);
+        verify(todoRepository, times(2)).query(eq("alice"), any());
+        verify(searchIndexRepository).deleteByUserId("alice");
+    }
+
+    @Test
+    void testResumedPurgeKeepsProgressAndDeletesLeftoverProfile() {
+        User user = new User();
+        user.setId("user-1");
+        user.setUsername("alice");
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.of(user));
+        when(todoRepository.query(eq("alice"), any())).thenReturn(todos(5), Stream.empty());
+        AccountPurgeJob job = job(AccountPurgeJob.Status.RUNNING);
+        job.setTodosDeleted(100);
+
+        service.purge(job);
+
+        verify(userRepository).deleteById("user-1");
+        assertEquals(105, job.getTodosDeleted());
+        assertEquals(AccountPurgeJob.Status.COMPLETED, job.getStatus());
+    }
+
+    @Test
+    void testFailedBatchMarksJobFailed() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.empty());
+        when(todoRepository.query(eq("alice"), any())).thenReturn(todos(30));
+        doThrow(new IllegalStateException("throttled")).when(todoRepository).deleteAllById(eq("alice"), anyList());
+        AccountPurgeJob job = job(AccountPurgeJob.Status.PENDING);
+
+        service.purge(job);
+
+        assertEquals(AccountPurgeJob.Status.FAILED, job.getStatus());
+        assertEquals("throttled", job.getError());
+        assertEquals(1, job.getAttempts());
+        assertTrue(job.getNextAttemptAt().isAfter(Instant.now()));
+        assertNull(job.getOwner(), "a failed job gives up its lease so any instance can retry it");
+        verify(searchIndexRepository, never()).deleteByUserId(any());
+    }
+
+    @Test
+    void testPurgeStopsWhenAnotherInstanceTookTheLease() {
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.empty());
+        when(jobRepository.save(any(AccountPurgeJob.class), any())).thenReturn(false);
+        AccountPurgeJob job = job(AccountPurgeJob.Status.RUNNING);
+
+        service.purge(job);
+
+        assertEquals(AccountPurgeJob.Status.RUNNING, job.getStatus());
+        verify(todoRepository, never()).query(any(), any());
+    }
+
+    @Test
+    void testFailedJobIsRetriedOnlyOnceItsBackoffHasPassed() {
+        AccountPurgeJob waiting = job(AccountPurgeJob.Status.FAILED);
+        waiting.setNextAttemptAt(Instant.now().plus(Duration.ofMinutes(5)));
+        when(jobRepository.findUnfinished()).thenReturn(List.of(waiting));
+
+        service.resumeDue();
+        verify(jobRepository, after(200).never()).acquire(any(), anyLong());
+
+        AccountPurgeJob due = job(AccountPurgeJob.Status.FAILED);
+        due.setNextAttemptAt(Instant.now().minusSeconds(1));
+        when(jobRepository.findUnfinished()).thenReturn(List.of(due));
+        when(jobRepository.acquire(any(), anyLong())).thenReturn(true);
+        when(userRepository.findByUsername("alice")).thenReturn(Optional.empty());
+        when(todoRepository.query(eq("alice"), any())).thenReturn(Stream.empty());
+
+        service.resumeDue();
+
+        verify(jobRepository, timeout(1000).atLeastOnce())
+                .save(argThat(job -> job.getStatus() == AccountPurgeJob.Status.COMPLETED), any());
+        verify(searchIndexRepository).deleteByUserId("alice");
+    }
+
+    @Test
+    void testJobLeasedByAnotherInstanceIsLeftAlone() {
+        AccountPurgeJob leased = job(AccountPurgeJob.Status.RUNNING);
+        leased.setOwner("other-instance");
+        leased.setLeaseExpiresAt(Instant.now().plus(Duration.ofMinutes(5)).toEpochMilli());
+        AccountPurgeJob expired = job(AccountPurgeJob.Status.RUNNING);
+        expired.setUserId("bob");
+        expired.setOwner("crashed-instance");
+        expired.setLeaseExpiresAt(Instant.now().minusSeconds(1).toEpochMilli());
+        when(jobRepository.findUnfinished()).thenReturn(List.of(leased, expired));
+        // Another instance got to the expired one first
+        when(jobRepository.acquire(any(), anyLong())).thenReturn(false);
+
+        service.resumeDue();
+
+        verify(jobRepository, timeout(1000)).acquire(argThat(job -> job.getUserId().equals("bob")), anyLong());
+        verify(jobRepository, after(200).never()).acquire(argThat(job -> job.getUserId().equals("alice")), anyLong());
+        verify(todoRepository, never()).query(any(), any());
+        assertEquals("crashed-instance", expired.getOwner());
+    }
+
+    @Test
+    void testBackoffDoublesUpToTheCap() {
+        assertEquals(Duration.ofMinutes(1), service.backoff(1));
+        assertEquals(Duration.ofMinutes(4), service.backoff(3));
+        assertEquals(AccountDeletionService.MAX_RETRY_BACKOFF, service.backoff(30));
+    }
+
+    @Test
+    void testIsPurgingOnlyWhileUnfinished() {
+        when(jobRepository.findByUserId("alice")).thenReturn(Optional.of(job(AccountPurgeJob.Status.FAILED)));
+        assertTrue(service.isPurging("alice"));
+
+        when(jobRepository.findByUserId("alice")).thenReturn(Optional.of(job(AccountPurgeJob.Status.COMPLETED)));
+        assertFalse(service.isPurging("alice"));
+
+        when(jobRepository.findByUserId("bob")).thenReturn(Optional.empty());
+        assertFalse(service.isPurging("bob"));
+    }
+}
@@ -16,13 +16,15 @@ public class AuthServiceTest {
 
     private UserRepository userRepository;
     private JwtService jwtService;
+    private AccountDeletionService accountDeletionService;
     private AuthService authService;
 
     @BeforeEach
     void setUp() {
         userRepository = mock(UserRepository.class);
         jwtService = mock(JwtService.class);
-        authService = new AuthService(userRepository, jwtService);
+        accountDeletionService = mock(AccountDeletionService.class);
+        authService = new AuthService(userRepository, jwtService, accountDeletionService);
     }
 
     @Test
@@ -70,4 +72,16 @@ public class AuthServiceTest {
 
         assertEquals("Invalid password", thrown.getMessage());
     }
+
+    @Test
+    void testRegisterRejectsUsernameStillBeingPurged() {
+        when(userRepository.findByUsername("olduser")).thenReturn(Optional.empty());
+        when(accountDeletionService.isPurging("olduser")).thenReturn(true);
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> authService.register("olduser", "password123"));
+
+        assertEquals("Username already exists", thrown.getMessage());
+        verify(userRepository, never()).save(any());
+    }
 }
@@ -0,0 +1,139 @@
+package service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.HealthSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HealthMonitorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final MutableClock clock = new MutableClock();
+
+    private static HealthProbe probe(String name, boolean[] up, AtomicInteger calls) {
+        return new HealthProbe() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Map<String, Object> check() throws SQLException {
+                calls.incrementAndGet();
+                if (!up[0]) {
+                    throw new SQLException("connection refused");
+                }
+                return Map.of("database", name);
+            }
+        };
+    }
+
+    private HealthMonitor monitor(HealthProbe... probes) {
+        return new HealthMonitor(List.of(probes), registry, Duration.ofSeconds(10), Duration.ofSeconds(30), clock);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> report(HealthMonitor monitor, String probe) {
+        return (Map<String, Object>) monitor.getReports().get(probe);
+    }
+
+    @Test
+    void testUnknownUntilFirstProbe() {
+        HealthMonitor monitor = monitor(probe("jdbc", new boolean[]{true}, new AtomicInteger()));
+
+        assertEquals(HealthSnapshot.Status.UNKNOWN, monitor.getOverallStatus());
+        assertEquals("UNKNOWN", report(monitor, "jdbc").get("status"));
+    }
+
+    @Test
+    void testReadsServeTheSnapshotWithoutProbing() {
+        AtomicInteger calls = new AtomicInteger();
+        HealthMonitor monitor = monitor(probe("jdbc", new boolean[]{true}, calls));
+        monitor.refreshAll();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(HealthSnapshot.Status.UP, monitor.getOverallStatus());
+            assertEquals("jdbc", report(monitor, "jdbc").get("database"));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(1, registry.get("health.probe.duration").tags("probe", "jdbc", "outcome", "up").timer().count());
+        assertEquals(1.0, registry.get("health.probe.up").tag("probe", "jdbc").gauge().value());
+    }
+
+    @Test
+    void testAnyProbeDownIsDown() {
+        boolean[] dynamoUp = {true};
+        HealthMonitor monitor = monitor(probe("dynamodb", dynamoUp, new AtomicInteger()),
+                probe("jdbc", new boolean[]{true}, new AtomicInteger()));
+        dynamoUp[0] = false;
+        monitor.refreshAll();
+
+        assertEquals(HealthSnapshot.Status.DOWN, monitor.getOverallStatus());
+        assertEquals("connection refused", report(monitor, "dynamodb").get("error"));
+        assertEquals("UP", report(monitor, "jdbc").get("status"));
+        assertEquals(1, registry.get("health.probe.duration").tags("probe", "dynamodb", "outcome", "down").timer().count());
+
+        dynamoUp[0] = true;
+        monitor.refreshAll();
+        assertEquals(HealthSnapshot.Status.UP, monitor.getOverallStatus());
+    }
+
+    @Test
+    void testStaleSnapshotIsUnknown() {
+        HealthMonitor monitor = monitor(probe("jdbc", new boolean[]{true}, new AtomicInteger()));
+        monitor.refreshAll();
+
+        clock.advance(Duration.ofSeconds(20));
+        assertEquals(HealthSnapshot.Status.UP, monitor.getOverallStatus());
+        assertEquals(20_000L, report(monitor, "jdbc").get("ageMs"));
+
+        clock.advance(Duration.ofSeconds(20));
+        Map<String, Object> report = report(monitor, "jdbc");
+        assertEquals(HealthSnapshot.Status.UNKNOWN, monitor.getOverallStatus());
+        assertEquals("UNKNOWN", report.get("status"));
+        assertEquals("UP", report.get("lastStatus"));
+        assertEquals(true, report.get("stale"));
+    }
+
+    @Test
+    void testNoProbesIsUnknown() {
+        HealthMonitor monitor = monitor();
+
+        assertFalse(monitor.hasProbes());
+        assertEquals(HealthSnapshot.Status.UNKNOWN, monitor.getOverallStatus());
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T12:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.Todo;
+import model.TodoCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.TodoRepository;
+import repository.UserRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class TodoCountsReconcilerTest {
+
+    private static final Instant NOW = Instant.parse("2025-03-01T12:00:00Z");
+
+    private TodoRepository todoRepository;
+    private SimpleMeterRegistry registry;
+    private TodoCountsReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        todoRepository = mock(TodoRepository.class);
+        registry = new SimpleMeterRegistry();
+        reconciler = new TodoCountsReconciler(mock(UserRepository.class), todoRepository, registry,
+                Duration.ofHours(24), Duration.ofMinutes(1), Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void testCorrectsDriftedCounters() {
+        TodoCounts stored = new TodoCounts(3, 3, 0, Map.of(), 12, NOW.minusSeconds(3600));
+        when(todoRepository.findCounts("alice")).thenReturn(stored);
+        when(todoRepository.query(eq("alice"), any())).thenReturn(Stream.of(
+                todo("1", "PENDING", "2025-02-01"), todo("2", "COMPLETED", null)));
+        when(todoRepository.resetCounts(eq("alice"), any(), eq(12L))).thenReturn(true);
+
+        assertEquals(TodoCountsReconciler.Outcome.CORRECTED, reconciler.reconcile("alice"));
+
+        verify(todoRepository).resetCounts("alice", new TodoCounts(2, 1, 1, Map.of("2025-02-01", 1L), 0, null), 12L);
+        assertEquals(1.0, registry.get("todos.counters.corrected").counter().count());
+    }
+
+    @Test
+    void testCountsTodoSeenInBothTablesOnce() {
+        when(todoRepository.findCounts("alice")).thenReturn(new TodoCounts(1, 0, 1, Map.of(), 4, NOW.minusSeconds(3600)));
+        when(todoRepository.query(eq("alice"), any())).thenReturn(Stream.of(
+                todo("1", "COMPLETED", null), todo("1", "COMPLETED", null)));
+
+        assertEquals(TodoCountsReconciler.Outcome.UNCHANGED, reconciler.reconcile("alice"));
+
+        verify(todoRepository, never()).resetCounts(any(), any(), anyLong());
+    }
+
+    @Test
+    void testSkipsUsersWithRecentWrites() {
+        when(todoRepository.findCounts("alice")).thenReturn(new TodoCounts(5, 5, 0, Map.of(), 9, NOW.minusSeconds(10)));
+
+        assertEquals(TodoCountsReconciler.Outcome.BUSY, reconciler.reconcile("alice"));
+
+        verify(todoRepository, never()).query(any(), any());
+    }
+
+    @Test
+    void testLeavesCountersChangedDuringTheCount() {
+        when(todoRepository.findCounts("alice")).thenReturn(TodoCounts.NONE);
+        when(todoRepository.query(eq("alice"), any())).thenReturn(Stream.of(todo("1", "PENDING", null)));
+        when(todoRepository.resetCounts(eq("alice"), any(), eq(0L))).thenReturn(false);
+
+        assertEquals(TodoCountsReconciler.Outcome.BUSY, reconciler.reconcile("alice"));
+        assertEquals(0.0, registry.get("todos.counters.corrected").counter().count());
+    }
+
+    private static Todo todo(String id, String status, String dueDate) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setUserId("alice");
+        todo.setStatus(status);
+        todo.setDueDate(dueDate);
+        return todo;
+    }
+}
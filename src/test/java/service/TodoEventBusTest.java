@@ -0,0 +1,86 @@
+package service;
+
+import model.TodoEvent;
+import model.TodoResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TodoEventBusTest {
+
+    private TodoEventBus todoEventBus;
+
+    @BeforeEach
+    void setUp() {
+        todoEventBus = new TodoEventBus(new InMemoryTodoEventFanout(), 3);
+    }
+
+    @Test
+    void testEventsOnlyReachTheOwningUser() {
+        List<TodoEvent> alice = new ArrayList<>();
+        List<TodoEvent> bob = new ArrayList<>();
+        todoEventBus.subscribe("alice", null, alice::add);
+        todoEventBus.subscribe("bob", null, bob::add);
+
+        todoEventBus.publish(event("alice", "1"));
+
+        assertEquals(1, alice.size());
+        assertEquals("1", alice.get(0).getTodoId());
+        assertTrue(bob.isEmpty());
+    }
+
+    @Test
+    void testResumeReplaysEventsAfterLastEventId() {
+        Consumer<TodoEvent> first = e -> { };
+        todoEventBus.subscribe("alice", null, first);
+        TodoEvent seen = event("alice", "1");
+        todoEventBus.publish(seen);
+        todoEventBus.unsubscribe("alice", first);
+        todoEventBus.publish(event("alice", "2"));
+        todoEventBus.publish(event("alice", "3"));
+
+        List<TodoEvent> resumed = new ArrayList<>();
+        todoEventBus.subscribe("alice", seen.getId(), resumed::add);
+
+        assertEquals(List.of("2", "3"), resumed.stream().map(TodoEvent::getTodoId).toList());
+    }
+
+    @Test
+    void testResumeFromEvictedEventRequestsResync() {
+        todoEventBus.subscribe("alice", null, e -> { });
+        TodoEvent oldest = event("alice", "1");
+        todoEventBus.publish(oldest);
+        for (int i = 2; i <= 4; i++) {
+            todoEventBus.publish(event("alice", String.valueOf(i)));
+        }
+
+        List<TodoEvent> resumed = new ArrayList<>();
+        todoEventBus.subscribe("alice", oldest.getId(), resumed::add);
+
+        assertEquals(1, resumed.size());
+        assertEquals(TodoEvent.Type.RESYNC, resumed.get(0).getType());
+    }
+
+    @Test
+    void testEvictIdleKeepsChannelsWithListeners() {
+        List<TodoEvent> received = new ArrayList<>();
+        todoEventBus.subscribe("alice", null, received::add);
+
+        todoEventBus.evictIdle(Duration.ZERO);
+        todoEventBus.publish(event("alice", "1"));
+
+        assertEquals(1, received.size());
+    }
+
+    private static TodoEvent event(String userId, String todoId) {
+        TodoResponse todo = new TodoResponse();
+        todo.setId(todoId);
+        return TodoEvent.of(TodoEvent.Type.UPDATED, userId, todo);
+    }
+}
@@ -0,0 +1,99 @@
+package service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import exception.BadRequestException;
+import jakarta.validation.Validation;
+import model.Todo;
+import model.TodoImportResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import repository.TodoRepository;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class TodoImportServiceTest {
+
+    private TodoRepository todoRepository;
+    private TodoSearchService todoSearchService;
+    private TodoImportService todoImportService;
+
+    @BeforeEach
+    void setUp() {
+        todoRepository = mock(TodoRepository.class);
+        todoSearchService = mock(TodoSearchService.class);
+        todoImportService = new TodoImportService(todoRepository, todoSearchService,
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, 2);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        todoImportService.shutdown();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testImportBatchesValidRecordsAndSkipsInvalidOnes() throws Exception {
+        List<Todo> saved = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> saved.addAll(invocation.getArgument(0))).when(todoRepository).saveAll(anyList());
+
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            ndjson.append("{\"id\":\"foreign\",\"title\":\"Todo ").append(i)
+                    .append("\",\"status\":\"COMPLETED\",\"createdAt\":\"2024-01-01T12:00:00Z\"}\n");
+        }
+        ndjson.append("{\"title\":\"\"}\n");
+        ndjson.append("{\"title\":\"Bad status\",\"status\":\"DONE\"}\n");
+
+        TodoImportResult result = todoImportService.importTodos(
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(30, result.getImported());
+        assertEquals(2, result.getSkipped());
+        assertEquals(2, result.getErrors().size());
+        assertTrue(result.getErrors().get(1).startsWith("Record 32"));
+
+        verify(todoRepository, times(2)).saveAll(anyList());
+        verify(todoSearchService, times(2)).indexTodos(anyList());
+        assertEquals(30, saved.size());
+        Todo first = saved.get(0);
+        assertEquals("alice", first.getUserId());
+        assertNotEquals("foreign", first.getId());
+        assertEquals("COMPLETED", first.getStatus());
+        assertEquals(Instant.parse("2024-01-01T12:00:00Z"), first.getCreatedAt());
+    }
+
+    @Test
+    void testImportRejectsMalformedJson() {
+        byte[] ndjson = "{\"title\":\"ok\"}\n{\"title\": oops}\n".getBytes(StandardCharsets.UTF_8);
+
+        BadRequestException e = assertThrows(BadRequestException.class,
+                () -> todoImportService.importTodos(new ByteArrayInputStream(ndjson)));
+        assertTrue(e.getMessage().contains("record 2"));
+    }
+
+    @Test
+    void testImportFailsWhenBatchWriteFails() {
+        doThrow(new RuntimeException("throttled")).when(todoRepository).saveAll(anyList());
+        byte[] ndjson = "{\"title\":\"ok\"}\n".getBytes(StandardCharsets.UTF_8);
+
+        assertThrows(IllegalStateException.class,
+                () -> todoImportService.importTodos(new ByteArrayInputStream(ndjson)));
+    }
+}
@@ -0,0 +1,175 @@
+package service;
+
+import model.SearchPosting;
+import model.Todo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.SearchIndexRepository;
+import repository.TodoRepository;
+import util.SearchTokenizer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TodoSearchServiceTest {
+
+    private static final int PAGE = TodoSearchService.MAX_POSTINGS_PER_TERM + 1;
+
+    private SearchIndexRepository searchIndexRepository;
+    private TodoRepository todoRepository;
+    private TodoSearchService todoSearchService;
+
+    @BeforeEach
+    void setUp() {
+        searchIndexRepository = mock(SearchIndexRepository.class);
+        todoRepository = mock(TodoRepository.class);
+        todoSearchService = new TodoSearchService(searchIndexRepository, todoRepository, Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testTokenizerFoldsCaseAndDiacriticsAndDropsStopWords() {
+        assertEquals(List.of("buy", "cafe", "au", "lait", "2x"), SearchTokenizer.tokenize("Buy the Café-au-lait, 2x!"));
+        assertEquals(List.of("groceries", "th"), SearchTokenizer.tokenizeQuery("groceries th"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReindexOnlyWritesChangedTerms() {
+        Todo before = todo("1", "Buy milk", null);
+        Todo after = todo("1", "Buy bread", null);
+
+        todoSearchService.reindexTodo(before, after);
+
+        verify(searchIndexRepository).deleteAll("alice", List.of("milk#1"));
+        verify(searchIndexRepository).saveAll(argThat(postings ->
+                ((Collection<SearchPosting>) postings).stream().map(SearchPosting::getTermKey)
+                        .collect(Collectors.toList()).equals(List.of("bread#1"))));
+    }
+
+    @Test
+    void testSearchRequiresAllWordsAndRanksTitleMatchesFirst() {
+        when(searchIndexRepository.findByTermPrefix("alice", "buy#", PAGE))
+                .thenReturn(List.of(posting("buy", "1", 1.0), posting("buy", "2", 3.0), posting("buy", "3", 3.0)));
+        when(searchIndexRepository.findByTermPrefix("alice", "mil", PAGE))
+                .thenReturn(List.of(posting("milk", "1", 1.0), posting("milk", "2", 3.0)));
+        when(todoRepository.findAllById(eq("alice"), anyCollection()))
+                .thenReturn(List.of(todo("1", "Chores", "buy milk"), todo("2", "Buy milk", null)));
+
+        List<Todo> results = todoSearchService.search("alice", "buy mil", 10);
+
+        verify(todoRepository).findAllById(eq("alice"), argThat(ids -> ids.size() == 2 && !ids.contains("3")));
+        assertEquals(List.of("2", "1"), results.stream().map(Todo::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testCommonWordIsProbedForTheRarerWordsMatchesInsteadOfTruncated() {
+        // More "buy" postings than one read returns; todo 2 is not among them
+        List<SearchPosting> common = new ArrayList<>();
+        for (int i = 0; i < PAGE; i++) {
+            common.add(posting("buy", "x" + i, 1.0));
+        }
+        when(searchIndexRepository.findByTermPrefix("alice", "buy#", PAGE)).thenReturn(common);
+        when(searchIndexRepository.findByTermPrefix("alice", "mil", PAGE))
+                .thenReturn(List.of(posting("milk", "1", 1.0), posting("milk", "2", 3.0)));
+        when(searchIndexRepository.findByTermKeys(eq("alice"), argThat(keys -> Set.copyOf(keys).equals(Set.of("buy#1", "buy#2")))))
+                .thenReturn(List.of(posting("buy", "2", 3.0)));
+        when(searchIndexRepository.countByTermPrefix("alice", "buy#")).thenReturn(5000L);
+        when(todoRepository.findAllById(eq("alice"), anyCollection())).thenReturn(List.of(todo("2", "Buy milk", null)));
+
+        List<Todo> results = todoSearchService.search("alice", "buy mil", 10);
+
+        verify(todoRepository).findAllById(eq("alice"), argThat(ids -> ids.size() == 1 && ids.contains("2")));
+        verify(searchIndexRepository, never()).findByTermPrefix(any(), any(), eq(Integer.MAX_VALUE));
+        assertEquals(List.of("2"), results.stream().map(Todo::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testLongPrefixListIsReadUpToTheCap() {
+        List<SearchPosting> common = new ArrayList<>();
+        for (int i = 0; i < PAGE; i++) {
+            common.add(posting("milk", "x" + i, 1.0));
+        }
+        List<SearchPosting> all = new ArrayList<>(common);
+        all.add(posting("milkshake", "2", 1.0));
+        when(searchIndexRepository.findByTermPrefix("alice", "buy#", PAGE)).thenReturn(List.of(posting("buy", "2", 1.0)));
+        when(searchIndexRepository.findByTermPrefix("alice", "mil", PAGE)).thenReturn(common);
+        when(searchIndexRepository.findByTermPrefix("alice", "mil", TodoSearchService.MAX_POSTINGS_PER_PREFIX)).thenReturn(all);
+        when(todoRepository.findAllById(eq("alice"), anyCollection())).thenReturn(List.of(todo("2", "Buy milkshake", null)));
+
+        List<Todo> results = todoSearchService.search("alice", "buy mil", 10);
+
+        assertEquals(List.of("2"), results.stream().map(Todo::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testWhenEveryListIsLongTheFirstReadIsRankedInsteadOfReadingEverything() {
+        List<SearchPosting> common = new ArrayList<>();
+        for (int i = 0; i < PAGE; i++) {
+            common.add(posting("bread", "x" + i, i == 0 ? 3.0 : 1.0));
+        }
+        when(searchIndexRepository.findByTermPrefix("alice", "b", PAGE)).thenReturn(common);
+        when(todoRepository.findAllById(eq("alice"), anyCollection())).thenReturn(List.of(todo("x0", "Bread", null)));
+
+        todoSearchService.search("alice", "b", 1);
+
+        verify(searchIndexRepository, times(1)).findByTermPrefix(any(), any(), anyInt());
+        verify(todoRepository).findAllById(eq("alice"), argThat(ids -> ids.size() == 1 && ids.contains("x0")));
+    }
+
+    @Test
+    void testFailedUpdateIsRepairedFromTheStoredTodo() {
+        doThrow(new RuntimeException("throttled")).when(searchIndexRepository).deleteAll(any(), any());
+        todoSearchService.reindexTodo(todo("1", "Buy milk", null), todo("1", "Buy bread", null));
+        assertEquals(1, todoSearchService.pendingRepairs());
+
+        doNothing().when(searchIndexRepository).deleteAll(any(), any());
+        when(todoRepository.findAllById("alice", List.of("1"))).thenReturn(List.of(todo("1", "Buy bread", null)));
+        todoSearchService.repairPending();
+
+        assertEquals(0, todoSearchService.pendingRepairs());
+        // Once by the failed update, once by the repair: "buy" is still in the title, only "milk" is stale
+        verify(searchIndexRepository, times(2)).deleteAll("alice", List.of("milk#1"));
+        verify(searchIndexRepository).saveAll(argThat(postings -> postings.size() == 2));
+    }
+
+    @Test
+    void testRepairOfADeletedTodoOnlyDeletesItsPostingsAndStaysQueuedOnFailure() {
+        doThrow(new RuntimeException("throttled")).when(searchIndexRepository).deleteAll(any(), any());
+        todoSearchService.removeTodo(todo("1", "Milk", null));
+        when(todoRepository.findAllById("alice", List.of("1"))).thenReturn(List.of());
+
+        todoSearchService.repairPending();
+        assertEquals(1, todoSearchService.pendingRepairs());
+
+        doNothing().when(searchIndexRepository).deleteAll(any(), any());
+        todoSearchService.repairPending();
+
+        assertEquals(0, todoSearchService.pendingRepairs());
+        verify(searchIndexRepository, never()).saveAll(any());
+    }
+
+    private static Todo todo(String id, String title, String description) {
+        Todo todo = new Todo();
+        todo.setId(id);
+        todo.setUserId("alice");
+        todo.setTitle(title);
+        todo.setDescription(description);
+        return todo;
+    }
+
+    private static SearchPosting posting(String term, String todoId, double weight) {
+        SearchPosting posting = new SearchPosting();
+        posting.setUserId("alice");
+        posting.setTermKey(SearchPosting.termKey(term, todoId));
+        posting.setTodoId(todoId);
+        posting.setWeight(weight);
+        return posting;
+    }
+}
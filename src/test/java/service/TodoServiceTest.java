@@ -0,0 +1,84 @@
+package service;
+
+import exception.DomainException;
+import exception.ErrorCode;
+import exception.PreconditionFailedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import model.Todo;
+import model.TodoResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import repository.TodoRepository;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class TodoServiceTest {
+
+    private TodoRepository todoRepository;
+    private TodoService todoService;
+
+    @BeforeEach
+    void setUp() {
+        todoRepository = mock(TodoRepository.class);
+        todoService = new TodoService(todoRepository, mock(TodoSearchService.class), mock(TodoSyncService.class),
+                mock(TodoEventBus.class), new SimpleMeterRegistry());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("alice", null, Collections.emptyList()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testToggleWithoutIfMatchRetriesAfterLosingARace() {
+        when(todoRepository.findById(eq("alice"), eq("1"), anySet()))
+                .thenReturn(Optional.of(todo("PENDING", 4L)), Optional.of(todo("PENDING", 5L)));
+        doThrow(new PreconditionFailedException("lost")).doNothing().when(todoRepository).save(any(), any());
+
+        TodoResponse response = todoService.toggleTodo("1");
+
+        assertEquals("COMPLETED", response.getStatus());
+        verify(todoRepository, times(2)).findById(eq("alice"), eq("1"), anySet());
+    }
+
+    @Test
+    void testToggleWithoutIfMatchGivesUpWithConflict() {
+        when(todoRepository.findById(eq("alice"), eq("1"), anySet())).thenAnswer(invocation -> Optional.of(todo("PENDING", 4L)));
+        doThrow(new PreconditionFailedException("lost")).when(todoRepository).save(any(), any());
+
+        DomainException e = assertThrows(DomainException.class, () -> todoService.toggleTodo("1"));
+
+        assertEquals(ErrorCode.TODO_CONFLICT, e.getCode());
+        verify(todoRepository, times(TodoService.MAX_WRITE_ATTEMPTS)).save(any(), any());
+    }
+
+    @Test
+    void testToggleWithIfMatchIsNotRetried() {
+        when(todoRepository.findById(eq("alice"), eq("1"), anySet())).thenAnswer(invocation -> Optional.of(todo("PENDING", 4L)));
+        doThrow(new PreconditionFailedException("lost")).when(todoRepository).save(any(), any());
+
+        assertThrows(PreconditionFailedException.class, () -> todoService.toggleTodo("1", 4L));
+
+        verify(todoRepository, times(1)).save(any(), any());
+    }
+
+    private static Todo todo(String status, Long version) {
+        Todo todo = new Todo();
+        todo.setId("1");
+        todo.setUserId("alice");
+        todo.setTitle("Buy milk");
+        todo.setStatus(status);
+        todo.setVersion(version);
+        return todo;
+    }
+}
@@ -0,0 +1,85 @@
+package service;
+
+import exception.BadRequestException;
+import model.Todo;
+import model.TodoChanges;
+import model.TodoQuery;
+import model.TodoTombstone;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.TodoRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class TodoSyncServiceTest {
+
+    private TodoRepository todoRepository;
+    private TodoSyncService todoSyncService;
+
+    @BeforeEach
+    void setUp() {
+        todoRepository = mock(TodoRepository.class);
+        todoSyncService = new TodoSyncService(todoRepository);
+    }
+
+    @Test
+    void testChangesSinceReturnsUpdatesAndTombstones() {
+        Instant since = Instant.now().minus(Duration.ofHours(1));
+        Todo updated = new Todo();
+        updated.setId("1");
+        updated.setUserId("alice");
+        updated.setUpdatedAt(Instant.now());
+        TodoTombstone tombstone = new TodoTombstone();
+        tombstone.setTodoId("2");
+
+        when(todoRepository.findUpdatedSince("alice", since)).thenReturn(Stream.of(updated));
+        when(todoRepository.findTombstonesSince("alice", since)).thenReturn(List.of(tombstone));
+
+        TodoChanges changes = todoSyncService.changesSince("alice", TodoSyncService.encode(since));
+
+        assertFalse(changes.isReset());
+        assertEquals("1", changes.getChanged().get(0).getId());
+        assertEquals(List.of("2"), changes.getDeleted());
+        assertTrue(TodoSyncService.decode(changes.getSyncToken()).isAfter(since));
+        verify(todoRepository, never()).query(any(), any());
+    }
+
+    @Test
+    void testMissingOrExpiredTokenReturnsFullList() {
+        when(todoRepository.query(eq("alice"), any(TodoQuery.class))).thenAnswer(i -> Stream.of(new Todo()));
+
+        assertTrue(todoSyncService.changesSince("alice", null).isReset());
+        String expired = TodoSyncService.encode(Instant.now().minus(Duration.ofDays(31)));
+        TodoChanges changes = todoSyncService.changesSince("alice", expired);
+
+        assertTrue(changes.isReset());
+        assertEquals(1, changes.getChanged().size());
+        verify(todoRepository, never()).findTombstonesSince(any(), any());
+    }
+
+    @Test
+    void testInvalidTokenIsRejected() {
+        assertThrows(BadRequestException.class, () -> todoSyncService.changesSince("alice", "not-a-token"));
+    }
+
+    @Test
+    void testTombstoneExpiresAfterRetention() {
+        Todo todo = new Todo();
+        todo.setId("1");
+        todo.setUserId("alice");
+
+        TodoTombstone tombstone = todoSyncService.tombstoneFor(todo);
+
+        assertEquals("alice", tombstone.getUserId());
+        assertEquals(tombstone.getDeletedAt() + "#1", tombstone.getChangeKey());
+        assertEquals(tombstone.getDeletedAt().plus(Duration.ofDays(30)).getEpochSecond(), tombstone.getExpiresAt());
+    }
+}
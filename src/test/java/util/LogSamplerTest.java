@@ -0,0 +1,76 @@
+package util;
+
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class LogSamplerTest {
+
+    private final Logger logger = mock(Logger.class);
+    private final AtomicLong now = new AtomicLong();
+    private final LogSampler sampler = new LogSampler(logger, 2, Duration.ofMinutes(1), now::get);
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void testBurstIsLoggedAndTheRestSuppressed() {
+        assertTrue(sampler.allow("todo-not-found"));
+        assertTrue(sampler.allow("todo-not-found"));
+        assertFalse(sampler.allow("todo-not-found"));
+        assertFalse(sampler.allow("todo-not-found"));
+
+        // Keys are limited independently
+        assertTrue(sampler.allow("validation"));
+        verify(logger, never()).warn(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void testSummaryWhenTheWindowRollsOver() {
+        for (int i = 0; i < 5; i++) {
+            sampler.allow("todo-not-found");
+        }
+        advance(Duration.ofSeconds(61));
+
+        assertTrue(sampler.allow("todo-not-found"));
+        verify(logger).warn(anyString(), eq(3L), eq("todo-not-found"), eq(Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void testFlushReportsKeysThatStoppedRecurring() {
+        for (int i = 0; i < 4; i++) {
+            sampler.allow("unauthorized");
+        }
+        sampler.flush();
+        verify(logger, never()).warn(anyString(), any(), any(), any());
+
+        advance(Duration.ofMinutes(2));
+        sampler.flush();
+        verify(logger).warn(anyString(), eq(2L), eq("unauthorized"), eq(Duration.ofMinutes(1)));
+
+        // Nothing left to report for the new window
+        sampler.flush();
+        verify(logger).warn(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void testNothingIsReportedWithoutSuppression() {
+        sampler.allow("bad-request");
+        now.addAndGet(TimeUnit.MINUTES.toNanos(5));
+        sampler.flush();
+
+        verify(logger, never()).warn(anyString(), any(), any(), any());
+    }
+}
@@ -0,0 +1,75 @@
+package util;
+
+import com.amazonaws.serverless.proxy.model.AwsProxyRequest;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import com.amazonaws.serverless.proxy.model.Headers;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCompressorTest {
+
+    private final ResponseCompressor compressor = new ResponseCompressor(100);
+
+    @Test
+    void testCompressesLargeJsonWhenGzipAccepted() throws Exception {
+        String body = "[" + "{\"title\":\"todo\"},".repeat(50) + "{}]";
+        AwsProxyResponse response = compressor.compress(request("gzip, deflate, br"), jsonResponse(body));
+
+        assertTrue(response.isBase64Encoded());
+        assertEquals("gzip", response.getMultiValueHeaders().getFirst("Content-Encoding"));
+        byte[] compressed = Base64.getDecoder().decode(response.getBody());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(body, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testLeavesSmallOrUnacceptedResponsesAlone() {
+        String large = "x".repeat(500);
+        assertFalse(compressor.compress(request("gzip"), jsonResponse("{}")).isBase64Encoded());
+        assertFalse(compressor.compress(request("gzip;q=0, identity"), jsonResponse(large)).isBase64Encoded());
+        assertFalse(compressor.compress(request(null), jsonResponse(large)).isBase64Encoded());
+    }
+
+    @Test
+    void testExplicitGzipRefusalOverridesWildcard() {
+        assertFalse(ResponseCompressor.acceptsGzip("gzip;q=0, *"));
+        assertFalse(ResponseCompressor.acceptsGzip("*, gzip;q=0"));
+        assertTrue(ResponseCompressor.acceptsGzip("gzip;q=0.5, *;q=0"));
+        assertTrue(ResponseCompressor.acceptsGzip("br, *"));
+    }
+
+    @Test
+    void testVariesOnAcceptEncodingEvenWhenNotCompressed() {
+        AwsProxyResponse small = compressor.compress(request("gzip"), jsonResponse("{}"));
+        AwsProxyResponse refused = compressor.compress(request(null), jsonResponse("x".repeat(500)));
+        AwsProxyResponse compressed = compressor.compress(request("gzip"), jsonResponse("x".repeat(500)));
+
+        assertEquals("Accept-Encoding", small.getMultiValueHeaders().getFirst("Vary"));
+        assertEquals("Accept-Encoding", refused.getMultiValueHeaders().getFirst("Vary"));
+        assertEquals(1, compressed.getMultiValueHeaders().get("Vary").size());
+    }
+
+    private static AwsProxyRequest request(String acceptEncoding) {
+        AwsProxyRequest request = new AwsProxyRequest();
+        Headers headers = new Headers();
+        if (acceptEncoding != null) {
+            headers.putSingle("Accept-Encoding", acceptEncoding);
+        }
+        request.setMultiValueHeaders(headers);
+        return request;
+    }
+
+    private static AwsProxyResponse jsonResponse(String body) {
+        AwsProxyResponse response = new AwsProxyResponse(200);
+        response.addHeader("Content-Type", "application/json");
+        response.setBody(body);
+        return response;
+    }
+}
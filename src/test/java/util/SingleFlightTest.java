@@ -0,0 +1,143 @@
+package util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    private double count(String outcome) {
+        return registry.get("singleflight.calls").tag("name", "test").tag("outcome", outcome).counter().count();
+    }
+
+    /**
+     * Starts four concurrent calls for the same key; the loader blocks until the other three have joined.
+     */
+    private <V> List<Future<V>> callConcurrently(SingleFlight<String, V> flight, Supplier<V> result,
+                                                 AtomicInteger loads) throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<V>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(callers.submit(() -> flight.execute("alice", () -> {
+                loads.incrementAndGet();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return result.get();
+            })));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count("coalesced") < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        return calls;
+    }
+
+    @Test
+    void testConcurrentCallsShareOneLoad() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Future<String>> calls = callConcurrently(flight, () -> "user", loads);
+
+        for (Future<String> call : calls) {
+            assertEquals("user", call.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1.0, count("executed"));
+        assertEquals(3.0, count("coalesced"));
+    }
+
+    @Test
+    void testErrorsReachEveryCaller() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Future<String>> calls = callConcurrently(flight, () -> {
+            throw new IllegalStateException("throttled");
+        }, loads);
+
+        for (Future<String> call : calls) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            assertEquals("throttled", e.getCause().getMessage());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1.0, registry.get("singleflight.errors").tag("name", "test").counter().count());
+    }
+
+    @Test
+    void testWaitingCallersGetCopies() throws Exception {
+        SingleFlight<String, AtomicReference<String>> flight =
+                new SingleFlight<>("test", registry, value -> new AtomicReference<>(value.get()));
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Future<AtomicReference<String>>> calls = callConcurrently(flight, () -> new AtomicReference<>("todo"), loads);
+
+        List<AtomicReference<String>> results = new ArrayList<>();
+        for (Future<AtomicReference<String>> call : calls) {
+            results.add(call.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(4, results.stream().distinct().count());
+        results.forEach(result -> assertEquals("todo", result.get()));
+    }
+
+    @Test
+    void testNothingIsKeptAfterTheCall() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals(1, flight.execute("alice", loads::incrementAndGet));
+        assertEquals(2, flight.execute("alice", loads::incrementAndGet));
+        assertEquals(2.0, count("executed"));
+        assertEquals(0.0, count("coalesced"));
+    }
+
+    @Test
+    void testForgottenKeyStartsFreshCall() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test", registry);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> first = callers.submit(() -> flight.execute("alice", () -> {
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "before write";
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        flight.forget("alice");
+
+        assertEquals("after write", flight.execute("alice", () -> "after write"));
+        release.countDown();
+        assertEquals("before write", first.get(5, TimeUnit.SECONDS));
+    }
+}
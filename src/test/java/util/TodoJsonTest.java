@@ -0,0 +1,110 @@
+package util;
+
+import auth.AuthResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import model.TodoResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TodoJsonTest {
+
+    // Configured like the application's ObjectMapper
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .setFilterProvider(new SimpleFilterProvider().setFailOnUnknownId(false));
+
+    private static TodoResponse todo(String title, Instant createdAt) {
+        TodoResponse todo = new TodoResponse();
+        todo.setId("01HZXJ6Y0Q8W4T2V9K3M5N7P1R");
+        todo.setTitle(title);
+        todo.setStatus("PENDING");
+        todo.setCreatedAt(createdAt);
+        todo.setUpdatedAt(createdAt == null ? null : createdAt.plusSeconds(90_061));
+        todo.setDueDate("2025-03-01");
+        todo.setVersion(12);
+        return todo;
+    }
+
+    /**
+     * Jackson's output as the HTTP converter produces it: UTF-8 bytes, not a String (the two
+     * differ in how characters outside the BMP are written).
+     */
+    private String jackson(Object value) throws Exception {
+        return new String(objectMapper.writeValueAsBytes(value), StandardCharsets.UTF_8);
+    }
+
+    private void assertSameAsJackson(Object value) throws Exception {
+        assertEquals(jackson(value), new String(TodoJson.toBytes(value), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testTodoMatchesJackson() throws Exception {
+        assertSameAsJackson(todo("Buy milk", Instant.parse("2024-05-17T08:30:00Z")));
+        assertSameAsJackson(todo(null, null));
+    }
+
+    @Test
+    void testStringEscapingMatchesJackson() throws Exception {
+        assertSameAsJackson(todo("Quote \" backslash \\ slash / tab \t newline \n nul \u0000 bell \u0007", null));
+        assertSameAsJackson(todo("Ünïcödé €, emoji 😀, lone \uD83D surrogate", null));
+    }
+
+    @Test
+    void testInstantFractionsMatchJackson() throws Exception {
+        for (int nanos : new int[]{0, 1, 120_000_000, 123_456_000, 123_456_789}) {
+            assertSameAsJackson(todo("t", Instant.ofEpochSecond(1_700_000_000L, nanos)));
+        }
+        // Before the epoch, and past the four-digit years the date cache handles
+        assertSameAsJackson(todo("t", Instant.parse("1969-12-31T23:59:59.5Z")));
+        assertSameAsJackson(todo("t", Instant.ofEpochSecond(300_000_000_000L)));
+    }
+
+    @Test
+    void testListAndAuthResponseMatchJackson() throws Exception {
+        List<TodoResponse> todos = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            todos.add(todo("Todo " + i, Instant.ofEpochSecond(1_700_000_000L + i * 3_600L, i * 1_000_000)));
+        }
+        assertSameAsJackson(todos);
+        assertSameAsJackson(List.of());
+        assertSameAsJackson(new AuthResponse("eyJhbGciOiJIUzUxMiJ9.e30.sig"));
+    }
+
+    @Test
+    void testStreamingWritersMatchJackson() throws Exception {
+        List<TodoResponse> todos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            todos.add(todo("Todo " + i, Instant.ofEpochSecond(1_700_000_000L + i)));
+        }
+
+        ByteArrayOutputStream array = new ByteArrayOutputStream();
+        TodoJson.writeArray(todos.iterator(), array);
+        assertEquals(jackson(todos), array.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        TodoJson.writeLines(todos.subList(0, 2).iterator(), lines);
+        assertEquals(jackson(todos.get(0)) + "\n" + jackson(todos.get(1)) + "\n",
+                lines.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testSupports() {
+        assertTrue(TodoJson.supports(todo("t", null)));
+        assertTrue(TodoJson.supports(List.of(todo("t", null))));
+        assertTrue(TodoJson.supports(new AuthResponse("token")));
+        assertFalse(TodoJson.supports(List.of("not a todo")));
+        assertFalse(TodoJson.supports(Map.of("error", "x")));
+    }
+}
@@ -0,0 +1,24 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UlidTest {
+
+    @Test
+    void testUlidEncodesTimestampAndSortsByTime() {
+        String earlier = Ulid.generate(1_700_000_000_000L);
+        String later = Ulid.generate(1_700_000_000_001L);
+
+        assertEquals(26, earlier.length());
+        assertTrue(earlier.matches("[0-9A-HJKMNP-TV-Z]{26}"));
+        assertEquals("01HF7YAT00", earlier.substring(0, 10));
+        assertTrue(earlier.compareTo(later) < 0);
+    }
+
+    @Test
+    void testUlidsAreUnique() {
+        assertNotEquals(Ulid.generate(42L), Ulid.generate(42L));
+    }
+}